@@ -15,6 +15,9 @@ import com.filipeduraes.workshop.client.model.serviceorder.ServiceOrderControlle
 import com.filipeduraes.workshop.client.viewmodel.*;
 
 import com.filipeduraes.workshop.core.Workshop;
+import com.filipeduraes.workshop.core.persistence.DataBackup;
+
+import java.io.IOException;
 
 /**
  * Aplicação cliente de console para o sistema de oficina mecânica.
@@ -30,10 +33,19 @@ public class WorkshopClient
      * Inicializa todos os componentes do sistema, injeta dependências e inicia a interface baseada em menus.
      * Cria e gerencia o ciclo de vida dos controladores e view models.
      *
-     * @param args argumentos da linha de comando (não utilizados)
+     * <p>Também aceita os comandos de cópia de segurança da pasta de dados, executados sem abrir os menus:
+     * "backup" cria uma cópia incremental, "backups" lista as cópias e "restore &lt;nome&gt;" restaura uma cópia.</p>
+     *
+     * @param args argumentos da linha de comando, opcionalmente um comando de cópia de segurança
      */
     public static void main(String[] args)
     {
+        if (args.length > 0)
+        {
+            runBackupCommand(args);
+            return;
+        }
+
         if(ConsoleInput.readConfirmation("Deseja iniciar a Demo?"))
         {
             TestQuestions testQuestions = new TestQuestions();
@@ -52,6 +64,13 @@ public class WorkshopClient
         System.out.print(title);
         Workshop workshop = new Workshop(false);
 
+        if (workshop.getIntegrityReport().hasCorruption())
+        {
+            System.out.println("Atenção: os seguintes arquivos de dados estão corrompidos e podem ter perdido informações:");
+            workshop.getIntegrityReport().corruptedFiles().forEach(filePath -> System.out.println(" - " + filePath));
+            System.out.println("Ao serem lidos, os arquivos corrompidos são renomeados com a extensão .corrupt. Restaure uma cópia de segurança para recuperar os dados.");
+        }
+
         ViewModelRegistry viewModelRegistry = new ViewModelRegistry();
 
         EmployeeController employeeController = new EmployeeController(viewModelRegistry.getEmployeeViewModel(), workshop.getAuthModule());
@@ -72,6 +91,39 @@ public class WorkshopClient
         serviceOrderController.dispose();
         financeController.dispose();
 
-        workshop.dispose();
+        workshop.dispose(true);
+    }
+
+    private static void runBackupCommand(String[] args)
+    {
+        try
+        {
+            switch (args[0])
+            {
+                case "backup" ->
+                {
+                    DataBackup.Result result = DataBackup.createBackup();
+                    System.out.printf("Cópia de segurança %s criada: %d arquivos copiados (%d bytes), %d reaproveitados.%n",
+                                      result.snapshotName(), result.copiedCount(), result.copiedBytes(), result.linkedCount());
+                }
+                case "backups" -> DataBackup.listSnapshots().forEach(System.out::println);
+                case "restore" ->
+                {
+                    if (args.length < 2)
+                    {
+                        System.out.println("Informe o nome da cópia de segurança a ser restaurada.");
+                        return;
+                    }
+
+                    int restoredCount = DataBackup.restoreBackup(args[1]);
+                    System.out.printf("Cópia de segurança %s restaurada: %d arquivos.%n", args[1], restoredCount);
+                }
+                default -> System.out.println("Comando desconhecido: " + args[0] + ". Use backup, backups ou restore <nome>.");
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
     }
-}
\ No newline at end of file
+}
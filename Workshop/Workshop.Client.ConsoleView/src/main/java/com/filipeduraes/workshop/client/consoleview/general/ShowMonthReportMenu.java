@@ -6,12 +6,17 @@ import com.filipeduraes.workshop.client.consoleview.IWorkshopMenu;
 import com.filipeduraes.workshop.client.consoleview.MenuManager;
 import com.filipeduraes.workshop.client.consoleview.MenuResult;
 import com.filipeduraes.workshop.client.consoleview.input.ConsoleInput;
+import com.filipeduraes.workshop.client.viewmodel.IMonthRangeReportViewModel;
 import com.filipeduraes.workshop.client.viewmodel.IMonthReportViewModel;
 
+import java.time.LocalDate;
+
 /**
  * Menu abstrato para exibição de relatórios mensais.
  * Fornece funcionalidades comuns para solicitar período de relatório e exibir
  * os dados formatados para o usuário, permitindo seleção de mês e ano específicos.
+ * Relatórios que aceitam intervalos também permitem selecionar vários meses, como um trimestre
+ * ou o ano atual até o mês atual.
  *
  * Este menu serve como base para diferentes tipos de relatórios mensais do sistema.
  *
@@ -29,25 +34,16 @@ public abstract class ShowMonthReportMenu implements IWorkshopMenu
     @Override
     public MenuResult showMenu(MenuManager menuManager)
     {
-        boolean useCurrentMonth = ConsoleInput.readConfirmation("Deseja mostrar o relatorio do mes atual?");
-        int month = -1;
-        int year = -1;
+        IMonthReportViewModel employeeViewModel = getViewModel(menuManager);
 
-        if(!useCurrentMonth)
+        if(employeeViewModel instanceof IMonthRangeReportViewModel rangeReportViewModel)
         {
-            month = ConsoleInput.readLineInteger("Insira o mes desejado (1-12)", 1, 12);
-
-            boolean useCurrentYear = ConsoleInput.readConfirmation("Deseja mostrar o relatorio do ano atual?");
-
-            if(!useCurrentYear)
-            {
-                year = ConsoleInput.readLineInteger("Insira o ano desejado", 2000, 2100);
-            }
+            readSelectedPeriod(rangeReportViewModel);
+        }
+        else
+        {
+            readSelectedMonth(employeeViewModel);
         }
-
-        IMonthReportViewModel employeeViewModel = getViewModel(menuManager);
-        employeeViewModel.setSelectedMonth(month);
-        employeeViewModel.setSelectedYear(year);
 
         employeeViewModel.broadcastReportRequest();
 
@@ -59,7 +55,7 @@ public abstract class ShowMonthReportMenu implements IWorkshopMenu
         }
         else
         {
-            System.out.println("Nao foi possivel obter o relatorio do mes selecionado.");
+            System.out.println("Nao foi possivel obter o relatorio do periodo selecionado.");
         }
 
         if(canShowConfirmation())
@@ -71,6 +67,68 @@ public abstract class ShowMonthReportMenu implements IWorkshopMenu
         return MenuResult.pop();
     }
 
+    /**
+     * Lê o período de um relatório que aceita intervalos de meses: um único mês,
+     * um intervalo de meses ou o ano atual até o mês atual.
+     *
+     * @param viewModel ViewModel que recebe o período selecionado
+     */
+    private static void readSelectedPeriod(IMonthRangeReportViewModel viewModel)
+    {
+        String[] periodOptions = {"Um mes", "Intervalo de meses", "Ano atual ate o mes atual"};
+        int selectedPeriod = ConsoleInput.readOptionFromList("Qual periodo deseja mostrar?", periodOptions);
+
+        viewModel.setSelectedEndMonth(-1);
+        viewModel.setSelectedEndYear(-1);
+
+        switch (selectedPeriod)
+        {
+            case 0 -> readSelectedMonth(viewModel);
+            case 1 ->
+            {
+                viewModel.setSelectedMonth(ConsoleInput.readLineInteger("Insira o primeiro mes do intervalo (1-12)", 1, 12));
+                viewModel.setSelectedYear(ConsoleInput.readLineInteger("Insira o ano do primeiro mes", 2000, 2100));
+                viewModel.setSelectedEndMonth(ConsoleInput.readLineInteger("Insira o ultimo mes do intervalo (1-12)", 1, 12));
+                viewModel.setSelectedEndYear(ConsoleInput.readLineInteger("Insira o ano do ultimo mes", 2000, 2100));
+            }
+            default ->
+            {
+                LocalDate today = LocalDate.now();
+                viewModel.setSelectedMonth(1);
+                viewModel.setSelectedYear(today.getYear());
+                viewModel.setSelectedEndMonth(today.getMonthValue());
+                viewModel.setSelectedEndYear(today.getYear());
+            }
+        }
+    }
+
+    /**
+     * Lê o mês e o ano de um relatório de um único mês.
+     *
+     * @param viewModel ViewModel que recebe o mês selecionado
+     */
+    private static void readSelectedMonth(IMonthReportViewModel viewModel)
+    {
+        boolean useCurrentMonth = ConsoleInput.readConfirmation("Deseja mostrar o relatorio do mes atual?");
+        int month = -1;
+        int year = -1;
+
+        if(!useCurrentMonth)
+        {
+            month = ConsoleInput.readLineInteger("Insira o mes desejado (1-12)", 1, 12);
+
+            boolean useCurrentYear = ConsoleInput.readConfirmation("Deseja mostrar o relatorio do ano atual?");
+
+            if(!useCurrentYear)
+            {
+                year = ConsoleInput.readLineInteger("Insira o ano desejado", 2000, 2100);
+            }
+        }
+
+        viewModel.setSelectedMonth(month);
+        viewModel.setSelectedYear(year);
+    }
+
     /**
      * Obtém o ViewModel responsável por gerar o relatório mensal.
      * Deve ser implementado pelas classes filhas para fornecer o ViewModel
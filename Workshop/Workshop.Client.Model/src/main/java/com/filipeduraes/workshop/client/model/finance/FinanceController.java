@@ -17,11 +17,12 @@ import com.filipeduraes.workshop.core.financial.Sale;
 import com.filipeduraes.workshop.core.financial.Store;
 import com.filipeduraes.workshop.core.maintenance.ServiceOrder;
 import com.filipeduraes.workshop.core.maintenance.ServiceOrderModule;
+import com.filipeduraes.workshop.core.persistence.MonthRangeLoader;
 import com.filipeduraes.workshop.utils.TextUtils;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -47,6 +48,46 @@ public class FinanceController
     private final Store store;
     private final Workshop workshop;
 
+    /**
+     * Resumo das receitas e despesas de um ou mais meses de um balanço.
+     * As vendas diretas são separadas apenas no final, depois de conhecer as ordens de serviço
+     * concluídas em todo o período.
+     *
+     * @param sales vendas do período
+     * @param closedServiceOrders ordens de serviço concluídas no período
+     * @param totalServiceOrdersPrice valor total das ordens de serviço concluídas
+     * @param expenses despesas do período
+     * @param totalExpenses valor total das despesas
+     */
+    private record BalancePeriod(List<Sale> sales, List<ServiceOrder> closedServiceOrders, BigDecimal totalServiceOrdersPrice, List<Expense> expenses, BigDecimal totalExpenses)
+    {
+        /**
+         * Combina este período com o período seguinte.
+         *
+         * @param nextPeriod período seguinte
+         * @return período combinado
+         */
+        private BalancePeriod merge(BalancePeriod nextPeriod)
+        {
+            return new BalancePeriod
+            (
+                concatenate(sales, nextPeriod.sales()),
+                concatenate(closedServiceOrders, nextPeriod.closedServiceOrders()),
+                totalServiceOrdersPrice.add(nextPeriod.totalServiceOrdersPrice()),
+                concatenate(expenses, nextPeriod.expenses()),
+                totalExpenses.add(nextPeriod.totalExpenses())
+            );
+        }
+
+        private static <T> List<T> concatenate(List<T> previousItems, List<T> nextItems)
+        {
+            List<T> items = new ArrayList<>(previousItems.size() + nextItems.size());
+            items.addAll(previousItems);
+            items.addAll(nextItems);
+            return items;
+        }
+    }
+
     /**
      * Constrói um novo controlador financeiro.
      * Inicializa os serviços de inventário e itens de serviço, e registra os listeners
@@ -99,39 +140,52 @@ public class FinanceController
     }
 
     /**
-     * Gera o relatório de despesas do mês selecionado.
-     * Recupera todas as despesas do período e formata em um relatório legível.
+     * Gera o relatório de despesas do mês ou do intervalo de meses selecionado.
+     * As despesas de cada mês do intervalo são carregadas em paralelo e formatadas em um relatório legível.
      */
     private void generateExpensesMonthReport()
     {
-        LocalDateTime date = getTimeFromMonthAndYear(expenseViewModel.getSelectedMonth(), expenseViewModel.getSelectedYear());
-        List<Expense> monthExpenses = financialModule.getMonthExpenses(date);
+        ReportPeriod period = ReportPeriod.fromSelection(expenseViewModel.getSelectedMonth(), expenseViewModel.getSelectedYear(),
+                                                         expenseViewModel.getSelectedEndMonth(), expenseViewModel.getSelectedEndYear());
+
+        if(!period.isValid())
+        {
+            expenseViewModel.setReport("");
+            expenseViewModel.setRequestWasSuccessful(false);
+            return;
+        }
 
-        String report = monthExpenses.stream()
-                                     .map(Expense::toString)
-                                     .collect(Collectors.joining("\n"));
+        List<Expense> periodExpenses = MonthRangeLoader.loadAll(period.firstMonth(), period.lastMonth(), financialModule::getMonthExpenses);
+
+        String report = periodExpenses.stream()
+                                      .map(Expense::toString)
+                                      .collect(Collectors.joining("\n"));
 
         expenseViewModel.setReport(report);
         expenseViewModel.setRequestWasSuccessful(true);
     }
 
     /**
-     * Gera o relatório de balanço mensal completo.
+     * Gera o relatório de balanço completo do mês ou do intervalo de meses selecionado.
      * Calcula receitas (vendas diretas e ordens de serviço) e despesas,
-     * apresentando um balanço detalhado do período.
+     * apresentando um balanço detalhado do período. Os meses do intervalo são carregados
+     * em paralelo e os seus resumos são combinados na ordem dos meses.
      */
     private void generateMonthBalanceReport()
     {
-        ServiceOrderModule serviceOrderModule = workshop.getMaintenanceModule();
-        LocalDateTime date = getTimeFromMonthAndYear(financialViewModel.getSelectedMonth(), financialViewModel.getSelectedYear());
+        ReportPeriod period = ReportPeriod.fromSelection(financialViewModel.getSelectedMonth(), financialViewModel.getSelectedYear(),
+                                                         financialViewModel.getSelectedEndMonth(), financialViewModel.getSelectedEndYear());
 
-        Set<UUID> closedServicesIDs = serviceOrderModule.loadClosedServicesInMonth(date);
-        List<Expense> monthExpenses = financialModule.getMonthExpenses(date);
-        List<Sale> monthSales = store.getMonthSales(date);
+        if(!period.isValid())
+        {
+            financialViewModel.setReport("");
+            financialViewModel.setRequestWasSuccessful(false);
+            return;
+        }
 
-        List<ServiceOrder> closedServiceOrders = closedServicesIDs.stream()
-                                                                  .map(id -> serviceOrderModule.getServiceOrderRepository().getEntityWithID(id))
-                                                                  .toList();
+        BalancePeriod balancePeriod = MonthRangeLoader.loadAndMerge(period.firstMonth(), period.lastMonth(), this::loadMonthBalance, BalancePeriod::merge);
+        List<ServiceOrder> closedServiceOrders = balancePeriod.closedServiceOrders();
+        List<Expense> periodExpenses = balancePeriod.expenses();
 
         Set<UUID> serviceOrdersSales = closedServiceOrders.stream()
                                                            .map(ServiceOrder::getSales)
@@ -139,16 +193,17 @@ public class FinanceController
                                                            .map(WorkshopEntity::getID)
                                                            .collect(Collectors.toSet());
 
-        List<Sale> detachedSales = monthSales.stream()
-                                             .filter(sale -> !serviceOrdersSales.contains(sale.getID()))
-                                             .toList();
+        List<Sale> detachedSales = balancePeriod.sales().stream()
+                                                .filter(sale -> !serviceOrdersSales.contains(sale.getID()))
+                                                .toList();
 
         StringBuilder builder = new StringBuilder();
-        TextUtils.appendSectionTitle(builder, String.format("BALANCO MENSAL - %s", TextUtils.formatMonthDate(date)));
+        String title = period.isSingleMonth() ? "BALANCO MENSAL" : "BALANCO DO PERIODO";
+        TextUtils.appendSectionTitle(builder, String.format("%s - %s", title, period.format()));
         TextUtils.appendSectionTitle(builder, "+ RECEITAS");
 
         BigDecimal totalSalesPrice = getTotalSalesPrice(detachedSales);
-        BigDecimal totalServiceOrdersPrice = getTotalServiceOrdersPrice(closedServiceOrders);
+        BigDecimal totalServiceOrdersPrice = balancePeriod.totalServiceOrdersPrice();
 
         appendDetachedSales(builder, detachedSales, TextUtils.formatPrice(totalSalesPrice));
         appendServiceOrders(builder, closedServiceOrders, TextUtils.formatPrice(totalServiceOrdersPrice));
@@ -157,8 +212,8 @@ public class FinanceController
         TextUtils.appendSeparator(builder);
         builder.append(String.format("TOTAL RECEITAS: %s", TextUtils.formatPrice(totalIncome)));
 
-        BigDecimal totalExpenses = getTotalExpenses(monthExpenses);
-        appendExpenses(builder, monthExpenses, TextUtils.formatPrice(totalExpenses));
+        BigDecimal totalExpenses = balancePeriod.totalExpenses();
+        appendExpenses(builder, periodExpenses, TextUtils.formatPrice(totalExpenses));
 
         BigDecimal balance = totalIncome.subtract(totalExpenses);
         String balanceType = balance.compareTo(BigDecimal.ZERO) < 0 ? "PREJUIZO" : "LUCRO";
@@ -170,6 +225,27 @@ public class FinanceController
         financialViewModel.setRequestWasSuccessful(true);
     }
 
+    /**
+     * Carrega as vendas, as ordens de serviço concluídas e as despesas de um mês, já somando os totais do mês.
+     * Executado em paralelo para cada mês do período pelo {@link MonthRangeLoader}.
+     *
+     * @param month início do mês
+     * @return resumo do mês
+     */
+    private BalancePeriod loadMonthBalance(LocalDateTime month)
+    {
+        ServiceOrderModule serviceOrderModule = workshop.getMaintenanceModule();
+
+        List<ServiceOrder> closedServiceOrders = serviceOrderModule.loadClosedServicesInMonth(month)
+                                                                   .stream()
+                                                                   .map(id -> serviceOrderModule.getServiceOrderRepository().getEntityWithID(id))
+                                                                   .toList();
+
+        List<Expense> monthExpenses = financialModule.getMonthExpenses(month);
+
+        return new BalancePeriod(store.getMonthSales(month), closedServiceOrders, getTotalServiceOrdersPrice(closedServiceOrders), monthExpenses, getTotalExpenses(monthExpenses));
+    }
+
     /**
      * Adiciona as vendas diretas da loja ao relatório.
      * Formata e inclui as vendas que não estão associadas a ordens de serviço.
@@ -320,27 +396,4 @@ public class FinanceController
             .map(Expense::getAmount)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
-
-    /**
-     * Converte mês e ano em uma data LocalDateTime.
-     * Se o mês for inválido, retorna a data atual.
-     * Se o ano for inválido, usa o ano atual.
-     *
-     * @param month mês (1-12)
-     * @param year ano
-     * @return LocalDateTime representando o primeiro dia do mês/ano especificado
-     */
-    private LocalDateTime getTimeFromMonthAndYear(int month, int year)
-    {
-        if(month <= 0)
-        {
-            return LocalDateTime.now();
-        }
-        else if(year <= 0)
-        {
-            return LocalDateTime.of(LocalDate.now().getYear(), month, 1, 0, 0);
-        }
-
-        return LocalDateTime.of(year, month, 1, 0, 0);
-    }
 }
\ No newline at end of file
@@ -8,11 +8,13 @@ import com.filipeduraes.workshop.client.viewmodel.InventoryViewModel;
 import com.filipeduraes.workshop.client.viewmodel.ViewModelRegistry;
 import com.filipeduraes.workshop.core.CrudRepository;
 import com.filipeduraes.workshop.core.Workshop;
+import com.filipeduraes.workshop.core.catalog.CatalogSnapshot;
 import com.filipeduraes.workshop.core.catalog.PricedItem;
 import com.filipeduraes.workshop.core.catalog.ProductCatalog;
 import com.filipeduraes.workshop.core.catalog.StoreItem;
 import com.filipeduraes.workshop.core.financial.Sale;
 import com.filipeduraes.workshop.core.financial.Store;
+import com.filipeduraes.workshop.core.persistence.MonthRangeLoader;
 import com.filipeduraes.workshop.utils.TextUtils;
 
 import java.math.BigDecimal;
@@ -36,6 +38,20 @@ public class InventoryService
     private final Store store;
     private final ProductCatalog catalog;
 
+    /**
+     * Vendas de um ou mais meses e o seu valor total.
+     */
+    private record SalesPeriod(List<Sale> sales, BigDecimal totalPrice)
+    {
+        private SalesPeriod merge(SalesPeriod nextPeriod)
+        {
+            List<Sale> periodSales = new ArrayList<>(sales.size() + nextPeriod.sales().size());
+            periodSales.addAll(sales);
+            periodSales.addAll(nextPeriod.sales());
+            return new SalesPeriod(periodSales, totalPrice.add(nextPeriod.totalPrice()));
+        }
+    }
+
     /**
      * Cria uma nova instância do controlador de inventário.
      *
@@ -101,7 +117,8 @@ public class InventoryService
             case DESCRIPTION -> queriedStoreItems = storeItemsRepository.searchEntitiesWithPattern(inventoryViewModel.getSearchPattern(), PricedItem::getName);
         }
 
-        List<String> descriptions = queriedStoreItems.stream().map(StoreItem::getListDescription).toList();
+        CatalogSnapshot<StoreItem> storeItemsSnapshot = catalog.getStoreItemsSnapshot();
+        List<String> descriptions = queriedStoreItems.stream().map(storeItemsSnapshot::getListDescription).toList();
 
         inventoryViewModel.setFoundEntitiesDescriptions(descriptions);
         inventoryViewModel.setRequestWasSuccessful(true);
@@ -215,31 +232,20 @@ public class InventoryService
 
     private void generateMonthSalesReport()
     {
-        List<Sale> monthSales;
-        int selectedMonth = inventoryViewModel.getSelectedMonth();
-        int selectedYear = inventoryViewModel.getSelectedYear();
+        ReportPeriod period = ReportPeriod.fromSelection(inventoryViewModel.getSelectedMonth(), inventoryViewModel.getSelectedYear(),
+                                                         inventoryViewModel.getSelectedEndMonth(), inventoryViewModel.getSelectedEndYear());
 
-        if(selectedMonth < 0 || selectedMonth > 12)
-        {
-            monthSales = store.getCurrentMonthSales();
-        }
-        else if(selectedYear < 0)
+        if(!period.isValid())
         {
-            LocalDateTime date = LocalDateTime.of(LocalDateTime.now().getYear(), selectedMonth, 1, 0, 0);
-            monthSales = store.getMonthSales(date);
-        }
-        else
-        {
-            LocalDateTime date = LocalDateTime.of(selectedYear, selectedMonth, 1, 0, 0);
-            monthSales = store.getMonthSales(date);
+            inventoryViewModel.setReport("");
+            inventoryViewModel.setSaleTotalPrice(TextUtils.formatPrice(BigDecimal.ZERO));
+            inventoryViewModel.setRequestWasSuccessful(false);
+            return;
         }
 
-        BigDecimal totalPrice = new BigDecimal("0.0");
-
-        for(Sale sale : monthSales)
-        {
-            totalPrice = totalPrice.add(sale.getTotalPrice());
-        }
+        SalesPeriod salesPeriod = MonthRangeLoader.loadAndMerge(period.firstMonth(), period.lastMonth(), this::loadMonthSales, SalesPeriod::merge);
+        List<Sale> monthSales = salesPeriod.sales();
+        BigDecimal totalPrice = salesPeriod.totalPrice();
 
         String report = monthSales.stream()
                                   .map(Sale::toString)
@@ -247,6 +253,24 @@ public class InventoryService
 
         inventoryViewModel.setReport(report);
         inventoryViewModel.setSaleTotalPrice(TextUtils.formatPrice(totalPrice));
+        inventoryViewModel.setRequestWasSuccessful(true);
+    }
+
+    /**
+     * Carrega as vendas de um mês e soma o seu valor total.
+     * Executado em paralelo para cada mês do período pelo {@link MonthRangeLoader}.
+     */
+    private SalesPeriod loadMonthSales(LocalDateTime month)
+    {
+        List<Sale> monthSales = store.getMonthSales(month);
+        BigDecimal totalPrice = new BigDecimal("0.0");
+
+        for(Sale sale : monthSales)
+        {
+            totalPrice = totalPrice.add(sale.getTotalPrice());
+        }
+
+        return new SalesPeriod(monthSales, totalPrice);
     }
 
     private void deleteItem()
@@ -0,0 +1,84 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.client.model.finance;
+
+import com.filipeduraes.workshop.utils.TextUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Período de um relatório financeiro: um único mês ou um intervalo de meses selecionado nos ViewModels.
+ *
+ * @param firstMonth início do primeiro mês do período
+ * @param lastMonth início do último mês do período
+ * @author Filipe Durães
+ */
+record ReportPeriod(LocalDateTime firstMonth, LocalDateTime lastMonth)
+{
+    /**
+     * Cria o período a partir dos valores selecionados nos ViewModels.
+     * Um mês inválido seleciona o mês atual, e um ano inválido seleciona o ano atual.
+     * Sem um último mês, o período tem apenas o primeiro mês.
+     *
+     * @param month primeiro mês (1-12)
+     * @param year ano do primeiro mês
+     * @param endMonth último mês (1-12), ou -1 para um único mês
+     * @param endYear ano do último mês
+     * @return período selecionado
+     */
+    static ReportPeriod fromSelection(int month, int year, int endMonth, int endYear)
+    {
+        LocalDateTime firstMonth = getMonthStart(month, year);
+        LocalDateTime lastMonth = endMonth > 0 ? getMonthStart(endMonth, endYear) : firstMonth;
+        return new ReportPeriod(firstMonth, lastMonth);
+    }
+
+    /**
+     * Verifica se o último mês não é anterior ao primeiro.
+     *
+     * @return true se o período for válido
+     */
+    boolean isValid()
+    {
+        return !lastMonth.isBefore(firstMonth);
+    }
+
+    /**
+     * Verifica se o período tem apenas um mês.
+     *
+     * @return true se o primeiro e o último mês forem o mesmo
+     */
+    boolean isSingleMonth()
+    {
+        return YearMonth.from(firstMonth).equals(YearMonth.from(lastMonth));
+    }
+
+    /**
+     * Formata o período para os títulos dos relatórios, como "Janeiro 2025" ou "Janeiro 2025 A Março 2025".
+     *
+     * @return período formatado
+     */
+    String format()
+    {
+        if (isSingleMonth())
+        {
+            return TextUtils.formatMonthDate(firstMonth);
+        }
+
+        return String.format("%s A %s", TextUtils.formatMonthDate(firstMonth), TextUtils.formatMonthDate(lastMonth));
+    }
+
+    private static LocalDateTime getMonthStart(int month, int year)
+    {
+        LocalDate today = LocalDate.now();
+
+        if (month <= 0 || month > 12)
+        {
+            return today.withDayOfMonth(1).atStartOfDay();
+        }
+
+        return LocalDateTime.of(year > 0 ? year : today.getYear(), month, 1, 0, 0);
+    }
+}
@@ -8,6 +8,7 @@ import com.filipeduraes.workshop.client.viewmodel.EntityViewModel;
 import com.filipeduraes.workshop.client.viewmodel.ViewModelRegistry;
 import com.filipeduraes.workshop.core.CrudRepository;
 import com.filipeduraes.workshop.core.Workshop;
+import com.filipeduraes.workshop.core.catalog.CatalogSnapshot;
 import com.filipeduraes.workshop.core.catalog.PricedItem;
 import com.filipeduraes.workshop.core.catalog.ProductCatalog;
 
@@ -92,7 +93,8 @@ public class ServiceItemService
             case DESCRIPTION -> queriedServiceItems = catalogRepository.searchEntitiesWithPattern(serviceItemsViewModel.getSearchPattern(), PricedItem::getDescription);
         }
 
-        List<String> descriptions = queriedServiceItems.stream().map(PricedItem::getListDescription).toList();
+        CatalogSnapshot<PricedItem> servicesSnapshot = catalog.getServicesSnapshot();
+        List<String> descriptions = queriedServiceItems.stream().map(servicesSnapshot::getListDescription).toList();
         serviceItemsViewModel.setFoundEntitiesDescriptions(descriptions);
         serviceItemsViewModel.setRequestWasSuccessful(true);
     }
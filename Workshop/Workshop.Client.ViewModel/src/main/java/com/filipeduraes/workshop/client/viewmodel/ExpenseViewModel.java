@@ -8,12 +8,12 @@ import com.filipeduraes.workshop.utils.Observer;
 /**
  * ViewModel responsável por gerenciar os dados e estados relacionados às despesas
  * da oficina, incluindo registro de novas despesas e relatórios mensais.
- * Esta classe implementa a interface IMonthReportViewModel para fornecer
- * funcionalidades de relatórios mensais de despesas.
+ * Esta classe implementa a interface IMonthRangeReportViewModel para fornecer
+ * funcionalidades de relatórios de despesas de um mês ou de um intervalo de meses.
  *
  * @author Filipe Durães
  */
-public class ExpenseViewModel implements IMonthReportViewModel
+public class ExpenseViewModel implements IMonthRangeReportViewModel
 {
     /**
      * Evento disparado quando é solicitado o relatório de despesas do mês.
@@ -30,6 +30,8 @@ public class ExpenseViewModel implements IMonthReportViewModel
     private boolean requestWasSuccessful = false;
     private int selectedMonth = -1;
     private int selectedYear = -1;
+    private int selectedEndMonth = -1;
+    private int selectedEndYear = -1;
 
     /**
      * Define o mês selecionado para filtro de relatório.
@@ -53,6 +55,28 @@ public class ExpenseViewModel implements IMonthReportViewModel
         selectedYear = year;
     }
 
+    /**
+     * Define o último mês do intervalo do relatório.
+     *
+     * @param month último mês do intervalo (1-12), ou -1 para um relatório de um único mês
+     */
+    @Override
+    public void setSelectedEndMonth(int month)
+    {
+        selectedEndMonth = month;
+    }
+
+    /**
+     * Define o ano do último mês do intervalo do relatório.
+     *
+     * @param year ano do último mês do intervalo, ou -1 para o ano atual
+     */
+    @Override
+    public void setSelectedEndYear(int year)
+    {
+        selectedEndYear = year;
+    }
+
     /**
      * Dispara o evento de solicitação de relatório de despesas.
      */
@@ -104,6 +128,26 @@ public class ExpenseViewModel implements IMonthReportViewModel
         return selectedYear;
     }
 
+    /**
+     * Obtém o último mês do intervalo do relatório.
+     *
+     * @return último mês do intervalo ou -1 se o relatório for de um único mês
+     */
+    public int getSelectedEndMonth()
+    {
+        return selectedEndMonth;
+    }
+
+    /**
+     * Obtém o ano do último mês do intervalo do relatório.
+     *
+     * @return ano do último mês do intervalo ou -1 se nenhum ano estiver selecionado
+     */
+    public int getSelectedEndYear()
+    {
+        return selectedEndYear;
+    }
+
     /**
      * Define o status da última requisição.
      *
@@ -7,12 +7,12 @@ import com.filipeduraes.workshop.utils.Observer;
 /**
  * ViewModel responsável por gerenciar os dados e estados relacionados às operações
  * financeiras da oficina, incluindo relatórios de balanço mensal.
- * Esta classe implementa a interface IMonthReportViewModel para fornecer
- * funcionalidades de relatórios mensais.
+ * Esta classe implementa a interface IMonthRangeReportViewModel para fornecer
+ * funcionalidades de relatórios de um mês ou de um intervalo de meses.
  *
  * @author Filipe Durães
  */
-public class FinancialViewModel implements IMonthReportViewModel
+public class FinancialViewModel implements IMonthRangeReportViewModel
 {
     /**
      * Evento disparado quando é solicitado o relatório de balanço mensal.
@@ -22,6 +22,8 @@ public class FinancialViewModel implements IMonthReportViewModel
     private String report = "";
     private int selectedMonth = -1;
     private int selectedYear = -1;
+    private int selectedEndMonth = -1;
+    private int selectedEndYear = -1;
     private boolean requestWasSuccessful = false;
 
     /**
@@ -46,6 +48,28 @@ public class FinancialViewModel implements IMonthReportViewModel
         selectedYear = year;
     }
 
+    /**
+     * Define o último mês do intervalo do relatório.
+     *
+     * @param month último mês do intervalo (1-12), ou -1 para um relatório de um único mês
+     */
+    @Override
+    public void setSelectedEndMonth(int month)
+    {
+        selectedEndMonth = month;
+    }
+
+    /**
+     * Define o ano do último mês do intervalo do relatório.
+     *
+     * @param year ano do último mês do intervalo, ou -1 para o ano atual
+     */
+    @Override
+    public void setSelectedEndYear(int year)
+    {
+        selectedEndYear = year;
+    }
+
     /**
      * Dispara o evento de solicitação de relatório de balanço.
      */
@@ -97,6 +121,26 @@ public class FinancialViewModel implements IMonthReportViewModel
         return selectedYear;
     }
 
+    /**
+     * Obtém o último mês do intervalo do relatório.
+     *
+     * @return último mês do intervalo ou -1 se o relatório for de um único mês
+     */
+    public int getSelectedEndMonth()
+    {
+        return selectedEndMonth;
+    }
+
+    /**
+     * Obtém o ano do último mês do intervalo do relatório.
+     *
+     * @return ano do último mês do intervalo ou -1 se nenhum ano estiver selecionado
+     */
+    public int getSelectedEndYear()
+    {
+        return selectedEndYear;
+    }
+
     /**
      * Define o relatório financeiro.
      *
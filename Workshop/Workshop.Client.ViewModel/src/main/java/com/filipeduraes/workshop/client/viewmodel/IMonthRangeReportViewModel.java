@@ -0,0 +1,27 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.client.viewmodel;
+
+/**
+ * Interface para ViewModels de relatórios que também aceitam um intervalo de meses,
+ * como balanços trimestrais e anuais. O mês e o ano selecionados em {@link IMonthReportViewModel}
+ * definem o início do intervalo, e o mês e o ano finais definem o último mês incluído.
+ *
+ * @author Filipe Durães
+ */
+public interface IMonthRangeReportViewModel extends IMonthReportViewModel
+{
+    /**
+     * Define o último mês do intervalo do relatório.
+     *
+     * @param month último mês do intervalo (1-12), ou -1 para um relatório de um único mês
+     */
+    void setSelectedEndMonth(int month);
+
+    /**
+     * Define o ano do último mês do intervalo do relatório.
+     *
+     * @param year ano do último mês do intervalo, ou -1 para o ano atual
+     */
+    void setSelectedEndYear(int year);
+}
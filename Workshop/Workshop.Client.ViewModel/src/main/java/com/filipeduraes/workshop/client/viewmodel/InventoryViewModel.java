@@ -13,7 +13,7 @@ import java.util.UUID;
  *
  * @author Filipe Durães
  */
-public class InventoryViewModel extends EntityViewModel<StoreItemDTO> implements IMonthReportViewModel
+public class InventoryViewModel extends EntityViewModel<StoreItemDTO> implements IMonthRangeReportViewModel
 {
     /**
      * Evento disparado quando é solicitado o reabastecimento de um item no estoque.
@@ -39,6 +39,8 @@ public class InventoryViewModel extends EntityViewModel<StoreItemDTO> implements
 
     private int selectedYear = -1;
     private int selectedMonth = -1;
+    private int selectedEndYear = -1;
+    private int selectedEndMonth = -1;
 
     /**
      * Obtém a quantidade de itens para reestoque.
@@ -189,6 +191,48 @@ public class InventoryViewModel extends EntityViewModel<StoreItemDTO> implements
         this.selectedMonth = selectedMonth;
     }
 
+    /**
+     * Define o último mês do intervalo do relatório.
+     *
+     * @param month último mês do intervalo (1-12), ou −1 para um relatório de um único mês
+     */
+    @Override
+    public void setSelectedEndMonth(int month)
+    {
+        selectedEndMonth = month;
+    }
+
+    /**
+     * Define o ano do último mês do intervalo do relatório.
+     *
+     * @param year ano do último mês do intervalo, ou −1 para o ano atual
+     */
+    @Override
+    public void setSelectedEndYear(int year)
+    {
+        selectedEndYear = year;
+    }
+
+    /**
+     * Obtém o último mês do intervalo do relatório.
+     *
+     * @return último mês do intervalo ou −1 se o relatório for de um único mês
+     */
+    public int getSelectedEndMonth()
+    {
+        return selectedEndMonth;
+    }
+
+    /**
+     * Obtém o ano do último mês do intervalo do relatório.
+     *
+     * @return ano do último mês do intervalo ou −1 se nenhum ano estiver selecionado
+     */
+    public int getSelectedEndYear()
+    {
+        return selectedEndYear;
+    }
+
     @Override
     public void broadcastReportRequest()
     {
@@ -197,11 +241,13 @@ public class InventoryViewModel extends EntityViewModel<StoreItemDTO> implements
 
     /**
      * Reinicia a data selecionada para os valores padrão.
-     * O ano e mês selecionados são definidos como −1.
+     * O ano e mês selecionados, e os do fim do intervalo, são definidos como −1.
      */
     public void resetSelectedDate()
     {
         selectedYear = -1;
         selectedMonth = -1;
+        selectedEndYear = -1;
+        selectedEndMonth = -1;
     }
 }
\ No newline at end of file
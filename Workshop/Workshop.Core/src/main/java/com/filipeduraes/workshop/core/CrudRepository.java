@@ -3,10 +3,14 @@
 package com.filipeduraes.workshop.core;
 
 import com.filipeduraes.workshop.core.persistence.Persistence;
+import com.filipeduraes.workshop.core.persistence.StorageEngine;
+import com.filipeduraes.workshop.core.persistence.StorageEngineType;
+import com.filipeduraes.workshop.core.persistence.UnitOfWork;
+import com.filipeduraes.workshop.core.persistence.WriteStatistics;
 import com.filipeduraes.workshop.utils.ConsumerObserver;
 import com.filipeduraes.workshop.utils.FuzzyTokenMatcher;
+import com.filipeduraes.workshop.utils.Observer;
 
-import java.lang.reflect.ParameterizedType;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -17,7 +21,8 @@ import java.util.stream.Collectors;
  * de uma entidade do sistema.
  *
  * <p>Permite registrar, buscar, atualizar, excluir e persistir entidades na memória
- * e no armazenamento de dados.</p>
+ * e no armazenamento de dados. A gravação é feita por um {@link StorageEngine}, escolhido
+ * na criação do repositório pelo seletor definido em {@link Persistence#setStorageEngineSelector}.</p>
  *
  * @param <TEntity> O tipo da entidade que este módulo irá gerenciar.
  */
@@ -28,8 +33,13 @@ public class CrudRepository<TEntity extends WorkshopEntity>
      */
     public final ConsumerObserver<TEntity> OnEntityRegistered = new ConsumerObserver<>();
 
+    /**
+     * Evento acionado sempre que uma entidade é registrada, atualizada ou removida.
+     */
+    public final Observer OnEntitiesChanged = new Observer();
+
+    private final StorageEngine<TEntity> storageEngine;
     private final Map<UUID, TEntity> loadedEntities;
-    private final String path;
 
     /**
      * Cria uma nova instância do módulo de CRUD para uma entidade específica.
@@ -39,9 +49,72 @@ public class CrudRepository<TEntity extends WorkshopEntity>
      */
     public CrudRepository(String path, Class<TEntity> entityType)
     {
-        this.path = path;
-        ParameterizedType parameterizedType = Persistence.createParameterizedType(HashMap.class, UUID.class, entityType);
-        loadedEntities = Persistence.loadFile(path, parameterizedType, new HashMap<>());
+        this(path, entityType, false);
+    }
+
+    /**
+     * Cria uma nova instância do módulo de CRUD para uma entidade específica,
+     * podendo usar um journal de alterações.
+     *
+     * <p>Com o journal ativo, cada alteração grava apenas um registro pequeno no journal,
+     * em vez de reescrever o arquivo completo. Ao carregar, o journal é reaplicado sobre o
+     * último arquivo completo.</p>
+     *
+     * @param path Caminho do arquivo onde os dados serão persistidos.
+     * @param entityType Classe da entidade que será gerenciada.
+     * @param useJournal Determina se as alterações serão registradas em journal.
+     */
+    public CrudRepository(String path, Class<TEntity> entityType, boolean useJournal)
+    {
+        this(createStorageEngine(path, entityType, useJournal ? StorageEngineType.JOURNALED_FILE : StorageEngineType.FILE, 0, -1));
+    }
+
+    /**
+     * Cria uma nova instância do módulo de CRUD para uma entidade específica,
+     * dividindo as entidades em vários arquivos (shards) pelo hash do ID.
+     *
+     * <p>Cada alteração reescreve apenas o shard da entidade alterada, reduzindo o volume gravado
+     * pela quantidade de shards, e os shards são carregados em paralelo.</p>
+     *
+     * @param path Caminho do arquivo do repositório, usado como nome da pasta dos shards.
+     * @param entityType Classe da entidade que será gerenciada.
+     * @param shardCount Quantidade de shards.
+     */
+    public CrudRepository(String path, Class<TEntity> entityType, int shardCount)
+    {
+        this(createStorageEngine(path, entityType, StorageEngineType.SHARDED_FILE, shardCount, -1));
+    }
+
+    /**
+     * Cria uma nova instância do módulo de CRUD que grava as entidades no motor de armazenamento informado.
+     * As entidades são carregadas do motor imediatamente.
+     *
+     * @param storageEngine Motor de armazenamento das entidades.
+     */
+    public CrudRepository(StorageEngine<TEntity> storageEngine)
+    {
+        this.storageEngine = storageEngine;
+        loadedEntities = storageEngine.load();
+    }
+
+    /**
+     * Cria um repositório com carregamento sob demanda das entidades.
+     *
+     * <p>Apenas os IDs e a posição de cada entidade no arquivo de registros ficam na memória.
+     * As entidades são lidas do disco ao serem consultadas e mantidas em um cache LRU limitado
+     * pelo orçamento de bytes. Buscas por predicado percorrem as entidades uma a uma, sem mantê-las no cache.
+     * As entidades retornadas podem ser cópias diferentes a cada consulta, então alterações
+     * devem sempre ser gravadas com {@link #updateEntity(WorkshopEntity)}.</p>
+     *
+     * @param <TEntity> O tipo da entidade que o repositório irá gerenciar.
+     * @param path Caminho do arquivo do repositório. Os registros são gravados ao lado, com a extensão ".records".
+     * @param entityType Classe da entidade que será gerenciada.
+     * @param cacheByteBudget Quantidade máxima de bytes serializados mantidos no cache de entidades.
+     * @return O repositório criado.
+     */
+    public static <TEntity extends WorkshopEntity> CrudRepository<TEntity> createLazy(String path, Class<TEntity> entityType, long cacheByteBudget)
+    {
+        return new CrudRepository<>(createStorageEngine(path, entityType, StorageEngineType.RECORDS, 0, Math.max(0, cacheByteBudget)));
     }
 
     /**
@@ -59,7 +132,8 @@ public class CrudRepository<TEntity extends WorkshopEntity>
      * Registra uma nova entidade no sistema.
      *
      * <p>Um UUID único é gerado e atribuído à entidade. A entidade é salva na memória
-     * e persistida em disco.</p>
+     * e persistida em disco. As gravações feitas pelos observadores do registro são agrupadas
+     * na mesma {@link UnitOfWork}.</p>
      *
      * @param newEntity A entidade a ser registrada.
      * @return O UUID gerado e atribuído à entidade.
@@ -69,10 +143,12 @@ public class CrudRepository<TEntity extends WorkshopEntity>
         UUID uniqueID = Persistence.generateUniqueID(loadedEntities);
         newEntity.assignID(uniqueID);
 
-        loadedEntities.put(uniqueID, newEntity);
-        saveCurrentEntities();
-
-        OnEntityRegistered.broadcast(newEntity);
+        UnitOfWork.run(() ->
+        {
+            storageEngine.put(uniqueID, newEntity);
+            OnEntityRegistered.broadcast(newEntity);
+            OnEntitiesChanged.broadcast();
+        });
 
         return uniqueID;
     }
@@ -85,8 +161,14 @@ public class CrudRepository<TEntity extends WorkshopEntity>
      */
     public TEntity deleteEntityWithID(UUID id)
     {
-        TEntity deletedEntity = loadedEntities.remove(id);
-        saveCurrentEntities();
+        TEntity deletedEntity = storageEngine.delete(id);
+
+        if (deletedEntity == null)
+        {
+            return null;
+        }
+
+        OnEntitiesChanged.broadcast();
         return deletedEntity;
     }
 
@@ -104,8 +186,8 @@ public class CrudRepository<TEntity extends WorkshopEntity>
             return false;
         }
 
-        loadedEntities.put(updatedEntity.getID(), updatedEntity);
-        saveCurrentEntities();
+        storageEngine.put(updatedEntity.getID(), updatedEntity);
+        OnEntitiesChanged.broadcast();
         return true;
     }
 
@@ -117,7 +199,7 @@ public class CrudRepository<TEntity extends WorkshopEntity>
      */
     public TEntity getEntityWithID(UUID id)
     {
-        return loadedEntities.get(id);
+        return storageEngine.get(id);
     }
 
     /**
@@ -130,6 +212,18 @@ public class CrudRepository<TEntity extends WorkshopEntity>
         return new ArrayList<>(loadedEntities.values());
     }
 
+    /**
+     * Retorna as entidades cujo ID está no intervalo informado, em ordem crescente de ID.
+     *
+     * @param fromID Início do intervalo, inclusivo.
+     * @param toID Fim do intervalo, exclusivo.
+     * @return Lista das entidades no intervalo.
+     */
+    public List<TEntity> findEntitiesInIDRange(UUID fromID, UUID toID)
+    {
+        return storageEngine.scan(fromID, toID);
+    }
+
     /**
      * Busca entidades que satisfaçam um predicado.
      *
@@ -179,10 +273,23 @@ public class CrudRepository<TEntity extends WorkshopEntity>
 
     /**
      * Salva o estado atual das entidades no arquivo persistente.
+     * Caso o repositório use journal, o journal é esvaziado após a gravação do arquivo completo.
+     * Caso o repositório use shards, todos os shards são gravados.
+     * Caso o repositório seja carregado sob demanda, o arquivo de registros é compactado.
+     *
+     * <p>Se o motor de armazenamento não tiver alterações pendentes, como quando cada alteração já reescreveu
+     * o arquivo, nada é serializado nem gravado. Alterações feitas diretamente nas entidades devem ser registradas
+     * com {@link #updateEntity(WorkshopEntity)}.</p>
      */
     public void saveCurrentEntities()
     {
-        Persistence.saveFile(loadedEntities, path);
+        if (!storageEngine.hasPendingChanges())
+        {
+            WriteStatistics.recordSkippedRepositorySave();
+            return;
+        }
+
+        storageEngine.flush();
     }
 
     /**
@@ -204,4 +311,18 @@ public class CrudRepository<TEntity extends WorkshopEntity>
     {
         return getEntitiesCount() > 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Libera os recursos do repositório, como o arquivo de registros do modo sob demanda.
+     */
+    public void dispose()
+    {
+        storageEngine.close();
+    }
+
+    private static <TEntity> StorageEngine<TEntity> createStorageEngine(String path, Class<TEntity> entityType, StorageEngineType preferredType, int shardCount, long cacheByteBudget)
+    {
+        StorageEngineType engineType = Persistence.getStorageEngineSelector().select(path, preferredType);
+        return engineType.createEngine(path, entityType, shardCount, cacheByteBudget);
+    }
+}
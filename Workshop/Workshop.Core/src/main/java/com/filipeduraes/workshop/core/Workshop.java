@@ -2,14 +2,29 @@
 
 package com.filipeduraes.workshop.core;
 
+import com.filipeduraes.workshop.core.catalog.PricedItem;
+import com.filipeduraes.workshop.core.catalog.ServiceItem;
+import com.filipeduraes.workshop.core.catalog.StoreItem;
 import com.filipeduraes.workshop.core.employee.AuthModule;
+import com.filipeduraes.workshop.core.employee.ClockIn;
 import com.filipeduraes.workshop.core.employee.Employee;
+import com.filipeduraes.workshop.core.employee.LocalEmployee;
 import com.filipeduraes.workshop.core.client.Client;
+import com.filipeduraes.workshop.core.financial.Expense;
 import com.filipeduraes.workshop.core.financial.FinancialModule;
+import com.filipeduraes.workshop.core.financial.Sale;
 import com.filipeduraes.workshop.core.maintenance.ServiceOrderModule;
 import com.filipeduraes.workshop.core.maintenance.ServiceOrder;
+import com.filipeduraes.workshop.core.maintenance.ServiceStep;
+import com.filipeduraes.workshop.core.persistence.DataIntegrityVerifier;
+import com.filipeduraes.workshop.core.persistence.DataProtection;
+import com.filipeduraes.workshop.core.persistence.DataProtectionConverter;
+import com.filipeduraes.workshop.core.persistence.MonthPartitionManager;
 import com.filipeduraes.workshop.core.persistence.Persistence;
 import com.filipeduraes.workshop.core.persistence.SerializationAdapter;
+import com.filipeduraes.workshop.core.persistence.StartupImage;
+import com.filipeduraes.workshop.core.persistence.StorageEngineSelector;
+import com.filipeduraes.workshop.core.persistence.StorageFormat;
 import com.filipeduraes.workshop.core.persistence.WorkshopPaths;
 import com.filipeduraes.workshop.core.persistence.serializers.LocalDateTimeAdapter;
 import com.filipeduraes.workshop.core.financial.Store;
@@ -18,60 +33,185 @@ import com.filipeduraes.workshop.core.vehicle.Vehicle;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Controla o sistema da oficina e as dependências dos módulos
  *
+ * <p>Os arquivos independentes dos módulos são carregados em paralelo durante a construção.
+ * O repositório de ordens de serviço continua carregando em segundo plano enquanto o login é feito.
+ * A integridade de todos os arquivos de dados é conferida antes do carregamento, ver {@link #getIntegrityReport()}.
+ * Se o encerramento anterior gravou uma {@link StartupImage}, os arquivos não alterados são lidos da imagem.</p>
+ *
+ * <p>Os registros de cada mês, como vendas, despesas, pontos e serviços finalizados, passam para o novo mês
+ * na virada do mês mesmo com a oficina aberta, ver {@link #getMonthPartitionManager()}.</p>
+ *
  * @author Filipe Durães
  */
 public class Workshop
 {
+    private static final int MAX_STARTUP_THREADS = 4;
+
     private final AuthModule authModule;
     private final CrudRepository<Client> clientRepository;
     private final CrudRepository<Vehicle> vehicleRepository;
     private final Store store;
     private final FinancialModule financialModule;
+    private final DataIntegrityVerifier.Report integrityReport;
+    private final MonthPartitionManager monthPartitionManager = new MonthPartitionManager();
     private ServiceOrderModule serviceOrderModule;
+    private CompletableFuture<CrudRepository<ServiceOrder>> serviceOrderRepositoryPreload;
 
     /**
-     * Cria uma nova instância de oficina
-     * Pode usar ofuscação para tornar dados persistentes mais difíceis de ler por humanos.
+     * Cria uma nova instância de oficina, com os arquivos gravados em JSON.
+     * Pode proteger os dados persistentes com criptografia, migrando os arquivos ofuscados de versões anteriores.
      *
      * @param useObfuscation Determina se irá usar ou não ofuscação
      */
     public Workshop(boolean useObfuscation)
+    {
+        this(useObfuscation, StorageFormat.JSON);
+    }
+
+    /**
+     * Cria uma nova instância de oficina
+     * Pode proteger os dados persistentes com criptografia, migrando os arquivos ofuscados de versões anteriores.
+     *
+     * @param useObfuscation Determina se irá usar ou não ofuscação
+     * @param storageFormat Formato dos arquivos de dados, como JSON ou binário compacto
+     */
+    public Workshop(boolean useObfuscation, StorageFormat storageFormat)
+    {
+        this(useObfuscation, storageFormat, StorageEngineSelector.PREFERRED);
+    }
+
+    /**
+     * Cria uma nova instância de oficina, escolhendo o motor de armazenamento de cada repositório.
+     * Permite comparar motores de armazenamento com os dados reais da oficina.
+     *
+     * @param useObfuscation Determina se irá usar ou não ofuscação
+     * @param storageFormat Formato dos arquivos de dados, como JSON ou binário compacto
+     * @param storageEngineSelector Escolhe o motor de armazenamento de cada repositório
+     */
+    public Workshop(boolean useObfuscation, StorageFormat storageFormat, StorageEngineSelector storageEngineSelector)
     {
         LocalDateTimeAdapter localDateTimeAdapter = new LocalDateTimeAdapter();
 
         List<SerializationAdapter> adapters = List.of
         (
-            new SerializationAdapter(LocalDateTime.class, localDateTimeAdapter)
+            new SerializationAdapter(LocalDateTime.class, localDateTimeAdapter),
+            new SerializationAdapter(ServiceOrder.class, new ServiceOrder.Adapter()),
+            new SerializationAdapter(ServiceStep.class, new ServiceStep.Adapter()),
+            new SerializationAdapter(Client.class, new Client.Adapter()),
+            new SerializationAdapter(Vehicle.class, new Vehicle.Adapter()),
+            new SerializationAdapter(Sale.class, new Sale.Adapter()),
+            new SerializationAdapter(PricedItem.class, new PricedItem.Adapter()),
+            new SerializationAdapter(StoreItem.class, new StoreItem.Adapter()),
+            new SerializationAdapter(ServiceItem.class, new ServiceItem.Adapter()),
+            new SerializationAdapter(LocalEmployee.class, new LocalEmployee.Adapter()),
+            new SerializationAdapter(ClockIn.class, new ClockIn.Adapter()),
+            new SerializationAdapter(Expense.class, new Expense.Adapter())
         );
 
         Persistence.setUseObfuscation(useObfuscation);
+        Persistence.setStorageFormat(storageFormat);
+        Persistence.setStorageEngineSelector(storageEngineSelector);
         Persistence.registerCustomSerializationAdapters(adapters);
 
-        vehicleRepository = new CrudRepository<>(WorkshopPaths.REGISTERED_VEHICLES_PATH, Vehicle.class);
-        clientRepository = new CrudRepository<>(WorkshopPaths.REGISTERED_CLIENTS_PATH, Client.class);
-        authModule = new AuthModule();
-        store = new Store();
-        financialModule = new FinancialModule();
+        if (useObfuscation)
+        {
+            // Migra os arquivos ofuscados de versões anteriores para a criptografia, até a primeira migração completa
+            DataProtectionConverter.convertDataDirectory(DataProtection.OBFUSCATED, DataProtection.ENCRYPTED);
+        }
+
+        StartupImage.load();
+
+        // Conferida antes dos carregamentos, que compactam journals e removem arquivos durante a conferência
+        integrityReport = DataIntegrityVerifier.verifyDataDirectory();
+
+        int startupThreadCount = Math.max(1, Math.min(MAX_STARTUP_THREADS, Runtime.getRuntime().availableProcessors()));
+        ExecutorService startupExecutor = Executors.newFixedThreadPool(startupThreadCount, runnable ->
+        {
+            Thread thread = new Thread(runnable, "WorkshopStartupLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try
+        {
+            CompletableFuture<CrudRepository<Vehicle>> vehicleRepositoryLoad = CompletableFuture.supplyAsync(() -> new CrudRepository<>(WorkshopPaths.REGISTERED_VEHICLES_PATH, Vehicle.class, true), startupExecutor);
+            CompletableFuture<CrudRepository<Client>> clientRepositoryLoad = CompletableFuture.supplyAsync(() -> new CrudRepository<>(WorkshopPaths.REGISTERED_CLIENTS_PATH, Client.class, true), startupExecutor);
+            CompletableFuture<AuthModule> authModuleLoad = CompletableFuture.supplyAsync(() -> new AuthModule(monthPartitionManager), startupExecutor);
+            CompletableFuture<Store> storeLoad = CompletableFuture.supplyAsync(() -> new Store(monthPartitionManager), startupExecutor);
+            CompletableFuture<FinancialModule> financialModuleLoad = CompletableFuture.supplyAsync(() -> new FinancialModule(monthPartitionManager), startupExecutor);
+            serviceOrderRepositoryPreload = CompletableFuture.supplyAsync(ServiceOrderModule::loadServiceOrderRepository, startupExecutor);
+
+            vehicleRepository = awaitStartupLoad(vehicleRepositoryLoad);
+            clientRepository = awaitStartupLoad(clientRepositoryLoad);
+            authModule = awaitStartupLoad(authModuleLoad);
+            store = awaitStartupLoad(storeLoad);
+            financialModule = awaitStartupLoad(financialModuleLoad);
+        }
+        finally
+        {
+            startupExecutor.shutdown();
+        }
 
         authModule.OnUserLogged.addListener(this::initializeUserData);
         vehicleRepository.OnEntityRegistered.addListener(this::registerVehicleToOwner);
     }
 
+    /**
+     * Encerra a oficina, concluindo as gravações pendentes.
+     */
     public void dispose()
+    {
+        dispose(false);
+    }
+
+    /**
+     * Encerra a oficina, concluindo as gravações pendentes.
+     *
+     * @param writeStartupImage true para gravar a {@link StartupImage} usada para acelerar a próxima inicialização
+     */
+    public void dispose(boolean writeStartupImage)
     {
         authModule.OnUserLogged.removeListener(this::initializeUserData);
         vehicleRepository.OnEntityRegistered.removeListener(this::registerVehicleToOwner);
 
-        if (serviceOrderModule != null)
+        disposeServiceOrderModule();
+        store.dispose();
+        Persistence.flushWrites();
+
+        if (writeStartupImage)
         {
-            serviceOrderModule.getServiceOrderRepository().OnEntityRegistered.removeListener(this::registerServiceOrderToOwner);
+            StartupImage.write();
         }
     }
 
+    /**
+     * Obtém o resultado da conferência de integridade dos arquivos de dados feita na inicialização.
+     *
+     * @return resultado da conferência, com os arquivos corrompidos encontrados
+     */
+    public DataIntegrityVerifier.Report getIntegrityReport()
+    {
+        return integrityReport;
+    }
+
+    /**
+     * Obtém o gerenciador do mês atual dos registros divididos por mês.
+     *
+     * @return gerenciador das partições do mês atual
+     */
+    public MonthPartitionManager getMonthPartitionManager()
+    {
+        return monthPartitionManager;
+    }
+
     /**
      * Obtém o módulo de autenticação
      *
@@ -136,10 +276,42 @@ public class Workshop
     {
         Employee loggedUser = authModule.getLoggedUser();
         WorkshopPaths.setCurrentLoggedUserID(loggedUser.getID());
-        serviceOrderModule = new ServiceOrderModule(loggedUser.getID());
+        disposeServiceOrderModule();
+
+        CrudRepository<ServiceOrder> serviceOrderRepository = serviceOrderRepositoryPreload != null
+                                                              ? awaitStartupLoad(serviceOrderRepositoryPreload)
+                                                              : ServiceOrderModule.loadServiceOrderRepository();
+        serviceOrderRepositoryPreload = null;
+        serviceOrderModule = new ServiceOrderModule(loggedUser.getID(), serviceOrderRepository, monthPartitionManager);
         serviceOrderModule.getServiceOrderRepository().OnEntityRegistered.addListener(this::registerServiceOrderToOwner);
     }
 
+    private static <T> T awaitStartupLoad(CompletableFuture<T> load)
+    {
+        try
+        {
+            return load.join();
+        }
+        catch (CompletionException exception)
+        {
+            if (exception.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+
+            throw exception;
+        }
+    }
+
+    private void disposeServiceOrderModule()
+    {
+        if (serviceOrderModule != null)
+        {
+            serviceOrderModule.getServiceOrderRepository().OnEntityRegistered.removeListener(this::registerServiceOrderToOwner);
+            serviceOrderModule.dispose();
+        }
+    }
+
     private void registerVehicleToOwner(Vehicle vehicle)
     {
         UUID ownerID = vehicle.getOwnerID();
@@ -0,0 +1,185 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.catalog;
+
+import com.filipeduraes.workshop.utils.UUIDPerfectHash;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fotografia imutável, otimizada para leitura, dos itens de um catálogo.
+ * Os dados de cada item ficam em arrays simples indexados por um hash perfeito mínimo sobre os IDs,
+ * então as consultas não alocam memória e podem ser feitas por qualquer quantidade de threads sem bloqueio.
+ *
+ * <p>A fotografia é reconstruída após cada alteração no catálogo e pode estar levemente desatualizada
+ * em relação ao repositório. Operações que alteram dados devem continuar consultando o repositório.</p>
+ *
+ * @param <TItem> tipo dos itens do catálogo
+ * @author Filipe Durães
+ */
+public final class CatalogSnapshot<TItem extends PricedItem>
+{
+    private final UUIDPerfectHash hash;
+    private final long[] mostSignificantBits;
+    private final long[] leastSignificantBits;
+    private final Object[] items;
+    private final String[] names;
+    private final BigDecimal[] prices;
+    private final int[] stockAmounts;
+    private final String[] listDescriptions;
+
+    /**
+     * Constrói a fotografia a partir dos itens atuais do catálogo.
+     *
+     * @param catalogItems itens do catálogo, com IDs únicos já atribuídos
+     */
+    public CatalogSnapshot(List<TItem> catalogItems)
+    {
+        int itemCount = catalogItems.size();
+        long[] keysMostSignificantBits = new long[itemCount];
+        long[] keysLeastSignificantBits = new long[itemCount];
+
+        for (int i = 0; i < itemCount; i++)
+        {
+            UUID id = catalogItems.get(i).getID();
+            keysMostSignificantBits[i] = id.getMostSignificantBits();
+            keysLeastSignificantBits[i] = id.getLeastSignificantBits();
+        }
+
+        hash = UUIDPerfectHash.build(keysMostSignificantBits, keysLeastSignificantBits);
+        mostSignificantBits = new long[itemCount];
+        leastSignificantBits = new long[itemCount];
+        items = new Object[itemCount];
+        names = new String[itemCount];
+        prices = new BigDecimal[itemCount];
+        stockAmounts = new int[itemCount];
+        listDescriptions = new String[itemCount];
+
+        for (int i = 0; i < itemCount; i++)
+        {
+            TItem item = catalogItems.get(i);
+            int slot = hash.slotOf(keysMostSignificantBits[i], keysLeastSignificantBits[i]);
+
+            mostSignificantBits[slot] = keysMostSignificantBits[i];
+            leastSignificantBits[slot] = keysLeastSignificantBits[i];
+            items[slot] = item;
+            names[slot] = item.getName();
+            prices[slot] = item.getPrice();
+            stockAmounts[slot] = item instanceof StoreItem storeItem ? storeItem.getStockAmount() : 0;
+            listDescriptions[slot] = item.getListDescription();
+        }
+    }
+
+    /**
+     * Obtém a posição do item com o ID especificado.
+     *
+     * @param id identificador do item
+     * @return posição do item, ou -1 se o item não estiver na fotografia
+     */
+    public int indexOf(UUID id)
+    {
+        if (id == null)
+        {
+            return -1;
+        }
+
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+        int slot = hash.slotOf(most, least);
+
+        if (slot < 0 || mostSignificantBits[slot] != most || leastSignificantBits[slot] != least)
+        {
+            return -1;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Verifica se a fotografia contém o item com o ID especificado.
+     *
+     * @param id identificador do item
+     * @return true se o item estiver na fotografia
+     */
+    public boolean contains(UUID id)
+    {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Obtém a quantidade de itens na fotografia.
+     *
+     * @return quantidade de itens
+     */
+    public int size()
+    {
+        return items.length;
+    }
+
+    /**
+     * Obtém o item usado para construir a posição especificada.
+     *
+     * @param index posição do item
+     * @return item do catálogo no momento da construção
+     */
+    @SuppressWarnings("unchecked")
+    public TItem getItem(int index)
+    {
+        return (TItem) items[index];
+    }
+
+    /**
+     * Obtém o nome do item na posição especificada.
+     *
+     * @param index posição do item
+     * @return nome do item
+     */
+    public String getName(int index)
+    {
+        return names[index];
+    }
+
+    /**
+     * Obtém o preço do item na posição especificada.
+     *
+     * @param index posição do item
+     * @return preço do item
+     */
+    public BigDecimal getPrice(int index)
+    {
+        return prices[index];
+    }
+
+    /**
+     * Obtém a quantidade em estoque do item na posição especificada.
+     * Itens que não são da loja sempre possuem estoque zero.
+     *
+     * @param index posição do item
+     * @return quantidade em estoque
+     */
+    public int getStockAmount(int index)
+    {
+        return stockAmounts[index];
+    }
+
+    /**
+     * Obtém a descrição de listagem do item, pré-calculada na construção da fotografia.
+     * Se a fotografia estiver desatualizada em relação ao item informado, a descrição é calculada pelo próprio item.
+     *
+     * @param item item do catálogo
+     * @return descrição formatada para exibição em lista
+     */
+    public String getListDescription(TItem item)
+    {
+        int index = indexOf(item.getID());
+
+        if (index < 0 || items[index] != item)
+        {
+            return item.getListDescription();
+        }
+
+        return listDescriptions[index];
+    }
+}
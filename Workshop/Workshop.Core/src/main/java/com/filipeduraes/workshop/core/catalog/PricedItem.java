@@ -3,9 +3,15 @@
 package com.filipeduraes.workshop.core.catalog;
 
 import com.filipeduraes.workshop.core.WorkshopEntity;
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
 import com.filipeduraes.workshop.utils.TextUtils;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.UUID;
 
 /**
  * Representa um produto ou serviço que pode ser vendido na oficina.
@@ -118,4 +124,64 @@ public class PricedItem extends WorkshopEntity
     {
         return String.format("%s - %s", getName(), TextUtils.formatPrice(getPrice()));
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para itens do catálogo de serviços, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<PricedItem>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, PricedItem item) throws IOException
+        {
+            if (item == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("name").value(item.getName());
+            jsonWriter.name("description").value(item.getDescription());
+            jsonWriter.name("price").value(item.getPrice());
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, item.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public PricedItem read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            String name = null;
+            String description = null;
+            BigDecimal price = null;
+            UUID id = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "name" -> name = SerializationFields.readString(jsonReader);
+                    case "description" -> description = SerializationFields.readString(jsonReader);
+                    case "price" -> price = SerializationFields.readBigDecimal(jsonReader);
+                    case "id" -> id = SerializationFields.readUUID(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            PricedItem item = new PricedItem(name, description, price);
+            item.assignID(id);
+            return item;
+        }
+    }
 }
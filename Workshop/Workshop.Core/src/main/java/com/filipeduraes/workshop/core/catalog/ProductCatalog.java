@@ -5,18 +5,36 @@ package com.filipeduraes.workshop.core.catalog;
 import com.filipeduraes.workshop.core.CrudRepository;
 import com.filipeduraes.workshop.core.persistence.WorkshopPaths;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Classe responsável por gerenciar o catálogo de itens da loja e serviços da oficina.
  *
+ * <p>Além dos repositórios, mantém fotografias imutáveis do catálogo para leitura rápida e sem bloqueio.
+ * As fotografias são reconstruídas em uma thread separada após cada alteração e substituídas de forma atômica.
+ * Os itens são gravados em shards, então a baixa de estoque de uma venda reescreve apenas o shard do item.</p>
+ *
  * @author Filipe Durães
  */
 public class ProductCatalog
 {
+    private static final int CATALOG_SHARD_COUNT = 8;
+
     private final CrudRepository<PricedItem> servicesRepository;
     private final CrudRepository<StoreItem> storeItemsRepository;
 
+    private final ExecutorService snapshotExecutor;
+    private final Runnable servicesChangedListener = this::rebuildServicesSnapshot;
+    private final Runnable storeItemsChangedListener = this::rebuildStoreItemsSnapshot;
+    private final AtomicReference<List<PricedItem>> pendingServices = new AtomicReference<>();
+    private final AtomicReference<List<StoreItem>> pendingStoreItems = new AtomicReference<>();
+    private volatile CatalogSnapshot<PricedItem> servicesSnapshot;
+    private volatile CatalogSnapshot<StoreItem> storeItemsSnapshot;
+
     /**
      * Cria uma nova instância do catálogo de produtos e serviços,
      * inicializando os repositórios necessários para o gerenciamento
@@ -24,8 +42,31 @@ public class ProductCatalog
      */
     public ProductCatalog()
     {
-        servicesRepository = new CrudRepository<>(WorkshopPaths.SERVICE_CATALOG_PATH, PricedItem.class);
-        storeItemsRepository = new CrudRepository<>(WorkshopPaths.STORE_ITEMS_CATALOG_PATH, StoreItem.class);
+        servicesRepository = new CrudRepository<>(WorkshopPaths.SERVICE_CATALOG_PATH, PricedItem.class, CATALOG_SHARD_COUNT);
+        storeItemsRepository = new CrudRepository<>(WorkshopPaths.STORE_ITEMS_CATALOG_PATH, StoreItem.class, CATALOG_SHARD_COUNT);
+
+        servicesSnapshot = new CatalogSnapshot<>(servicesRepository.getAllEntities());
+        storeItemsSnapshot = new CatalogSnapshot<>(storeItemsRepository.getAllEntities());
+
+        snapshotExecutor = Executors.newSingleThreadExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "CatalogSnapshotBuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        servicesRepository.OnEntitiesChanged.addListener(servicesChangedListener);
+        storeItemsRepository.OnEntitiesChanged.addListener(storeItemsChangedListener);
+    }
+
+    /**
+     * Remove os listeners dos repositórios e encerra a thread de reconstrução das fotografias.
+     */
+    public void dispose()
+    {
+        servicesRepository.OnEntitiesChanged.removeListener(servicesChangedListener);
+        storeItemsRepository.OnEntitiesChanged.removeListener(storeItemsChangedListener);
+        snapshotExecutor.shutdown();
     }
 
     /**
@@ -50,6 +91,28 @@ public class ProductCatalog
         return storeItemsRepository;
     }
 
+    /**
+     * Retorna a fotografia mais recente dos serviços do catálogo.
+     * Pode ser lida por qualquer thread, sem bloqueio.
+     *
+     * @return fotografia imutável dos serviços
+     */
+    public CatalogSnapshot<PricedItem> getServicesSnapshot()
+    {
+        return servicesSnapshot;
+    }
+
+    /**
+     * Retorna a fotografia mais recente dos itens da loja.
+     * Pode ser lida por qualquer thread, sem bloqueio.
+     *
+     * @return fotografia imutável dos itens da loja
+     */
+    public CatalogSnapshot<StoreItem> getStoreItemsSnapshot()
+    {
+        return storeItemsSnapshot;
+    }
+
     /**
      * Adiciona estoque a um item da loja.
      * Verifica se o item existe e se a quantidade a ser adicionada é válida.
@@ -72,4 +135,24 @@ public class ProductCatalog
         coppiedStoreItem.setStockAmount(newStockAmount);
         return storeItemsRepository.updateEntity(coppiedStoreItem);
     }
-}
\ No newline at end of file
+
+    private void rebuildServicesSnapshot()
+    {
+        List<PricedItem> services = servicesRepository.getAllEntities();
+
+        if (pendingServices.getAndSet(services) == null && !snapshotExecutor.isShutdown())
+        {
+            snapshotExecutor.execute(() -> servicesSnapshot = new CatalogSnapshot<>(pendingServices.getAndSet(null)));
+        }
+    }
+
+    private void rebuildStoreItemsSnapshot()
+    {
+        List<StoreItem> storeItems = storeItemsRepository.getAllEntities();
+
+        if (pendingStoreItems.getAndSet(storeItems) == null && !snapshotExecutor.isShutdown())
+        {
+            snapshotExecutor.execute(() -> storeItemsSnapshot = new CatalogSnapshot<>(pendingStoreItems.getAndSet(null)));
+        }
+    }
+}
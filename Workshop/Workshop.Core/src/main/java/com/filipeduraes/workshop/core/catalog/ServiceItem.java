@@ -2,6 +2,12 @@
 
 package com.filipeduraes.workshop.core.catalog;
 
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.UUID;
 
@@ -80,4 +86,68 @@ public class ServiceItem extends PricedItem
             getPrice()
         );
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para serviços prestados em uma ordem de serviço, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<ServiceItem>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, ServiceItem item) throws IOException
+        {
+            if (item == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("employeeID");
+            SerializationFields.writeUUID(jsonWriter, item.employeeID);
+            jsonWriter.name("name").value(item.getName());
+            jsonWriter.name("description").value(item.getDescription());
+            jsonWriter.name("price").value(item.getPrice());
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, item.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public ServiceItem read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            UUID employeeID = null;
+            String name = null;
+            String description = null;
+            BigDecimal price = null;
+            UUID id = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "employeeID" -> employeeID = SerializationFields.readUUID(jsonReader);
+                    case "name" -> name = SerializationFields.readString(jsonReader);
+                    case "description" -> description = SerializationFields.readString(jsonReader);
+                    case "price" -> price = SerializationFields.readBigDecimal(jsonReader);
+                    case "id" -> id = SerializationFields.readUUID(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            ServiceItem item = new ServiceItem(employeeID, name, description, price);
+            item.assignID(id);
+            return item;
+        }
+    }
 }
\ No newline at end of file
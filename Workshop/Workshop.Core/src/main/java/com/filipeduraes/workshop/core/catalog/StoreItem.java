@@ -2,9 +2,15 @@
 
 package com.filipeduraes.workshop.core.catalog;
 
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
 import com.filipeduraes.workshop.utils.TextUtils;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.UUID;
 
 /**
  * Representa um item disponível para venda na loja, estendendo a classe Product.
@@ -74,4 +80,67 @@ public class StoreItem extends PricedItem
     {
         return String.format("%s (%d) - %s", getName(), getStockAmount(), TextUtils.formatPrice(getPrice()));
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para itens da loja, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<StoreItem>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, StoreItem item) throws IOException
+        {
+            if (item == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("stockAmount").value(item.stockAmount);
+            jsonWriter.name("name").value(item.getName());
+            jsonWriter.name("description").value(item.getDescription());
+            jsonWriter.name("price").value(item.getPrice());
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, item.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public StoreItem read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            int stockAmount = 0;
+            String name = null;
+            String description = null;
+            BigDecimal price = null;
+            UUID id = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "stockAmount" -> stockAmount = jsonReader.nextInt();
+                    case "name" -> name = SerializationFields.readString(jsonReader);
+                    case "description" -> description = SerializationFields.readString(jsonReader);
+                    case "price" -> price = SerializationFields.readBigDecimal(jsonReader);
+                    case "id" -> id = SerializationFields.readUUID(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            StoreItem item = new StoreItem(name, description, price, stockAmount);
+            item.assignID(id);
+            return item;
+        }
+    }
 }
\ No newline at end of file
@@ -2,9 +2,15 @@
 package com.filipeduraes.workshop.core.client;
 
 import com.filipeduraes.workshop.core.WorkshopEntity;
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -238,4 +244,67 @@ public class Client extends WorkshopEntity
     {
         return ownedVehiclesIDs.contains(vehicleID);
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para clientes, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<Client>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, Client client) throws IOException
+        {
+            if (client == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("name").value(client.name);
+            jsonWriter.name("email").value(client.email);
+            jsonWriter.name("phoneNumber").value(client.phoneNumber);
+            jsonWriter.name("address").value(client.address);
+            jsonWriter.name("maskedCPF").value(client.maskedCPF);
+            jsonWriter.name("ownedVehiclesIDs");
+            SerializationFields.writeUUIDList(jsonWriter, client.ownedVehiclesIDs);
+            jsonWriter.name("serviceOrdersIDs");
+            SerializationFields.writeUUIDList(jsonWriter, client.serviceOrdersIDs);
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, client.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public Client read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            Client client = new Client(null, null, null, null, null);
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "name" -> client.name = SerializationFields.readString(jsonReader);
+                    case "email" -> client.email = SerializationFields.readString(jsonReader);
+                    case "phoneNumber" -> client.phoneNumber = SerializationFields.readString(jsonReader);
+                    case "address" -> client.address = SerializationFields.readString(jsonReader);
+                    case "maskedCPF" -> client.maskedCPF = SerializationFields.readString(jsonReader);
+                    case "ownedVehiclesIDs" -> client.ownedVehiclesIDs = Objects.requireNonNullElseGet(SerializationFields.readUUIDList(jsonReader), ArrayList::new);
+                    case "serviceOrdersIDs" -> client.serviceOrdersIDs = Objects.requireNonNullElseGet(SerializationFields.readUUIDList(jsonReader), ArrayList::new);
+                    case "id" -> client.assignID(SerializationFields.readUUID(jsonReader));
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+            return client;
+        }
+    }
 }
\ No newline at end of file
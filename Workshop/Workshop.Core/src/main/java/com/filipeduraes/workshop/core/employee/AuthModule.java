@@ -2,12 +2,15 @@
 package com.filipeduraes.workshop.core.employee;
 
 import com.filipeduraes.workshop.core.CrudRepository;
-import com.filipeduraes.workshop.core.persistence.Persistence;
+import com.filipeduraes.workshop.core.persistence.MonthArchive;
+import com.filipeduraes.workshop.core.persistence.MonthPartition;
+import com.filipeduraes.workshop.core.persistence.MonthPartitionManager;
+import com.filipeduraes.workshop.core.persistence.RecordLedger;
 import com.filipeduraes.workshop.core.persistence.WorkshopPaths;
 import com.filipeduraes.workshop.utils.Observer;
 
-import java.lang.reflect.ParameterizedType;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -24,13 +27,19 @@ public class AuthModule
     private Employee loggedUser = null;
 
     private final CrudRepository<LocalEmployee> employeeRepository;
+    private final MonthPartitionManager monthPartitionManager;
+    private final MonthPartition<RecordLedger<ClockIn>> currentMonthClockIns;
 
     /**
      * Cria uma instância do módulo de autenticação.
+     *
+     * @param monthPartitionManager gerenciador que troca o ledger de pontos na virada do mês
      */
-    public AuthModule()
+    public AuthModule(MonthPartitionManager monthPartitionManager)
     {
-        employeeRepository = new CrudRepository<>(WorkshopPaths.REGISTERED_EMPLOYEES_PATH, LocalEmployee.class);
+        employeeRepository = new CrudRepository<>(WorkshopPaths.REGISTERED_EMPLOYEES_PATH, LocalEmployee.class, true);
+        this.monthPartitionManager = monthPartitionManager;
+        currentMonthClockIns = monthPartitionManager.createPartition(month -> new RecordLedger<>(WorkshopPaths.getClockInMonthPath(month), ClockIn.class));
     }
 
     /**
@@ -127,30 +136,39 @@ public class AuthModule
     public void registerClockIn(ClockInType clockInType)
     {
         loggedUser.setLastClockIn(clockInType);
-        employeeRepository.saveCurrentEntities();
 
-        List<ClockIn> clockInRegistry = loadCurrentMonthClockIns();
-        clockInRegistry.add(new ClockIn(clockInType, loggedUser.getID()));
+        if (loggedUser instanceof LocalEmployee localEmployee)
+        {
+            employeeRepository.updateEntity(localEmployee);
+        }
 
-        String path = WorkshopPaths.getClockInCurrentMonthPath();
-        Persistence.saveFile(clockInRegistry, path);
+        currentMonthClockIns.getCurrent().append(new ClockIn(clockInType, loggedUser.getID()));
     }
 
     public List<ClockIn> loadCurrentMonthClockIns()
     {
-        ParameterizedType type = Persistence.createParameterizedType(ArrayList.class, ClockIn.class);
-        String path = WorkshopPaths.getClockInCurrentMonthPath();
-
-        return Persistence.loadFile(path, type, new ArrayList<>());
+        return currentMonthClockIns.getCurrent().loadRecords();
     }
 
+    /**
+     * Carrega os pontos de um mês. Os meses encerrados são lidos do {@link MonthArchive} do mês,
+     * indexado pelo ID do funcionário.
+     *
+     * @param month mês desejado
+     * @param year ano do mês desejado
+     * @return pontos registrados no mês
+     */
     public List<ClockIn> loadMonthClockIns(int month, int year)
     {
-        ParameterizedType type = Persistence.createParameterizedType(ArrayList.class, ClockIn.class);
+        if (YearMonth.of(year, month).equals(monthPartitionManager.getCurrentMonth()))
+        {
+            return loadCurrentMonthClockIns();
+        }
 
         LocalDateTime localDateTime = LocalDateTime.of(year, month, 1, 0, 0);
         String path = WorkshopPaths.getClockInMonthPath(localDateTime);
+        MonthArchive<ClockIn> archive = MonthArchive.openOrSeal(new RecordLedger<>(path, ClockIn.class), ClockIn::getEmployeeID);
 
-        return Persistence.loadFile(path, type, new ArrayList<>());
+        return archive != null ? archive.loadRecords() : new ArrayList<>();
     }
 }
\ No newline at end of file
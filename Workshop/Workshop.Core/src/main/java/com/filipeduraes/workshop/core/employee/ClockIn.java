@@ -2,6 +2,12 @@
 
 package com.filipeduraes.workshop.core.employee;
 
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -37,6 +43,13 @@ public class ClockIn
      *
      * @return tipo do ponto (entrada, saída, início de pausa, fim de pausa)
      */
+    private ClockIn(ClockInType type, UUID employeeID, LocalDateTime timestamp)
+    {
+        this.type = type;
+        this.employeeID = employeeID;
+        this.timestamp = timestamp;
+    }
+
     public ClockInType getType()
     {
         return type;
@@ -61,4 +74,60 @@ public class ClockIn
     {
         return timestamp;
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para registros de ponto, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<ClockIn>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, ClockIn clockIn) throws IOException
+        {
+            if (clockIn == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("type");
+            SerializationFields.writeEnum(jsonWriter, clockIn.type);
+            jsonWriter.name("employeeID");
+            SerializationFields.writeUUID(jsonWriter, clockIn.employeeID);
+            jsonWriter.name("timestamp");
+            SerializationFields.writeDateTime(jsonWriter, clockIn.timestamp);
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public ClockIn read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            ClockInType type = null;
+            UUID employeeID = null;
+            LocalDateTime timestamp = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "type" -> type = SerializationFields.readEnum(jsonReader, ClockInType.class);
+                    case "employeeID" -> employeeID = SerializationFields.readUUID(jsonReader);
+                    case "timestamp" -> timestamp = SerializationFields.readDateTime(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+            return new ClockIn(type, employeeID, timestamp);
+        }
+    }
 }
\ No newline at end of file
@@ -2,6 +2,14 @@
 
 package com.filipeduraes.workshop.core.employee;
 
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.UUID;
+
 /**
  * Representa um funcionário no sistema com suas credenciais de acesso.
  *
@@ -71,4 +79,73 @@ public class LocalEmployee extends Employee
     {
         return String.format("%s, hashPassword=%d", super.toString(), hashPassword);
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para funcionários, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<LocalEmployee>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, LocalEmployee employee) throws IOException
+        {
+            if (employee == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("hashPassword").value(employee.hashPassword);
+            jsonWriter.name("name").value(employee.getName());
+            jsonWriter.name("email").value(employee.getEmail());
+            jsonWriter.name("role");
+            SerializationFields.writeEnum(jsonWriter, employee.getRole());
+            jsonWriter.name("lastClockIn");
+            SerializationFields.writeEnum(jsonWriter, employee.getLastClockIn());
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, employee.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public LocalEmployee read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            int hashPassword = 0;
+            String name = null;
+            String email = null;
+            EmployeeRole role = null;
+            ClockInType lastClockIn = ClockInType.OUT;
+            UUID id = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "hashPassword" -> hashPassword = jsonReader.nextInt();
+                    case "name" -> name = SerializationFields.readString(jsonReader);
+                    case "email" -> email = SerializationFields.readString(jsonReader);
+                    case "role" -> role = SerializationFields.readEnum(jsonReader, EmployeeRole.class);
+                    case "lastClockIn" -> lastClockIn = SerializationFields.readEnum(jsonReader, ClockInType.class);
+                    case "id" -> id = SerializationFields.readUUID(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            LocalEmployee employee = new LocalEmployee(name, email, role, hashPassword);
+            employee.setLastClockIn(lastClockIn);
+            employee.assignID(id);
+            return employee;
+        }
+    }
 }
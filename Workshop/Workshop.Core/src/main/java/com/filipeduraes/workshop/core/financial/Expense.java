@@ -2,8 +2,13 @@
 
 package com.filipeduraes.workshop.core.financial;
 
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
 import com.filipeduraes.workshop.utils.TextUtils;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -39,6 +44,13 @@ public class Expense
      *
      * @return descrição da despesa
      */
+    private Expense(String description, BigDecimal amount, LocalDateTime registerTime)
+    {
+        this.description = description;
+        this.amount = amount;
+        this.registerTime = registerTime;
+    }
+
     public String getDescription()
     {
         return description;
@@ -75,4 +87,58 @@ public class Expense
     {
         return String.format(" > %s: %s - %s", description, TextUtils.formatPrice(amount), TextUtils.formatDate(registerTime));
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para despesas, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<Expense>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, Expense expense) throws IOException
+        {
+            if (expense == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("description").value(expense.description);
+            jsonWriter.name("amount").value(expense.amount);
+            jsonWriter.name("registerTime");
+            SerializationFields.writeDateTime(jsonWriter, expense.registerTime);
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public Expense read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            String description = null;
+            BigDecimal amount = null;
+            LocalDateTime registerTime = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "description" -> description = SerializationFields.readString(jsonReader);
+                    case "amount" -> amount = SerializationFields.readBigDecimal(jsonReader);
+                    case "registerTime" -> registerTime = SerializationFields.readDateTime(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+            return new Expense(description, amount, registerTime);
+        }
+    }
 }
@@ -2,11 +2,14 @@
 
 package com.filipeduraes.workshop.core.financial;
 
-import com.filipeduraes.workshop.core.persistence.Persistence;
+import com.filipeduraes.workshop.core.persistence.MonthArchive;
+import com.filipeduraes.workshop.core.persistence.MonthPartition;
+import com.filipeduraes.workshop.core.persistence.MonthPartitionManager;
+import com.filipeduraes.workshop.core.persistence.RecordLedger;
 import com.filipeduraes.workshop.core.persistence.WorkshopPaths;
 
-import java.lang.reflect.ParameterizedType;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,43 +22,49 @@ import java.util.List;
  */
 public class FinancialModule
 {
-    private final List<Expense> currentMonthExpenses;
-    private final String expensesCurrentMonthPath;
-    private final ParameterizedType expensesArrayType;
+    private final MonthPartitionManager monthPartitionManager;
+    private final MonthPartition<RecordLedger<Expense>> currentMonthExpenses;
 
     /**
-     * Cria uma nova instância do módulo financeiro.
-     * Carrega automaticamente as despesas do mês atual do arquivo de persistência.
+     * Cria uma nova instância do módulo financeiro,
+     * associada ao ledger de despesas do mês atual.
+     *
+     * @param monthPartitionManager gerenciador que troca o ledger de despesas na virada do mês
      */
-    public FinancialModule()
+    public FinancialModule(MonthPartitionManager monthPartitionManager)
     {
-        expensesCurrentMonthPath = WorkshopPaths.getExpensesCurrentMonthPath();
-        expensesArrayType = Persistence.createParameterizedType(List.class, Expense.class);
-        currentMonthExpenses = Persistence.loadFile(expensesCurrentMonthPath, expensesArrayType, new ArrayList<>());
+        this.monthPartitionManager = monthPartitionManager;
+        currentMonthExpenses = monthPartitionManager.createPartition(month -> new RecordLedger<>(WorkshopPaths.getExpensesMonthPath(month), Expense.class));
     }
 
     /**
      * Registra uma nova despesa no mês atual.
-     * A despesa é adicionada à lista em memória e persistida no arquivo.
+     * A despesa é acrescentada ao final do ledger do mês, sem reescrever as despesas anteriores.
      *
      * @param expense despesa a ser registrada
      */
     public void registerExpense(Expense expense)
     {
-        currentMonthExpenses.add(expense);
-        Persistence.saveFile(currentMonthExpenses, expensesCurrentMonthPath);
+        currentMonthExpenses.getCurrent().append(expense);
     }
 
     /**
      * Obtém todas as despesas de um mês específico.
-     * Carrega as despesas do arquivo de persistência correspondente ao mês.
+     * As despesas do mês atual são lidas em fluxo do ledger, e as de meses encerrados do {@link MonthArchive} do mês.
      *
      * @param date data de referência para o mês desejado
      * @return lista de despesas do mês especificado
      */
     public List<Expense> getMonthExpenses(LocalDateTime date)
     {
+        if (YearMonth.from(date).equals(monthPartitionManager.getCurrentMonth()))
+        {
+            return currentMonthExpenses.getCurrent().loadRecords();
+        }
+
         String expensesMonthPath = WorkshopPaths.getExpensesMonthPath(date);
-        return Persistence.loadFile(expensesMonthPath, expensesArrayType, new ArrayList<>());
+        MonthArchive<Expense> archive = MonthArchive.openOrSeal(new RecordLedger<>(expensesMonthPath, Expense.class), null);
+
+        return archive != null ? archive.loadRecords() : new ArrayList<>();
     }
 }
@@ -4,10 +4,16 @@ package com.filipeduraes.workshop.core.financial;
 
 import com.filipeduraes.workshop.core.WorkshopEntity;
 import com.filipeduraes.workshop.core.catalog.StoreItem;
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
 import com.filipeduraes.workshop.utils.TextUtils;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * Representa uma transação de venda.
@@ -40,6 +46,13 @@ public class Sale extends WorkshopEntity
      *
      * @return a data da venda
      */
+    private Sale(LocalDateTime date, StoreItem storeItemSnapshot, int quantity)
+    {
+        this.date = date;
+        this.storeItemSnapshot = storeItemSnapshot;
+        this.quantity = quantity;
+    }
+
     public LocalDateTime getDate()
     {
         return date;
@@ -89,4 +102,68 @@ public class Sale extends WorkshopEntity
             TextUtils.formatPrice(getTotalPrice())
         );
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para vendas, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<Sale>
+    {
+        private final StoreItem.Adapter storeItemAdapter = new StoreItem.Adapter();
+
+        @Override
+        public void write(JsonWriter jsonWriter, Sale sale) throws IOException
+        {
+            if (sale == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("date");
+            SerializationFields.writeDateTime(jsonWriter, sale.date);
+            jsonWriter.name("storeItemSnapshot");
+            storeItemAdapter.write(jsonWriter, sale.storeItemSnapshot);
+            jsonWriter.name("quantity").value(sale.quantity);
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, sale.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public Sale read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            LocalDateTime date = null;
+            StoreItem storeItemSnapshot = null;
+            int quantity = 0;
+            UUID id = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "date" -> date = SerializationFields.readDateTime(jsonReader);
+                    case "storeItemSnapshot" -> storeItemSnapshot = storeItemAdapter.read(jsonReader);
+                    case "quantity" -> quantity = jsonReader.nextInt();
+                    case "id" -> id = SerializationFields.readUUID(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            Sale sale = new Sale(date, storeItemSnapshot, quantity);
+            sale.assignID(id);
+            return sale;
+        }
+    }
 }
\ No newline at end of file
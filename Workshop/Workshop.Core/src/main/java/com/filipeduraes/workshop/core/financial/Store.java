@@ -5,12 +5,21 @@ package com.filipeduraes.workshop.core.financial;
 import com.filipeduraes.workshop.core.CrudRepository;
 import com.filipeduraes.workshop.core.catalog.ProductCatalog;
 import com.filipeduraes.workshop.core.catalog.StoreItem;
+import com.filipeduraes.workshop.core.persistence.MonthArchive;
+import com.filipeduraes.workshop.core.persistence.MonthPartition;
+import com.filipeduraes.workshop.core.persistence.MonthPartitionManager;
+import com.filipeduraes.workshop.core.persistence.PartitionDirectory;
 import com.filipeduraes.workshop.core.persistence.Persistence;
+import com.filipeduraes.workshop.core.persistence.RecordLedger;
+import com.filipeduraes.workshop.core.persistence.UnitOfWork;
 import com.filipeduraes.workshop.core.persistence.WorkshopPaths;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -22,15 +31,44 @@ import java.util.UUID;
 public class Store
 {
     private final ProductCatalog catalog = new ProductCatalog();
-    private final CrudRepository<Sale> currentMonthPurchasesRepository;
+    private final MonthPartitionManager monthPartitionManager;
+    private final MonthPartition<MonthSales> currentMonthSales;
+    private final PartitionDirectory saleDirectory = new PartitionDirectory(WorkshopPaths.SALE_DIRECTORY_PATH, Store::loadMonthSaleIDs);
 
     /**
-     * Cria uma nova instância da loja, inicializando o repositório
-     * de vendas do mês atual.
+     * Vendas de um mês: o mês, o ledger onde são gravadas e as vendas mantidas na memória para consulta por ID.
      */
-    public Store()
+    private record MonthSales(LocalDateTime month, RecordLedger<Sale> ledger, Map<UUID, Sale> sales)
     {
-        currentMonthPurchasesRepository = new CrudRepository<>(WorkshopPaths.getPurchasesCurrentMonthPath(), Sale.class);
+        private static MonthSales open(LocalDateTime month)
+        {
+            RecordLedger<Sale> ledger = createSalesLedger(WorkshopPaths.getSalesMonthPath(month));
+            Map<UUID, Sale> sales = new LinkedHashMap<>();
+
+            ledger.forEachRecord(sale -> sales.put(sale.getID(), sale));
+            return new MonthSales(month, ledger, sales);
+        }
+    }
+
+    /**
+     * Cria uma nova instância da loja, carregando as vendas
+     * do mês atual a partir do ledger do mês.
+     * Na virada do mês, as vendas do mês anterior são liberadas da memória.
+     *
+     * @param monthPartitionManager gerenciador que troca as vendas do mês atual na virada do mês
+     */
+    public Store(MonthPartitionManager monthPartitionManager)
+    {
+        this.monthPartitionManager = monthPartitionManager;
+        currentMonthSales = monthPartitionManager.createPartition(MonthSales::open, monthSales -> monthSales.sales().clear());
+    }
+
+    /**
+     * Libera os recursos utilizados pela loja e pelo seu catálogo.
+     */
+    public void dispose()
+    {
+        catalog.dispose();
     }
 
     /**
@@ -45,6 +83,8 @@ public class Store
 
     /**
      * Registra uma nova venda de um item do catálogo.
+     * A baixa no estoque e o registro da venda são gravados juntos em uma única {@link UnitOfWork},
+     * e a venda é acrescentada ao final do ledger do mês e registrada no diretório de vendas.
      *
      * @param storeItemID identificador único do item vendido
      * @param quantity quantidade vendida do item
@@ -59,19 +99,26 @@ public class Store
             return null;
         }
 
-        Sale newSale = new Sale(storeItem, quantity);
-
-        StoreItem coppiedStoreItem = new StoreItem(storeItem);
-        coppiedStoreItem.setStockAmount(coppiedStoreItem.getStockAmount() - quantity);
-        boolean stockUpdateWasSuccessful = catalog.getStoreItemsRepository().updateEntity(coppiedStoreItem);
-
-        if (!stockUpdateWasSuccessful)
+        return UnitOfWork.call(() ->
         {
-            return null;
-        }
-
-        currentMonthPurchasesRepository.registerEntity(newSale);
-        return newSale;
+            Sale newSale = new Sale(storeItem, quantity);
+
+            StoreItem coppiedStoreItem = new StoreItem(storeItem);
+            coppiedStoreItem.setStockAmount(coppiedStoreItem.getStockAmount() - quantity);
+            boolean stockUpdateWasSuccessful = catalog.getStoreItemsRepository().updateEntity(coppiedStoreItem);
+
+            if (!stockUpdateWasSuccessful)
+            {
+                return null;
+            }
+
+            MonthSales monthSales = currentMonthSales.getCurrent();
+            newSale.assignID(Persistence.generateUniqueID(monthSales.sales()));
+            monthSales.sales().put(newSale.getID(), newSale);
+            monthSales.ledger().append(newSale);
+            saleDirectory.register(newSale.getID(), monthSales.month());
+            return newSale;
+        });
     }
 
     /**
@@ -81,37 +128,74 @@ public class Store
      */
     public List<Sale> getCurrentMonthSales()
     {
-        List<Sale> allSales = currentMonthPurchasesRepository.getAllEntities();
+        List<Sale> allSales = new ArrayList<>(currentMonthSales.getCurrent().sales().values());
         allSales.sort(new SaleComparator());
         return allSales;
     }
 
     /**
      * Recupera todas as vendas realizadas no mês especificado.
+     * As vendas de meses encerrados são lidas do {@link MonthArchive} do mês.
      *
      * @param date data de referência para buscar as vendas do mês
      * @return lista com todas as vendas do mês especificado, ou uma lista vazia se não houver vendas
      */
     public List<Sale> getMonthSales(LocalDateTime date)
     {
-        String salesMonthPath = WorkshopPaths.getSalesMonthPath(date);
+        if (YearMonth.from(date).equals(monthPartitionManager.getCurrentMonth()))
+        {
+            return new ArrayList<>(currentMonthSales.getCurrent().sales().values());
+        }
+
+        MonthArchive<Sale> archive = openSalesArchive(date);
+        return archive != null ? archive.loadRecords() : new ArrayList<>();
+    }
+
+    /**
+     * Busca uma venda pelo ID. As vendas do mês atual ficam na memória, e as de meses encerrados
+     * são buscadas no {@link MonthArchive} do mês em que foram registradas, obtido pelo diretório de vendas.
+     *
+     * @param saleID identificador único da venda
+     * @return venda encontrada, ou null se não existir
+     */
+    public Sale getSaleWithID(UUID saleID)
+    {
+        Sale sale = currentMonthSales.getCurrent().sales().get(saleID);
+
+        if (sale != null)
+        {
+            return sale;
+        }
+
+        LocalDateTime month = saleDirectory.findPartition(saleID);
 
-        if (!Persistence.hasFile(salesMonthPath))
+        if (month == null || YearMonth.from(month).equals(monthPartitionManager.getCurrentMonth()))
         {
-            return new ArrayList<>();
+            return null;
         }
 
-        CrudRepository<Sale> monthPurchasesRepository = new CrudRepository<>(salesMonthPath, Sale.class);
-        return monthPurchasesRepository.getAllEntities();
+        MonthArchive<Sale> archive = openSalesArchive(month);
+        return archive != null ? archive.find(saleID) : null;
     }
 
-    private static boolean saleIsWithinSameMonth(Sale sale, LocalDateTime date)
+    private static MonthArchive<Sale> openSalesArchive(LocalDateTime month)
     {
-        return sale.getDate().getMonth() == date.getMonth() && sale.getDate().getYear() == date.getYear();
+        return MonthArchive.openOrSeal(createSalesLedger(WorkshopPaths.getSalesMonthPath(month)), Sale::getID);
     }
 
-    public Sale getSaleWithID(UUID saleID)
+    private static List<UUID> loadMonthSaleIDs(LocalDateTime month)
+    {
+        List<UUID> saleIDs = new ArrayList<>();
+        createSalesLedger(WorkshopPaths.getSalesMonthPath(month)).forEachRecord(sale -> saleIDs.add(sale.getID()));
+        return saleIDs;
+    }
+
+    /**
+     * Cria o ledger de vendas de um mês. Os meses gravados por versões anteriores
+     * guardam as vendas em um repositório, lido uma única vez para importar as vendas.
+     */
+    private static RecordLedger<Sale> createSalesLedger(String salesMonthPath)
     {
-        return currentMonthPurchasesRepository.getEntityWithID(saleID);
+        return new RecordLedger<>(salesMonthPath, Sale.class, () -> new CrudRepository<>(salesMonthPath, Sale.class).getAllEntities());
     }
 }
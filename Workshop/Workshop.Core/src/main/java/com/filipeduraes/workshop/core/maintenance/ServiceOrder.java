@@ -5,7 +5,12 @@ import com.filipeduraes.workshop.core.WorkshopEntity;
 import com.filipeduraes.workshop.core.catalog.PricedItem;
 import com.filipeduraes.workshop.core.catalog.ServiceItem;
 import com.filipeduraes.workshop.core.financial.Sale;
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.*;
 
@@ -220,33 +225,21 @@ public class ServiceOrder extends WorkshopEntity
 
     /**
      * Obtém todos os serviços prestados na ordem de serviço.
-     * Inicializa a lista se ela for null antes de retornar.
      *
      * @return lista dos serviços prestados
      */
     public List<ServiceItem> getServices()
     {
-        if(services == null)
-        {
-            services = new ArrayList<>();
-        }
-
         return services;
     }
 
     /**
      * Obtém todas as vendas realizadas na ordem de serviço.
-     * Inicializa a lista se ela for null antes de retornar.
      *
      * @return lista das vendas realizadas
      */
     public List<Sale> getSales()
     {
-        if(sales == null)
-        {
-            sales = new ArrayList<>();
-        }
-
         return sales;
     }
 
@@ -313,4 +306,81 @@ public class ServiceOrder extends WorkshopEntity
 
         return totalPrice;
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para ordens de serviço, que lê e grava os campos diretamente, sem reflexão.
+     * Listas de serviços e vendas ausentes em arquivos antigos são lidas como listas vazias.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<ServiceOrder>
+    {
+        private final ServiceStep.Adapter stepAdapter = new ServiceStep.Adapter();
+        private final ServiceItem.Adapter serviceAdapter = new ServiceItem.Adapter();
+        private final Sale.Adapter saleAdapter = new Sale.Adapter();
+
+        @Override
+        public void write(JsonWriter jsonWriter, ServiceOrder serviceOrder) throws IOException
+        {
+            if (serviceOrder == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("steps");
+            SerializationFields.writeList(jsonWriter, serviceOrder.steps, stepAdapter);
+            jsonWriter.name("services");
+            SerializationFields.writeList(jsonWriter, serviceOrder.services, serviceAdapter);
+            jsonWriter.name("sales");
+            SerializationFields.writeList(jsonWriter, serviceOrder.sales, saleAdapter);
+            jsonWriter.name("clientID");
+            SerializationFields.writeUUID(jsonWriter, serviceOrder.clientID);
+            jsonWriter.name("vehicleID");
+            SerializationFields.writeUUID(jsonWriter, serviceOrder.vehicleID);
+            jsonWriter.name("finished").value(serviceOrder.finished);
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, serviceOrder.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public ServiceOrder read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            ServiceOrder serviceOrder = new ServiceOrder(null, null);
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "steps" ->
+                    {
+                        List<ServiceStep> steps = SerializationFields.readList(jsonReader, stepAdapter);
+
+                        if (steps != null)
+                        {
+                            serviceOrder.steps.addAll(steps);
+                        }
+                    }
+                    case "services" -> serviceOrder.services = Objects.requireNonNullElseGet(SerializationFields.readList(jsonReader, serviceAdapter), ArrayList::new);
+                    case "sales" -> serviceOrder.sales = Objects.requireNonNullElseGet(SerializationFields.readList(jsonReader, saleAdapter), ArrayList::new);
+                    case "clientID" -> serviceOrder.clientID = SerializationFields.readUUID(jsonReader);
+                    case "vehicleID" -> serviceOrder.vehicleID = SerializationFields.readUUID(jsonReader);
+                    case "finished" -> serviceOrder.finished = jsonReader.nextBoolean();
+                    case "id" -> serviceOrder.assignID(SerializationFields.readUUID(jsonReader));
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+            return serviceOrder;
+        }
+    }
 }
\ No newline at end of file
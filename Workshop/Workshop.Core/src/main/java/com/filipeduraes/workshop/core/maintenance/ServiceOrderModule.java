@@ -2,41 +2,74 @@
 package com.filipeduraes.workshop.core.maintenance;
 
 import com.filipeduraes.workshop.core.CrudRepository;
+import com.filipeduraes.workshop.core.persistence.MonthArchive;
+import com.filipeduraes.workshop.core.persistence.MonthPartition;
+import com.filipeduraes.workshop.core.persistence.MonthPartitionManager;
 import com.filipeduraes.workshop.core.persistence.Persistence;
+import com.filipeduraes.workshop.core.persistence.UnitOfWork;
 import com.filipeduraes.workshop.core.persistence.WorkshopPaths;
 
 import java.lang.reflect.ParameterizedType;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.function.Predicate;
 
 /**
  * Módulo responsável pelo gerenciamento de ordens de serviço e manutenções na oficina.
  * Controla o fluxo de trabalho desde o agendamento inicial até a conclusão do serviço.
+ * Cada etapa do fluxo é executada em uma {@link UnitOfWork}, gravando cada arquivo alterado uma única vez.
+ * As ordens de serviço são carregadas sob demanda, então o histórico não precisa ficar todo na memória.
  *
  * @author Filipe Durães
  */
 public class ServiceOrderModule
 {
+    private static final long SERVICE_ORDER_CACHE_BYTES = 4L * 1024 * 1024;
+
     private final CrudRepository<ServiceOrder> serviceOrderRepository;
     private final Set<UUID> userServices;
     private final Set<UUID> openedServices;
     private final UUID loggedEmployeeID;
     private final ParameterizedType serviceIDSetType;
     private final Elevator[] elevators;
+    private final MonthPartition<MonthServices> currentMonthFinishedServices;
+
+    /**
+     * Serviços finalizados em um mês: o início do mês e os IDs mantidos na memória.
+     */
+    private record MonthServices(LocalDateTime month, Set<UUID> serviceIDs)
+    {
+    }
 
     /**
      * Cria uma nova instância do módulo de manutenção.
      *
      * @param loggedEmployeeID ID do funcionário que está logado no sistema
+     * @param monthPartitionManager gerenciador que troca os serviços finalizados do mês atual na virada do mês
      */
-    public ServiceOrderModule(UUID loggedEmployeeID)
+    public ServiceOrderModule(UUID loggedEmployeeID, MonthPartitionManager monthPartitionManager)
+    {
+        this(loggedEmployeeID, loadServiceOrderRepository(), monthPartitionManager);
+    }
+
+    /**
+     * Cria uma nova instância do módulo de manutenção usando um repositório de ordens de serviço já carregado,
+     * permitindo carregá-lo em segundo plano antes do login.
+     *
+     * @param loggedEmployeeID ID do funcionário que está logado no sistema
+     * @param serviceOrderRepository repositório de ordens de serviço carregado por {@link #loadServiceOrderRepository()}
+     * @param monthPartitionManager gerenciador que troca os serviços finalizados do mês atual na virada do mês
+     */
+    public ServiceOrderModule(UUID loggedEmployeeID, CrudRepository<ServiceOrder> serviceOrderRepository, MonthPartitionManager monthPartitionManager)
     {
         this.loggedEmployeeID = loggedEmployeeID;
+        this.serviceOrderRepository = serviceOrderRepository;
 
         serviceIDSetType = Persistence.createParameterizedType(HashSet.class, UUID.class);
+        currentMonthFinishedServices = monthPartitionManager.createPartition(month -> new MonthServices(month, loadFinishedServicesFile(month)),
+                                                                             monthServices -> monthServices.serviceIDs().clear());
 
-        serviceOrderRepository = new CrudRepository<>(WorkshopPaths.SERVICES_PATH, ServiceOrder.class);
         openedServices = Persistence.loadFile(WorkshopPaths.OPENED_SERVICES_PATH, serviceIDSetType, new HashSet<>());
         userServices = Persistence.loadFile(WorkshopPaths.getUserServicesPath(), serviceIDSetType, new HashSet<>());
 
@@ -50,6 +83,16 @@ public class ServiceOrderModule
         elevators = Persistence.loadFile(WorkshopPaths.ELEVATORS_PATH, Elevator[].class, defaultElevators);
     }
 
+    /**
+     * Carrega o repositório de ordens de serviço, que não depende do funcionário logado.
+     *
+     * @return repositório de ordens de serviço
+     */
+    public static CrudRepository<ServiceOrder> loadServiceOrderRepository()
+    {
+        return CrudRepository.createLazy(WorkshopPaths.SERVICES_PATH, ServiceOrder.class, SERVICE_ORDER_CACHE_BYTES);
+    }
+
     /**
      * Obtém o repositório de ordens de serviço.
      *
@@ -60,6 +103,16 @@ public class ServiceOrderModule
         return serviceOrderRepository;
     }
 
+    /**
+     * Libera os recursos do módulo, fechando o arquivo de registros das ordens de serviço
+     * e os serviços finalizados do mês atual.
+     */
+    public void dispose()
+    {
+        serviceOrderRepository.dispose();
+        currentMonthFinishedServices.close();
+    }
+
     /**
      * Obtém o conjunto de IDs dos serviços atribuídos ao funcionário atual.
      *
@@ -82,10 +135,27 @@ public class ServiceOrderModule
 
     /**
      * Carrega o conjunto de IDs dos serviços já finalizados.
+     * Os serviços do mês atual são obtidos da memória, sem ler o arquivo,
+     * e os de meses encerrados são lidos do {@link MonthArchive} do mês.
      *
      * @return conjunto de IDs dos fechados
      */
     public Set<UUID> loadClosedServicesInMonth(LocalDateTime month)
+    {
+        MonthServices monthServices = currentMonthFinishedServices.getCurrent();
+
+        if (YearMonth.from(monthServices.month()).equals(YearMonth.from(month)))
+        {
+            return new HashSet<>(monthServices.serviceIDs());
+        }
+
+        String finishedServicesPath = WorkshopPaths.getFinishedServicesMonthPath(month);
+        MonthArchive<UUID> archive = MonthArchive.openOrSeal(finishedServicesPath, UUID.class, serviceID -> serviceID, () -> loadFinishedServicesFile(month));
+
+        return archive != null ? new HashSet<>(archive.loadRecords()) : new HashSet<>();
+    }
+
+    private Set<UUID> loadFinishedServicesFile(LocalDateTime month)
     {
         return Persistence.loadFile(WorkshopPaths.getFinishedServicesMonthPath(month), serviceIDSetType, new HashSet<>());
     }
@@ -101,18 +171,21 @@ public class ServiceOrderModule
      */
     public UUID registerNewAppointment(UUID clientID, UUID vehicleID, String shortDescription, String detailedDescription)
     {
-        ServiceOrder serviceOrder = new ServiceOrder(clientID, vehicleID);
+        return UnitOfWork.call(() ->
+        {
+            ServiceOrder serviceOrder = new ServiceOrder(clientID, vehicleID);
 
-        serviceOrder.registerStep(new ServiceStep(loggedEmployeeID));
-        serviceOrder.getCurrentStep().setShortDescription(shortDescription);
-        serviceOrder.getCurrentStep().setDetailedDescription(detailedDescription);
-        serviceOrder.getCurrentStep().finishStep();
+            serviceOrder.registerStep(new ServiceStep(loggedEmployeeID));
+            serviceOrder.getCurrentStep().setShortDescription(shortDescription);
+            serviceOrder.getCurrentStep().setDetailedDescription(detailedDescription);
+            serviceOrder.getCurrentStep().finishStep();
 
-        UUID serviceID = serviceOrderRepository.registerEntity(serviceOrder);
-        openedServices.add(serviceID);
+            UUID serviceID = serviceOrderRepository.registerEntity(serviceOrder);
+            openedServices.add(serviceID);
 
-        Persistence.saveFile(openedServices, WorkshopPaths.OPENED_SERVICES_PATH);
-        return serviceID;
+            Persistence.saveFile(openedServices, WorkshopPaths.OPENED_SERVICES_PATH);
+            return serviceID;
+        });
     }
 
     /**
@@ -133,27 +206,30 @@ public class ServiceOrderModule
      */
     public boolean startInspection(UUID serviceID, ElevatorType usedElevatorType)
     {
-        ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
-
-        if (serviceOrder.getCurrentMaintenanceStep() == MaintenanceStep.APPOINTMENT)
+        return UnitOfWork.call(() ->
         {
-            ServiceStep step = generateStepFromElevatorType(usedElevatorType);
+            ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
 
-            if (step == null)
+            if (serviceOrder.getCurrentMaintenanceStep() == MaintenanceStep.APPOINTMENT)
             {
-                return false;
-            }
+                ServiceStep step = generateStepFromElevatorType(usedElevatorType);
 
-            serviceOrder.registerStep(step);
-            openedServices.remove(serviceID);
-            userServices.add(serviceID);
+                if (step == null)
+                {
+                    return false;
+                }
 
-            Persistence.saveFile(openedServices, WorkshopPaths.OPENED_SERVICES_PATH);
-            Persistence.saveFile(userServices, WorkshopPaths.getUserServicesPath());
-            return serviceOrderRepository.updateEntity(serviceOrder);
-        }
+                serviceOrder.registerStep(step);
+                openedServices.remove(serviceID);
+                userServices.add(serviceID);
+
+                Persistence.saveFile(openedServices, WorkshopPaths.OPENED_SERVICES_PATH);
+                Persistence.saveFile(userServices, WorkshopPaths.getUserServicesPath());
+                return serviceOrderRepository.updateEntity(serviceOrder);
+            }
 
-        return false;
+            return false;
+        });
     }
 
     /**
@@ -166,28 +242,31 @@ public class ServiceOrderModule
      */
     public boolean finishInspection(UUID serviceID, UUID newEmployee, String shortDescription, String detailedDescription)
     {
-        if (loggedUserHasService(serviceID))
+        return UnitOfWork.call(() ->
         {
-            ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
-
-            if (serviceOrder.getCurrentMaintenanceStep() == MaintenanceStep.ASSESSMENT)
+            if (loggedUserHasService(serviceID))
             {
-                ServiceStep currentStep = serviceOrder.getCurrentStep();
+                ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
 
-                stopUsingElevatorFromStep(currentStep);
+                if (serviceOrder.getCurrentMaintenanceStep() == MaintenanceStep.ASSESSMENT)
+                {
+                    ServiceStep currentStep = serviceOrder.getCurrentStep();
 
-                currentStep.setShortDescription(shortDescription);
-                currentStep.setDetailedDescription(detailedDescription);
-                currentStep.finishStep();
+                    stopUsingElevatorFromStep(currentStep);
 
-                removeServiceOrderFromEmployeeServices(serviceID);
-                addServiceOrderToEmployeeServices(serviceID, newEmployee);
+                    currentStep.setShortDescription(shortDescription);
+                    currentStep.setDetailedDescription(detailedDescription);
+                    currentStep.finishStep();
 
-                return serviceOrderRepository.updateEntity(serviceOrder);
+                    removeServiceOrderFromEmployeeServices(serviceID);
+                    addServiceOrderToEmployeeServices(serviceID, newEmployee);
+
+                    return serviceOrderRepository.updateEntity(serviceOrder);
+                }
             }
-        }
 
-        return false;
+            return false;
+        });
     }
 
     /**
@@ -208,17 +287,20 @@ public class ServiceOrderModule
      */
     public boolean startMaintenance(UUID serviceID, ElevatorType usedElevatorType)
     {
-        ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
-
-        if (serviceOrder.getCurrentMaintenanceStep() == MaintenanceStep.ASSESSMENT)
+        return UnitOfWork.call(() ->
         {
-            ServiceStep serviceStep = generateStepFromElevatorType(usedElevatorType);
-            serviceOrder.registerStep(serviceStep);
+            ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
 
-            return serviceOrderRepository.updateEntity(serviceOrder);
-        }
+            if (serviceOrder.getCurrentMaintenanceStep() == MaintenanceStep.ASSESSMENT)
+            {
+                ServiceStep serviceStep = generateStepFromElevatorType(usedElevatorType);
+                serviceOrder.registerStep(serviceStep);
 
-        return false;
+                return serviceOrderRepository.updateEntity(serviceOrder);
+            }
+
+            return false;
+        });
     }
 
     /**
@@ -229,22 +311,25 @@ public class ServiceOrderModule
      */
     public boolean finishMaintenance(UUID serviceID, String shortDescription, String detailedDescription)
     {
-        ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
-        ServiceStep currentStep = serviceOrder.getCurrentStep();
+        return UnitOfWork.call(() ->
+        {
+            ServiceOrder serviceOrder = serviceOrderRepository.getEntityWithID(serviceID);
+            ServiceStep currentStep = serviceOrder.getCurrentStep();
 
-        stopUsingElevatorFromStep(currentStep);
+            stopUsingElevatorFromStep(currentStep);
 
-        currentStep.setShortDescription(shortDescription);
-        currentStep.setDetailedDescription(detailedDescription);
-        currentStep.finishStep();
-        serviceOrder.finish();
+            currentStep.setShortDescription(shortDescription);
+            currentStep.setDetailedDescription(detailedDescription);
+            currentStep.finishStep();
+            serviceOrder.finish();
 
-        Set<UUID> finishedServices = loadClosedServicesInMonth(LocalDateTime.now());
-        finishedServices.add(serviceID);
+            MonthServices finishedServices = currentMonthFinishedServices.getCurrent();
+            finishedServices.serviceIDs().add(serviceID);
 
-        removeServiceOrderFromEmployeeServices(serviceID);
-        Persistence.saveFile(finishedServices, WorkshopPaths.getFinishedServicesCurrentMonthPath());
-        return serviceOrderRepository.updateEntity(serviceOrder);
+            removeServiceOrderFromEmployeeServices(serviceID);
+            Persistence.saveFile(finishedServices.serviceIDs(), WorkshopPaths.getFinishedServicesMonthPath(finishedServices.month()));
+            return serviceOrderRepository.updateEntity(serviceOrder);
+        });
     }
 
     /**
@@ -254,9 +339,12 @@ public class ServiceOrderModule
      */
     public void deleteServiceOrder(UUID serviceOrderID)
     {
-        removeServiceOrderFromEmployeeServices(serviceOrderID);
+        UnitOfWork.run(() ->
+        {
+            removeServiceOrderFromEmployeeServices(serviceOrderID);
 
-        serviceOrderRepository.deleteEntityWithID(serviceOrderID);
+            serviceOrderRepository.deleteEntityWithID(serviceOrderID);
+        });
     }
 
     public boolean hasAvailableElevatorOfType(ElevatorType type)
@@ -312,8 +400,11 @@ public class ServiceOrderModule
     private void addServiceOrderToEmployeeServices(UUID serviceOrderID, UUID employeeID)
     {
         Set<UUID> employeeUserServices = loadEmployeeUserServices(employeeID);
-        employeeUserServices.add(serviceOrderID);
-        saveEmployeeUserServices(employeeID, employeeUserServices);
+
+        if (employeeUserServices.add(serviceOrderID))
+        {
+            saveEmployeeUserServices(employeeID, employeeUserServices);
+        }
     }
 
     private void removeServiceOrderFromEmployeeServices(UUID serviceOrderID)
@@ -322,9 +413,11 @@ public class ServiceOrderModule
         UUID employeeID = serviceOrder.getCurrentStep().getEmployeeID();
 
         Set<UUID> employeeUserServices = loadEmployeeUserServices(employeeID);
-        employeeUserServices.remove(serviceOrderID);
 
-        saveEmployeeUserServices(employeeID, employeeUserServices);
+        if (employeeUserServices.remove(serviceOrderID))
+        {
+            saveEmployeeUserServices(employeeID, employeeUserServices);
+        }
     }
 
     private Set<UUID> loadEmployeeUserServices(UUID employeeID)
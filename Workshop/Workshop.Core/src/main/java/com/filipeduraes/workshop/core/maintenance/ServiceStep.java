@@ -2,6 +2,12 @@
 
 package com.filipeduraes.workshop.core.maintenance;
 
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -50,6 +56,13 @@ public class ServiceStep
         this.usedElevatorIndex = usedElevatorIndex;
     }
 
+    private ServiceStep(UUID employeeID, int usedElevatorIndex, LocalDateTime startDate)
+    {
+        this.employeeID = employeeID;
+        this.usedElevatorIndex = usedElevatorIndex;
+        this.startDate = startDate;
+    }
+
     /**
      * Construtor de cópia que cria uma nova etapa de serviço a partir de uma existente.
      * Todos os atributos da etapa original são copiados para a nova instância.
@@ -185,4 +198,78 @@ public class ServiceStep
     {
         return usedElevatorIndex;
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para etapas de serviço, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<ServiceStep>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, ServiceStep step) throws IOException
+        {
+            if (step == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("employeeID");
+            SerializationFields.writeUUID(jsonWriter, step.employeeID);
+            jsonWriter.name("finishDate");
+            SerializationFields.writeDateTime(jsonWriter, step.finishDate);
+            jsonWriter.name("shortDescription").value(step.shortDescription);
+            jsonWriter.name("detailedDescription").value(step.detailedDescription);
+            jsonWriter.name("usedElevatorIndex").value(step.usedElevatorIndex);
+            jsonWriter.name("wasFinished").value(step.wasFinished);
+            jsonWriter.name("startDate");
+            SerializationFields.writeDateTime(jsonWriter, step.startDate);
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public ServiceStep read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            UUID employeeID = null;
+            LocalDateTime startDate = null;
+            LocalDateTime finishDate = null;
+            String shortDescription = "";
+            String detailedDescription = "";
+            int usedElevatorIndex = -1;
+            boolean wasFinished = false;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "employeeID" -> employeeID = SerializationFields.readUUID(jsonReader);
+                    case "finishDate" -> finishDate = SerializationFields.readDateTime(jsonReader);
+                    case "shortDescription" -> shortDescription = SerializationFields.readString(jsonReader);
+                    case "detailedDescription" -> detailedDescription = SerializationFields.readString(jsonReader);
+                    case "usedElevatorIndex" -> usedElevatorIndex = jsonReader.nextInt();
+                    case "wasFinished" -> wasFinished = jsonReader.nextBoolean();
+                    case "startDate" -> startDate = SerializationFields.readDateTime(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            ServiceStep step = new ServiceStep(employeeID, usedElevatorIndex, startDate);
+            step.finishDate = finishDate;
+            step.shortDescription = shortDescription;
+            step.detailedDescription = detailedDescription;
+            step.wasFinished = wasFinished;
+            return step;
+        }
+    }
 }
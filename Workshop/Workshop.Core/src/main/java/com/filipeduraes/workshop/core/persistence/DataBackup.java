@@ -0,0 +1,378 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.channels.FileChannel;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Cópias de segurança incrementais da pasta de dados.
+ *
+ * <p>Cada cópia é uma pasta com os arquivos de dados e um manifesto com o tamanho, a data de modificação
+ * e o CRC32C de cada arquivo. Arquivos iguais aos da cópia anterior não são copiados de novo: são criados como
+ * links físicos para o arquivo da cópia anterior, então cada conteúdo é guardado uma única vez em disco.
+ * Um arquivo com o mesmo tamanho e data de modificação da cópia anterior é considerado igual sem ser lido,
+ * e os demais são comparados pelo CRC32C. Assim o tempo da cópia depende do que mudou, e não do histórico.</p>
+ *
+ * <p>Os arquivos alterados são copiados com {@link FileChannel#transferTo}, sem passar pela memória da aplicação.
+ * O manifesto é gravado por último e a pasta da cópia só recebe o seu nome final quando está completa.</p>
+ *
+ * <p>A chave da criptografia não faz parte das cópias, nem quando uma versão anterior a deixou na pasta de dados,
+ * e deve ser guardada separadamente, como descrito em {@link DataEncryption}.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class DataBackup
+{
+    private static final String MANIFEST_FILE_NAME = "Manifest.txt";
+    private static final String MANIFEST_HEADER = "WorkshopBackup\t1";
+    private static final String SNAPSHOT_DATA_DIRECTORY = "Data";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final char SEPARATOR = '\t';
+    private static final DateTimeFormatter SNAPSHOT_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private DataBackup()
+    {
+    } //Pure static class
+
+    /**
+     * Resultado de uma cópia de segurança.
+     *
+     * @param snapshotName nome da cópia, usado para restaurá-la
+     * @param copiedCount quantidade de arquivos alterados, copiados para a cópia
+     * @param linkedCount quantidade de arquivos iguais aos da cópia anterior, reaproveitados
+     * @param copiedBytes quantidade de bytes copiados
+     */
+    public record Result(String snapshotName, int copiedCount, int linkedCount, long copiedBytes)
+    {
+    }
+
+    private record ManifestEntry(String relativePath, long size, long lastModifiedMillis, int checksum)
+    {
+    }
+
+    /**
+     * Cria uma cópia de segurança da pasta de dados na pasta de cópias de segurança.
+     *
+     * @return resultado da cópia
+     * @throws IOException se ocorrer erro ao ler os dados ou gravar a cópia
+     */
+    public static Result createBackup() throws IOException
+    {
+        return createBackup(Path.of(WorkshopPaths.getDataDirectoryPath()), Path.of(WorkshopPaths.getBackupDirectoryPath()));
+    }
+
+    /**
+     * Cria uma cópia de segurança de uma pasta, reaproveitando os arquivos iguais aos da cópia mais recente.
+     * As gravações pendentes são concluídas antes da cópia.
+     *
+     * @param dataDirectory pasta copiada
+     * @param backupDirectory pasta onde ficam as cópias
+     * @return resultado da cópia
+     * @throws IOException se ocorrer erro ao ler os dados ou gravar a cópia
+     */
+    public static Result createBackup(Path dataDirectory, Path backupDirectory) throws IOException
+    {
+        Persistence.flushWrites();
+
+        List<String> snapshots = listSnapshots(backupDirectory);
+        String previousSnapshot = snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+        Map<String, ManifestEntry> previousEntries = previousSnapshot != null ? readManifest(backupDirectory.resolve(previousSnapshot)) : Map.of();
+        Path previousDataDirectory = previousSnapshot != null ? backupDirectory.resolve(previousSnapshot).resolve(SNAPSHOT_DATA_DIRECTORY) : null;
+
+        String snapshotName = createSnapshotName(snapshots);
+        Path temporarySnapshot = backupDirectory.resolve(snapshotName + TEMPORARY_FILE_SUFFIX);
+        Path snapshotDataDirectory = temporarySnapshot.resolve(SNAPSHOT_DATA_DIRECTORY);
+        Files.createDirectories(snapshotDataDirectory);
+
+        List<ManifestEntry> entries = new ArrayList<>();
+        int copiedCount = 0;
+        int linkedCount = 0;
+        long copiedBytes = 0;
+
+        for (Path sourcePath : listDataFiles(dataDirectory))
+        {
+            String relativePath = toRelativePath(dataDirectory, sourcePath);
+            Path targetPath = snapshotDataDirectory.resolve(relativePath);
+            BasicFileAttributes attributes = Files.readAttributes(sourcePath, BasicFileAttributes.class);
+            long lastModifiedMillis = attributes.lastModifiedTime().toMillis();
+            ManifestEntry previousEntry = previousEntries.get(relativePath);
+
+            Files.createDirectories(targetPath.getParent());
+
+            if (previousEntry != null && isSameContent(sourcePath, attributes.size(), lastModifiedMillis, previousEntry))
+            {
+                linkOrCopy(previousDataDirectory.resolve(relativePath), targetPath);
+                entries.add(new ManifestEntry(relativePath, previousEntry.size(), lastModifiedMillis, previousEntry.checksum()));
+                linkedCount++;
+                continue;
+            }
+
+            long copiedLength = copyFile(sourcePath, targetPath);
+            Files.setLastModifiedTime(targetPath, attributes.lastModifiedTime());
+            entries.add(new ManifestEntry(relativePath, copiedLength, lastModifiedMillis, computeChecksum(targetPath)));
+            copiedCount++;
+            copiedBytes += copiedLength;
+        }
+
+        writeManifest(temporarySnapshot, entries);
+        Persistence.replaceFile(temporarySnapshot, backupDirectory.resolve(snapshotName));
+
+        return new Result(snapshotName, copiedCount, linkedCount, copiedBytes);
+    }
+
+    /**
+     * Lista as cópias de segurança completas da pasta de cópias de segurança, da mais antiga para a mais recente.
+     *
+     * @return nomes das cópias
+     * @throws IOException se ocorrer erro ao listar a pasta
+     */
+    public static List<String> listSnapshots() throws IOException
+    {
+        return listSnapshots(Path.of(WorkshopPaths.getBackupDirectoryPath()));
+    }
+
+    /**
+     * Lista as cópias de segurança completas, da mais antiga para a mais recente.
+     *
+     * @param backupDirectory pasta onde ficam as cópias
+     * @return nomes das cópias
+     * @throws IOException se ocorrer erro ao listar a pasta
+     */
+    public static List<String> listSnapshots(Path backupDirectory) throws IOException
+    {
+        if (!Files.isDirectory(backupDirectory))
+        {
+            return new ArrayList<>();
+        }
+
+        try (Stream<Path> directories = Files.list(backupDirectory))
+        {
+            return directories.filter(directory -> Files.isRegularFile(directory.resolve(MANIFEST_FILE_NAME)))
+                              .map(directory -> directory.getFileName().toString())
+                              .filter(name -> !name.endsWith(TEMPORARY_FILE_SUFFIX))
+                              .sorted()
+                              .toList();
+        }
+    }
+
+    /**
+     * Restaura uma cópia de segurança na pasta de dados.
+     *
+     * @param snapshotName nome da cópia
+     * @return quantidade de arquivos restaurados
+     * @throws IOException se a cópia não existir ou ocorrer erro durante a restauração
+     */
+    public static int restoreBackup(String snapshotName) throws IOException
+    {
+        return restoreBackup(Path.of(WorkshopPaths.getBackupDirectoryPath()), snapshotName, Path.of(WorkshopPaths.getDataDirectoryPath()));
+    }
+
+    /**
+     * Restaura uma cópia de segurança, deixando a pasta de destino igual à pasta copiada no momento da cópia.
+     * Arquivos da pasta de destino que não fazem parte da cópia são removidos. Os repositórios já carregados
+     * não são atualizados, então a restauração deve acontecer antes de a oficina ser criada.
+     *
+     * @param backupDirectory pasta onde ficam as cópias
+     * @param snapshotName nome da cópia
+     * @param targetDirectory pasta restaurada
+     * @return quantidade de arquivos restaurados
+     * @throws IOException se a cópia não existir, estiver corrompida ou ocorrer erro durante a restauração
+     */
+    public static int restoreBackup(Path backupDirectory, String snapshotName, Path targetDirectory) throws IOException
+    {
+        Path snapshotDirectory = backupDirectory.resolve(snapshotName);
+
+        if (!Files.isRegularFile(snapshotDirectory.resolve(MANIFEST_FILE_NAME)))
+        {
+            throw new IOException("Copia de seguranca nao encontrada: " + snapshotName);
+        }
+
+        Persistence.flushWrites();
+
+        Map<String, ManifestEntry> entries = readManifest(snapshotDirectory);
+        Path snapshotDataDirectory = snapshotDirectory.resolve(SNAPSHOT_DATA_DIRECTORY);
+
+        for (ManifestEntry entry : entries.values())
+        {
+            Path sourcePath = snapshotDataDirectory.resolve(entry.relativePath());
+
+            if (Files.size(sourcePath) != entry.size() || computeChecksum(sourcePath) != entry.checksum())
+            {
+                throw new IOException("Arquivo da copia de seguranca corrompido: " + sourcePath);
+            }
+        }
+
+        for (ManifestEntry entry : entries.values())
+        {
+            Path targetPath = targetDirectory.resolve(entry.relativePath());
+            Path temporaryPath = targetPath.resolveSibling(targetPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+            Files.createDirectories(targetPath.getParent());
+            Files.deleteIfExists(temporaryPath);
+            copyFile(snapshotDataDirectory.resolve(entry.relativePath()), temporaryPath);
+            Files.setLastModifiedTime(temporaryPath, FileTime.fromMillis(entry.lastModifiedMillis()));
+            Persistence.replaceFile(temporaryPath, targetPath);
+        }
+
+        for (Path existingPath : listDataFiles(targetDirectory))
+        {
+            if (!entries.containsKey(toRelativePath(targetDirectory, existingPath)))
+            {
+                Files.delete(existingPath);
+            }
+        }
+
+        return entries.size();
+    }
+
+    private static boolean isSameContent(Path sourcePath, long size, long lastModifiedMillis, ManifestEntry previousEntry) throws IOException
+    {
+        if (size != previousEntry.size())
+        {
+            return false;
+        }
+
+        return lastModifiedMillis == previousEntry.lastModifiedMillis() || computeChecksum(sourcePath) == previousEntry.checksum();
+    }
+
+    private static void linkOrCopy(Path existingPath, Path targetPath) throws IOException
+    {
+        try
+        {
+            Files.createLink(targetPath, existingPath);
+        }
+        catch (UnsupportedOperationException | FileSystemException exception)
+        {
+            // O sistema de arquivos não aceita links físicos, então o arquivo é copiado
+            copyFile(existingPath, targetPath);
+        }
+    }
+
+    private static long copyFile(Path sourcePath, Path targetPath) throws IOException
+    {
+        try (FileChannel sourceChannel = FileChannel.open(sourcePath, StandardOpenOption.READ);
+             FileChannel targetChannel = FileChannel.open(targetPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            long size = sourceChannel.size();
+            long position = 0;
+
+            while (position < size)
+            {
+                long transferred = sourceChannel.transferTo(position, size - position, targetChannel);
+
+                if (transferred <= 0)
+                {
+                    break;
+                }
+
+                position += transferred;
+            }
+
+            return position;
+        }
+    }
+
+    private static int computeChecksum(Path filePath) throws IOException
+    {
+        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ))
+        {
+            return DataIntegrityVerifier.computeChecksum(fileChannel, 0, fileChannel.size());
+        }
+    }
+
+    private static List<Path> listDataFiles(Path dataDirectory) throws IOException
+    {
+        if (!Files.isDirectory(dataDirectory))
+        {
+            return new ArrayList<>();
+        }
+
+        try (Stream<Path> files = Files.walk(dataDirectory))
+        {
+            return files.filter(Files::isRegularFile)
+                        .filter(filePath -> !filePath.getFileName().toString().endsWith(TEMPORARY_FILE_SUFFIX))
+                        .filter(filePath -> !filePath.getFileName().toString().equals(DataEncryption.KEY_FILE_NAME))
+                        .sorted(Comparator.naturalOrder())
+                        .toList();
+        }
+    }
+
+    private static String toRelativePath(Path directory, Path filePath)
+    {
+        return directory.relativize(filePath).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String createSnapshotName(List<String> existingSnapshots)
+    {
+        Set<String> names = new HashSet<>(existingSnapshots);
+        LocalDateTime time = LocalDateTime.now();
+        String name = time.format(SNAPSHOT_NAME_FORMAT);
+
+        while (names.contains(name) || (!existingSnapshots.isEmpty() && name.compareTo(existingSnapshots.get(existingSnapshots.size() - 1)) <= 0))
+        {
+            time = time.plusNanos(1_000_000);
+            name = time.format(SNAPSHOT_NAME_FORMAT);
+        }
+
+        return name;
+    }
+
+    private static void writeManifest(Path snapshotDirectory, List<ManifestEntry> entries) throws IOException
+    {
+        List<String> lines = new ArrayList<>(entries.size() + 1);
+        lines.add(MANIFEST_HEADER);
+
+        for (ManifestEntry entry : entries)
+        {
+            lines.add(entry.relativePath() + SEPARATOR + entry.size() + SEPARATOR + entry.lastModifiedMillis() + SEPARATOR + Integer.toHexString(entry.checksum()));
+        }
+
+        Files.write(snapshotDirectory.resolve(MANIFEST_FILE_NAME), lines, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, ManifestEntry> readManifest(Path snapshotDirectory) throws IOException
+    {
+        List<String> lines = Files.readAllLines(snapshotDirectory.resolve(MANIFEST_FILE_NAME), StandardCharsets.UTF_8);
+
+        if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_HEADER))
+        {
+            throw new IOException("Manifesto de copia de seguranca nao suportado: " + snapshotDirectory);
+        }
+
+        Map<String, ManifestEntry> entries = new HashMap<>();
+
+        for (String line : lines.subList(1, lines.size()))
+        {
+            String[] fields = line.split(String.valueOf(SEPARATOR));
+
+            if (fields.length != 4)
+            {
+                throw new IOException("Manifesto de copia de seguranca corrompido: " + snapshotDirectory);
+            }
+
+            ManifestEntry entry = new ManifestEntry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), Integer.parseUnsignedInt(fields[3], 16));
+            entries.put(entry.relativePath(), entry);
+        }
+
+        return entries;
+    }
+}
@@ -0,0 +1,220 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Chave e rotinas da criptografia AES-GCM usada por {@link DataProtection#ENCRYPTED}.
+ *
+ * <p>Se nenhuma chave for definida com {@link #setKey(byte[])}, uma chave aleatória de 256 bits é criada na primeira
+ * gravação e guardada no arquivo "Workshop.key" da pasta {@link WorkshopPaths#getKeyDirectoryPath()}, com acesso restrito
+ * ao dono quando o sistema permite. A chave fica fora da pasta de dados, então {@link DataBackup} não a copia e uma cópia
+ * de segurança roubada não pode ser lida sem ela. Sem a chave os arquivos criptografados também não podem ser restaurados,
+ * então o arquivo deve ser guardado separadamente, em um local seguro, uma única vez: ele não muda depois de criado.
+ * Uma chave guardada na pasta de dados por versões anteriores é movida para a pasta da chave.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class DataEncryption
+{
+    /**
+     * Tamanho do nonce do AES-GCM, em bytes.
+     */
+    public static final int NONCE_LENGTH = 12;
+    /**
+     * Tamanho da etiqueta de autenticação do AES-GCM, em bytes.
+     */
+    public static final int TAG_LENGTH = 16;
+
+    static final String KEY_FILE_NAME = "Workshop.key";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int KEY_LENGTH = 32;
+    private static final SecureRandom Random = new SecureRandom();
+    private static final ThreadLocal<Cipher> Ciphers = ThreadLocal.withInitial(DataEncryption::createCipher);
+    private static volatile SecretKey CurrentKey;
+
+    private DataEncryption()
+    {
+    } //Pure static class
+
+    /**
+     * Define a chave usada para criptografar e ler os arquivos, substituindo o arquivo de chave.
+     *
+     * @param key chave AES com 16, 24 ou 32 bytes
+     */
+    public static void setKey(byte[] key)
+    {
+        if (key.length != 16 && key.length != 24 && key.length != KEY_LENGTH)
+        {
+            throw new IllegalArgumentException("A chave deve ter 16, 24 ou 32 bytes.");
+        }
+
+        CurrentKey = new SecretKeySpec(key.clone(), "AES");
+    }
+
+    /**
+     * Obtém a chave atual, carregando ou criando o arquivo de chave na primeira chamada.
+     *
+     * @return chave AES
+     * @throws IOException se o arquivo de chave não puder ser lido ou criado
+     */
+    public static SecretKey getKey() throws IOException
+    {
+        SecretKey key = CurrentKey;
+
+        if (key == null)
+        {
+            synchronized (DataEncryption.class)
+            {
+                if (CurrentKey == null)
+                {
+                    CurrentKey = new SecretKeySpec(loadOrCreateKeyFile(), "AES");
+                }
+
+                key = CurrentKey;
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Preenche o array com bytes aleatórios seguros, usado para criar nonces.
+     *
+     * @param bytes array a ser preenchido
+     */
+    public static void fillRandom(byte[] bytes)
+    {
+        Random.nextBytes(bytes);
+    }
+
+    /**
+     * Obtém o cifrador AES-GCM da thread atual. O cifrador deve ser inicializado antes de cada uso.
+     *
+     * @return cifrador da thread atual
+     */
+    public static Cipher getCipher()
+    {
+        return Ciphers.get();
+    }
+
+    /**
+     * Criptografa um registro isolado com um nonce aleatório.
+     * O resultado contém o nonce seguido do texto cifrado com a etiqueta de autenticação.
+     *
+     * @param plainBytes bytes a serem criptografados
+     * @return registro criptografado
+     * @throws IOException se a chave não estiver disponível ou a criptografia falhar
+     */
+    static byte[] encryptRecord(byte[] plainBytes) throws IOException
+    {
+        byte[] record = new byte[NONCE_LENGTH + plainBytes.length + TAG_LENGTH];
+        byte[] nonce = new byte[NONCE_LENGTH];
+        fillRandom(nonce);
+        System.arraycopy(nonce, 0, record, 0, NONCE_LENGTH);
+
+        try
+        {
+            Cipher cipher = getCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, getKey(), new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.doFinal(plainBytes, 0, plainBytes.length, record, NONCE_LENGTH);
+            return record;
+        }
+        catch (GeneralSecurityException exception)
+        {
+            throw new IOException("Falha ao criptografar o registro.", exception);
+        }
+    }
+
+    /**
+     * Lê um registro criptografado por {@link #encryptRecord(byte[])}, validando a autenticação.
+     *
+     * @param record registro criptografado
+     * @return bytes originais
+     * @throws IOException se o registro estiver corrompido, alterado ou a chave for outra
+     */
+    static byte[] decryptRecord(byte[] record) throws IOException
+    {
+        if (record.length < NONCE_LENGTH + TAG_LENGTH)
+        {
+            throw new IOException("Registro criptografado incompleto.");
+        }
+
+        try
+        {
+            Cipher cipher = getCipher();
+            cipher.init(Cipher.DECRYPT_MODE, getKey(), new GCMParameterSpec(TAG_LENGTH * 8, Arrays.copyOf(record, NONCE_LENGTH)));
+            return cipher.doFinal(record, NONCE_LENGTH, record.length - NONCE_LENGTH);
+        }
+        catch (GeneralSecurityException exception)
+        {
+            throw new IOException("Registro criptografado invalido ou alterado.", exception);
+        }
+    }
+
+    private static byte[] loadOrCreateKeyFile() throws IOException
+    {
+        Path keyPath = Path.of(WorkshopPaths.getKeyDirectoryPath(), KEY_FILE_NAME);
+        Path legacyKeyPath = Path.of(WorkshopPaths.getDataDirectoryPath(), KEY_FILE_NAME);
+
+        if (!Files.exists(keyPath) && Files.exists(legacyKeyPath))
+        {
+            Files.createDirectories(keyPath.getParent());
+            Persistence.replaceFile(legacyKeyPath, keyPath);
+        }
+
+        if (Files.exists(keyPath))
+        {
+            byte[] key = Files.readAllBytes(keyPath);
+
+            if (key.length != KEY_LENGTH)
+            {
+                throw new IOException("Arquivo de chave invalido: " + keyPath);
+            }
+
+            return key;
+        }
+
+        byte[] key = new byte[KEY_LENGTH];
+        fillRandom(key);
+        Files.createDirectories(keyPath.getParent());
+
+        Path temporaryPath = keyPath.resolveSibling(KEY_FILE_NAME + ".tmp");
+        Files.write(temporaryPath, key);
+
+        try
+        {
+            Files.setPosixFilePermissions(temporaryPath, PosixFilePermissions.fromString("rw-------"));
+        }
+        catch (UnsupportedOperationException exception)
+        {
+            // Sistema de arquivos sem permissões POSIX, como no Windows
+        }
+
+        Persistence.replaceFile(temporaryPath, keyPath);
+        return key;
+    }
+
+    private static Cipher createCipher()
+    {
+        try
+        {
+            return Cipher.getInstance(TRANSFORMATION);
+        }
+        catch (GeneralSecurityException exception)
+        {
+            throw new IllegalStateException("AES-GCM nao esta disponivel.", exception);
+        }
+    }
+}
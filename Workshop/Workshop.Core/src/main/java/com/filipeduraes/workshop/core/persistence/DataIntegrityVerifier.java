@@ -0,0 +1,307 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.filipeduraes.workshop.core.persistence.streams.ChecksumOutputStream;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Confere a integridade dos arquivos de dados pelo cabeçalho de checksum gravado pela {@link Persistence}.
+ *
+ * <p>Os arquivos são conferidos em paralelo e lidos por mapeamento em memória, sem interpretar o conteúdo,
+ * então toda a pasta de dados, incluindo as pastas de mês e os serviços de cada usuário, é conferida em
+ * pouco tempo. Os arquivos de registros do {@link EntityRecordStore} e os ledgers do {@link RecordLedger} não têm
+ * o cabeçalho e são conferidos pelo checksum de cada registro ou linha. Arquivos sem o cabeçalho, como journals e
+ * arquivos de versões anteriores, são contados como não conferidos, assim como ledgers com linhas sem checksum.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class DataIntegrityVerifier
+{
+    private static final long MAX_MAPPED_WINDOW = 256L * 1024 * 1024;
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String LEDGER_EXTENSION = ".ledger";
+
+    private DataIntegrityVerifier()
+    {
+    } //Pure static class
+
+    /**
+     * Resultado da conferência de uma pasta.
+     *
+     * @param verifiedCount quantidade de arquivos com checksum válido
+     * @param uncheckedCount quantidade de arquivos sem cabeçalho de checksum
+     * @param corruptedFiles arquivos truncados ou alterados, ordenados pelo caminho
+     */
+    public record Report(int verifiedCount, int uncheckedCount, List<Path> corruptedFiles)
+    {
+        /**
+         * Verifica se algum arquivo está corrompido.
+         *
+         * @return true se algum arquivo estiver corrompido
+         */
+        public boolean hasCorruption()
+        {
+            return !corruptedFiles.isEmpty();
+        }
+    }
+
+    private enum FileStatus
+    {
+        VERIFIED,
+        UNCHECKED,
+        CORRUPTED,
+        SKIPPED
+    }
+
+    /**
+     * Confere todos os arquivos da pasta de dados.
+     *
+     * @return resultado da conferência
+     */
+    public static Report verifyDataDirectory()
+    {
+        return verifyDirectory(Path.of(WorkshopPaths.getDataDirectoryPath()));
+    }
+
+    /**
+     * Confere todos os arquivos de uma pasta, incluindo subpastas.
+     * As gravações pendentes são concluídas antes da conferência. Arquivos removidos durante a conferência
+     * são ignorados, e não contados como corrompidos.
+     *
+     * @param directoryPath pasta com os arquivos
+     * @return resultado da conferência
+     */
+    public static Report verifyDirectory(Path directoryPath)
+    {
+        if (!Files.isDirectory(directoryPath))
+        {
+            return new Report(0, 0, List.of());
+        }
+
+        Persistence.flushWrites();
+        List<Path> filePaths;
+
+        try (Stream<Path> files = Files.walk(directoryPath))
+        {
+            filePaths = files.filter(Files::isRegularFile)
+                             .filter(filePath -> !filePath.getFileName().toString().endsWith(TEMPORARY_FILE_SUFFIX))
+                             .toList();
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            return new Report(0, 0, List.of());
+        }
+
+        Map<FileStatus, List<Path>> filesByStatus = filePaths.parallelStream()
+                                                             .collect(Collectors.groupingByConcurrent(DataIntegrityVerifier::verifyFile));
+
+        List<Path> corruptedFiles = filesByStatus.getOrDefault(FileStatus.CORRUPTED, List.of()).stream().sorted().toList();
+        int verifiedCount = filesByStatus.getOrDefault(FileStatus.VERIFIED, List.of()).size();
+        int uncheckedCount = filesByStatus.getOrDefault(FileStatus.UNCHECKED, List.of()).size();
+
+        return new Report(verifiedCount, uncheckedCount, corruptedFiles);
+    }
+
+    /**
+     * Confere um único arquivo.
+     *
+     * @param filePath caminho do arquivo
+     * @return true se o arquivo tiver checksum válido, false se estiver corrompido ou não tiver cabeçalho de checksum
+     */
+    public static boolean isFileValid(Path filePath)
+    {
+        return verifyFile(filePath) == FileStatus.VERIFIED;
+    }
+
+    /**
+     * Verifica se o arquivo tem o cabeçalho de checksum e o conteúdo não confere com ele.
+     * Arquivos sem o cabeçalho não são considerados corrompidos.
+     *
+     * @param filePath caminho do arquivo
+     * @return true se o arquivo estiver truncado ou alterado
+     */
+    static boolean isFileCorrupted(Path filePath)
+    {
+        return Files.isRegularFile(filePath) && verifyFile(filePath) == FileStatus.CORRUPTED;
+    }
+
+    private static FileStatus verifyFile(Path filePath)
+    {
+        if (filePath.getFileName().toString().endsWith(EntityRecordStore.RECORDS_EXTENSION))
+        {
+            return verifyRecordsFile(filePath);
+        }
+
+        if (filePath.getFileName().toString().endsWith(LEDGER_EXTENSION))
+        {
+            return verifyLedgerFile(filePath);
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ))
+        {
+            long fileSize = fileChannel.size();
+
+            if (fileSize < ChecksumOutputStream.HEADER_LENGTH)
+            {
+                return hasMagic(fileChannel) ? FileStatus.CORRUPTED : FileStatus.UNCHECKED;
+            }
+
+            ByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, ChecksumOutputStream.HEADER_LENGTH);
+            byte[] magic = new byte[ChecksumOutputStream.MAGIC.length];
+            header.get(magic);
+
+            if (!Arrays.equals(magic, ChecksumOutputStream.MAGIC))
+            {
+                return FileStatus.UNCHECKED;
+            }
+
+            int version = header.get() & 0xFF;
+            long length = header.getLong();
+            int expectedChecksum = header.getInt();
+
+            if (version != ChecksumOutputStream.VERSION || length != fileSize - ChecksumOutputStream.HEADER_LENGTH)
+            {
+                return FileStatus.CORRUPTED;
+            }
+
+            return computeChecksum(fileChannel, ChecksumOutputStream.HEADER_LENGTH, length) == expectedChecksum
+                   ? FileStatus.VERIFIED
+                   : FileStatus.CORRUPTED;
+        }
+        catch (NoSuchFileException exception)
+        {
+            return FileStatus.SKIPPED; // Arquivo removido depois de listado, como um journal compactado
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            return FileStatus.CORRUPTED;
+        }
+    }
+
+    private static FileStatus verifyRecordsFile(Path filePath)
+    {
+        try
+        {
+            return EntityRecordStore.verifyRecordsFile(filePath) ? FileStatus.VERIFIED : FileStatus.CORRUPTED;
+        }
+        catch (NoSuchFileException exception)
+        {
+            return FileStatus.SKIPPED;
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            return FileStatus.CORRUPTED;
+        }
+    }
+
+    /**
+     * Confere o checksum de cada linha de um ledger. Uma última linha sem quebra de linha é uma gravação
+     * interrompida, descartada antes do próximo acréscimo, e não é considerada corrupção.
+     */
+    private static FileStatus verifyLedgerFile(Path filePath)
+    {
+        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(fileChannel, StandardCharsets.UTF_8)))
+        {
+            boolean hasIncompleteLastLine = hasIncompleteLastLine(fileChannel);
+            FileStatus status = FileStatus.VERIFIED;
+            String line = reader.readLine();
+
+            while (line != null)
+            {
+                String nextLine = reader.readLine();
+                boolean isInterrupted = nextLine == null && hasIncompleteLastLine;
+
+                if (!line.isEmpty() && !isInterrupted && !RecordLedger.hasValidChecksum(line))
+                {
+                    if (RecordLedger.hasChecksum(line))
+                    {
+                        return FileStatus.CORRUPTED;
+                    }
+
+                    status = FileStatus.UNCHECKED; // Linha gravada por versões anteriores, sem checksum
+                }
+
+                line = nextLine;
+            }
+
+            return status;
+        }
+        catch (NoSuchFileException exception)
+        {
+            return FileStatus.SKIPPED;
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            return FileStatus.CORRUPTED;
+        }
+    }
+
+    private static boolean hasIncompleteLastLine(FileChannel fileChannel) throws IOException
+    {
+        long fileSize = fileChannel.size();
+
+        if (fileSize == 0)
+        {
+            return false;
+        }
+
+        ByteBuffer lastByte = ByteBuffer.allocate(1);
+        fileChannel.read(lastByte, fileSize - 1);
+        return lastByte.get(0) != '\n';
+    }
+
+    private static boolean hasMagic(FileChannel fileChannel) throws IOException
+    {
+        if (fileChannel.size() < ChecksumOutputStream.MAGIC.length)
+        {
+            return false;
+        }
+
+        ByteBuffer magic = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, ChecksumOutputStream.MAGIC.length);
+        byte[] bytes = new byte[ChecksumOutputStream.MAGIC.length];
+        magic.get(bytes);
+        return Arrays.equals(bytes, ChecksumOutputStream.MAGIC);
+    }
+
+    /**
+     * Calcula o CRC32C de um trecho do arquivo, lendo-o por mapeamento em memória.
+     */
+    static int computeChecksum(FileChannel fileChannel, long position, long length) throws IOException
+    {
+        CRC32C checksum = new CRC32C();
+        long end = position + length;
+
+        while (position < end)
+        {
+            long windowLength = Math.min(MAX_MAPPED_WINDOW, end - position);
+            MappedByteBuffer window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+            checksum.update(window);
+            position += windowLength;
+        }
+
+        return (int) checksum.getValue();
+    }
+}
@@ -0,0 +1,46 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+/**
+ * Formas de proteção dos arquivos de dados em disco.
+ * Cada proteção usa um sufixo próprio no nome dos arquivos, então arquivos com proteções diferentes
+ * podem coexistir na mesma pasta e ser convertidos com {@link DataProtectionConverter}.
+ *
+ * @author Filipe Durães
+ */
+public enum DataProtection
+{
+    /**
+     * Arquivos gravados sem proteção.
+     */
+    NONE("_Regular"),
+
+    /**
+     * Ofuscação XOR com uma chave fixa, usada por versões anteriores. Textos também são codificados em Base64.
+     * Mantida apenas para ler e converter arquivos antigos.
+     */
+    OBFUSCATED("_Obfuscated"),
+
+    /**
+     * Criptografia autenticada AES-GCM, em blocos independentes, com a chave de {@link DataEncryption}.
+     */
+    ENCRYPTED("_Encrypted");
+
+    private final String fileSuffix;
+
+    DataProtection(String fileSuffix)
+    {
+        this.fileSuffix = fileSuffix;
+    }
+
+    /**
+     * Obtém o sufixo adicionado ao nome dos arquivos com esta proteção.
+     *
+     * @return sufixo dos arquivos
+     */
+    public String getFileSuffix()
+    {
+        return fileSuffix;
+    }
+}
@@ -0,0 +1,347 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.filipeduraes.workshop.core.persistence.streams.HashingInputStream;
+import com.filipeduraes.workshop.core.persistence.streams.HashingOutputStream;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Converte os arquivos de dados entre duas formas de {@link DataProtection}, como na migração
+ * dos arquivos ofuscados de versões anteriores para arquivos criptografados.
+ *
+ * <p>Os arquivos convertidos são gravados com o sufixo da proteção de destino. Depois de gravado, o conteúdo de cada
+ * arquivo convertido é lido novamente e comparado com o original, e só então o original é apagado. Arquivos que já
+ * existem com a proteção de destino não são sobrescritos: o original é apagado se tiver o mesmo conteúdo e mantido
+ * se o arquivo convertido foi alterado depois. Os meses selados e os diretórios com a proteção de origem são apagados,
+ * porque são gerados novamente a partir dos arquivos convertidos. Arquivos completos são convertidos em fluxo,
+ * e os journals, ledgers e arquivos de registros são convertidos registro a registro.</p>
+ *
+ * <p>Quando a pasta de dados é convertida sem erros, um arquivo marcador é criado nela, e as inicializações seguintes
+ * não percorrem a pasta de novo.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class DataProtectionConverter
+{
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String LEDGER_EXTENSION = ".ledger";
+    private static final String RECORDS_EXTENSION = ".records";
+    private static final String ARCHIVE_EXTENSION = ".archive";
+    private static final String DIRECTORY_EXTENSION = ".directory";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String CONVERSION_MARKER_EXTENSION = ".converted";
+
+    private record ConversionResult(int convertedCount, boolean isComplete)
+    {
+    }
+
+    @FunctionalInterface
+    private interface LineVisitor
+    {
+        void visit(String record) throws IOException;
+    }
+
+    private DataProtectionConverter()
+    {
+    } //Pure static class
+
+    /**
+     * Converte os arquivos da pasta de dados da proteção de origem para a proteção de destino.
+     * Depois de uma conversão sem erros, as chamadas seguintes retornam sem percorrer a pasta.
+     *
+     * @param sourceProtection proteção atual dos arquivos
+     * @param targetProtection proteção dos arquivos convertidos
+     * @return quantidade de arquivos convertidos
+     */
+    public static int convertDataDirectory(DataProtection sourceProtection, DataProtection targetProtection)
+    {
+        Path dataDirectory = Path.of(WorkshopPaths.getDataDirectoryPath());
+        Path markerPath = dataDirectory.resolve(sourceProtection.name() + "-" + targetProtection.name() + CONVERSION_MARKER_EXTENSION);
+
+        if (sourceProtection == targetProtection || Files.exists(markerPath) || !Files.isDirectory(dataDirectory))
+        {
+            return 0;
+        }
+
+        ConversionResult result = convert(dataDirectory, sourceProtection, targetProtection);
+
+        if (result.isComplete())
+        {
+            try
+            {
+                Files.createFile(markerPath);
+            }
+            catch (IOException exception)
+            {
+                exception.printStackTrace(System.out);
+            }
+        }
+
+        return result.convertedCount();
+    }
+
+    /**
+     * Converte os arquivos de uma pasta, incluindo subpastas, da proteção de origem para a proteção de destino.
+     *
+     * @param directoryPath pasta com os arquivos
+     * @param sourceProtection proteção atual dos arquivos
+     * @param targetProtection proteção dos arquivos convertidos
+     * @return quantidade de arquivos convertidos
+     */
+    public static int convertDirectory(Path directoryPath, DataProtection sourceProtection, DataProtection targetProtection)
+    {
+        if (sourceProtection == targetProtection || !Files.isDirectory(directoryPath))
+        {
+            return 0;
+        }
+
+        return convert(directoryPath, sourceProtection, targetProtection).convertedCount();
+    }
+
+    private static ConversionResult convert(Path directoryPath, DataProtection sourceProtection, DataProtection targetProtection)
+    {
+        Persistence.flushWrites();
+
+        int convertedCount = 0;
+        boolean isComplete = true;
+        List<Path> sourceFiles;
+
+        try (Stream<Path> files = Files.walk(directoryPath))
+        {
+            sourceFiles = files.filter(Files::isRegularFile).toList();
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            return new ConversionResult(0, false);
+        }
+
+        for (Path sourcePath : sourceFiles)
+        {
+            String fileName = sourcePath.getFileName().toString();
+            int extensionIndex = fileName.lastIndexOf(".");
+
+            if (extensionIndex < 0 || fileName.endsWith(TEMPORARY_FILE_SUFFIX))
+            {
+                continue;
+            }
+
+            String nameWithoutExtension = fileName.substring(0, extensionIndex);
+            String extension = fileName.substring(extensionIndex);
+            StorageFormat storageFormat = findStorageFormat(nameWithoutExtension, sourceProtection);
+
+            if (storageFormat == null)
+            {
+                continue;
+            }
+
+            String sourceSuffix = Persistence.getPathSuffix(storageFormat, sourceProtection);
+            String baseName = nameWithoutExtension.substring(0, nameWithoutExtension.length() - sourceSuffix.length());
+            Path targetPath = sourcePath.resolveSibling(baseName + Persistence.getPathSuffix(storageFormat, targetProtection) + extension);
+
+            try
+            {
+                if (extension.equals(ARCHIVE_EXTENSION) || extension.equals(DIRECTORY_EXTENSION))
+                {
+                    Files.delete(sourcePath); // Os meses selados e os diretórios são gerados novamente a partir dos arquivos convertidos
+                    continue;
+                }
+
+                if (Files.exists(targetPath))
+                {
+                    if (hasSameContent(sourcePath, sourceProtection, targetPath, targetProtection, storageFormat, extension))
+                    {
+                        Files.delete(sourcePath);
+                    }
+
+                    continue;
+                }
+
+                switch (extension)
+                {
+                    case JOURNAL_EXTENSION, LEDGER_EXTENSION -> convertLines(sourcePath, targetPath, sourceProtection, targetProtection, extension.equals(LEDGER_EXTENSION));
+                    case RECORDS_EXTENSION -> EntityRecordStore.convertRecordsFile(sourcePath, targetPath, sourceProtection, targetProtection);
+                    default -> convertFile(sourcePath, targetPath, storageFormat, sourceProtection, targetProtection);
+                }
+
+                if (!hasSameContent(sourcePath, sourceProtection, targetPath, targetProtection, storageFormat, extension))
+                {
+                    Files.delete(targetPath);
+                    throw new IOException("Arquivo convertido diferente do original: " + sourcePath);
+                }
+
+                Files.delete(sourcePath);
+                convertedCount++;
+            }
+            catch (IOException exception)
+            {
+                exception.printStackTrace(System.out);
+                isComplete = false;
+            }
+        }
+
+        return new ConversionResult(convertedCount, isComplete);
+    }
+
+    private static void convertFile(Path sourcePath, Path targetPath, StorageFormat storageFormat, DataProtection sourceProtection, DataProtection targetProtection) throws IOException
+    {
+        if (Files.size(sourcePath) == 0)
+        {
+            Files.createFile(targetPath);
+            return;
+        }
+
+        Path temporaryPath = targetPath.resolveSibling(targetPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        try (InputStream inputStream = Persistence.openInputStream(sourcePath, storageFormat, sourceProtection);
+             OutputStream outputStream = Persistence.openOutputStream(temporaryPath, storageFormat, targetProtection))
+        {
+            inputStream.transferTo(outputStream);
+        }
+
+        Persistence.replaceFile(temporaryPath, targetPath);
+    }
+
+    private static void convertLines(Path sourcePath, Path targetPath, DataProtection sourceProtection, DataProtection targetProtection, boolean isLedger) throws IOException
+    {
+        Path temporaryPath = targetPath.resolveSibling(targetPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8))
+        {
+            readValidLines(sourcePath, sourceProtection, isLedger, record ->
+            {
+                if (isLedger)
+                {
+                    writer.write(RecordLedger.encodeLine(record, targetProtection));
+                }
+                else
+                {
+                    writer.write(targetProtection != DataProtection.NONE ? Persistence.obfuscate(record, targetProtection) : record);
+                }
+
+                writer.write('\n');
+            });
+        }
+
+        Persistence.replaceFile(temporaryPath, targetPath);
+    }
+
+    /**
+     * Lê os registros válidos de um journal ou ledger em ordem, sem proteção e sem o checksum das linhas do ledger,
+     * parando no primeiro registro incompleto, como na leitura.
+     */
+    private static void readValidLines(Path filePath, DataProtection dataProtection, boolean isLedger, LineVisitor visitor) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8))
+        {
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.isEmpty())
+                {
+                    continue;
+                }
+
+                String record;
+
+                try
+                {
+                    if (isLedger)
+                    {
+                        record = RecordLedger.decodeLine(line, dataProtection);
+                    }
+                    else
+                    {
+                        record = dataProtection != DataProtection.NONE ? Persistence.deobfuscate(line, dataProtection) : line;
+                    }
+                }
+                catch (IllegalArgumentException exception)
+                {
+                    break; // Registro incompleto no final do arquivo, ignorado como na leitura
+                }
+
+                if (record == null)
+                {
+                    continue; // Linha do ledger com checksum inválido, ignorada como na leitura
+                }
+
+                visitor.visit(record);
+            }
+        }
+    }
+
+    /**
+     * Confere se dois arquivos com proteções diferentes guardam o mesmo conteúdo, comparando o hash do conteúdo
+     * sem proteção. Nos journals, ledgers e arquivos de registros são comparados apenas os registros válidos.
+     */
+    private static boolean hasSameContent(Path sourcePath, DataProtection sourceProtection, Path targetPath, DataProtection targetProtection, StorageFormat storageFormat, String extension) throws IOException
+    {
+        byte[] sourceHash = computeContentHash(sourcePath, sourceProtection, storageFormat, extension);
+        byte[] targetHash = computeContentHash(targetPath, targetProtection, storageFormat, extension);
+        return MessageDigest.isEqual(sourceHash, targetHash);
+    }
+
+    private static byte[] computeContentHash(Path filePath, DataProtection dataProtection, StorageFormat storageFormat, String extension) throws IOException
+    {
+        switch (extension)
+        {
+            case JOURNAL_EXTENSION, LEDGER_EXTENSION ->
+            {
+                HashingOutputStream hashingStream = new HashingOutputStream(OutputStream.nullOutputStream());
+                readValidLines(filePath, dataProtection, extension.equals(LEDGER_EXTENSION), record -> hashingStream.write((record + '\n').getBytes(StandardCharsets.UTF_8)));
+                return hashingStream.getHash();
+            }
+            case RECORDS_EXTENSION ->
+            {
+                return EntityRecordStore.digestRecordsFile(filePath, dataProtection);
+            }
+            default ->
+            {
+                if (Files.size(filePath) == 0)
+                {
+                    return new HashingOutputStream(OutputStream.nullOutputStream()).getHash();
+                }
+
+                try (HashingInputStream inputStream = new HashingInputStream(Persistence.openInputStream(filePath, storageFormat, dataProtection)))
+                {
+                    inputStream.drain();
+                    return inputStream.getHash();
+                }
+            }
+        }
+    }
+
+    /**
+     * Encontra o formato do arquivo pelo sufixo. Formatos com sufixo próprio são testados primeiro,
+     * porque o sufixo vazio do JSON também corresponde aos arquivos dos outros formatos.
+     */
+    private static StorageFormat findStorageFormat(String nameWithoutExtension, DataProtection dataProtection)
+    {
+        StorageFormat foundFormat = null;
+
+        for (StorageFormat storageFormat : StorageFormat.values())
+        {
+            String suffix = Persistence.getPathSuffix(storageFormat, dataProtection);
+
+            if (nameWithoutExtension.endsWith(suffix) && (foundFormat == null || suffix.length() > Persistence.getPathSuffix(foundFormat, dataProtection).length()))
+            {
+                foundFormat = storageFormat;
+            }
+        }
+
+        return foundFormat;
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache do JSON já codificado de cada entidade de um repositório gravado em arquivo completo.
+ *
+ * <p>Ao gravar o arquivo, apenas as entidades alteradas desde a última gravação são serializadas,
+ * e o JSON das demais é copiado do cache. O resultado é idêntico ao produzido pelo Gson para o mapa completo.
+ * O formato binário referencia nomes e textos já gravados no mesmo arquivo, então os trechos de uma entidade
+ * dependem das anteriores e não podem ser reaproveitados: nesse formato o cache não é usado.</p>
+ *
+ * @param <T> tipo das entidades armazenadas
+ * @author Filipe Durães
+ */
+final class EntityFragmentCache<T>
+{
+    private final Map<UUID, byte[]> fragments = new HashMap<>();
+    private Gson fragmentsGson;
+
+    /**
+     * Verifica se o formato atual permite gravar o arquivo a partir dos trechos em cache.
+     *
+     * @return true se o formato atual for JSON
+     */
+    boolean isSupported()
+    {
+        return Persistence.getStorageFormat() == StorageFormat.JSON;
+    }
+
+    /**
+     * Descarta o trecho de uma entidade alterada ou removida.
+     *
+     * @param id identificador da entidade
+     */
+    void invalidate(UUID id)
+    {
+        fragments.remove(id);
+    }
+
+    /**
+     * Descarta todos os trechos.
+     */
+    void clear()
+    {
+        fragments.clear();
+    }
+
+    /**
+     * Grava o mapa de entidades como um objeto JSON, serializando apenas as entidades sem trecho em cache.
+     *
+     * @param entities entidades do repositório
+     * @param outputStream fluxo de destino
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    void writeMap(Map<UUID, T> entities, OutputStream outputStream) throws IOException
+    {
+        Gson gson = Persistence.getGson();
+
+        if (gson != fragmentsGson)
+        {
+            fragments.clear();
+            fragmentsGson = gson; // Os adaptadores registrados mudaram, então os trechos podem estar diferentes
+        }
+
+        if (fragments.size() > entities.size())
+        {
+            fragments.keySet().retainAll(entities.keySet());
+        }
+
+        outputStream.write('{');
+        boolean isFirst = true;
+
+        for (Map.Entry<UUID, T> entry : entities.entrySet())
+        {
+            if (!isFirst)
+            {
+                outputStream.write(',');
+            }
+
+            isFirst = false;
+
+            byte[] fragment = fragments.get(entry.getKey());
+
+            if (fragment == null)
+            {
+                fragment = encodeFragment(gson, entry.getKey(), entry.getValue());
+                fragments.put(entry.getKey(), fragment);
+            }
+
+            outputStream.write(fragment);
+        }
+
+        outputStream.write('}');
+    }
+
+    private static byte[] encodeFragment(Gson gson, UUID id, Object entity)
+    {
+        String fragment = '"' + id.toString() + "\":" + gson.toJson(entity);
+        return fragment.getBytes(StandardCharsets.UTF_8);
+    }
+}
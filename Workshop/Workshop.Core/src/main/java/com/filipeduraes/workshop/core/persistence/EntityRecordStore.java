@@ -0,0 +1,961 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.filipeduraes.workshop.core.persistence.streams.HashingOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Armazenamento de entidades em um arquivo de registros somente de acréscimo, com carregamento sob demanda.
+ * Na memória ficam apenas os IDs com a posição e o tamanho de cada registro no arquivo. O corpo das entidades
+ * é lido do disco quando consultado e mantido em um cache LRU limitado por um orçamento de bytes,
+ * então o uso de memória não cresce com o histórico do repositório.
+ *
+ * <p>Cada registro contém a operação, o ID, o tamanho do corpo, o corpo serializado no formato atual
+ * da {@link Persistence} e um CRC32. Ao abrir, o arquivo é percorrido sem deserializar os corpos,
+ * e um registro incompleto no final, deixado por uma gravação interrompida, é descartado.
+ * Quando os registros substituídos ocupam mais espaço do que os registros válidos, o arquivo é compactado.</p>
+ *
+ * <p>Dentro de uma {@link UnitOfWork}, as alterações são acumuladas em memória e acrescentadas juntas ao final.
+ * Na primeira abertura, as entidades do arquivo completo e do journal de versões anteriores são migradas para
+ * um arquivo temporário, que só substitui o arquivo de registros depois de gravado no disco.</p>
+ *
+ * <p>O arquivo de registros é gravado diretamente pelo armazenamento, fora da {@link FileWriteQueue} e sem o
+ * cabeçalho de checksum dos arquivos da {@link Persistence}. A integridade vem do CRC32 de cada registro,
+ * que também é conferido pelo {@link DataIntegrityVerifier}.</p>
+ *
+ * @param <T> tipo das entidades armazenadas
+ * @author Filipe Durães
+ */
+public class EntityRecordStore<T>
+{
+    static final String RECORDS_EXTENSION = ".records";
+    private static final byte[] MAGIC = {'W', 'K', 'R', 1};
+    private static final byte PUT_OPERATION = 'P';
+    private static final byte DELETE_OPERATION = 'D';
+    private static final int RECORD_HEADER_SIZE = 1 + 2 * Long.BYTES + Integer.BYTES;
+    private static final int RECORD_TRAILER_SIZE = Integer.BYTES;
+    private static final int MAX_BODY_LENGTH = (1 << 24) - 1;
+    private static final long MIN_DEAD_BYTES_BEFORE_COMPACTION = 1 << 20;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final String path;
+    private final String repositoryPath;
+    private final Type entityType;
+    private final long cacheByteBudget;
+    private final Map<UUID, Long> recordLocations = new HashMap<>();
+    private final LinkedHashMap<UUID, CachedEntity<T>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<UUID, T> pendingWrites = new LinkedHashMap<>();
+    private final Map<UUID, T> mapView = new EntityMapView();
+
+    private FileChannel channel;
+    private long fileSize;
+    private long liveBytes;
+    private long deadBytes;
+    private long cachedBytes;
+
+    private record CachedEntity<T>(T entity, int weight)
+    {
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor
+    {
+        void visit(byte operation, UUID id, byte[] plainBody) throws IOException;
+    }
+
+    /**
+     * Abre o armazenamento associado ao arquivo de um repositório.
+     * Os registros ficam ao lado do arquivo do repositório, com a extensão ".records".
+     *
+     * @param repositoryPath caminho do arquivo completo do repositório
+     * @param entityType tipo das entidades para deserialização
+     * @param cacheByteBudget quantidade máxima de bytes serializados mantidos no cache de entidades
+     */
+    public EntityRecordStore(String repositoryPath, Type entityType, long cacheByteBudget)
+    {
+        int extensionIndex = repositoryPath.lastIndexOf(".");
+        this.path = repositoryPath.substring(0, extensionIndex) + RECORDS_EXTENSION;
+        this.repositoryPath = repositoryPath;
+        this.entityType = entityType;
+        this.cacheByteBudget = Math.max(0, cacheByteBudget);
+
+        try
+        {
+            open();
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Obtém uma visão das entidades como mapa. Consultas por ID usam o cache e o índice,
+     * alterações são gravadas no arquivo de registros e a iteração lê as entidades uma a uma, sem guardá-las no cache.
+     * O método {@code put} da visão sempre retorna null, para não ler a entidade anterior do disco.
+     *
+     * @return visão das entidades armazenadas
+     */
+    public Map<UUID, T> asMap()
+    {
+        return mapView;
+    }
+
+    /**
+     * Obtém a entidade com o ID especificado, lendo do disco se ela não estiver no cache.
+     *
+     * @param id identificador da entidade
+     * @return entidade encontrada, ou null se não existir
+     */
+    public synchronized T get(UUID id)
+    {
+        return get(id, true);
+    }
+
+    /**
+     * Verifica se existe uma entidade com o ID especificado, sem ler o seu corpo.
+     *
+     * @param id identificador da entidade
+     * @return true se a entidade existir
+     */
+    public synchronized boolean contains(UUID id)
+    {
+        if (pendingWrites.containsKey(id))
+        {
+            return pendingWrites.get(id) != null;
+        }
+
+        return recordLocations.containsKey(id);
+    }
+
+    /**
+     * Obtém a quantidade de entidades armazenadas.
+     *
+     * @return quantidade de entidades
+     */
+    public synchronized int size()
+    {
+        int size = recordLocations.size();
+
+        for (Map.Entry<UUID, T> pendingWrite : pendingWrites.entrySet())
+        {
+            boolean isStored = recordLocations.containsKey(pendingWrite.getKey());
+
+            if (pendingWrite.getValue() != null && !isStored)
+            {
+                size++;
+            }
+            else if (pendingWrite.getValue() == null && isStored)
+            {
+                size--;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Obtém os IDs de todas as entidades, ordenados pela posição no arquivo para favorecer a leitura sequencial.
+     *
+     * @return IDs das entidades
+     */
+    public synchronized List<UUID> getIDs()
+    {
+        List<UUID> ids = new ArrayList<>(recordLocations.keySet());
+        ids.sort(Comparator.comparingLong(recordLocations::get));
+
+        for (Map.Entry<UUID, T> pendingWrite : pendingWrites.entrySet())
+        {
+            if (pendingWrite.getValue() == null)
+            {
+                ids.remove(pendingWrite.getKey());
+            }
+            else if (!recordLocations.containsKey(pendingWrite.getKey()))
+            {
+                ids.add(pendingWrite.getKey());
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Grava a inclusão ou atualização de uma entidade.
+     *
+     * @param id identificador da entidade
+     * @param entity estado atual da entidade
+     */
+    public synchronized void put(UUID id, T entity)
+    {
+        stageWrite(id, entity);
+    }
+
+    /**
+     * Grava a remoção de uma entidade.
+     *
+     * @param id identificador da entidade removida
+     */
+    public synchronized void remove(UUID id)
+    {
+        if (contains(id))
+        {
+            stageWrite(id, null);
+        }
+    }
+
+    /**
+     * Reescreve o arquivo apenas com os registros válidos.
+     */
+    public synchronized void compact()
+    {
+        flushPendingWrites();
+
+        try
+        {
+            rewriteLiveRecords();
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Verifica se existem alterações ainda não gravadas ou registros substituídos que a compactação descartaria.
+     *
+     * @return true se a compactação tiver trabalho a fazer
+     */
+    public synchronized boolean hasPendingChanges()
+    {
+        return !pendingWrites.isEmpty() || deadBytes > 0;
+    }
+
+    /**
+     * Grava as alterações pendentes e fecha o arquivo de registros.
+     */
+    public synchronized void close()
+    {
+        flushPendingWrites();
+
+        try
+        {
+            if (channel != null)
+            {
+                channel.close();
+                channel = null;
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Obtém a quantidade de bytes serializados atualmente no cache.
+     *
+     * @return bytes no cache
+     */
+    public synchronized long getCachedBytes()
+    {
+        return cachedBytes;
+    }
+
+    /**
+     * Copia os registros válidos de um arquivo de registros para outro, trocando a proteção dos corpos.
+     * Usado por {@link DataProtectionConverter}. Os registros substituídos também são copiados
+     * e descartados na próxima compactação.
+     *
+     * @param sourcePath arquivo de registros de origem
+     * @param targetPath arquivo de registros de destino
+     * @param sourceProtection proteção dos corpos na origem
+     * @param targetProtection proteção dos corpos no destino
+     * @throws IOException se ocorrer erro durante a leitura ou a escrita
+     */
+    static void convertRecordsFile(Path sourcePath, Path targetPath, DataProtection sourceProtection, DataProtection targetProtection) throws IOException
+    {
+        Path temporaryPath = targetPath.resolveSibling(targetPath.getFileName() + ".tmp");
+
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporaryPath), STREAM_BUFFER_SIZE))
+        {
+            output.write(MAGIC);
+            readValidRecords(sourcePath, sourceProtection, (operation, id, plainBody) ->
+            {
+                byte[] body = plainBody.length > 0 ? Persistence.protectRecord(plainBody, targetProtection) : plainBody;
+                output.write(createRecord(operation, id, body));
+            });
+        }
+
+        Persistence.replaceFile(temporaryPath, targetPath);
+    }
+
+    /**
+     * Calcula o hash dos registros válidos de um arquivo de registros, com os corpos sem proteção.
+     * Usado por {@link DataProtectionConverter} para conferir que a conversão manteve todos os registros.
+     *
+     * @param filePath arquivo de registros
+     * @param dataProtection proteção dos corpos
+     * @return hash SHA-256 dos registros
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    static byte[] digestRecordsFile(Path filePath, DataProtection dataProtection) throws IOException
+    {
+        HashingOutputStream hashingStream = new HashingOutputStream(OutputStream.nullOutputStream());
+        DataOutputStream output = new DataOutputStream(hashingStream);
+
+        readValidRecords(filePath, dataProtection, (operation, id, plainBody) ->
+        {
+            output.writeByte(operation);
+            output.writeLong(id.getMostSignificantBits());
+            output.writeLong(id.getLeastSignificantBits());
+            output.writeInt(plainBody.length);
+            output.write(plainBody);
+        });
+
+        return hashingStream.getHash();
+    }
+
+    /**
+     * Confere o CRC32 de todos os registros de um arquivo de registros, sem deserializar os corpos.
+     * Um registro incompleto ou inválido no final do arquivo é uma gravação interrompida, descartada na abertura,
+     * e não é considerado corrupção.
+     *
+     * @param filePath arquivo de registros
+     * @return true se todos os registros, exceto talvez o último, forem válidos
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    static boolean verifyRecordsFile(Path filePath) throws IOException
+    {
+        long fileSize = Files.size(filePath);
+
+        if (fileSize < MAGIC.length)
+        {
+            return false;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(filePath), STREAM_BUFFER_SIZE)))
+        {
+            byte[] magic = new byte[MAGIC.length];
+            input.readFully(magic);
+
+            if (!Arrays.equals(magic, MAGIC))
+            {
+                return false;
+            }
+
+            long position = MAGIC.length;
+            byte[] header = new byte[RECORD_HEADER_SIZE];
+            byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+            CRC32 checksum = new CRC32();
+
+            while (position < fileSize)
+            {
+                input.readFully(header);
+                ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+                byte operation = headerBuffer.get();
+                headerBuffer.position(headerBuffer.position() + 2 * Long.BYTES);
+                int bodyLength = headerBuffer.getInt();
+                long recordEnd = position + RECORD_HEADER_SIZE + bodyLength + RECORD_TRAILER_SIZE;
+
+                if ((operation != PUT_OPERATION && operation != DELETE_OPERATION) || bodyLength < 0 || bodyLength > MAX_BODY_LENGTH)
+                {
+                    return false;
+                }
+
+                if (recordEnd > fileSize)
+                {
+                    return true; // Registro incompleto no final do arquivo
+                }
+
+                checksum.reset();
+                checksum.update(header);
+
+                for (int remaining = bodyLength; remaining > 0; )
+                {
+                    int readCount = input.read(chunk, 0, Math.min(chunk.length, remaining));
+
+                    if (readCount < 0)
+                    {
+                        throw new EOFException();
+                    }
+
+                    checksum.update(chunk, 0, readCount);
+                    remaining -= readCount;
+                }
+
+                if (input.readInt() != (int) checksum.getValue())
+                {
+                    return recordEnd == fileSize;
+                }
+
+                position = recordEnd;
+            }
+
+            return true;
+        }
+        catch (EOFException exception)
+        {
+            return true; // Cabeçalho incompleto no final do arquivo
+        }
+    }
+
+    /**
+     * Lê os registros válidos do arquivo em ordem, com os corpos sem proteção, parando no primeiro registro
+     * incompleto ou inválido, como na abertura.
+     */
+    private static void readValidRecords(Path filePath, DataProtection dataProtection, RecordVisitor visitor) throws IOException
+    {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(filePath), STREAM_BUFFER_SIZE)))
+        {
+            byte[] magic = new byte[MAGIC.length];
+            input.readFully(magic);
+
+            if (!Arrays.equals(magic, MAGIC))
+            {
+                throw new IOException("Arquivo de registros invalido: " + filePath);
+            }
+
+            byte[] header = new byte[RECORD_HEADER_SIZE];
+            CRC32 checksum = new CRC32();
+
+            try
+            {
+                while (true)
+                {
+                    input.readFully(header);
+                    ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+                    byte operation = headerBuffer.get();
+                    UUID id = new UUID(headerBuffer.getLong(), headerBuffer.getLong());
+                    int bodyLength = headerBuffer.getInt();
+
+                    if ((operation != PUT_OPERATION && operation != DELETE_OPERATION) || bodyLength < 0 || bodyLength > MAX_BODY_LENGTH)
+                    {
+                        break;
+                    }
+
+                    byte[] body = new byte[bodyLength];
+                    input.readFully(body);
+                    checksum.reset();
+                    checksum.update(header);
+                    checksum.update(body);
+
+                    if (input.readInt() != (int) checksum.getValue())
+                    {
+                        break;
+                    }
+
+                    visitor.visit(operation, id, bodyLength > 0 ? Persistence.unprotectRecord(body, dataProtection) : body);
+                }
+            }
+            catch (EOFException exception)
+            {
+                // Registro incompleto no final do arquivo, descartado como na abertura
+            }
+        }
+    }
+
+    private T get(UUID id, boolean shouldCache)
+    {
+        if (pendingWrites.containsKey(id))
+        {
+            return pendingWrites.get(id);
+        }
+
+        CachedEntity<T> cachedEntity = cache.get(id);
+
+        if (cachedEntity != null)
+        {
+            return cachedEntity.entity();
+        }
+
+        Long location = recordLocations.get(id);
+
+        if (location == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            byte[] body = readBody(location);
+            T entity = Persistence.decodeEntity(body, entityType);
+
+            if (shouldCache)
+            {
+                addToCache(id, entity, body.length);
+            }
+
+            return entity;
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            return null;
+        }
+    }
+
+    private void stageWrite(UUID id, T entity)
+    {
+        removeFromCache(id);
+        pendingWrites.remove(id);
+        pendingWrites.put(id, entity);
+
+        if (!UnitOfWork.stageWrite(path, this::flushPendingWritesSynchronized))
+        {
+            flushPendingWrites();
+        }
+    }
+
+    private synchronized void flushPendingWritesSynchronized()
+    {
+        flushPendingWrites();
+    }
+
+    private void flushPendingWrites()
+    {
+        if (pendingWrites.isEmpty() || channel == null)
+        {
+            return;
+        }
+
+        try
+        {
+            List<UUID> ids = new ArrayList<>(pendingWrites.size());
+            List<byte[]> records = new ArrayList<>(pendingWrites.size());
+            int totalLength = 0;
+
+            for (Map.Entry<UUID, T> pendingWrite : pendingWrites.entrySet())
+            {
+                byte[] body = pendingWrite.getValue() != null ? Persistence.encodeEntity(pendingWrite.getValue()) : new byte[0];
+                byte operation = pendingWrite.getValue() != null ? PUT_OPERATION : DELETE_OPERATION;
+                byte[] record = createRecord(operation, pendingWrite.getKey(), body);
+
+                ids.add(pendingWrite.getKey());
+                records.add(record);
+                totalLength += record.length;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(totalLength);
+            records.forEach(buffer::put);
+            buffer.flip();
+
+            long position = fileSize;
+
+            while (buffer.hasRemaining())
+            {
+                position += channel.write(buffer, position);
+            }
+
+            long recordPosition = fileSize;
+
+            for (int i = 0; i < ids.size(); i++)
+            {
+                UUID id = ids.get(i);
+                byte[] record = records.get(i);
+                T entity = pendingWrites.get(id);
+                int bodyLength = record.length - RECORD_HEADER_SIZE - RECORD_TRAILER_SIZE;
+
+                applyRecord(record[0], id, recordPosition, bodyLength);
+
+                if (entity != null)
+                {
+                    addToCache(id, entity, bodyLength);
+                }
+
+                recordPosition += record.length;
+            }
+
+            fileSize = recordPosition;
+            pendingWrites.clear();
+
+            if (deadBytes > Math.max(liveBytes, MIN_DEAD_BYTES_BEFORE_COMPACTION))
+            {
+                rewriteLiveRecords();
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    private void open() throws IOException
+    {
+        Path filePath = Path.of(Persistence.appendPathSuffix(path));
+        boolean hasRecords = Files.exists(filePath) && Files.size(filePath) >= MAGIC.length;
+
+        Files.createDirectories(filePath.getParent());
+
+        if (!hasRecords)
+        {
+            migrateRepositoryFile(filePath);
+        }
+
+        channel = FileChannel.open(filePath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        scanRecords();
+    }
+
+    private void scanRecords() throws IOException
+    {
+        long position = 0;
+        long validSize = 0;
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), STREAM_BUFFER_SIZE));
+        byte[] magic = new byte[MAGIC.length];
+        byte[] header = new byte[RECORD_HEADER_SIZE];
+        byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+        CRC32 checksum = new CRC32();
+
+        input.readFully(magic);
+
+        if (!Arrays.equals(magic, MAGIC))
+        {
+            throw new IOException("Arquivo de registros invalido: " + path);
+        }
+
+        position = MAGIC.length;
+        validSize = position;
+
+        try
+        {
+            while (true)
+            {
+                input.readFully(header);
+                ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+                byte operation = headerBuffer.get();
+                UUID id = new UUID(headerBuffer.getLong(), headerBuffer.getLong());
+                int bodyLength = headerBuffer.getInt();
+
+                if ((operation != PUT_OPERATION && operation != DELETE_OPERATION) || bodyLength < 0 || bodyLength > MAX_BODY_LENGTH)
+                {
+                    break;
+                }
+
+                checksum.reset();
+                checksum.update(header);
+
+                for (int remaining = bodyLength; remaining > 0; )
+                {
+                    int readCount = input.read(chunk, 0, Math.min(chunk.length, remaining));
+
+                    if (readCount < 0)
+                    {
+                        throw new EOFException();
+                    }
+
+                    checksum.update(chunk, 0, readCount);
+                    remaining -= readCount;
+                }
+
+                if (input.readInt() != (int) checksum.getValue())
+                {
+                    break;
+                }
+
+                applyRecord(operation, id, position, bodyLength);
+                position += RECORD_HEADER_SIZE + bodyLength + RECORD_TRAILER_SIZE;
+                validSize = position;
+            }
+        }
+        catch (EOFException exception)
+        {
+            // Registro incompleto no final do arquivo, descartado abaixo
+        }
+
+        fileSize = validSize;
+
+        if (channel.size() > validSize)
+        {
+            channel.truncate(validSize);
+        }
+    }
+
+    private void applyRecord(byte operation, UUID id, long position, int bodyLength)
+    {
+        Long previousLocation = recordLocations.remove(id);
+        int recordSize = RECORD_HEADER_SIZE + bodyLength + RECORD_TRAILER_SIZE;
+
+        if (previousLocation != null)
+        {
+            int previousSize = RECORD_HEADER_SIZE + getBodyLength(previousLocation) + RECORD_TRAILER_SIZE;
+            liveBytes -= previousSize;
+            deadBytes += previousSize;
+        }
+
+        if (operation == PUT_OPERATION)
+        {
+            recordLocations.put(id, packLocation(position, bodyLength));
+            liveBytes += recordSize;
+        }
+        else
+        {
+            deadBytes += recordSize;
+        }
+    }
+
+    /**
+     * Grava as entidades do arquivo completo e do journal em um arquivo temporário, que só substitui o arquivo
+     * de registros depois de gravado no disco. Uma migração interrompida deixa apenas o arquivo temporário,
+     * e a próxima abertura migra de novo.
+     */
+    private void migrateRepositoryFile(Path filePath) throws IOException
+    {
+        Path temporaryPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+
+        try (FileChannel newChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            OutputStream output = new BufferedOutputStream(Channels.newOutputStream(newChannel), STREAM_BUFFER_SIZE);
+            output.write(MAGIC);
+
+            if (Persistence.hasFile(repositoryPath))
+            {
+                ParameterizedType mapType = Persistence.createParameterizedType(HashMap.class, UUID.class, entityType);
+                Map<UUID, T> entities = Persistence.loadFile(repositoryPath, mapType, new HashMap<>());
+                new RepositoryJournal(repositoryPath).replay(entities, entityType);
+
+                for (Map.Entry<UUID, T> entry : entities.entrySet())
+                {
+                    output.write(createRecord(PUT_OPERATION, entry.getKey(), Persistence.encodeEntity(entry.getValue())));
+                }
+            }
+
+            output.flush();
+            newChannel.force(true);
+        }
+
+        Persistence.replaceFile(temporaryPath, filePath);
+    }
+
+    private void rewriteLiveRecords() throws IOException
+    {
+        Path filePath = Path.of(Persistence.appendPathSuffix(path));
+        Path temporaryPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        List<UUID> ids = new ArrayList<>(recordLocations.keySet());
+        ids.sort(Comparator.comparingLong(recordLocations::get));
+        Map<UUID, Long> newLocations = new HashMap<>();
+
+        try (FileChannel newChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            long position = newChannel.write(ByteBuffer.wrap(MAGIC));
+
+            for (UUID id : ids)
+            {
+                long location = recordLocations.get(id);
+                int recordSize = RECORD_HEADER_SIZE + getBodyLength(location) + RECORD_TRAILER_SIZE;
+                long copied = 0;
+
+                while (copied < recordSize)
+                {
+                    copied += channel.transferTo(getPosition(location) + copied, recordSize - copied, newChannel);
+                }
+
+                newLocations.put(id, packLocation(position, getBodyLength(location)));
+                position += recordSize;
+            }
+
+            newChannel.force(true);
+            fileSize = position;
+        }
+
+        channel.close();
+        Persistence.replaceFile(temporaryPath, filePath);
+        channel = FileChannel.open(filePath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        recordLocations.clear();
+        recordLocations.putAll(newLocations);
+        deadBytes = 0;
+    }
+
+    private byte[] readBody(long location) throws IOException
+    {
+        ByteBuffer body = ByteBuffer.allocate(getBodyLength(location));
+        long position = getPosition(location) + RECORD_HEADER_SIZE;
+
+        while (body.hasRemaining())
+        {
+            int readCount = channel.read(body, position);
+
+            if (readCount < 0)
+            {
+                throw new EOFException("Registro incompleto no arquivo " + path);
+            }
+
+            position += readCount;
+        }
+
+        return body.array();
+    }
+
+    private void addToCache(UUID id, T entity, int weight)
+    {
+        removeFromCache(id);
+
+        if (weight > cacheByteBudget)
+        {
+            return;
+        }
+
+        cache.put(id, new CachedEntity<>(entity, weight));
+        cachedBytes += weight;
+        Iterator<CachedEntity<T>> iterator = cache.values().iterator();
+
+        while (cachedBytes > cacheByteBudget && iterator.hasNext())
+        {
+            cachedBytes -= iterator.next().weight();
+            iterator.remove();
+        }
+    }
+
+    private void removeFromCache(UUID id)
+    {
+        CachedEntity<T> cachedEntity = cache.remove(id);
+
+        if (cachedEntity != null)
+        {
+            cachedBytes -= cachedEntity.weight();
+        }
+    }
+
+    private static byte[] createRecord(byte operation, UUID id, byte[] body) throws IOException
+    {
+        if (body.length > MAX_BODY_LENGTH)
+        {
+            throw new IOException("Entidade grande demais para o arquivo de registros: " + id);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length + RECORD_TRAILER_SIZE);
+        record.put(operation);
+        record.putLong(id.getMostSignificantBits());
+        record.putLong(id.getLeastSignificantBits());
+        record.putInt(body.length);
+        record.put(body);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), 0, record.position());
+        record.putInt((int) checksum.getValue());
+        return record.array();
+    }
+
+    private static long packLocation(long position, int bodyLength)
+    {
+        return (position << 24) | bodyLength;
+    }
+
+    private static long getPosition(long location)
+    {
+        return location >>> 24;
+    }
+
+    private static int getBodyLength(long location)
+    {
+        return (int) (location & MAX_BODY_LENGTH);
+    }
+
+    private class EntityMapView extends AbstractMap<UUID, T>
+    {
+        @Override
+        public T get(Object key)
+        {
+            return key instanceof UUID id ? EntityRecordStore.this.get(id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return key instanceof UUID id && contains(id);
+        }
+
+        @Override
+        public T put(UUID key, T value)
+        {
+            EntityRecordStore.this.put(key, value);
+            return null;
+        }
+
+        @Override
+        public T remove(Object key)
+        {
+            if (!(key instanceof UUID id))
+            {
+                return null;
+            }
+
+            T removedEntity = EntityRecordStore.this.get(id);
+            EntityRecordStore.this.remove(id);
+            return removedEntity;
+        }
+
+        @Override
+        public int size()
+        {
+            return EntityRecordStore.this.size();
+        }
+
+        @Override
+        public Set<Entry<UUID, T>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public Iterator<Entry<UUID, T>> iterator()
+                {
+                    Iterator<UUID> ids = getIDs().iterator();
+
+                    return new Iterator<>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return ids.hasNext();
+                        }
+
+                        @Override
+                        public Entry<UUID, T> next()
+                        {
+                            UUID id = ids.next();
+
+                            synchronized (EntityRecordStore.this)
+                            {
+                                return new SimpleImmutableEntry<>(id, EntityRecordStore.this.get(id, false));
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return EntityRecordStore.this.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,145 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Motor que guarda todas as entidades em um único arquivo, através de {@link Persistence}.
+ *
+ * <p>Sem journal, cada alteração reescreve o arquivo completo. Com journal, cada alteração grava apenas
+ * um registro pequeno no journal, e ao carregar o journal é reaplicado sobre o último arquivo completo.</p>
+ *
+ * <p>O JSON de cada entidade fica em um {@link EntityFragmentCache}, então reescrever o arquivo completo
+ * serializa apenas as entidades alteradas desde a última gravação.</p>
+ *
+ * @param <T> tipo das entidades armazenadas
+ * @author Filipe Durães
+ */
+public class FileStorageEngine<T> implements StorageEngine<T>
+{
+    private final String path;
+    private final Class<T> entityType;
+    private final RepositoryJournal journal;
+    private final EntityFragmentCache<T> fragmentCache = new EntityFragmentCache<>();
+    private Map<UUID, T> entities = new HashMap<>();
+
+    /**
+     * Cria o motor para o arquivo de um repositório.
+     *
+     * @param path caminho do arquivo do repositório
+     * @param entityType classe das entidades
+     * @param useJournal determina se as alterações serão registradas em journal
+     */
+    public FileStorageEngine(String path, Class<T> entityType, boolean useJournal)
+    {
+        this.path = path;
+        this.entityType = entityType;
+        this.journal = useJournal ? new RepositoryJournal(path) : null;
+    }
+
+    @Override
+    public Map<UUID, T> load()
+    {
+        ParameterizedType mapType = Persistence.createParameterizedType(HashMap.class, UUID.class, entityType);
+        entities = Persistence.loadFile(path, mapType, new HashMap<>());
+        fragmentCache.clear();
+
+        if (journal != null)
+        {
+            journal.replay(entities, entityType);
+            compactJournalIfNeeded();
+        }
+
+        return Collections.unmodifiableMap(entities);
+    }
+
+    @Override
+    public T get(UUID id)
+    {
+        return entities.get(id);
+    }
+
+    @Override
+    public void put(UUID id, T entity)
+    {
+        entities.put(id, entity);
+        fragmentCache.invalidate(id);
+
+        if (journal == null)
+        {
+            flush();
+            return;
+        }
+
+        journal.appendPut(id, entity);
+        compactJournalIfNeeded();
+    }
+
+    @Override
+    public T delete(UUID id)
+    {
+        T deletedEntity = entities.remove(id);
+        fragmentCache.invalidate(id);
+
+        if (deletedEntity == null)
+        {
+            return null;
+        }
+
+        if (journal == null)
+        {
+            flush();
+        }
+        else
+        {
+            journal.appendDelete(id);
+            compactJournalIfNeeded();
+        }
+
+        return deletedEntity;
+    }
+
+    /**
+     * Grava o arquivo completo. Caso o motor use journal, o journal é esvaziado após a gravação.
+     */
+    @Override
+    public void flush()
+    {
+        if (fragmentCache.isSupported())
+        {
+            Persistence.saveEncodedFile(path, outputStream -> fragmentCache.writeMap(entities, outputStream));
+        }
+        else
+        {
+            Persistence.saveFile(entities, path);
+        }
+
+        if (journal != null)
+        {
+            journal.clear();
+        }
+    }
+
+    /**
+     * Sem journal, cada alteração já reescreve o arquivo completo. Com journal, as alterações
+     * registradas no journal ainda não foram consolidadas no arquivo completo.
+     */
+    @Override
+    public boolean hasPendingChanges()
+    {
+        return journal != null && journal.getRecordCount() > 0;
+    }
+
+    private void compactJournalIfNeeded()
+    {
+        if (journal.shouldCompact(entities.size()))
+        {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fila de gravações em disco executadas por uma única thread de escrita, fora da thread que alterou os dados.
+ *
+ * <p>As gravações acontecem na ordem em que foram pedidas. Uma nova gravação só é agrupada com a última gravação
+ * pendente do mesmo arquivo quando isso não faz nenhum dado chegar ao disco depois de uma gravação pedida depois
+ * dele: substituições só descartam a gravação pendente que está no final da fila, e acréscimos só podem ser
+ * gravados antes do que foi pedido antes deles. Assim os acréscimos de um journal sempre chegam ao disco antes do
+ * arquivo completo do repositório que já os inclui, e o journal só é esvaziado depois desse arquivo.</p>
+ *
+ * <p>A fila é limitada pela quantidade de arquivos e de bytes pendentes. Quando o limite é atingido, quem pede
+ * uma nova gravação espera a thread de escrita liberar espaço.</p>
+ *
+ * @author Filipe Durães
+ */
+final class FileWriteQueue
+{
+    private static final int MAX_PENDING_WRITES = 256;
+    private static final long MAX_PENDING_BYTES = 64L * 1024 * 1024;
+    private static final String WRITER_THREAD_NAME = "WorkshopFileWriter";
+
+    private static final Object Lock = new Object();
+    private static final List<PendingWrite> PendingWrites = new ArrayList<>();
+    private static long PendingBytes = 0;
+    private static Path InFlightPath = null;
+    private static Thread WriterThread = null;
+
+    /**
+     * Define como uma nova gravação se junta à gravação pendente do mesmo arquivo.
+     */
+    enum WriteMode
+    {
+        /**
+         * Substitui o arquivo inteiro. Se a gravação pendente do arquivo for a última da fila, ela é descartada;
+         * caso contrário ela é mantida na sua posição e a nova gravação entra no final da fila.
+         */
+        REPLACE,
+        /**
+         * Acrescenta dados ao arquivo, logo depois da última gravação pendente do mesmo arquivo.
+         */
+        APPEND,
+        /**
+         * Substitui o arquivo inteiro depois de todas as gravações já pedidas, como ao esvaziar um journal
+         * depois que o arquivo completo do repositório foi gravado. As gravações pendentes do arquivo nunca
+         * são descartadas: elas chegam ao disco antes da substituição.
+         */
+        REPLACE_AFTER_PENDING
+    }
+
+    private record PendingWrite(Path path, Runnable write, long byteCount)
+    {
+    }
+
+    private FileWriteQueue()
+    {
+    } //Pure static class
+
+    /**
+     * Agenda uma gravação na thread de escrita.
+     * Se a fila estiver cheia, espera até que a thread de escrita libere espaço.
+     *
+     * @param filePath arquivo gravado
+     * @param byteCount quantidade aproximada de bytes mantidos em memória até a gravação
+     * @param write gravação a ser executada
+     * @param writeMode como a gravação se junta à gravação pendente do mesmo arquivo
+     */
+    static void submit(Path filePath, long byteCount, Runnable write, WriteMode writeMode)
+    {
+        Path key = filePath.toAbsolutePath().normalize();
+
+        if (Thread.currentThread() == WriterThread)
+        {
+            write.run();
+            return;
+        }
+
+        synchronized (Lock)
+        {
+            int pendingIndex = findLastPendingWrite(key);
+            boolean isLastInQueue = pendingIndex >= 0 && pendingIndex == PendingWrites.size() - 1;
+
+            if (pendingIndex >= 0 && (writeMode == WriteMode.APPEND || isLastInQueue))
+            {
+                PendingWrite pendingWrite = PendingWrites.get(pendingIndex);
+                Runnable previousWrite = pendingWrite.write();
+                boolean discardsPending = writeMode == WriteMode.REPLACE;
+                Runnable combinedWrite = discardsPending ? write : () ->
+                {
+                    previousWrite.run();
+                    write.run();
+                };
+                long combinedByteCount = discardsPending ? byteCount : pendingWrite.byteCount() + byteCount;
+
+                PendingBytes += combinedByteCount - pendingWrite.byteCount();
+                PendingWrites.set(pendingIndex, new PendingWrite(key, combinedWrite, combinedByteCount));
+                WriteStatistics.recordCoalescedFileWrite();
+                return;
+            }
+
+            while (isFull() && !awaitChange())
+            {
+                // Espera a thread de escrita liberar espaço na fila
+            }
+
+            PendingWrites.add(new PendingWrite(key, write, byteCount));
+            PendingBytes += byteCount;
+            ensureWriterThread();
+            Lock.notifyAll();
+        }
+    }
+
+    /**
+     * Espera a conclusão das gravações pendentes do arquivo informado, para que ele possa ser lido.
+     *
+     * @param filePath arquivo a ser lido
+     */
+    static void awaitFile(Path filePath)
+    {
+        Path key = filePath.toAbsolutePath().normalize();
+
+        if (Thread.currentThread() == WriterThread)
+        {
+            return;
+        }
+
+        synchronized (Lock)
+        {
+            while ((findLastPendingWrite(key) >= 0 || key.equals(InFlightPath)) && !awaitChange())
+            {
+                // Espera a thread de escrita gravar o arquivo
+            }
+        }
+    }
+
+    /**
+     * Espera a conclusão de todas as gravações pendentes.
+     */
+    static void flush()
+    {
+        if (Thread.currentThread() == WriterThread)
+        {
+            return;
+        }
+
+        synchronized (Lock)
+        {
+            while ((!PendingWrites.isEmpty() || InFlightPath != null) && !awaitChange())
+            {
+                // Espera a thread de escrita esvaziar a fila
+            }
+        }
+    }
+
+    /**
+     * Busca a última gravação pendente do arquivo. Deve ser chamado com o {@link #Lock} obtido.
+     *
+     * @return posição da gravação na fila, ou -1 se o arquivo não tiver gravações pendentes
+     */
+    private static int findLastPendingWrite(Path key)
+    {
+        for (int i = PendingWrites.size() - 1; i >= 0; i--)
+        {
+            if (PendingWrites.get(i).path().equals(key))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isFull()
+    {
+        return !PendingWrites.isEmpty() && (PendingWrites.size() >= MAX_PENDING_WRITES || PendingBytes >= MAX_PENDING_BYTES);
+    }
+
+    /**
+     * Espera uma mudança no estado da fila. Deve ser chamado com o {@link #Lock} obtido.
+     *
+     * @return true se a espera foi interrompida e quem chamou deve desistir de esperar
+     */
+    private static boolean awaitChange()
+    {
+        try
+        {
+            Lock.wait();
+            return false;
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    private static void ensureWriterThread()
+    {
+        if (WriterThread != null)
+        {
+            return;
+        }
+
+        WriterThread = new Thread(FileWriteQueue::runWriter, WRITER_THREAD_NAME);
+        WriterThread.setDaemon(true);
+        WriterThread.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(FileWriteQueue::flush, WRITER_THREAD_NAME + "Shutdown"));
+    }
+
+    private static void runWriter()
+    {
+        while (true)
+        {
+            PendingWrite pendingWrite;
+
+            synchronized (Lock)
+            {
+                while (PendingWrites.isEmpty())
+                {
+                    try
+                    {
+                        Lock.wait();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        // A thread de escrita só termina junto com a aplicação
+                    }
+                }
+
+                pendingWrite = PendingWrites.remove(0);
+                InFlightPath = pendingWrite.path();
+                PendingBytes -= pendingWrite.byteCount();
+                Lock.notifyAll();
+            }
+
+            try
+            {
+                pendingWrite.write().run();
+            }
+            catch (RuntimeException exception)
+            {
+                exception.printStackTrace(System.out);
+            }
+
+            synchronized (Lock)
+            {
+                InFlightPath = null;
+                Lock.notifyAll();
+            }
+        }
+    }
+}
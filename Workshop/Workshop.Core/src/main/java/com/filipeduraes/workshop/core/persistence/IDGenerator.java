@@ -0,0 +1,27 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.util.UUID;
+
+/**
+ * Gerador dos IDs das novas entidades.
+ *
+ * @author Filipe Durães
+ * @see Persistence#setIDGenerator(IDGenerator)
+ */
+@FunctionalInterface
+public interface IDGenerator
+{
+    /**
+     * Gerador de UUIDs totalmente aleatórios (versão 4), sem relação com a ordem de criação.
+     */
+    IDGenerator RANDOM = UUID::randomUUID;
+
+    /**
+     * Gera um novo ID.
+     *
+     * @return ID gerado
+     */
+    UUID generate();
+}
@@ -0,0 +1,525 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.filipeduraes.workshop.core.persistence.codecs.BinaryJsonReader;
+import com.filipeduraes.workshop.core.persistence.codecs.BinaryJsonWriter;
+import com.filipeduraes.workshop.core.persistence.streams.ChecksumOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Arquivo imutável com os registros de um mês encerrado, otimizado para leitura.
+ *
+ * <p>Quando um mês já encerrado é consultado pela primeira vez, os seus registros são lidos uma única vez do
+ * ledger ou do arquivo do mês e selados no arquivo ".archive" ao lado dele. O arquivo guarda cada registro no
+ * formato binário compacto, um índice ordenado pelo ID de cada registro e um filtro de Bloom sobre os IDs.
+ * O arquivo é lido por mapeamento em memória: a leitura completa percorre os registros em sequência e a busca
+ * por ID consulta o filtro de Bloom e faz uma busca binária no índice, sem ler nenhum outro registro.</p>
+ *
+ * <p>O arquivo guarda o tamanho e a data de modificação do arquivo de origem. Se a origem for alterada depois
+ * do selo, o arquivo é selado novamente na próxima consulta. Com proteção ativa, cada registro é protegido
+ * isoladamente, e os IDs do índice ficam visíveis, como nos arquivos de registros. Os arquivos selados não são
+ * convertidos entre formatos ou proteções, porque são gerados novamente a partir dos arquivos convertidos.</p>
+ *
+ * <p>Os registros do mês atual continuam sendo gravados no ledger. Apenas meses encerrados devem ser selados.</p>
+ *
+ * @param <T> tipo dos registros
+ * @author Filipe Durães
+ */
+public final class MonthArchive<T>
+{
+    private static final String ARCHIVE_EXTENSION = ".archive";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final byte[] MAGIC = {'W', 'K', 'M', 'A'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 4 + Integer.BYTES + 1 + 2 * Long.BYTES + Integer.BYTES;
+    private static final int INDEX_ENTRY_LENGTH = 3 * Long.BYTES + Integer.BYTES;
+    private static final int FOOTER_LENGTH = 2 * Long.BYTES + 2 * Integer.BYTES + 4;
+    private static final int BLOOM_BITS_PER_KEY = 10;
+    private static final int BLOOM_HASH_COUNT = 7;
+
+    private static final Map<Path, MonthArchive<?>> OpenedArchives = new ConcurrentHashMap<>();
+    private static final Map<Path, Object> SealLocks = new ConcurrentHashMap<>();
+
+    private final ByteBuffer content;
+    private final Type recordType;
+    private final long sourceSize;
+    private final long sourceModifiedMicros;
+    private final int recordCount;
+    private final long indexOffset;
+    private final int indexCount;
+    private final long bloomOffset;
+    private final int bloomWordCount;
+
+    private record IndexEntry(UUID key, long offset, int length, int sequence)
+    {
+    }
+
+    private MonthArchive(ByteBuffer content, Type recordType)
+    {
+        this.content = content;
+        this.recordType = recordType;
+
+        sourceSize = content.getLong(MAGIC.length + Integer.BYTES + 1);
+        sourceModifiedMicros = content.getLong(MAGIC.length + Integer.BYTES + 1 + Long.BYTES);
+        recordCount = content.getInt(MAGIC.length + Integer.BYTES + 1 + 2 * Long.BYTES);
+
+        int footerPosition = content.limit() - FOOTER_LENGTH;
+        indexOffset = content.getLong(footerPosition);
+        indexCount = content.getInt(footerPosition + Long.BYTES);
+        bloomOffset = content.getLong(footerPosition + Long.BYTES + Integer.BYTES);
+        bloomWordCount = content.getInt(footerPosition + 2 * Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Abre o arquivo selado de um ledger de um mês encerrado, selando-o se ainda não existir ou se o ledger
+     * tiver sido alterado.
+     *
+     * @param <T> tipo dos registros
+     * @param ledger ledger do mês encerrado
+     * @param keyExtractor obtém o ID indexado de cada registro, ou null para registros sem ID
+     * @return arquivo selado, ou null se o mês não tiver registros gravados
+     */
+    public static <T> MonthArchive<T> openOrSeal(RecordLedger<T> ledger, Function<T, UUID> keyExtractor)
+    {
+        MonthArchive<T> archive = getOpenedArchive(ledger.getPath());
+
+        if (archive != null)
+        {
+            return archive;
+        }
+
+        ledger.importLegacyFile();
+        return openOrSeal(ledger.getPath(), Path.of(Persistence.appendPathSuffix(ledger.getPath())), ledger.getRecordType(), keyExtractor, ledger::loadRecords);
+    }
+
+    /**
+     * Abre o arquivo selado de um arquivo de um mês encerrado, selando-o se ainda não existir ou se o arquivo
+     * do mês tiver sido alterado.
+     *
+     * @param <T> tipo dos registros
+     * @param monthFilePath caminho do arquivo do mês encerrado
+     * @param recordType tipo dos registros
+     * @param keyExtractor obtém o ID indexado de cada registro, ou null para registros sem ID
+     * @param recordsLoader leitura dos registros do arquivo do mês, usada apenas ao selar
+     * @return arquivo selado, ou null se o mês não tiver registros gravados
+     */
+    public static <T> MonthArchive<T> openOrSeal(String monthFilePath, Class<T> recordType, Function<T, UUID> keyExtractor, Supplier<? extends Collection<T>> recordsLoader)
+    {
+        MonthArchive<T> archive = getOpenedArchive(monthFilePath);
+
+        if (archive != null)
+        {
+            return archive;
+        }
+
+        return openOrSeal(monthFilePath, Path.of(Persistence.appendPathSuffix(monthFilePath)), recordType, keyExtractor, recordsLoader);
+    }
+
+    /**
+     * Descarta o arquivo selado aberto de um arquivo de mês que está sendo alterado, para que a próxima consulta
+     * confira a origem e sele o mês novamente. Chamado a cada gravação agendada de ledgers e arquivos de dados.
+     *
+     * @param sourceLogicalPath caminho do ledger ou do arquivo do mês, sem sufixos
+     */
+    static void invalidate(String sourceLogicalPath)
+    {
+        if (!OpenedArchives.isEmpty())
+        {
+            OpenedArchives.remove(getArchivePath(sourceLogicalPath));
+        }
+    }
+
+    /**
+     * Obtém o arquivo selado já aberto e conferido nesta sessão. Como toda gravação da origem descarta o arquivo
+     * aberto, a consulta não precisa acessar o disco.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> MonthArchive<T> getOpenedArchive(String sourceLogicalPath)
+    {
+        return OpenedArchives.isEmpty() ? null : (MonthArchive<T>) OpenedArchives.get(getArchivePath(sourceLogicalPath));
+    }
+
+    private static Path getArchivePath(String sourceLogicalPath)
+    {
+        int extensionIndex = sourceLogicalPath.lastIndexOf(".");
+        return Path.of(Persistence.appendPathSuffix(sourceLogicalPath.substring(0, extensionIndex) + ARCHIVE_EXTENSION)).toAbsolutePath().normalize();
+    }
+
+    private static <T> MonthArchive<T> openOrSeal(String sourceLogicalPath, Path sourcePath, Type recordType, Function<T, UUID> keyExtractor, Supplier<? extends Collection<T>> recordsLoader)
+    {
+        Path archivePath = getArchivePath(sourceLogicalPath);
+
+        // Cada arquivo tem a sua trava, para que meses diferentes possam ser selados ao mesmo tempo
+        synchronized (SealLocks.computeIfAbsent(archivePath, path -> new Object()))
+        {
+            return openOrSeal(archivePath, sourcePath, recordType, keyExtractor, recordsLoader);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> MonthArchive<T> openOrSeal(Path archivePath, Path sourcePath, Type recordType, Function<T, UUID> keyExtractor, Supplier<? extends Collection<T>> recordsLoader)
+    {
+        try
+        {
+            Persistence.awaitWrites(sourcePath);
+            long[] sourceStamp = readSourceStamp(sourcePath);
+            MonthArchive<T> archive = (MonthArchive<T>) OpenedArchives.get(archivePath);
+
+            if (archive == null && Files.isRegularFile(archivePath))
+            {
+                archive = open(archivePath, recordType);
+            }
+
+            if (archive != null && archive.sourceSize == sourceStamp[0] && archive.sourceModifiedMicros == sourceStamp[1])
+            {
+                OpenedArchives.put(archivePath, archive);
+                return archive;
+            }
+
+            OpenedArchives.remove(archivePath);
+
+            if (sourceStamp[0] < 0)
+            {
+                return null;
+            }
+
+            Collection<T> records = recordsLoader.get();
+            Persistence.awaitWrites(sourcePath);
+            seal(archivePath, records, keyExtractor, readSourceStamp(sourcePath));
+
+            archive = open(archivePath, recordType);
+
+            if (archive != null)
+            {
+                OpenedArchives.put(archivePath, archive);
+            }
+
+            return archive;
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            exception.printStackTrace(System.out);
+            return null;
+        }
+    }
+
+    /**
+     * Obtém a quantidade de registros do mês.
+     *
+     * @return quantidade de registros
+     */
+    public int getRecordCount()
+    {
+        return recordCount;
+    }
+
+    /**
+     * Verifica pelo filtro de Bloom se algum registro pode ter o ID informado.
+     * Um resultado falso garante que nenhum registro tem o ID, sem consultar o índice.
+     *
+     * @param key ID procurado
+     * @return false se nenhum registro tiver o ID
+     */
+    public boolean mightContain(UUID key)
+    {
+        if (indexCount == 0)
+        {
+            return false;
+        }
+
+        long bitCount = (long) bloomWordCount * Long.SIZE;
+        long firstHash = mix(key.getMostSignificantBits() ^ Long.rotateLeft(key.getLeastSignificantBits(), 32));
+        long secondHash = mix(key.getLeastSignificantBits()) | 1;
+
+        for (int i = 0; i < BLOOM_HASH_COUNT; i++)
+        {
+            long bit = Long.remainderUnsigned(firstHash + i * secondHash, bitCount);
+            long word = content.getLong((int) (bloomOffset + (bit >>> 6) * Long.BYTES));
+
+            if ((word & (1L << (bit & 63))) == 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Busca o primeiro registro com o ID informado.
+     *
+     * @param key ID procurado
+     * @return registro encontrado, ou null se nenhum registro tiver o ID
+     */
+    public T find(UUID key)
+    {
+        List<T> records = findAll(key);
+        return records.isEmpty() ? null : records.get(0);
+    }
+
+    /**
+     * Busca todos os registros com o ID informado, como todos os pontos de um funcionário.
+     *
+     * @param key ID procurado
+     * @return registros encontrados, na ordem em que foram gravados
+     */
+    public List<T> findAll(UUID key)
+    {
+        List<T> records = new ArrayList<>();
+
+        if (!mightContain(key))
+        {
+            return records;
+        }
+
+        int low = 0;
+        int high = indexCount;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (compareIndexKey(middle, key) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        for (int i = low; i < indexCount && compareIndexKey(i, key) == 0; i++)
+        {
+            int entryPosition = (int) (indexOffset + (long) i * INDEX_ENTRY_LENGTH);
+            records.add(readRecord((int) content.getLong(entryPosition + 2 * Long.BYTES), content.getInt(entryPosition + 3 * Long.BYTES)));
+        }
+
+        return records;
+    }
+
+    /**
+     * Percorre todos os registros do mês, na ordem em que foram gravados.
+     *
+     * @param consumer ação executada para cada registro
+     */
+    public void forEachRecord(Consumer<T> consumer)
+    {
+        int position = HEADER_LENGTH;
+
+        for (int i = 0; i < recordCount; i++)
+        {
+            int length = content.getInt(position);
+            consumer.accept(readRecord(position + Integer.BYTES, length));
+            position += Integer.BYTES + length;
+        }
+    }
+
+    /**
+     * Lê todos os registros do mês, na ordem em que foram gravados.
+     *
+     * @return lista com os registros
+     */
+    public List<T> loadRecords()
+    {
+        List<T> records = new ArrayList<>(recordCount);
+        forEachRecord(records::add);
+        return records;
+    }
+
+    private static <T> void seal(Path archivePath, Collection<T> records, Function<T, UUID> keyExtractor, long[] sourceStamp) throws IOException
+    {
+        Path temporaryPath = archivePath.resolveSibling(archivePath.getFileName() + TEMPORARY_FILE_SUFFIX);
+        DataProtection dataProtection = Persistence.getDataProtection();
+        List<IndexEntry> indexEntries = new ArrayList<>();
+
+        Files.createDirectories(archivePath.getParent());
+
+        try (FileChannel fileChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream outputStream = new DataOutputStream(new ChecksumOutputStream(fileChannel)))
+        {
+            outputStream.write(MAGIC);
+            outputStream.writeInt(VERSION);
+            outputStream.writeByte(dataProtection.ordinal());
+            outputStream.writeLong(sourceStamp[0]);
+            outputStream.writeLong(sourceStamp[1]);
+            outputStream.writeInt(records.size());
+
+            for (T record : records)
+            {
+                byte[] body = Persistence.protectRecord(encodeRecord(record), dataProtection);
+                UUID key = keyExtractor != null ? keyExtractor.apply(record) : null;
+
+                if (key != null)
+                {
+                    indexEntries.add(new IndexEntry(key, outputStream.size() + Integer.BYTES, body.length, indexEntries.size()));
+                }
+
+                outputStream.writeInt(body.length);
+                outputStream.write(body);
+            }
+
+            // Registros com o mesmo ID ficam na ordem em que foram gravados
+            indexEntries.sort(Comparator.comparing(IndexEntry::key).thenComparingInt(IndexEntry::sequence));
+            long indexOffset = outputStream.size();
+
+            for (IndexEntry indexEntry : indexEntries)
+            {
+                outputStream.writeLong(indexEntry.key().getMostSignificantBits());
+                outputStream.writeLong(indexEntry.key().getLeastSignificantBits());
+                outputStream.writeLong(indexEntry.offset());
+                outputStream.writeInt(indexEntry.length());
+            }
+
+            long bloomOffset = outputStream.size();
+            long[] bloomWords = createBloomFilter(indexEntries);
+
+            for (long bloomWord : bloomWords)
+            {
+                outputStream.writeLong(bloomWord);
+            }
+
+            outputStream.writeLong(indexOffset);
+            outputStream.writeInt(indexEntries.size());
+            outputStream.writeLong(bloomOffset);
+            outputStream.writeInt(bloomWords.length);
+            outputStream.write(MAGIC);
+        }
+
+        Persistence.replaceFile(temporaryPath, archivePath);
+    }
+
+    private static <T> MonthArchive<T> open(Path archivePath, Type recordType) throws IOException
+    {
+        if (!DataIntegrityVerifier.isFileValid(archivePath))
+        {
+            return null;
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(archivePath, StandardOpenOption.READ))
+        {
+            long contentLength = fileChannel.size() - ChecksumOutputStream.HEADER_LENGTH;
+
+            if (contentLength < HEADER_LENGTH + FOOTER_LENGTH || contentLength > Integer.MAX_VALUE)
+            {
+                return null;
+            }
+
+            ByteBuffer content = fileChannel.map(FileChannel.MapMode.READ_ONLY, ChecksumOutputStream.HEADER_LENGTH, contentLength);
+            byte[] magic = new byte[MAGIC.length];
+            content.get(0, magic);
+
+            if (!Arrays.equals(magic, MAGIC) || content.getInt(MAGIC.length) != VERSION
+                || content.get(MAGIC.length + Integer.BYTES) != Persistence.getDataProtection().ordinal())
+            {
+                return null;
+            }
+
+            return new MonthArchive<>(content, recordType);
+        }
+    }
+
+    private static long[] readSourceStamp(Path sourcePath) throws IOException
+    {
+        if (!Files.isRegularFile(sourcePath))
+        {
+            return new long[] {-1, -1};
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(sourcePath, BasicFileAttributes.class);
+        return new long[] {attributes.size(), attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS)};
+    }
+
+    private static long[] createBloomFilter(List<IndexEntry> indexEntries)
+    {
+        int wordCount = Math.max(1, (indexEntries.size() * BLOOM_BITS_PER_KEY + Long.SIZE - 1) / Long.SIZE);
+        long[] words = new long[wordCount];
+        long bitCount = (long) wordCount * Long.SIZE;
+
+        for (IndexEntry indexEntry : indexEntries)
+        {
+            UUID key = indexEntry.key();
+            long firstHash = mix(key.getMostSignificantBits() ^ Long.rotateLeft(key.getLeastSignificantBits(), 32));
+            long secondHash = mix(key.getLeastSignificantBits()) | 1;
+
+            for (int i = 0; i < BLOOM_HASH_COUNT; i++)
+            {
+                long bit = Long.remainderUnsigned(firstHash + i * secondHash, bitCount);
+                words[(int) (bit >>> 6)] |= 1L << (bit & 63);
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * Mistura os bits de um valor (finalizador do MurmurHash3), para que IDs com prefixos parecidos,
+     * como os IDs ordenados por tempo, se espalhem por todo o filtro de Bloom.
+     */
+    private static long mix(long value)
+    {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private int compareIndexKey(int entryIndex, UUID key)
+    {
+        int entryPosition = (int) (indexOffset + (long) entryIndex * INDEX_ENTRY_LENGTH);
+        UUID entryKey = new UUID(content.getLong(entryPosition), content.getLong(entryPosition + Long.BYTES));
+        return entryKey.compareTo(key);
+    }
+
+    private static byte[] encodeRecord(Object record) throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (BinaryJsonWriter jsonWriter = new BinaryJsonWriter(outputStream))
+        {
+            Persistence.getGson().toJson(record, record.getClass(), jsonWriter);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private T readRecord(int position, int length)
+    {
+        byte[] body = new byte[length];
+        content.get(position, body);
+
+        try (BinaryJsonReader jsonReader = new BinaryJsonReader(Persistence.unprotectRecord(body, Persistence.getDataProtection())))
+        {
+            return Persistence.getGson().fromJson(jsonReader, recordType);
+        }
+        catch (IOException exception)
+        {
+            throw new IllegalStateException("Registro selado invalido.", exception);
+        }
+    }
+}
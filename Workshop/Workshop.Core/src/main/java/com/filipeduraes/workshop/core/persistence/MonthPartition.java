@@ -0,0 +1,68 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Dados de um módulo que pertencem ao mês atual, como o ledger de vendas do mês e as vendas mantidas na memória.
+ * Criada por {@link MonthPartitionManager#createPartition(Function, Consumer)}, que troca os dados na virada do mês.
+ *
+ * @param <T> tipo dos dados do mês
+ * @author Filipe Durães
+ */
+public class MonthPartition<T>
+{
+    private final MonthPartitionManager manager;
+    private final Function<LocalDateTime, T> partitionOpener;
+    private final Consumer<T> partitionReleaser;
+    private T current;
+
+    MonthPartition(MonthPartitionManager manager, Function<LocalDateTime, T> partitionOpener, Consumer<T> partitionReleaser)
+    {
+        this.manager = manager;
+        this.partitionOpener = partitionOpener;
+        this.partitionReleaser = partitionReleaser;
+    }
+
+    /**
+     * Obtém os dados do mês atual, passando para o novo mês se o mês já virou.
+     *
+     * @return dados do mês atual, ou null se a partição foi fechada
+     */
+    public T getCurrent()
+    {
+        manager.rollOverIfNeeded();
+
+        synchronized (manager)
+        {
+            return current;
+        }
+    }
+
+    /**
+     * Fecha a partição, liberando os dados do mês atual. A partição deixa de acompanhar a virada do mês.
+     */
+    public void close()
+    {
+        manager.removePartition(this);
+    }
+
+    T open(LocalDateTime monthStart)
+    {
+        return partitionOpener.apply(monthStart);
+    }
+
+    void replace(T openedData)
+    {
+        T releasedData = current;
+        current = openedData;
+
+        if (releasedData != null)
+        {
+            partitionReleaser.accept(releasedData);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.filipeduraes.workshop.utils.Observer;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Controla o mês atual dos registros divididos por mês, como vendas, despesas, pontos e serviços finalizados.
+ *
+ * <p>Cada módulo cria uma {@link MonthPartition} com os dados do mês atual que mantém na memória. Ao acessar uma
+ * partição depois da virada do mês, todas as partições do gerenciador passam juntas para o novo mês: os dados do
+ * novo mês são abertos primeiro e só então substituem os do mês anterior, que são liberados da memória. Assim uma
+ * oficina que fica aberta durante a virada do mês passa a gravar no mês novo, e os dados de meses anteriores
+ * continuam disponíveis apenas pela leitura dos seus arquivos.</p>
+ *
+ * @author Filipe Durães
+ */
+public class MonthPartitionManager
+{
+    /**
+     * Evento acionado depois que todas as partições passam para um novo mês.
+     */
+    public final Observer OnMonthChanged = new Observer();
+
+    private final Clock clock;
+    private final List<MonthPartition<?>> partitions = new ArrayList<>();
+    private volatile YearMonth currentMonth;
+
+    /**
+     * Cria um gerenciador que usa o relógio do sistema.
+     */
+    public MonthPartitionManager()
+    {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Cria um gerenciador que usa o relógio informado para saber o mês atual.
+     *
+     * @param clock relógio usado para identificar a virada do mês
+     */
+    public MonthPartitionManager(Clock clock)
+    {
+        this.clock = clock;
+        currentMonth = YearMonth.now(clock);
+    }
+
+    /**
+     * Cria uma partição com os dados do mês atual. Nada é liberado na virada do mês além da referência aos dados.
+     *
+     * @param <T> tipo dos dados do mês
+     * @param partitionOpener abre os dados de um mês, recebendo o início do mês
+     * @return partição aberta no mês atual
+     */
+    public <T> MonthPartition<T> createPartition(Function<LocalDateTime, T> partitionOpener)
+    {
+        return createPartition(partitionOpener, data -> { });
+    }
+
+    /**
+     * Cria uma partição com os dados do mês atual.
+     *
+     * @param <T> tipo dos dados do mês
+     * @param partitionOpener abre os dados de um mês, recebendo o início do mês
+     * @param partitionReleaser libera os dados de um mês que deixou de ser o atual
+     * @return partição aberta no mês atual
+     */
+    public synchronized <T> MonthPartition<T> createPartition(Function<LocalDateTime, T> partitionOpener, Consumer<T> partitionReleaser)
+    {
+        MonthPartition<T> partition = new MonthPartition<>(this, partitionOpener, partitionReleaser);
+        partition.replace(partition.open(getMonthStart(currentMonth)));
+        partitions.add(partition);
+        return partition;
+    }
+
+    /**
+     * Obtém o mês das partições abertas, passando para o novo mês se o mês já virou.
+     *
+     * @return mês atual
+     */
+    public YearMonth getCurrentMonth()
+    {
+        rollOverIfNeeded();
+        return currentMonth;
+    }
+
+    /**
+     * Verifica se o mês virou e, nesse caso, passa todas as partições para o novo mês.
+     * Se algum mês não puder ser aberto, nenhuma partição é alterada.
+     *
+     * @return true se as partições passaram para um novo mês
+     */
+    public boolean rollOverIfNeeded()
+    {
+        YearMonth now = YearMonth.now(clock);
+
+        if (now.equals(currentMonth))
+        {
+            return false;
+        }
+
+        synchronized (this)
+        {
+            if (now.equals(currentMonth))
+            {
+                return false;
+            }
+
+            LocalDateTime monthStart = getMonthStart(now);
+            List<Object> openedPartitions = new ArrayList<>(partitions.size());
+
+            for (MonthPartition<?> partition : partitions)
+            {
+                openedPartitions.add(partition.open(monthStart));
+            }
+
+            for (int i = 0; i < partitions.size(); i++)
+            {
+                replacePartition(partitions.get(i), openedPartitions.get(i));
+            }
+
+            currentMonth = now;
+        }
+
+        OnMonthChanged.broadcast();
+        return true;
+    }
+
+    synchronized void removePartition(MonthPartition<?> partition)
+    {
+        if (partitions.remove(partition))
+        {
+            partition.replace(null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void replacePartition(MonthPartition<T> partition, Object openedData)
+    {
+        partition.replace((T) openedData);
+    }
+
+    private static LocalDateTime getMonthStart(YearMonth month)
+    {
+        return month.atDay(1).atStartOfDay();
+    }
+}
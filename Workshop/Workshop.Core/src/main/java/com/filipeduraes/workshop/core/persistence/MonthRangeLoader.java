@@ -0,0 +1,116 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.io.Serial;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Carrega os dados de um intervalo de meses em paralelo, para relatórios de vários meses como
+ * balanços trimestrais e anuais.
+ *
+ * <p>O intervalo é dividido ao meio recursivamente no {@link ForkJoinPool} comum até restar um único mês.
+ * Cada mês é carregado e resumido em uma thread do pool, e os resumos parciais são combinados na ordem dos
+ * meses. Como os meses encerrados são lidos dos seus {@link MonthArchive}, um intervalo de vários meses
+ * custa próximo de um único mês quando há núcleos livres.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class MonthRangeLoader
+{
+    private MonthRangeLoader()
+    {
+    } //Pure static class
+
+    /**
+     * Carrega e combina os dados de todos os meses do intervalo, incluindo o primeiro e o último mês.
+     * O carregamento de cada mês deve poder ser executado em qualquer thread.
+     *
+     * @param <T> tipo do resumo de cada mês
+     * @param firstMonth qualquer data do primeiro mês do intervalo
+     * @param lastMonth qualquer data do último mês do intervalo
+     * @param monthLoader carrega o resumo de um mês, recebendo o início do mês
+     * @param merger combina o resumo dos meses anteriores com o dos meses seguintes
+     * @return resumo combinado do intervalo
+     * @throws IllegalArgumentException se o último mês for anterior ao primeiro
+     */
+    public static <T> T loadAndMerge(LocalDateTime firstMonth, LocalDateTime lastMonth, Function<LocalDateTime, T> monthLoader, BinaryOperator<T> merger)
+    {
+        YearMonth first = YearMonth.from(firstMonth);
+        int monthCount = (int) ChronoUnit.MONTHS.between(first, YearMonth.from(lastMonth)) + 1;
+
+        if (monthCount <= 0)
+        {
+            throw new IllegalArgumentException("O ultimo mes do intervalo deve ser igual ou posterior ao primeiro.");
+        }
+
+        return ForkJoinPool.commonPool().invoke(new MonthRangeTask<>(first, monthCount, monthLoader, merger));
+    }
+
+    /**
+     * Carrega os registros de todos os meses do intervalo, incluindo o primeiro e o último mês,
+     * em uma única lista na ordem dos meses.
+     *
+     * @param <T> tipo dos registros
+     * @param firstMonth qualquer data do primeiro mês do intervalo
+     * @param lastMonth qualquer data do último mês do intervalo
+     * @param monthLoader carrega os registros de um mês, recebendo o início do mês
+     * @return registros do intervalo
+     * @throws IllegalArgumentException se o último mês for anterior ao primeiro
+     */
+    public static <T> List<T> loadAll(LocalDateTime firstMonth, LocalDateTime lastMonth, Function<LocalDateTime, ? extends Collection<T>> monthLoader)
+    {
+        return loadAndMerge(firstMonth, lastMonth, month -> new ArrayList<>(monthLoader.apply(month)), (previousRecords, nextRecords) ->
+        {
+            previousRecords.addAll(nextRecords);
+            return previousRecords;
+        });
+    }
+
+    /**
+     * Carrega os meses do intervalo, dividindo-o ao meio até restar um único mês.
+     */
+    private static class MonthRangeTask<T> extends RecursiveTask<T>
+    {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final YearMonth firstMonth;
+        private final int monthCount;
+        private final transient Function<LocalDateTime, T> monthLoader;
+        private final transient BinaryOperator<T> merger;
+
+        private MonthRangeTask(YearMonth firstMonth, int monthCount, Function<LocalDateTime, T> monthLoader, BinaryOperator<T> merger)
+        {
+            this.firstMonth = firstMonth;
+            this.monthCount = monthCount;
+            this.monthLoader = monthLoader;
+            this.merger = merger;
+        }
+
+        @Override
+        protected T compute()
+        {
+            if (monthCount == 1)
+            {
+                return monthLoader.apply(firstMonth.atDay(1).atStartOfDay());
+            }
+
+            int firstHalfCount = monthCount / 2;
+            MonthRangeTask<T> secondHalf = new MonthRangeTask<>(firstMonth.plusMonths(firstHalfCount), monthCount - firstHalfCount, monthLoader, merger);
+            secondHalf.fork();
+
+            T firstHalfResult = new MonthRangeTask<>(firstMonth, firstHalfCount, monthLoader, merger).compute();
+            return merger.apply(firstHalfResult, secondHalf.join());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Diretório persistente que associa o ID de cada registro ao mês em que ele foi gravado, como o mês de cada venda.
+ * Com o diretório, um registro de qualquer mês é encontrado com uma consulta ao diretório e a leitura de um
+ * único mês, sem percorrer os arquivos de todos os meses.
+ *
+ * <p>O arquivo ".directory" tem um cabeçalho curto seguido de entradas de tamanho fixo, com o ID e o mês,
+ * e cada novo registro acrescenta uma entrada ao final. Na primeira consulta o arquivo é lido para a memória,
+ * e uma entrada incompleta deixada por uma gravação interrompida é ignorada. Se o arquivo não existir ou
+ * estiver inválido, o diretório é reconstruído a partir dos IDs gravados em cada pasta de mês. Como os arquivos
+ * selados, o diretório não é convertido entre formatos ou proteções: ele é reconstruído a partir dos arquivos
+ * convertidos.</p>
+ *
+ * <p>Dentro de uma {@link UnitOfWork}, as entradas são acumuladas em memória e gravadas juntas ao final.</p>
+ *
+ * @author Filipe Durães
+ */
+public class PartitionDirectory
+{
+    private static final String DIRECTORY_EXTENSION = ".directory";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final byte[] MAGIC = {'W', 'K', 'P', 'D'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 4 + Integer.BYTES;
+    private static final int ENTRY_LENGTH = 2 * Long.BYTES + Integer.BYTES;
+
+    private final String path;
+    private final Function<LocalDateTime, Collection<UUID>> monthIDsLoader;
+    private final ByteArrayOutputStream pendingEntries = new ByteArrayOutputStream();
+    private final Map<Integer, LocalDateTime> months = new HashMap<>();
+    private Map<UUID, LocalDateTime> partitions;
+    private boolean hasCheckedFile = false;
+
+    /**
+     * Cria o diretório gravado ao lado do caminho informado, com a extensão ".directory".
+     *
+     * @param directoryPath caminho do diretório
+     * @param monthIDsLoader leitura dos IDs gravados em um mês, recebendo o início do mês, usada apenas para reconstruir o diretório
+     */
+    public PartitionDirectory(String directoryPath, Function<LocalDateTime, Collection<UUID>> monthIDsLoader)
+    {
+        int extensionIndex = directoryPath.lastIndexOf(".");
+        path = directoryPath.substring(0, extensionIndex) + DIRECTORY_EXTENSION;
+        this.monthIDsLoader = monthIDsLoader;
+    }
+
+    /**
+     * Registra o mês em que um registro foi gravado.
+     *
+     * @param id ID do registro
+     * @param month qualquer data do mês em que o registro foi gravado
+     */
+    public synchronized void register(UUID id, LocalDateTime month)
+    {
+        ensureFileExists();
+
+        LocalDateTime monthStart = getMonthStart(getMonthIndex(month));
+
+        if (partitions != null)
+        {
+            partitions.put(id, monthStart);
+        }
+
+        writeEntry(new DataOutputStream(pendingEntries), id, monthStart);
+
+        if (!UnitOfWork.stageWrite(path, this::flushPendingEntries))
+        {
+            flushPendingEntries();
+        }
+    }
+
+    /**
+     * Busca o mês em que um registro foi gravado.
+     *
+     * @param id ID do registro
+     * @return início do mês do registro, ou null se o ID não estiver no diretório
+     */
+    public synchronized LocalDateTime findPartition(UUID id)
+    {
+        if (partitions == null)
+        {
+            partitions = loadPartitions();
+        }
+
+        return partitions.get(id);
+    }
+
+    private void ensureFileExists()
+    {
+        if (hasCheckedFile)
+        {
+            return;
+        }
+
+        hasCheckedFile = true;
+
+        if (partitions == null && !Persistence.hasFile(path))
+        {
+            partitions = rebuild();
+        }
+    }
+
+    private Map<UUID, LocalDateTime> loadPartitions()
+    {
+        UnitOfWork.flushWrite(path);
+
+        Path directoryPath = Path.of(Persistence.appendPathSuffix(path));
+        Persistence.awaitWrites(directoryPath);
+
+        if (!Files.isRegularFile(directoryPath))
+        {
+            return rebuild();
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(Files.newInputStream(directoryPath)))
+        {
+            if (!hasValidHeader(inputStream))
+            {
+                return rebuild();
+            }
+
+            long entryCount = (Files.size(directoryPath) - HEADER_LENGTH) / ENTRY_LENGTH;
+            Map<UUID, LocalDateTime> loadedPartitions = new HashMap<>((int) Math.min(entryCount * 4 / 3 + 1, Integer.MAX_VALUE));
+
+            for (long i = 0; i < entryCount; i++)
+            {
+                UUID id = new UUID(inputStream.readLong(), inputStream.readLong());
+                loadedPartitions.put(id, getMonthStart(inputStream.readInt()));
+            }
+
+            hasCheckedFile = true;
+            return loadedPartitions;
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Reconstrói o diretório com os IDs gravados em cada pasta de mês e agenda a gravação do arquivo completo.
+     */
+    private Map<UUID, LocalDateTime> rebuild()
+    {
+        Map<UUID, LocalDateTime> rebuiltPartitions = new HashMap<>();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(content);
+
+        try
+        {
+            writeHeader(outputStream);
+
+            for (LocalDateTime month : WorkshopPaths.listMonthPartitions())
+            {
+                LocalDateTime monthStart = getMonthStart(getMonthIndex(month));
+
+                for (UUID id : monthIDsLoader.apply(monthStart))
+                {
+                    rebuiltPartitions.put(id, monthStart);
+                    writeEntry(outputStream, id, monthStart);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+
+        Path directoryPath = Path.of(Persistence.appendPathSuffix(path));
+        Persistence.submitWrite(directoryPath, content.size(), () -> writeRebuiltDirectory(directoryPath, content), FileWriteQueue.WriteMode.REPLACE);
+
+        hasCheckedFile = true;
+        return rebuiltPartitions;
+    }
+
+    private synchronized void flushPendingEntries()
+    {
+        if (pendingEntries.size() == 0)
+        {
+            return;
+        }
+
+        Path directoryPath = Path.of(Persistence.appendPathSuffix(path));
+        byte[] entries = pendingEntries.toByteArray();
+
+        pendingEntries.reset();
+        Persistence.submitWrite(directoryPath, entries.length, () -> writeEntries(directoryPath, entries), FileWriteQueue.WriteMode.APPEND);
+    }
+
+    /**
+     * Acrescenta as entradas ao final do arquivo. Uma entrada incompleta deixada por uma gravação
+     * interrompida é sobrescrita, para que as entradas continuem alinhadas.
+     */
+    private static void writeEntries(Path directoryPath, byte[] entries)
+    {
+        try
+        {
+            Persistence.ensureUsersDirectoriesAndFileExists(directoryPath);
+
+            try (FileChannel fileChannel = FileChannel.open(directoryPath, StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                long fileSize = fileChannel.size();
+                long position = fileSize - (fileSize - HEADER_LENGTH) % ENTRY_LENGTH;
+
+                if (fileSize < HEADER_LENGTH)
+                {
+                    ByteArrayOutputStream header = new ByteArrayOutputStream();
+                    writeHeader(new DataOutputStream(header));
+                    fileChannel.write(ByteBuffer.wrap(header.toByteArray()), 0);
+                    position = HEADER_LENGTH;
+                }
+
+                fileChannel.truncate(position);
+                ByteBuffer content = ByteBuffer.wrap(entries);
+
+                while (content.hasRemaining())
+                {
+                    position += fileChannel.write(content, position);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    private static void writeRebuiltDirectory(Path directoryPath, ByteArrayOutputStream content)
+    {
+        Path temporaryPath = directoryPath.resolveSibling(directoryPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        try
+        {
+            Files.createDirectories(directoryPath.getParent());
+
+            try (OutputStream outputStream = Files.newOutputStream(temporaryPath))
+            {
+                content.writeTo(outputStream);
+            }
+
+            Persistence.replaceFile(temporaryPath, directoryPath);
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream outputStream) throws IOException
+    {
+        outputStream.write(MAGIC);
+        outputStream.writeInt(VERSION);
+    }
+
+    private static boolean hasValidHeader(InputStream inputStream) throws IOException
+    {
+        byte[] header = inputStream.readNBytes(HEADER_LENGTH);
+        return header.length == HEADER_LENGTH
+            && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)
+            && ByteBuffer.wrap(header).getInt(MAGIC.length) == VERSION;
+    }
+
+    private static void writeEntry(DataOutputStream outputStream, UUID id, LocalDateTime monthStart)
+    {
+        try
+        {
+            outputStream.writeLong(id.getMostSignificantBits());
+            outputStream.writeLong(id.getLeastSignificantBits());
+            outputStream.writeInt(getMonthIndex(monthStart));
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    private static int getMonthIndex(LocalDateTime month)
+    {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    /**
+     * Obtém o início do mês do índice informado. Todas as entradas de um mês compartilham a mesma instância.
+     */
+    private LocalDateTime getMonthStart(int monthIndex)
+    {
+        return months.computeIfAbsent(monthIndex, index -> LocalDateTime.of(index / 12, index % 12 + 1, 1, 0, 0));
+    }
+}
@@ -2,45 +2,232 @@
 
 package com.filipeduraes.workshop.core.persistence;
 
+import com.filipeduraes.workshop.core.persistence.streams.BlockDeflateOutputStream;
+import com.filipeduraes.workshop.core.persistence.streams.BlockInflateInputStream;
+import com.filipeduraes.workshop.core.persistence.streams.ChecksumInputStream;
+import com.filipeduraes.workshop.core.persistence.streams.ChecksumOutputStream;
+import com.filipeduraes.workshop.core.persistence.streams.DataCorruptionException;
+import com.filipeduraes.workshop.core.persistence.streams.EncryptedChunkInputStream;
+import com.filipeduraes.workshop.core.persistence.streams.EncryptedChunkOutputStream;
+import com.filipeduraes.workshop.core.persistence.streams.HashingInputStream;
+import com.filipeduraes.workshop.core.persistence.streams.HashingOutputStream;
+import com.filipeduraes.workshop.core.persistence.streams.XorInputStream;
+import com.filipeduraes.workshop.core.persistence.streams.XorOutputStream;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Responsável por gerenciar a persistência de dados da aplicação.
- * Fornece métodos para salvar e carregar dados em arquivos, com suporte opcional à ofuscação.
+ * Fornece métodos para salvar e carregar dados em arquivos, com suporte opcional à proteção ({@link DataProtection})
+ * e a diferentes formatos de arquivo ({@link StorageFormat}).
+ *
+ * <p>Os arquivos das pastas de mês ({@link WorkshopPaths#isMonthPartitionPath}) são gravados comprimidos em blocos
+ * Deflate independentes. Na leitura a compressão é detectada pelo cabeçalho, então arquivos antigos sem compressão
+ * continuam sendo lidos normalmente. Os ledgers ({@link RecordLedger}) são a exceção: são sempre linhas de texto
+ * sem compressão, mesmo no formato binário, para que cada registro seja acrescentado sem reescrever o arquivo.</p>
+ *
+ * <p>Todo arquivo gravado começa com um cabeçalho com a versão, o tamanho e o CRC32C dos bytes gravados
+ * ({@link ChecksumOutputStream}). O checksum é conferido em cada leitura, e {@link DataIntegrityVerifier} confere todos
+ * os arquivos da pasta de dados sem interpretá-los. Um arquivo corrompido encontrado na leitura é movido para a
+ * quarentena, com a extensão ".corrupt", em vez de ser sobrescrito pela próxima gravação. Arquivos antigos sem o cabeçalho continuam sendo lidos.
+ * Os arquivos de registros do {@link EntityRecordStore} e os ledgers não têm o cabeçalho: são protegidos pelo checksum
+ * de cada registro ou linha, também conferido pelo {@link DataIntegrityVerifier}.</p>
+ *
+ * <p>O hash SHA-256 do conteúdo de cada arquivo lido ou gravado é guardado. Uma gravação cujo conteúdo
+ * tem o mesmo hash do arquivo em disco é descartada sem tocar no disco, e contada em {@link WriteStatistics}.</p>
+ *
+ * <p>Os arquivos completos são serializados em fluxo na thread que pediu a gravação, então a memória usada
+ * depende do tamanho dos buffers e não do tamanho do arquivo: uma primeira passagem calcula apenas o hash, e só
+ * quando ele muda os dados são serializados de novo para um arquivo temporário. A troca do arquivo temporário pelo
+ * arquivo final, assim como os registros dos journals e ledgers, acontece na {@link FileWriteQueue}, em uma única
+ * thread de escrita e na ordem em que foi pedida. Leituras esperam as gravações pendentes do mesmo arquivo,
+ * e {@link #flushWrites()} espera todas elas.</p>
  *
  * @author Filipe Durães
  */
 public final class Persistence
 {
-    private static boolean UseObfuscation = false;
+    private static DataProtection CurrentDataProtection = DataProtection.NONE;
+    private static boolean UseMonthCompression = true;
+    private static boolean UseAsyncWrites = true;
+    private static StorageFormat CurrentStorageFormat = StorageFormat.JSON;
+    private static StorageEngineSelector CurrentStorageEngineSelector = StorageEngineSelector.PREFERRED;
+    private static IDGenerator CurrentIDGenerator = new TimeOrderedIDGenerator();
     private static final byte KEY = 12;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String QUARANTINE_EXTENSION = ".corrupt";
+    private static final DateTimeFormatter QUARANTINE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final Map<Path, KnownContent> KnownContents = new ConcurrentHashMap<>();
+    private static final Map<Path, Object> WriteLocks = new ConcurrentHashMap<>();
     private static Gson gson = new Gson();
 
+    /**
+     * Conteúdo conhecido de um arquivo, junto com os atributos do arquivo que permitem perceber
+     * alterações feitas fora da persistência.
+     */
+    private record KnownContent(byte[] hash, long length, FileTime lastModifiedTime, long fileSize)
+    {
+    }
+
+    /**
+     * Escreve o conteúdo de um arquivo, já codificado no formato atual, no fluxo informado.
+     */
+    @FunctionalInterface
+    interface ContentWriter
+    {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
     private Persistence()
     {
     } //Pure static class
 
     /**
-     * Define se a ofuscação deve ser usada ao salvar e carregar arquivos.
+     * Define se os arquivos devem ser protegidos ao salvar e carregar.
+     * A proteção usada é a criptografia {@link DataProtection#ENCRYPTED}, que substituiu a antiga ofuscação XOR.
      *
-     * @param useObfuscation true para ativar ofuscação, false para desativar
+     * @param useObfuscation true para proteger os arquivos, false para gravá-los sem proteção
      */
     public static void setUseObfuscation(boolean useObfuscation)
     {
-        UseObfuscation = useObfuscation;
+        setDataProtection(useObfuscation ? DataProtection.ENCRYPTED : DataProtection.NONE);
+    }
+
+    /**
+     * Define a proteção usada ao salvar e carregar arquivos.
+     * Arquivos com outra proteção não são lidos, use {@link DataProtectionConverter} para convertê-los.
+     *
+     * @param dataProtection proteção dos arquivos
+     */
+    public static void setDataProtection(DataProtection dataProtection)
+    {
+        CurrentDataProtection = dataProtection;
+    }
+
+    /**
+     * Obtém a proteção usada ao salvar e carregar arquivos.
+     *
+     * @return proteção dos arquivos
+     */
+    public static DataProtection getDataProtection()
+    {
+        return CurrentDataProtection;
+    }
+
+    /**
+     * Define se os arquivos das pastas de mês devem ser gravados comprimidos.
+     * A leitura aceita arquivos comprimidos ou não, independente desta opção.
+     *
+     * @param useMonthCompression true para comprimir os arquivos de mês, false para gravá-los sem compressão
+     */
+    public static void setUseMonthCompression(boolean useMonthCompression)
+    {
+        UseMonthCompression = useMonthCompression;
+    }
+
+    /**
+     * Define se as gravações em disco devem acontecer na thread de escrita assíncrona.
+     * Ao desativar, as gravações pendentes são concluídas antes de retornar.
+     *
+     * @param useAsyncWrites true para gravar na thread de escrita, false para gravar na thread que pediu a gravação
+     */
+    public static void setUseAsyncWrites(boolean useAsyncWrites)
+    {
+        UseAsyncWrites = useAsyncWrites;
+
+        if (!useAsyncWrites)
+        {
+            flushWrites();
+        }
+    }
+
+    /**
+     * Espera todas as gravações pendentes na thread de escrita chegarem ao disco.
+     * Deve ser chamado antes de encerrar a aplicação ou de manipular a pasta de dados diretamente.
+     */
+    public static void flushWrites()
+    {
+        FileWriteQueue.flush();
+    }
+
+    /**
+     * Define o formato usado ao salvar e carregar arquivos.
+     * Arquivos de outro formato não são lidos, use {@link StorageFormatConverter} para convertê-los.
+     *
+     * @param storageFormat formato dos arquivos
+     */
+    public static void setStorageFormat(StorageFormat storageFormat)
+    {
+        CurrentStorageFormat = storageFormat;
+    }
+
+    /**
+     * Obtém o formato usado ao salvar e carregar arquivos.
+     *
+     * @return formato dos arquivos
+     */
+    public static StorageFormat getStorageFormat()
+    {
+        return CurrentStorageFormat;
+    }
+
+    /**
+     * Define como o motor de armazenamento de cada repositório é escolhido.
+     * Vale apenas para os repositórios criados depois da chamada.
+     *
+     * @param storageEngineSelector seletor dos motores de armazenamento
+     */
+    public static void setStorageEngineSelector(StorageEngineSelector storageEngineSelector)
+    {
+        CurrentStorageEngineSelector = storageEngineSelector != null ? storageEngineSelector : StorageEngineSelector.PREFERRED;
+    }
+
+    /**
+     * Obtém o seletor dos motores de armazenamento dos repositórios.
+     *
+     * @return seletor dos motores de armazenamento
+     */
+    public static StorageEngineSelector getStorageEngineSelector()
+    {
+        return CurrentStorageEngineSelector;
+    }
+
+    /**
+     * Define o gerador dos IDs das novas entidades. O padrão é {@link TimeOrderedIDGenerator}.
+     *
+     * @param idGenerator gerador de IDs
+     */
+    public static void setIDGenerator(IDGenerator idGenerator)
+    {
+        CurrentIDGenerator = idGenerator != null ? idGenerator : new TimeOrderedIDGenerator();
     }
 
     /**
@@ -62,6 +249,10 @@ public final class Persistence
 
     /**
      * Salva dados em um arquivo no caminho especificado.
+     * Se houver uma {@link UnitOfWork} ativa, a gravação é adiada até o final da unidade de trabalho.
+     * Os dados são serializados em fluxo na thread atual e gravados em um arquivo temporário, que então substitui
+     * o arquivo original. Por padrão a substituição acontece na thread de escrita assíncrona, ver
+     * {@link #setUseAsyncWrites(boolean)}. Se o conteúdo serializado for igual ao do arquivo em disco, nada é gravado.
      *
      * @param <T> tipo dos dados a serem salvos
      * @param data dados a serem salvos
@@ -69,54 +260,93 @@ public final class Persistence
      */
     public static <T> void saveFile(T data, String path)
     {
-        try
-        {
-            path = appendPathSuffix(path);
-            ensureUsersDirectoriesAndFileExists(Path.of(path));
-            FileWriter fileWriter = new FileWriter(path);
-
-            String json = gson.toJson(data);
-            String obfuscatedJson = UseObfuscation ? obfuscate(json) : json;
+        saveEncodedFile(path, outputStream -> CurrentStorageFormat.getCodec().write(gson, data, outputStream));
+    }
 
-            try (BufferedWriter bufferedWriter = new BufferedWriter(fileWriter))
-            {
-                bufferedWriter.write(obfuscatedJson);
-            }
-        }
-        catch (IOException exception)
+    /**
+     * Salva um arquivo cujo conteúdo já codificado no formato atual é produzido pelo escritor informado.
+     * Segue as mesmas regras de {@link #saveFile(Object, String)}.
+     */
+    static void saveEncodedFile(String path, ContentWriter contentWriter)
+    {
+        if (!UnitOfWork.stageWrite(path, () -> writeFile(contentWriter, path)))
         {
-            exception.printStackTrace(System.out);
+            writeFile(contentWriter, path);
         }
     }
 
     /**
      * Carrega dados de um arquivo no caminho especificado.
+     * O arquivo é lido em fluxo, sem manter o conteúdo completo na memória durante a deserialização.
+     * Gravações ainda pendentes na {@link UnitOfWork} ativa ou na thread de escrita para o mesmo arquivo
+     * são concluídas antes da leitura. Se o arquivo estiver na {@link StartupImage} carregada e não tiver sido
+     * alterado, o conteúdo da imagem é usado no lugar do arquivo.
+     *
+     * <p>Se o arquivo estiver corrompido, ele é movido para a quarentena antes de o valor padrão ser retornado,
+     * então as gravações seguintes criam um novo arquivo sem sobrescrever os dados corrompidos, que ainda podem ser
+     * recuperados ou substituídos por uma cópia de segurança.</p>
      *
      * @param <T> tipo dos dados a serem carregados
      * @param path caminho do arquivo
      * @param type tipo parametrizado para deserialização
      * @param defaultValue valor padrão caso ocorra erro
      * @return dados carregados ou valor padrão em caso de erro
+     * @see #quarantineFile(Path)
      */
     public static <T> T loadFile(String path, Type type, T defaultValue)
     {
+        UnitOfWork.flushWrite(path);
+
+        Path filePath = Path.of(appendPathSuffix(path));
+
         try
         {
-            path = appendPathSuffix(path);
-            Path filePath = Path.of(path);
+            FileWriteQueue.awaitFile(filePath);
+            StartupImage.Entry imageEntry = StartupImage.takeEntry(filePath);
+
+            if (imageEntry != null)
+            {
+                T result = StorageFormat.BINARY.getCodec().read(gson, new ByteArrayInputStream(imageEntry.content()), type);
+                rememberContent(filePath, imageEntry.hash(), imageEntry.length());
+                StartupImage.recordUsedFile(filePath);
+                return result != null ? result : defaultValue;
+            }
+
             boolean pathExistedBefore = Files.exists(filePath);
 
             ensureUsersDirectoriesAndFileExists(filePath);
-            String obfuscatedUsers = Files.readString(filePath, StandardCharsets.UTF_8);
 
-            String json = UseObfuscation ? deobfuscate(obfuscatedUsers) : obfuscatedUsers;
-            T result = gson.fromJson(json, type);
+            try (HashingInputStream inputStream = new HashingInputStream(openInputStream(filePath, CurrentStorageFormat)))
+            {
+                T result = CurrentStorageFormat.getCodec().read(gson, inputStream, type);
+                inputStream.drain();
+
+                if (pathExistedBefore)
+                {
+                    rememberContent(filePath, inputStream.getHash(), inputStream.getByteCount());
+                    StartupImage.recordUsedFile(filePath);
+                }
 
-            return (result == null || !pathExistedBefore) ? defaultValue : result;
+                return (result == null || !pathExistedBefore) ? defaultValue : result;
+            }
         }
-        catch (IOException exception)
+        catch (IOException | RuntimeException exception)
         {
+            // Com o arquivo corrompido, o leitor pode falhar antes de o checksum ser conferido no fim do arquivo
+            boolean isCorrupted = exception instanceof DataCorruptionException || DataIntegrityVerifier.isFileCorrupted(filePath);
+
+            if (!isCorrupted && exception instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+
             exception.printStackTrace(System.out);
+
+            if (isCorrupted)
+            {
+                quarantineFile(filePath);
+            }
+
             return defaultValue;
         }
     }
@@ -129,11 +359,13 @@ public final class Persistence
      */
     public static boolean hasFile(String path)
     {
-        return Files.exists(Path.of(appendPathSuffix(path)));
+        Path filePath = Path.of(appendPathSuffix(path));
+        FileWriteQueue.awaitFile(filePath);
+        return Files.exists(filePath);
     }
 
     /**
-     * Gera um UUID único que não existe no mapa fornecido.
+     * Gera um UUID único que não existe no mapa fornecido, usando o gerador definido em {@link #setIDGenerator(IDGenerator)}.
      *
      * @param <T> tipo dos valores no mapa
      * @param idMap mapa de IDs existentes
@@ -141,11 +373,12 @@ public final class Persistence
      */
     public static <T> UUID generateUniqueID(Map<UUID, T> idMap)
     {
-        UUID uniqueID = UUID.randomUUID();
+        IDGenerator idGenerator = CurrentIDGenerator;
+        UUID uniqueID = idGenerator.generate();
 
         while (idMap.containsKey(uniqueID))
         {
-            uniqueID = UUID.randomUUID();
+            uniqueID = idGenerator.generate();
         }
 
         return uniqueID;
@@ -182,17 +415,293 @@ public final class Persistence
         };
     }
 
-    private static String appendPathSuffix(String path)
+    /**
+     * Executa uma gravação na thread de escrita, ou imediatamente se a escrita assíncrona estiver desativada.
+     *
+     * @param filePath arquivo gravado, já com o sufixo do formato
+     * @param byteCount quantidade aproximada de bytes mantidos em memória até a gravação
+     * @param write gravação a ser executada
+     * @param writeMode como a gravação se junta à gravação pendente do mesmo arquivo
+     */
+    static void submitWrite(Path filePath, long byteCount, Runnable write, FileWriteQueue.WriteMode writeMode)
+    {
+        if (UseAsyncWrites)
+        {
+            FileWriteQueue.submit(filePath, byteCount, write, writeMode);
+        }
+        else
+        {
+            write.run();
+        }
+    }
+
+    /**
+     * Espera as gravações pendentes do arquivo na thread de escrita, para que ele possa ser lido diretamente.
+     *
+     * @param filePath arquivo a ser lido, já com o sufixo do formato
+     */
+    static void awaitWrites(Path filePath)
+    {
+        FileWriteQueue.awaitFile(filePath);
+    }
+
+    /**
+     * Serializa os dados na thread atual sem montar o conteúdo na memória. A primeira passagem apenas calcula o hash,
+     * e o arquivo só é gravado se o hash for diferente do conteúdo conhecido. Nesse caso os dados são serializados
+     * de novo, em fluxo, para o arquivo temporário, e apenas a troca pelo arquivo final é agendada na thread de escrita,
+     * mantendo a ordem em relação às gravações agendadas antes, como os registros do journal.
+     */
+    private static void writeFile(ContentWriter contentWriter, String path)
+    {
+        Path filePath = Path.of(appendPathSuffix(path));
+
+        synchronized (WriteLocks.computeIfAbsent(filePath.toAbsolutePath().normalize(), key -> new Object()))
+        {
+            try
+            {
+                HashingOutputStream hashingStream = new HashingOutputStream(OutputStream.nullOutputStream());
+                contentWriter.write(hashingStream);
+
+                // Uma troca ainda pendente do mesmo arquivo usa o mesmo arquivo temporário e muda o conteúdo conhecido
+                awaitWrites(filePath);
+                KnownContent knownContent = findKnownContent(filePath);
+
+                if (knownContent != null && Arrays.equals(hashingStream.getHash(), knownContent.hash()))
+                {
+                    WriteStatistics.recordSkippedFileWrite();
+                    return;
+                }
+
+                Path temporaryPath = filePath.resolveSibling(filePath.getFileName() + TEMPORARY_FILE_SUFFIX);
+                Files.createDirectories(filePath.getParent());
+                HashingOutputStream contentStream;
+
+                try (OutputStream outputStream = openOutputStream(temporaryPath, CurrentStorageFormat, CurrentDataProtection))
+                {
+                    contentStream = new HashingOutputStream(outputStream);
+                    contentWriter.write(contentStream);
+                }
+
+                byte[] hash = contentStream.getHash();
+                long length = contentStream.getByteCount();
+
+                submitWrite(filePath, 0, () -> commitContent(temporaryPath, filePath, hash, length), FileWriteQueue.WriteMode.REPLACE);
+                MonthArchive.invalidate(path);
+            }
+            catch (IOException exception)
+            {
+                exception.printStackTrace(System.out);
+            }
+        }
+    }
+
+    /**
+     * Substitui o arquivo pelo arquivo temporário já gravado e guarda o hash do novo conteúdo.
+     */
+    private static void commitContent(Path temporaryPath, Path filePath, byte[] hash, long length)
+    {
+        try
+        {
+            replaceFile(temporaryPath, filePath);
+            rememberContent(filePath, hash, length);
+            StartupImage.recordUsedFile(filePath);
+            WriteStatistics.recordFileWrite();
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Obtém o conteúdo conhecido do arquivo, se o arquivo não foi alterado desde a última leitura ou gravação.
+     */
+    private static KnownContent findKnownContent(Path filePath) throws IOException
+    {
+        Path key = filePath.toAbsolutePath().normalize();
+        KnownContent knownContent = KnownContents.get(key);
+
+        if (knownContent == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            if (Files.size(filePath) == knownContent.fileSize() && Files.getLastModifiedTime(filePath).equals(knownContent.lastModifiedTime()))
+            {
+                return knownContent;
+            }
+        }
+        catch (NoSuchFileException exception)
+        {
+            // O arquivo foi removido, então o conteúdo conhecido não vale mais
+        }
+
+        KnownContents.remove(key);
+        return null;
+    }
+
+    private static void rememberContent(Path filePath, byte[] hash, long length) throws IOException
+    {
+        KnownContent knownContent = new KnownContent(hash, length, Files.getLastModifiedTime(filePath), Files.size(filePath));
+        KnownContents.put(filePath.toAbsolutePath().normalize(), knownContent);
+    }
+
+    /**
+     * Move um arquivo corrompido para a quarentena, renomeando-o com a data atual e a extensão ".corrupt" na mesma
+     * pasta. O arquivo continua sendo apontado como corrompido por {@link DataIntegrityVerifier} até ser removido.
+     *
+     * @param filePath arquivo corrompido, já com o sufixo do formato
+     */
+    static void quarantineFile(Path filePath)
+    {
+        String quarantineName = filePath.getFileName() + "." + LocalDateTime.now().format(QUARANTINE_NAME_FORMAT) + QUARANTINE_EXTENSION;
+        Path quarantinePath = filePath.resolveSibling(quarantineName);
+
+        try
+        {
+            Files.move(filePath, quarantinePath);
+            KnownContents.remove(filePath.toAbsolutePath().normalize());
+            System.out.println("Arquivo corrompido movido para " + quarantinePath + ". Restaure uma copia de seguranca para recuperar os dados.");
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    static void replaceFile(Path sourcePath, Path targetPath) throws IOException
+    {
+        try
+        {
+            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException exception)
+        {
+            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static OutputStream openOutputStream(Path filePath, StorageFormat storageFormat) throws IOException
+    {
+        return openOutputStream(filePath, storageFormat, CurrentDataProtection);
+    }
+
+    static OutputStream openOutputStream(Path filePath, StorageFormat storageFormat, DataProtection dataProtection) throws IOException
+    {
+        FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream fileStream = new ChecksumOutputStream(fileChannel);
+        boolean shouldCompress = UseMonthCompression && WorkshopPaths.isMonthPartitionPath(filePath);
+
+        switch (dataProtection)
+        {
+            case ENCRYPTED ->
+            {
+                OutputStream encryptedStream = new EncryptedChunkOutputStream(fileStream, DataEncryption.getKey());
+                return shouldCompress ? new BlockDeflateOutputStream(encryptedStream) : encryptedStream;
+            }
+            case OBFUSCATED ->
+            {
+                if (shouldCompress)
+                {
+                    return new XorOutputStream(new BlockDeflateOutputStream(fileStream), KEY);
+                }
+
+                return new XorOutputStream(storageFormat.isTextual() ? Base64.getEncoder().wrap(fileStream) : fileStream, KEY);
+            }
+            default ->
+            {
+                return shouldCompress ? new BlockDeflateOutputStream(fileStream) : fileStream;
+            }
+        }
+    }
+
+    static InputStream openInputStream(Path filePath, StorageFormat storageFormat) throws IOException
+    {
+        return openInputStream(filePath, storageFormat, CurrentDataProtection);
+    }
+
+    static InputStream openInputStream(Path filePath, StorageFormat storageFormat, DataProtection dataProtection) throws IOException
+    {
+        FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ);
+        InputStream channelStream = Channels.newInputStream(fileChannel);
+
+        if (ChecksumInputStream.hasHeader(fileChannel))
+        {
+            channelStream = new ChecksumInputStream(channelStream);
+        }
+
+        InputStream fileStream = new BufferedInputStream(channelStream, STREAM_BUFFER_SIZE);
+
+        if (dataProtection == DataProtection.ENCRYPTED)
+        {
+            InputStream decryptedStream = new BufferedInputStream(new EncryptedChunkInputStream(fileStream, DataEncryption.getKey()), STREAM_BUFFER_SIZE);
+            return BlockInflateInputStream.hasHeader(decryptedStream) ? new BlockInflateInputStream(decryptedStream) : decryptedStream;
+        }
+
+        boolean isObfuscated = dataProtection == DataProtection.OBFUSCATED;
+
+        if (BlockInflateInputStream.hasHeader(fileStream))
+        {
+            InputStream compressedStream = new BlockInflateInputStream(fileStream);
+            return isObfuscated ? new XorInputStream(compressedStream, KEY) : compressedStream;
+        }
+
+        if (!isObfuscated)
+        {
+            return fileStream;
+        }
+
+        return new XorInputStream(storageFormat.isTextual() ? Base64.getDecoder().wrap(fileStream) : fileStream, KEY);
+    }
+
+    static Gson getGson()
+    {
+        return gson;
+    }
+
+    static boolean isUsingObfuscation()
+    {
+        return CurrentDataProtection != DataProtection.NONE;
+    }
+
+    static String toJson(Object data)
+    {
+        return gson.toJson(data);
+    }
+
+    static <T> T fromJson(String json, Type type)
+    {
+        return gson.fromJson(json, type);
+    }
+
+    static String appendPathSuffix(String path)
+    {
+        return appendPathSuffix(path, CurrentStorageFormat);
+    }
+
+    static String appendPathSuffix(String path, StorageFormat storageFormat)
     {
         int extensionIndex = path.lastIndexOf(".");
 
         final String pathWithoutExtension = path.substring(0, extensionIndex);
-        final String pathSuffix = UseObfuscation ? "_Obfuscated" : "_Regular";
+        final String pathSuffix = getPathSuffix(storageFormat);
         final String pathExtension = path.substring(extensionIndex);
         return pathWithoutExtension + pathSuffix + pathExtension;
     }
 
-    private static void ensureUsersDirectoriesAndFileExists(Path path) throws IOException
+    static String getPathSuffix(StorageFormat storageFormat)
+    {
+        return getPathSuffix(storageFormat, CurrentDataProtection);
+    }
+
+    static String getPathSuffix(StorageFormat storageFormat, DataProtection dataProtection)
+    {
+        return storageFormat.getFileSuffix() + dataProtection.getFileSuffix();
+    }
+
+    static void ensureUsersDirectoriesAndFileExists(Path path) throws IOException
     {
         Path directoryPath = path.getParent();
 
@@ -207,27 +716,124 @@ public final class Persistence
         }
     }
 
-    private static String obfuscate(String text)
+    static String obfuscate(String text)
     {
-        byte[] buffer = text.getBytes(StandardCharsets.UTF_8);
+        return obfuscate(text, CurrentDataProtection);
+    }
 
-        for (int i = 0; i < buffer.length; i++)
+    /**
+     * Protege um texto isolado, como uma linha de journal, e o codifica em Base64.
+     *
+     * @throws UncheckedIOException se a chave de criptografia não estiver disponível
+     */
+    static String obfuscate(String text, DataProtection dataProtection)
+    {
+        try
         {
-            buffer[i] ^= KEY;
+            byte[] protectedBytes = protectRecord(text.getBytes(StandardCharsets.UTF_8), dataProtection);
+            return Base64.getEncoder().encodeToString(protectedBytes);
+        }
+        catch (IOException exception)
+        {
+            throw new UncheckedIOException(exception);
         }
+    }
 
-        return Base64.getEncoder().encodeToString(buffer);
+    static String deobfuscate(String base64)
+    {
+        return deobfuscate(base64, CurrentDataProtection);
     }
 
-    private static String deobfuscate(String base64)
+    /**
+     * Lê um texto protegido por {@link #obfuscate(String, DataProtection)}.
+     *
+     * @throws IllegalArgumentException se o texto estiver corrompido ou tiver sido alterado
+     */
+    static String deobfuscate(String base64, DataProtection dataProtection)
     {
-        byte[] buffer = Base64.getDecoder().decode(base64);
+        try
+        {
+            byte[] buffer = unprotectRecord(Base64.getDecoder().decode(base64), dataProtection);
+            return new String(buffer, StandardCharsets.UTF_8);
+        }
+        catch (IOException exception)
+        {
+            throw new IllegalArgumentException("Registro protegido invalido.", exception);
+        }
+    }
 
+    /**
+     * Serializa uma entidade isolada no formato atual, aplicando a proteção atual.
+     * Usado pelos armazenamentos que gravam cada entidade como um registro independente.
+     */
+    static byte[] encodeEntity(Object entity) throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CurrentStorageFormat.getCodec().write(gson, entity, outputStream);
+        return protectRecord(outputStream.toByteArray(), CurrentDataProtection);
+    }
+
+    /**
+     * Deserializa uma entidade gravada por {@link #encodeEntity(Object)}. O array informado pode ser modificado.
+     */
+    static <T> T decodeEntity(byte[] bytes, Type type) throws IOException
+    {
+        byte[] plainBytes = unprotectRecord(bytes, CurrentDataProtection);
+        return CurrentStorageFormat.getCodec().read(gson, new ByteArrayInputStream(plainBytes), type);
+    }
+
+    /**
+     * Aplica a proteção a um registro isolado. Na ofuscação o array informado é modificado e retornado.
+     */
+    static byte[] protectRecord(byte[] plainBytes, DataProtection dataProtection) throws IOException
+    {
+        switch (dataProtection)
+        {
+            case ENCRYPTED ->
+            {
+                return DataEncryption.encryptRecord(plainBytes);
+            }
+            case OBFUSCATED ->
+            {
+                applyXor(plainBytes);
+                return plainBytes;
+            }
+            default ->
+            {
+                return plainBytes;
+            }
+        }
+    }
+
+    /**
+     * Remove a proteção de um registro gravado por {@link #protectRecord(byte[], DataProtection)}.
+     * Na ofuscação o array informado é modificado e retornado.
+     */
+    static byte[] unprotectRecord(byte[] protectedBytes, DataProtection dataProtection) throws IOException
+    {
+        switch (dataProtection)
+        {
+            case ENCRYPTED ->
+            {
+                return DataEncryption.decryptRecord(protectedBytes);
+            }
+            case OBFUSCATED ->
+            {
+                applyXor(protectedBytes);
+                return protectedBytes;
+            }
+            default ->
+            {
+                return protectedBytes;
+            }
+        }
+    }
+
+    private static void applyXor(byte[] buffer)
+    {
         for (int i = 0; i < buffer.length; i++)
         {
             buffer[i] ^= KEY;
         }
-
-        return new String(buffer, StandardCharsets.UTF_8);
     }
 }
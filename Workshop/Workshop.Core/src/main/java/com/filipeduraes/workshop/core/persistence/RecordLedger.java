@@ -0,0 +1,414 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Livro de registros (ledger) somente de acréscimo, usado pelos registros de série temporal de cada mês,
+ * como pontos, despesas e vendas. Cada registro é gravado como uma linha com o seu JSON, então registrar
+ * um novo item tem custo constante, sem ler nem reescrever os registros anteriores do mês.
+ *
+ * <p>O ledger é gravado ao lado do arquivo do mês, com a extensão ".ledger". Com proteção ativa, cada linha
+ * é protegida isoladamente, como nos journals dos repositórios. Cada linha termina com o CRC32C do seu conteúdo
+ * gravado, conferido na leitura e pelo {@link DataIntegrityVerifier}. A leitura percorre o arquivo em fluxo, linha
+ * a linha, e ignora as linhas com checksum inválido. Antes de acrescentar registros, uma última linha
+ * interrompida por uma gravação anterior é descartada, então linhas incompletas só existem no final do arquivo.</p>
+ *
+ * <p>Para que acrescentar um registro não reescreva o arquivo, o ledger é sempre gravado como linhas de texto:
+ * diferente dos outros arquivos da {@link Persistence}, não é comprimido nas pastas de mês, não tem o cabeçalho
+ * de checksum do arquivo inteiro e não usa o formato binário.</p>
+ *
+ * <p>Na primeira utilização de um mês gravado por versões anteriores, a lista completa do arquivo do mês é
+ * importada para o ledger. O arquivo antigo é mantido, mas deixa de ser lido.</p>
+ *
+ * <p>Dentro de uma {@link UnitOfWork}, os registros são acumulados em memória e gravados juntos ao final.</p>
+ *
+ * @param <T> tipo dos registros
+ * @author Filipe Durães
+ */
+public class RecordLedger<T>
+{
+    private static final String LEDGER_EXTENSION = ".ledger";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final char CHECKSUM_SEPARATOR = '\t';
+    private static final int CHECKSUM_LENGTH = 2 * Integer.BYTES;
+    private static final int TAIL_SCAN_CHUNK_SIZE = 4096;
+
+    private final String path;
+    private final String legacyPath;
+    private final Class<T> recordType;
+    private final Supplier<? extends Collection<T>> legacyRecordsLoader;
+    private final List<String> pendingRecords = new ArrayList<>();
+    private boolean hasCheckedLegacyFile = false;
+
+    /**
+     * Cria o ledger associado ao arquivo de um mês, gravado por versões anteriores como uma lista de registros.
+     *
+     * @param monthFilePath caminho do arquivo do mês
+     * @param recordType tipo dos registros
+     */
+    public RecordLedger(String monthFilePath, Class<T> recordType)
+    {
+        this(monthFilePath, recordType, () -> Persistence.loadFile(monthFilePath, Persistence.createParameterizedType(List.class, recordType), new ArrayList<T>()));
+    }
+
+    /**
+     * Cria o ledger associado ao arquivo de um mês, informando como ler os registros do arquivo antigo.
+     *
+     * @param monthFilePath caminho do arquivo do mês
+     * @param recordType tipo dos registros
+     * @param legacyRecordsLoader leitura dos registros do arquivo do mês gravado por versões anteriores
+     */
+    public RecordLedger(String monthFilePath, Class<T> recordType, Supplier<? extends Collection<T>> legacyRecordsLoader)
+    {
+        int extensionIndex = monthFilePath.lastIndexOf(".");
+        path = monthFilePath.substring(0, extensionIndex) + LEDGER_EXTENSION;
+        legacyPath = monthFilePath;
+        this.recordType = recordType;
+        this.legacyRecordsLoader = legacyRecordsLoader;
+    }
+
+    /**
+     * Acrescenta um registro ao final do ledger.
+     *
+     * @param record registro a ser gravado
+     */
+    public void append(T record)
+    {
+        importLegacyFile();
+
+        pendingRecords.add(encodeLine(Persistence.toJson(record), Persistence.getDataProtection()));
+
+        if (!UnitOfWork.stageWrite(path, this::flushPendingRecords))
+        {
+            flushPendingRecords();
+        }
+    }
+
+    /**
+     * Percorre os registros do ledger em fluxo, na ordem em que foram gravados,
+     * sem manter o ledger inteiro na memória.
+     *
+     * @param consumer ação executada para cada registro
+     */
+    public void forEachRecord(Consumer<T> consumer)
+    {
+        importLegacyFile();
+        UnitOfWork.flushWrite(path);
+
+        Path ledgerPath = Path.of(Persistence.appendPathSuffix(path));
+        Persistence.awaitWrites(ledgerPath);
+
+        if (!Files.exists(ledgerPath))
+        {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(ledgerPath, StandardCharsets.UTF_8))
+        {
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                T record = tryParseRecord(line);
+
+                if (record != null)
+                {
+                    consumer.accept(record);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Lê todos os registros do ledger, na ordem em que foram gravados.
+     *
+     * @return lista com os registros
+     */
+    public List<T> loadRecords()
+    {
+        List<T> records = new ArrayList<>();
+        forEachRecord(records::add);
+        return records;
+    }
+
+    /**
+     * Codifica um registro como uma linha do ledger: o registro, protegido se necessário, seguido do CRC32C
+     * do conteúdo gravado.
+     *
+     * @param record registro em JSON
+     * @param dataProtection proteção da linha
+     * @return linha sem a quebra de linha
+     */
+    static String encodeLine(String record, DataProtection dataProtection)
+    {
+        String content = dataProtection != DataProtection.NONE ? Persistence.obfuscate(record, dataProtection) : record;
+        return content + CHECKSUM_SEPARATOR + computeChecksum(content);
+    }
+
+    /**
+     * Lê o registro de uma linha do ledger. Linhas sem checksum, gravadas por versões anteriores, são aceitas.
+     *
+     * @param line linha sem a quebra de linha
+     * @param dataProtection proteção da linha
+     * @return registro em JSON, ou null se o checksum não conferir
+     * @throws IllegalArgumentException se a proteção da linha estiver corrompida
+     */
+    static String decodeLine(String line, DataProtection dataProtection)
+    {
+        String content = line;
+
+        if (hasChecksum(line))
+        {
+            if (!hasValidChecksum(line))
+            {
+                return null;
+            }
+
+            content = line.substring(0, line.length() - CHECKSUM_LENGTH - 1);
+        }
+
+        return dataProtection != DataProtection.NONE ? Persistence.deobfuscate(content, dataProtection) : content;
+    }
+
+    /**
+     * Verifica se a linha termina com um checksum. O JSON e o Base64 das linhas nunca contêm tabulações,
+     * então apenas as linhas gravadas com checksum têm o separador nessa posição.
+     *
+     * @param line linha sem a quebra de linha
+     * @return true se a linha tiver checksum
+     */
+    static boolean hasChecksum(String line)
+    {
+        int separatorIndex = line.length() - CHECKSUM_LENGTH - 1;
+        return separatorIndex >= 0 && line.charAt(separatorIndex) == CHECKSUM_SEPARATOR;
+    }
+
+    /**
+     * Verifica se a linha tem checksum e se ele confere com o conteúdo da linha.
+     *
+     * @param line linha sem a quebra de linha
+     * @return true se o checksum for válido
+     */
+    static boolean hasValidChecksum(String line)
+    {
+        if (!hasChecksum(line))
+        {
+            return false;
+        }
+
+        int separatorIndex = line.length() - CHECKSUM_LENGTH - 1;
+        return line.endsWith(computeChecksum(line.substring(0, separatorIndex)));
+    }
+
+    private static String computeChecksum(String content)
+    {
+        CRC32C checksum = new CRC32C();
+        checksum.update(content.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().toHexDigits((int) checksum.getValue());
+    }
+
+    String getPath()
+    {
+        return path;
+    }
+
+    Class<T> getRecordType()
+    {
+        return recordType;
+    }
+
+    void importLegacyFile()
+    {
+        if (hasCheckedLegacyFile)
+        {
+            return;
+        }
+
+        hasCheckedLegacyFile = true;
+
+        if (Persistence.hasFile(path) || !Persistence.hasFile(legacyPath))
+        {
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+
+        for (T record : legacyRecordsLoader.get())
+        {
+            lines.append(encodeLine(Persistence.toJson(record), Persistence.getDataProtection())).append('\n');
+        }
+
+        Path ledgerPath = Path.of(Persistence.appendPathSuffix(path));
+        Persistence.submitWrite(ledgerPath, lines.length(), () -> writeImportedRecords(ledgerPath, lines), FileWriteQueue.WriteMode.REPLACE);
+    }
+
+    private void flushPendingRecords()
+    {
+        if (pendingRecords.isEmpty())
+        {
+            return;
+        }
+
+        Path ledgerPath = Path.of(Persistence.appendPathSuffix(path));
+        StringBuilder lines = new StringBuilder();
+
+        for (String pendingRecord : pendingRecords)
+        {
+            lines.append(pendingRecord).append('\n');
+        }
+
+        pendingRecords.clear();
+        Persistence.submitWrite(ledgerPath, lines.length(), () -> writeRecords(ledgerPath, lines), FileWriteQueue.WriteMode.APPEND);
+        MonthArchive.invalidate(path);
+    }
+
+    private static void writeRecords(Path ledgerPath, CharSequence lines)
+    {
+        try
+        {
+            Persistence.ensureUsersDirectoriesAndFileExists(ledgerPath);
+
+            try (FileChannel fileChannel = FileChannel.open(ledgerPath, StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                long position = repairIncompleteLastLine(fileChannel);
+                ByteBuffer content = StandardCharsets.UTF_8.encode(lines.toString());
+
+                while (content.hasRemaining())
+                {
+                    position += fileChannel.write(content, position);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Trata uma última linha sem quebra de linha, deixada por uma gravação interrompida, para que o próximo
+     * registro comece em uma linha nova. Se a linha for um registro com checksum válido, apenas a quebra de linha
+     * é acrescentada; senão a linha é descartada, como já acontecia na leitura.
+     *
+     * @return posição onde os próximos registros devem ser gravados
+     */
+    private static long repairIncompleteLastLine(FileChannel fileChannel) throws IOException
+    {
+        long fileSize = fileChannel.size();
+        long lastLineStart = findLastLineStart(fileChannel, fileSize);
+
+        if (lastLineStart == fileSize)
+        {
+            return fileSize;
+        }
+
+        ByteBuffer lastLine = ByteBuffer.allocate((int) (fileSize - lastLineStart));
+        long position = lastLineStart;
+
+        while (lastLine.hasRemaining())
+        {
+            position += fileChannel.read(lastLine, position);
+        }
+
+        lastLine.flip();
+
+        if (hasValidChecksum(StandardCharsets.UTF_8.decode(lastLine).toString()))
+        {
+            fileChannel.write(ByteBuffer.wrap(new byte[] {'\n'}), fileSize);
+            return fileSize + 1;
+        }
+
+        fileChannel.truncate(lastLineStart);
+        return lastLineStart;
+    }
+
+    /**
+     * Encontra o início da última linha, lendo o arquivo de trás para frente até a última quebra de linha.
+     */
+    private static long findLastLineStart(FileChannel fileChannel, long fileSize) throws IOException
+    {
+        ByteBuffer chunk = ByteBuffer.allocate(TAIL_SCAN_CHUNK_SIZE);
+        long chunkEnd = fileSize;
+
+        while (chunkEnd > 0)
+        {
+            long chunkStart = Math.max(0, chunkEnd - TAIL_SCAN_CHUNK_SIZE);
+            chunk.clear().limit((int) (chunkEnd - chunkStart));
+            fileChannel.read(chunk, chunkStart);
+
+            for (int i = chunk.position() - 1; i >= 0; i--)
+            {
+                if (chunk.get(i) == '\n')
+                {
+                    return chunkStart + i + 1;
+                }
+            }
+
+            chunkEnd = chunkStart;
+        }
+
+        return 0;
+    }
+
+    private static void writeImportedRecords(Path ledgerPath, CharSequence lines)
+    {
+        Path temporaryPath = ledgerPath.resolveSibling(ledgerPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        try
+        {
+            Files.createDirectories(ledgerPath.getParent());
+
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8))
+            {
+                writer.append(lines);
+            }
+
+            Persistence.replaceFile(temporaryPath, ledgerPath);
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    private T tryParseRecord(String line)
+    {
+        if (line.isEmpty())
+        {
+            return null;
+        }
+
+        try
+        {
+            String record = decodeLine(line, Persistence.getDataProtection());
+            return record != null ? Persistence.fromJson(record, recordType) : null;
+        }
+        catch (IllegalArgumentException | JsonParseException exception)
+        {
+            return null;
+        }
+    }
+}
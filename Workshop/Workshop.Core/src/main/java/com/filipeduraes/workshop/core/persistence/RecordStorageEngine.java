@@ -0,0 +1,83 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Motor chave-valor embutido, que guarda as entidades em um arquivo de registros através de {@link EntityRecordStore}.
+ * Apenas o índice dos registros fica na memória, e as entidades são lidas do disco sob demanda,
+ * passando por um cache LRU limitado pelo orçamento de bytes.
+ *
+ * <p>As entidades retornadas podem ser cópias diferentes a cada consulta, então alterações
+ * devem sempre ser gravadas com {@link #put(UUID, Object)}.</p>
+ *
+ * @param <T> tipo das entidades armazenadas
+ * @author Filipe Durães
+ */
+public class RecordStorageEngine<T> implements StorageEngine<T>
+{
+    private final EntityRecordStore<T> recordStore;
+
+    /**
+     * Abre o motor para o arquivo de um repositório.
+     * Os registros são gravados ao lado do arquivo, com a extensão ".records".
+     *
+     * @param path caminho do arquivo do repositório
+     * @param entityType classe das entidades
+     * @param cacheByteBudget quantidade máxima de bytes serializados mantidos no cache de entidades
+     */
+    public RecordStorageEngine(String path, Class<T> entityType, long cacheByteBudget)
+    {
+        recordStore = new EntityRecordStore<>(path, entityType, cacheByteBudget);
+    }
+
+    @Override
+    public Map<UUID, T> load()
+    {
+        return Collections.unmodifiableMap(recordStore.asMap());
+    }
+
+    @Override
+    public T get(UUID id)
+    {
+        return recordStore.get(id);
+    }
+
+    @Override
+    public void put(UUID id, T entity)
+    {
+        recordStore.put(id, entity);
+    }
+
+    @Override
+    public T delete(UUID id)
+    {
+        T deletedEntity = recordStore.get(id);
+        recordStore.remove(id);
+        return deletedEntity;
+    }
+
+    /**
+     * Reescreve o arquivo de registros apenas com os registros válidos.
+     */
+    @Override
+    public void flush()
+    {
+        recordStore.compact();
+    }
+
+    @Override
+    public boolean hasPendingChanges()
+    {
+        return recordStore.hasPendingChanges();
+    }
+
+    @Override
+    public void close()
+    {
+        recordStore.close();
+    }
+}
@@ -0,0 +1,262 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registro de alterações (journal) somente de acréscimo de um repositório.
+ * Cada mutação é gravada como uma linha pequena contendo a operação, o ID e o JSON da entidade,
+ * evitando reescrever o arquivo completo do repositório a cada alteração.
+ *
+ * <p>Ao iniciar, o journal é reaplicado sobre o último arquivo completo. Quando o journal cresce
+ * demais, o repositório grava um novo arquivo completo e o journal é esvaziado (compactação).</p>
+ *
+ * <p>Dentro de uma {@link UnitOfWork}, os registros são acumulados em memória e gravados juntos ao final.
+ * A escrita em disco acontece na thread de escrita da {@link Persistence}, e esvaziar o journal só acontece
+ * depois das gravações já pedidas, como a do arquivo completo do repositório.</p>
+ *
+ * @author Filipe Durães
+ */
+public class RepositoryJournal
+{
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final char PUT_OPERATION = 'P';
+    private static final char DELETE_OPERATION = 'D';
+    private static final char SEPARATOR = '\t';
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 256;
+
+    private final String path;
+    private final List<String> pendingRecords = new ArrayList<>();
+    private boolean hasPendingClear = false;
+    private int recordCount = 0;
+    private boolean hasCorruptedTail = false;
+
+    /**
+     * Cria o journal associado ao arquivo de um repositório.
+     * O journal é gravado ao lado do arquivo do repositório, com a extensão ".journal".
+     *
+     * @param repositoryPath caminho do arquivo completo do repositório
+     */
+    public RepositoryJournal(String repositoryPath)
+    {
+        int extensionIndex = repositoryPath.lastIndexOf(".");
+        path = repositoryPath.substring(0, extensionIndex) + JOURNAL_EXTENSION;
+    }
+
+    /**
+     * Reaplica todos os registros do journal sobre as entidades carregadas do arquivo completo.
+     * A leitura é interrompida no primeiro registro incompleto, que indica uma gravação interrompida.
+     *
+     * @param <T> tipo das entidades do repositório
+     * @param entities entidades carregadas do último arquivo completo
+     * @param entityType tipo das entidades para deserialização
+     */
+    public <T> void replay(Map<UUID, T> entities, Type entityType)
+    {
+        UnitOfWork.flushWrite(path);
+
+        Path journalPath = Path.of(Persistence.appendPathSuffix(path));
+        Persistence.awaitWrites(journalPath);
+        recordCount = 0;
+        hasCorruptedTail = false;
+
+        if (!Files.exists(journalPath))
+        {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8))
+        {
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                if (!tryApplyRecord(line, entities, entityType))
+                {
+                    hasCorruptedTail = true;
+                    return;
+                }
+
+                recordCount++;
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+            hasCorruptedTail = true;
+        }
+    }
+
+    /**
+     * Registra a inclusão ou atualização de uma entidade.
+     *
+     * @param id identificador da entidade
+     * @param entity estado atual da entidade
+     */
+    public void appendPut(UUID id, Object entity)
+    {
+        appendRecord(PUT_OPERATION + "" + SEPARATOR + id + SEPARATOR + Persistence.toJson(entity));
+    }
+
+    /**
+     * Registra a remoção de uma entidade.
+     *
+     * @param id identificador da entidade removida
+     */
+    public void appendDelete(UUID id)
+    {
+        appendRecord(DELETE_OPERATION + "" + SEPARATOR + id);
+    }
+
+    /**
+     * Esvazia o journal. Deve ser chamado logo após o repositório gravar um arquivo completo.
+     */
+    public void clear()
+    {
+        pendingRecords.clear();
+        hasPendingClear = true;
+        recordCount = 0;
+        hasCorruptedTail = false;
+
+        if (!UnitOfWork.stageWrite(path, this::flushPendingRecords))
+        {
+            flushPendingRecords();
+        }
+    }
+
+    /**
+     * Verifica se o journal deve ser compactado em um novo arquivo completo.
+     * A compactação ocorre quando o journal possui um registro incompleto ou quando
+     * possui mais registros do que entidades no repositório, mantendo o custo amortizado
+     * de cada escrita proporcional ao tamanho de uma entidade.
+     *
+     * @param entitiesCount quantidade atual de entidades no repositório
+     * @return true se o journal deve ser compactado
+     */
+    public boolean shouldCompact(int entitiesCount)
+    {
+        return hasCorruptedTail || recordCount > Math.max(MIN_RECORDS_BEFORE_COMPACTION, entitiesCount);
+    }
+
+    /**
+     * Obtém a quantidade de registros atualmente no journal.
+     *
+     * @return quantidade de registros
+     */
+    public int getRecordCount()
+    {
+        return recordCount;
+    }
+
+    private void appendRecord(String record)
+    {
+        pendingRecords.add(Persistence.isUsingObfuscation() ? Persistence.obfuscate(record) : record);
+        recordCount++;
+
+        if (!UnitOfWork.stageWrite(path, this::flushPendingRecords))
+        {
+            flushPendingRecords();
+        }
+    }
+
+    private void flushPendingRecords()
+    {
+        Path journalPath = Path.of(Persistence.appendPathSuffix(path));
+        boolean shouldDelete = hasPendingClear;
+        StringBuilder lines = new StringBuilder();
+
+        for (String pendingRecord : pendingRecords)
+        {
+            lines.append(pendingRecord).append('\n');
+        }
+
+        hasPendingClear = false;
+        pendingRecords.clear();
+
+        if (!shouldDelete && lines.isEmpty())
+        {
+            return;
+        }
+
+        FileWriteQueue.WriteMode writeMode = shouldDelete ? FileWriteQueue.WriteMode.REPLACE_AFTER_PENDING : FileWriteQueue.WriteMode.APPEND;
+        Persistence.submitWrite(journalPath, lines.length(), () -> writeRecords(journalPath, shouldDelete, lines), writeMode);
+    }
+
+    private static void writeRecords(Path journalPath, boolean shouldDelete, CharSequence lines)
+    {
+        try
+        {
+            if (shouldDelete)
+            {
+                Files.deleteIfExists(journalPath);
+            }
+
+            if (lines.isEmpty())
+            {
+                return;
+            }
+
+            Persistence.ensureUsersDirectoriesAndFileExists(journalPath);
+            Files.writeString(journalPath, lines, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    private static <T> boolean tryApplyRecord(String line, Map<UUID, T> entities, Type entityType)
+    {
+        try
+        {
+            String record = Persistence.isUsingObfuscation() ? Persistence.deobfuscate(line) : line;
+            String[] fields = record.split(String.valueOf(SEPARATOR), 3);
+
+            if (fields.length < 2 || fields[0].length() != 1)
+            {
+                return false;
+            }
+
+            UUID id = UUID.fromString(fields[1]);
+
+            switch (fields[0].charAt(0))
+            {
+                case PUT_OPERATION ->
+                {
+                    T entity = fields.length == 3 ? Persistence.fromJson(fields[2], entityType) : null;
+
+                    if (entity == null)
+                    {
+                        return false;
+                    }
+
+                    entities.put(id, entity);
+                }
+                case DELETE_OPERATION -> entities.remove(id);
+                default ->
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+        catch (IllegalArgumentException | JsonParseException exception)
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Divide as entidades de um repositório em vários arquivos (shards), escolhidos pelo hash do ID.
+ * Uma alteração reescreve apenas o shard da entidade alterada, e os shards são carregados em paralelo.
+ *
+ * <p>Os shards ficam em uma pasta com o nome do arquivo do repositório, por exemplo
+ * "Data/StoreItems/Shard_003.workshop". Se a quantidade de shards mudar, ou se existir apenas o arquivo
+ * completo de uma versão anterior, as entidades são redistribuídas na primeira carga.</p>
+ *
+ * @param <T> tipo das entidades do repositório
+ * @author Filipe Durães
+ */
+public class RepositoryShards<T>
+{
+    private static final String SHARD_FILE_PREFIX = "Shard_";
+    private static final Pattern SHARD_FILE_PATTERN = Pattern.compile(SHARD_FILE_PREFIX + "(\\d+)_.*");
+
+    private final String repositoryPath;
+    private final String directoryPath;
+    private final String fileExtension;
+    private final ParameterizedType mapType;
+    private final List<HashMap<UUID, T>> shardEntities;
+
+    /**
+     * Cria os shards associados ao arquivo de um repositório.
+     *
+     * @param repositoryPath caminho do arquivo completo do repositório
+     * @param entityType tipo das entidades para deserialização
+     * @param shardCount quantidade de shards, maior que zero
+     */
+    public RepositoryShards(String repositoryPath, Type entityType, int shardCount)
+    {
+        if (shardCount <= 0)
+        {
+            throw new IllegalArgumentException("A quantidade de shards deve ser maior que zero.");
+        }
+
+        int extensionIndex = repositoryPath.lastIndexOf(".");
+        this.repositoryPath = repositoryPath;
+        this.directoryPath = repositoryPath.substring(0, extensionIndex) + "/";
+        this.fileExtension = repositoryPath.substring(extensionIndex);
+        this.mapType = Persistence.createParameterizedType(HashMap.class, UUID.class, entityType);
+        this.shardEntities = new ArrayList<>(shardCount);
+
+        for (int i = 0; i < shardCount; i++)
+        {
+            shardEntities.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Obtém o shard de um ID para a quantidade de shards informada.
+     *
+     * @param id identificador da entidade
+     * @param shardCount quantidade de shards
+     * @return índice do shard, entre 0 e shardCount - 1
+     */
+    public static int shardOf(UUID id, int shardCount)
+    {
+        long hash = id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32);
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) Long.remainderUnsigned(hash, shardCount);
+    }
+
+    /**
+     * Carrega todos os shards em paralelo e retorna as entidades reunidas em um único mapa.
+     *
+     * @return entidades de todos os shards
+     */
+    public Map<UUID, T> load()
+    {
+        List<Integer> existingShards = findExistingShards();
+
+        for (int shard : existingShards)
+        {
+            UnitOfWork.flushWrite(getShardPath(shard));
+        }
+
+        List<Map<UUID, T>> loadedShards = existingShards.parallelStream()
+                                                        .map(shard -> Persistence.<Map<UUID, T>>loadFile(getShardPath(shard), mapType, new HashMap<>()))
+                                                        .toList();
+
+        boolean needsRedistribution = false;
+
+        if (existingShards.isEmpty() && Persistence.hasFile(repositoryPath))
+        {
+            loadedShards = List.of(Persistence.loadFile(repositoryPath, mapType, new HashMap<>()));
+            existingShards = List.of(-1);
+            needsRedistribution = true;
+        }
+
+        Map<UUID, T> entities = new HashMap<>();
+
+        for (int i = 0; i < loadedShards.size(); i++)
+        {
+            for (Map.Entry<UUID, T> entry : loadedShards.get(i).entrySet())
+            {
+                int shard = shardOf(entry.getKey(), shardEntities.size());
+                shardEntities.get(shard).put(entry.getKey(), entry.getValue());
+                entities.put(entry.getKey(), entry.getValue());
+                needsRedistribution |= shard != existingShards.get(i);
+            }
+        }
+
+        if (needsRedistribution)
+        {
+            saveAll();
+        }
+
+        deleteShardsAbove(existingShards);
+        return entities;
+    }
+
+    /**
+     * Grava a entidade, reescrevendo apenas o seu shard.
+     *
+     * @param id identificador da entidade
+     * @param entity estado atual da entidade
+     */
+    public void saveEntity(UUID id, T entity)
+    {
+        int shard = shardOf(id, shardEntities.size());
+        shardEntities.get(shard).put(id, entity);
+        Persistence.saveFile(shardEntities.get(shard), getShardPath(shard));
+    }
+
+    /**
+     * Remove a entidade, reescrevendo apenas o seu shard.
+     *
+     * @param id identificador da entidade removida
+     */
+    public void deleteEntity(UUID id)
+    {
+        int shard = shardOf(id, shardEntities.size());
+
+        if (shardEntities.get(shard).remove(id) != null)
+        {
+            Persistence.saveFile(shardEntities.get(shard), getShardPath(shard));
+        }
+    }
+
+    /**
+     * Grava todos os shards.
+     */
+    public void saveAll()
+    {
+        for (int shard = 0; shard < shardEntities.size(); shard++)
+        {
+            Persistence.saveFile(shardEntities.get(shard), getShardPath(shard));
+        }
+    }
+
+    /**
+     * Obtém a quantidade de shards.
+     *
+     * @return quantidade de shards
+     */
+    public int getShardCount()
+    {
+        return shardEntities.size();
+    }
+
+    private String getShardPath(int shard)
+    {
+        return String.format("%s%s%03d%s", directoryPath, SHARD_FILE_PREFIX, shard, fileExtension);
+    }
+
+    private List<Integer> findExistingShards()
+    {
+        Path directory = Path.of(directoryPath);
+        TreeSet<Integer> shards = new TreeSet<>();
+
+        if (!Files.isDirectory(directory))
+        {
+            return new ArrayList<>();
+        }
+
+        try (Stream<Path> files = Files.list(directory))
+        {
+            files.forEach(file ->
+            {
+                Matcher matcher = SHARD_FILE_PATTERN.matcher(file.getFileName().toString());
+
+                if (matcher.matches() && Persistence.hasFile(getShardPath(Integer.parseInt(matcher.group(1)))))
+                {
+                    shards.add(Integer.parseInt(matcher.group(1)));
+                }
+            });
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+
+        return new ArrayList<>(shards);
+    }
+
+    private static void deleteShardFile(Path shardPath)
+    {
+        try
+        {
+            Files.deleteIfExists(shardPath);
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    private void deleteShardsAbove(List<Integer> existingShards)
+    {
+        for (int shard : existingShards)
+        {
+            if (shard < shardEntities.size())
+            {
+                continue;
+            }
+
+            Path shardPath = Path.of(Persistence.appendPathSuffix(getShardPath(shard)));
+            Persistence.submitWrite(shardPath, 0, () -> deleteShardFile(shardPath), FileWriteQueue.WriteMode.REPLACE);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Motor que divide as entidades em vários arquivos (shards) pelo hash do ID, através de {@link RepositoryShards}.
+ * Cada alteração reescreve apenas o shard da entidade alterada, e os shards são carregados em paralelo.
+ *
+ * @param <T> tipo das entidades armazenadas
+ * @author Filipe Durães
+ */
+public class ShardedStorageEngine<T> implements StorageEngine<T>
+{
+    private final RepositoryShards<T> shards;
+    private final Map<UUID, T> entities = new HashMap<>();
+
+    /**
+     * Cria o motor para o arquivo de um repositório.
+     *
+     * @param path caminho do arquivo do repositório, usado como nome da pasta dos shards
+     * @param entityType classe das entidades
+     * @param shardCount quantidade de shards
+     */
+    public ShardedStorageEngine(String path, Class<T> entityType, int shardCount)
+    {
+        shards = new RepositoryShards<>(path, entityType, shardCount);
+    }
+
+    @Override
+    public Map<UUID, T> load()
+    {
+        entities.clear();
+        entities.putAll(shards.load());
+        return Collections.unmodifiableMap(entities);
+    }
+
+    @Override
+    public T get(UUID id)
+    {
+        return entities.get(id);
+    }
+
+    @Override
+    public void put(UUID id, T entity)
+    {
+        entities.put(id, entity);
+        shards.saveEntity(id, entity);
+    }
+
+    @Override
+    public T delete(UUID id)
+    {
+        T deletedEntity = entities.remove(id);
+        shards.deleteEntity(id);
+        return deletedEntity;
+    }
+
+    @Override
+    public void flush()
+    {
+        shards.saveAll();
+    }
+
+    /**
+     * Cada alteração já reescreve o shard da entidade, então não há alterações pendentes.
+     */
+    @Override
+    public boolean hasPendingChanges()
+    {
+        return false;
+    }
+}
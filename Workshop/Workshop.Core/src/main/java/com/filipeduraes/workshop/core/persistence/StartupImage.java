@@ -0,0 +1,306 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.filipeduraes.workshop.core.persistence.streams.ChecksumOutputStream;
+import com.filipeduraes.workshop.core.persistence.streams.HashingInputStream;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imagem de inicialização: um único arquivo com o conteúdo de todos os arquivos de dados usados em uma sessão.
+ *
+ * <p>Ao encerrar a oficina, os arquivos lidos ou gravados pela {@link Persistence} durante a sessão são reunidos
+ * na imagem, já sem proteção e convertidos para o formato binário compacto. Dos arquivos das pastas de mês,
+ * apenas os do mês atual entram na imagem. Na próxima inicialização a imagem é mapeada em memória e lida em uma
+ * única passada, e cada leitura de arquivo usa o conteúdo da imagem em vez de abrir e decodificar o arquivo.</p>
+ *
+ * <p>Cada conteúdo guarda o tamanho e a data de modificação do arquivo de origem. Se o arquivo foi alterado
+ * depois da imagem, a leitura usa o arquivo normalmente. A imagem é removida ao ser carregada, então só é usada
+ * na inicialização seguinte ao encerramento que a gravou.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class StartupImage
+{
+    private static final String IMAGE_PATH = WorkshopPaths.getDataDirectoryPath() + "StartupImage.image";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final byte[] MAGIC = {'W', 'K', 'S', 'I'};
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+
+    private static final Set<Path> UsedFiles = ConcurrentHashMap.newKeySet();
+    private static final Map<Path, Entry> LoadedEntries = new ConcurrentHashMap<>();
+
+    /**
+     * Conteúdo de um arquivo guardado na imagem.
+     *
+     * @param fileSize tamanho do arquivo de origem em disco
+     * @param lastModifiedMicros data de modificação do arquivo de origem, em microssegundos
+     * @param hash hash SHA-256 do conteúdo do arquivo de origem, sem proteção
+     * @param length tamanho do conteúdo do arquivo de origem, sem proteção
+     * @param content conteúdo convertido para o formato binário compacto
+     */
+    record Entry(long fileSize, long lastModifiedMicros, byte[] hash, long length, byte[] content)
+    {
+    }
+
+    private StartupImage()
+    {
+    } //Pure static class
+
+    /**
+     * Carrega a imagem de inicialização, se existir, e a remove do disco.
+     * Uma imagem corrompida, de outra versão ou gravada com outro formato ou proteção é descartada.
+     *
+     * @return quantidade de arquivos disponíveis na imagem
+     */
+    public static int load()
+    {
+        Path imagePath = Path.of(IMAGE_PATH);
+        LoadedEntries.clear();
+
+        if (!Files.isRegularFile(imagePath))
+        {
+            return 0;
+        }
+
+        try
+        {
+            ByteBuffer image = readImage(imagePath);
+
+            if (image != null)
+            {
+                readEntries(image);
+            }
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            exception.printStackTrace(System.out);
+            LoadedEntries.clear();
+        }
+
+        try
+        {
+            Files.deleteIfExists(imagePath);
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+
+        return LoadedEntries.size();
+    }
+
+    /**
+     * Grava a imagem de inicialização com os arquivos lidos ou gravados durante a sessão.
+     * As gravações pendentes são concluídas antes, e os conteúdos ainda não usados da imagem anterior são descartados.
+     */
+    public static void write()
+    {
+        Persistence.flushWrites();
+        LoadedEntries.clear();
+
+        Path imagePath = Path.of(IMAGE_PATH);
+        Path temporaryPath = imagePath.resolveSibling(imagePath.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        try
+        {
+            Files.createDirectories(imagePath.getParent());
+
+            try (DataOutputStream outputStream = new DataOutputStream(Persistence.openOutputStream(temporaryPath, StorageFormat.BINARY)))
+            {
+                outputStream.write(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeByte(Persistence.getStorageFormat().ordinal());
+                outputStream.writeByte(Persistence.getDataProtection().ordinal());
+
+                for (Path filePath : UsedFiles)
+                {
+                    try
+                    {
+                        writeEntry(outputStream, filePath);
+                    }
+                    catch (IOException | RuntimeException exception)
+                    {
+                        // Um arquivo que não pode ser lido fica fora da imagem e é lido normalmente na inicialização
+                        exception.printStackTrace(System.out);
+                    }
+                }
+
+                outputStream.writeBoolean(false);
+            }
+
+            Persistence.replaceFile(temporaryPath, imagePath);
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Registra um arquivo lido ou gravado durante a sessão, para que entre na próxima imagem.
+     */
+    static void recordUsedFile(Path filePath)
+    {
+        Path key = filePath.toAbsolutePath().normalize();
+
+        if (!WorkshopPaths.isMonthPartitionPath(key) || WorkshopPaths.isCurrentMonthPartitionPath(key))
+        {
+            UsedFiles.add(key);
+        }
+    }
+
+    /**
+     * Retira da imagem o conteúdo do arquivo, se o arquivo não foi alterado desde que a imagem foi gravada.
+     *
+     * @return conteúdo do arquivo, ou null se o arquivo não estiver na imagem ou tiver sido alterado
+     */
+    static Entry takeEntry(Path filePath)
+    {
+        if (LoadedEntries.isEmpty())
+        {
+            return null;
+        }
+
+        Entry entry = LoadedEntries.remove(filePath.toAbsolutePath().normalize());
+
+        if (entry == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            boolean isUnchanged = attributes.size() == entry.fileSize() && attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS) == entry.lastModifiedMicros();
+            return isUnchanged ? entry : null;
+        }
+        catch (IOException exception)
+        {
+            return null;
+        }
+    }
+
+    private static void writeEntry(DataOutputStream outputStream, Path filePath) throws IOException
+    {
+        if (!Files.isRegularFile(filePath))
+        {
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        HashingInputStream inputStream = new HashingInputStream(Persistence.openInputStream(filePath, Persistence.getStorageFormat()));
+
+        try (inputStream)
+        {
+            if (attributes.size() > 0)
+            {
+                transcodeToBinary(inputStream, content);
+            }
+
+            inputStream.drain();
+        }
+
+        byte[] pathBytes = filePath.toString().getBytes(StandardCharsets.UTF_8);
+
+        outputStream.writeBoolean(true);
+        outputStream.writeInt(pathBytes.length);
+        outputStream.write(pathBytes);
+        outputStream.writeLong(attributes.size());
+        outputStream.writeLong(attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS));
+        outputStream.write(inputStream.getHash());
+        outputStream.writeLong(inputStream.getByteCount());
+        outputStream.writeInt(content.size());
+        content.writeTo(outputStream);
+    }
+
+    private static void transcodeToBinary(InputStream inputStream, OutputStream outputStream) throws IOException
+    {
+        StorageFormat storageFormat = Persistence.getStorageFormat();
+
+        try (JsonReader jsonReader = storageFormat.getCodec().openReader(Persistence.getGson(), inputStream);
+             JsonWriter jsonWriter = StorageFormat.BINARY.getCodec().openWriter(Persistence.getGson(), outputStream))
+        {
+            StorageFormatConverter.copyValue(jsonReader, jsonWriter);
+        }
+    }
+
+    /**
+     * Lê a imagem para a memória. Sem proteção, o arquivo é mapeado em memória e o checksum é conferido sobre
+     * o mapeamento. Com proteção, o arquivo é lido pelo fluxo da proteção, que também confere o checksum.
+     *
+     * @return conteúdo da imagem, ou null se a imagem estiver corrompida
+     */
+    private static ByteBuffer readImage(Path imagePath) throws IOException
+    {
+        if (Persistence.getDataProtection() != DataProtection.NONE)
+        {
+            try (InputStream inputStream = Persistence.openInputStream(imagePath, StorageFormat.BINARY))
+            {
+                return ByteBuffer.wrap(inputStream.readAllBytes());
+            }
+        }
+
+        if (!DataIntegrityVerifier.isFileValid(imagePath))
+        {
+            return null;
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(imagePath, StandardOpenOption.READ))
+        {
+            long contentLength = fileChannel.size() - ChecksumOutputStream.HEADER_LENGTH;
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, ChecksumOutputStream.HEADER_LENGTH, contentLength);
+        }
+    }
+
+    private static void readEntries(ByteBuffer image)
+    {
+        byte[] magic = new byte[MAGIC.length];
+        image.get(magic);
+
+        if (!Arrays.equals(magic, MAGIC) || image.getInt() != VERSION
+            || image.get() != Persistence.getStorageFormat().ordinal()
+            || image.get() != Persistence.getDataProtection().ordinal())
+        {
+            return;
+        }
+
+        while (image.get() != 0)
+        {
+            byte[] pathBytes = new byte[image.getInt()];
+            image.get(pathBytes);
+
+            long fileSize = image.getLong();
+            long lastModifiedMicros = image.getLong();
+            byte[] hash = new byte[HASH_LENGTH];
+            image.get(hash);
+            long length = image.getLong();
+            byte[] content = new byte[image.getInt()];
+            image.get(content);
+
+            Path filePath = Path.of(new String(pathBytes, StandardCharsets.UTF_8));
+            LoadedEntries.put(filePath, new Entry(fileSize, lastModifiedMicros, hash, length, content));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Motor de armazenamento das entidades de um repositório.
+ * O {@link com.filipeduraes.workshop.core.CrudRepository} faz todas as leituras e gravações através do motor,
+ * então a forma de guardar os dados pode ser trocada sem alterar os módulos que usam o repositório.
+ *
+ * <p>O motor é o dono das entidades: o mapa retornado por {@link #load()} é uma visão somente de leitura
+ * que acompanha as alterações feitas por {@link #put(UUID, Object)} e {@link #delete(UUID)}.</p>
+ *
+ * @param <T> tipo das entidades armazenadas
+ * @author Filipe Durães
+ * @see StorageEngineType
+ */
+public interface StorageEngine<T>
+{
+    /**
+     * Carrega as entidades do armazenamento.
+     *
+     * @return visão somente de leitura de todas as entidades, indexadas pelo ID
+     */
+    Map<UUID, T> load();
+
+    /**
+     * Obtém a entidade com o ID especificado.
+     *
+     * @param id identificador da entidade
+     * @return entidade encontrada, ou null se não existir
+     */
+    T get(UUID id);
+
+    /**
+     * Grava a inclusão ou atualização de uma entidade.
+     *
+     * @param id identificador da entidade
+     * @param entity estado atual da entidade
+     */
+    void put(UUID id, T entity);
+
+    /**
+     * Remove a entidade com o ID especificado.
+     *
+     * @param id identificador da entidade
+     * @return entidade removida, ou null se não existir
+     */
+    T delete(UUID id);
+
+    /**
+     * Obtém as entidades cujo ID está no intervalo informado, em ordem crescente de ID.
+     * Com IDs ordenados pelo tempo de criação, o intervalo corresponde a um período.
+     *
+     * @param fromID início do intervalo, inclusivo
+     * @param toID fim do intervalo, exclusivo
+     * @return entidades encontradas no intervalo
+     */
+    default List<T> scan(UUID fromID, UUID toID)
+    {
+        Map<UUID, T> entities = load();
+        List<UUID> ids = new ArrayList<>();
+
+        for (UUID id : entities.keySet())
+        {
+            if (id.compareTo(fromID) >= 0 && id.compareTo(toID) < 0)
+            {
+                ids.add(id);
+            }
+        }
+
+        ids.sort(null);
+
+        List<T> foundEntities = new ArrayList<>(ids.size());
+
+        for (UUID id : ids)
+        {
+            foundEntities.add(get(id));
+        }
+
+        return foundEntities;
+    }
+
+    /**
+     * Grava o estado completo das entidades, consolidando alterações incrementais.
+     */
+    void flush();
+
+    /**
+     * Verifica se {@link #flush()} tem alterações a consolidar. Motores que gravam cada alteração por completo
+     * no momento em que ela acontece não têm alterações pendentes.
+     *
+     * @return true se existirem alterações ainda não consolidadas
+     */
+    boolean hasPendingChanges();
+
+    /**
+     * Libera os recursos do motor, como arquivos abertos.
+     */
+    default void close()
+    {
+    }
+}
@@ -0,0 +1,31 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+/**
+ * Escolhe o motor de armazenamento de cada repositório quando ele é criado.
+ * Permite comparar motores com os dados reais sem alterar os módulos que criam os repositórios.
+ *
+ * <p>A troca de motor não copia os dados de volta: apenas a migração do arquivo completo para
+ * o arquivo de registros ({@link StorageEngineType#RECORDS}) é feita automaticamente.</p>
+ *
+ * @author Filipe Durães
+ * @see Persistence#setStorageEngineSelector(StorageEngineSelector)
+ */
+@FunctionalInterface
+public interface StorageEngineSelector
+{
+    /**
+     * Seletor que mantém o motor escolhido por cada módulo.
+     */
+    StorageEngineSelector PREFERRED = (repositoryPath, preferredType) -> preferredType;
+
+    /**
+     * Escolhe o motor de um repositório.
+     *
+     * @param repositoryPath caminho do arquivo do repositório
+     * @param preferredType motor escolhido pelo módulo que criou o repositório
+     * @return motor que será usado
+     */
+    StorageEngineType select(String repositoryPath, StorageEngineType preferredType);
+}
@@ -0,0 +1,73 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+/**
+ * Motores de armazenamento disponíveis para os repositórios.
+ *
+ * @author Filipe Durães
+ */
+public enum StorageEngineType
+{
+    /**
+     * Arquivo completo, reescrito a cada alteração. É o motor padrão.
+     */
+    FILE
+    {
+        @Override
+        public <T> StorageEngine<T> createEngine(String path, Class<T> entityType, int shardCount, long cacheByteBudget)
+        {
+            return new FileStorageEngine<>(path, entityType, false);
+        }
+    },
+    /**
+     * Arquivo completo com journal de alterações, consolidado periodicamente.
+     */
+    JOURNALED_FILE
+    {
+        @Override
+        public <T> StorageEngine<T> createEngine(String path, Class<T> entityType, int shardCount, long cacheByteBudget)
+        {
+            return new FileStorageEngine<>(path, entityType, true);
+        }
+    },
+    /**
+     * Entidades divididas em vários arquivos pelo hash do ID.
+     */
+    SHARDED_FILE
+    {
+        @Override
+        public <T> StorageEngine<T> createEngine(String path, Class<T> entityType, int shardCount, long cacheByteBudget)
+        {
+            return new ShardedStorageEngine<>(path, entityType, shardCount > 0 ? shardCount : DEFAULT_SHARD_COUNT);
+        }
+    },
+    /**
+     * Armazenamento chave-valor embutido, em um arquivo de registros com índice em memória e cache LRU.
+     */
+    RECORDS
+    {
+        @Override
+        public <T> StorageEngine<T> createEngine(String path, Class<T> entityType, int shardCount, long cacheByteBudget)
+        {
+            return new RecordStorageEngine<>(path, entityType, cacheByteBudget >= 0 ? cacheByteBudget : Long.MAX_VALUE);
+        }
+    };
+
+    /**
+     * Quantidade de shards usada quando o repositório não define uma.
+     */
+    public static final int DEFAULT_SHARD_COUNT = 8;
+
+    /**
+     * Cria o motor para um repositório.
+     *
+     * @param <T> tipo das entidades
+     * @param path caminho do arquivo do repositório
+     * @param entityType classe das entidades
+     * @param shardCount quantidade de shards, usada apenas por {@link #SHARDED_FILE}; zero usa o padrão
+     * @param cacheByteBudget orçamento do cache, usado apenas por {@link #RECORDS}; negativo mantém todas as entidades no cache
+     * @return motor criado
+     */
+    public abstract <T> StorageEngine<T> createEngine(String path, Class<T> entityType, int shardCount, long cacheByteBudget);
+}
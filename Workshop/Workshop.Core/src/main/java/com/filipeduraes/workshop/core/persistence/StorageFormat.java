@@ -0,0 +1,68 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.filipeduraes.workshop.core.persistence.codecs.BinaryStorageCodec;
+import com.filipeduraes.workshop.core.persistence.codecs.JsonStorageCodec;
+import com.filipeduraes.workshop.core.persistence.codecs.StorageCodec;
+
+/**
+ * Formatos disponíveis para os arquivos de persistência.
+ * Cada formato usa um sufixo próprio no nome dos arquivos, então arquivos de formatos diferentes
+ * podem coexistir na mesma pasta e ser convertidos com {@link StorageFormatConverter}.
+ *
+ * @author Filipe Durães
+ */
+public enum StorageFormat
+{
+    /**
+     * JSON legível, formato padrão da aplicação.
+     */
+    JSON(new JsonStorageCodec(), "", true),
+
+    /**
+     * Formato binário compacto, com registros prefixados pelo tamanho.
+     */
+    BINARY(new BinaryStorageCodec(), "_Binary", false);
+
+    private final StorageCodec codec;
+    private final String fileSuffix;
+    private final boolean isTextual;
+
+    StorageFormat(StorageCodec codec, String fileSuffix, boolean isTextual)
+    {
+        this.codec = codec;
+        this.fileSuffix = fileSuffix;
+        this.isTextual = isTextual;
+    }
+
+    /**
+     * Obtém a codificação usada para gravar e ler os arquivos do formato.
+     *
+     * @return codificação do formato
+     */
+    public StorageCodec getCodec()
+    {
+        return codec;
+    }
+
+    /**
+     * Obtém o sufixo acrescentado ao nome dos arquivos do formato, antes do sufixo de ofuscação.
+     *
+     * @return sufixo dos arquivos
+     */
+    public String getFileSuffix()
+    {
+        return fileSuffix;
+    }
+
+    /**
+     * Indica se o formato é textual. Arquivos textuais ofuscados também são codificados em Base64.
+     *
+     * @return true se o formato for textual
+     */
+    public boolean isTextual()
+    {
+        return isTextual;
+    }
+}
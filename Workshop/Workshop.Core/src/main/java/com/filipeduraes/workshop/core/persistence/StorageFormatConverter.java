@@ -0,0 +1,233 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Converte de uma só vez os arquivos de dados entre dois {@link StorageFormat}.
+ * A conversão é feita evento a evento, sem conhecer o tipo dos dados de cada arquivo,
+ * então funciona para qualquer arquivo gravado pela {@link Persistence}.
+ *
+ * <p>Os arquivos convertidos são gravados com o sufixo do formato de destino e os originais são mantidos.
+ * A ofuscação atual da {@link Persistence} é usada tanto na leitura quanto na escrita.
+ * Os journals dos repositórios e os ledgers dos meses são sempre textuais e apenas copiados,
+ * e os meses selados por {@link MonthArchive} e os {@link PartitionDirectory} não são convertidos.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class StorageFormatConverter
+{
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String LEDGER_EXTENSION = ".ledger";
+    private static final String ARCHIVE_EXTENSION = ".archive";
+    private static final String DIRECTORY_EXTENSION = ".directory";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private StorageFormatConverter()
+    {
+    } //Pure static class
+
+    /**
+     * Converte todos os arquivos da pasta de dados do formato de origem para o formato de destino.
+     *
+     * @param sourceFormat formato atual dos arquivos
+     * @param targetFormat formato dos arquivos convertidos
+     * @return quantidade de arquivos convertidos
+     */
+    public static int convertDataDirectory(StorageFormat sourceFormat, StorageFormat targetFormat)
+    {
+        return convertDirectory(Path.of(WorkshopPaths.getDataDirectoryPath()), sourceFormat, targetFormat);
+    }
+
+    /**
+     * Converte todos os arquivos de uma pasta, incluindo subpastas, do formato de origem para o formato de destino.
+     *
+     * @param directoryPath pasta com os arquivos
+     * @param sourceFormat formato atual dos arquivos
+     * @param targetFormat formato dos arquivos convertidos
+     * @return quantidade de arquivos convertidos
+     */
+    public static int convertDirectory(Path directoryPath, StorageFormat sourceFormat, StorageFormat targetFormat)
+    {
+        if (sourceFormat == targetFormat || !Files.isDirectory(directoryPath))
+        {
+            return 0;
+        }
+
+        Persistence.flushWrites();
+
+        int convertedCount = 0;
+
+        try (Stream<Path> files = Files.walk(directoryPath))
+        {
+            List<Path> sourceFiles = files.filter(Files::isRegularFile).toList();
+
+            for (Path sourcePath : sourceFiles)
+            {
+                String logicalPath = getLogicalPath(sourcePath, sourceFormat);
+
+                if (logicalPath == null || logicalPath.endsWith(ARCHIVE_EXTENSION) || logicalPath.endsWith(DIRECTORY_EXTENSION))
+                {
+                    continue; // Os meses selados e os diretórios são gerados novamente a partir dos arquivos convertidos
+                }
+
+                Path targetPath = Path.of(Persistence.appendPathSuffix(logicalPath, targetFormat));
+
+                if (logicalPath.endsWith(JOURNAL_EXTENSION) || logicalPath.endsWith(LEDGER_EXTENSION))
+                {
+                    Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                else
+                {
+                    convertFile(sourcePath, sourceFormat, targetPath, targetFormat);
+                }
+
+                convertedCount++;
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace(System.out);
+        }
+
+        return convertedCount;
+    }
+
+    private static void convertFile(Path sourcePath, StorageFormat sourceFormat, Path targetPath, StorageFormat targetFormat) throws IOException
+    {
+        Path temporaryPath = targetPath.resolveSibling(targetPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        if (Files.size(sourcePath) == 0)
+        {
+            Files.deleteIfExists(targetPath);
+            Files.createFile(targetPath);
+            return;
+        }
+
+        try (InputStream inputStream = Persistence.openInputStream(sourcePath, sourceFormat);
+             JsonReader jsonReader = sourceFormat.getCodec().openReader(Persistence.getGson(), inputStream);
+             OutputStream outputStream = Persistence.openOutputStream(temporaryPath, targetFormat);
+             JsonWriter jsonWriter = targetFormat.getCodec().openWriter(Persistence.getGson(), outputStream))
+        {
+            copyValue(jsonReader, jsonWriter);
+        }
+
+        Persistence.replaceFile(temporaryPath, targetPath);
+    }
+
+    /**
+     * Copia um valor completo do leitor para o escritor, evento por evento, sem conhecer o seu tipo.
+     */
+    static void copyValue(JsonReader jsonReader, JsonWriter jsonWriter) throws IOException
+    {
+        int openContainers = 0;
+
+        do
+        {
+            JsonToken token = jsonReader.peek();
+
+            switch (token)
+            {
+                case BEGIN_ARRAY ->
+                {
+                    jsonReader.beginArray();
+                    jsonWriter.beginArray();
+                    openContainers++;
+                }
+                case END_ARRAY ->
+                {
+                    jsonReader.endArray();
+                    jsonWriter.endArray();
+                    openContainers--;
+                }
+                case BEGIN_OBJECT ->
+                {
+                    jsonReader.beginObject();
+                    jsonWriter.beginObject();
+                    openContainers++;
+                }
+                case END_OBJECT ->
+                {
+                    jsonReader.endObject();
+                    jsonWriter.endObject();
+                    openContainers--;
+                }
+                case NAME -> jsonWriter.name(jsonReader.nextName());
+                case STRING -> jsonWriter.value(jsonReader.nextString());
+                case NUMBER -> copyNumber(jsonReader.nextString(), jsonWriter);
+                case BOOLEAN -> jsonWriter.value(jsonReader.nextBoolean());
+                case NULL ->
+                {
+                    jsonReader.nextNull();
+                    jsonWriter.nullValue();
+                }
+                case END_DOCUMENT ->
+                {
+                    return;
+                }
+            }
+        }
+        while (openContainers > 0);
+    }
+
+    private static void copyNumber(String number, JsonWriter jsonWriter) throws IOException
+    {
+        try
+        {
+            jsonWriter.value(Long.parseLong(number));
+        }
+        catch (NumberFormatException exception)
+        {
+            jsonWriter.value(new BigDecimal(number));
+        }
+    }
+
+    /**
+     * Obtém o caminho do arquivo sem os sufixos de formato e ofuscação, como usado pelo restante da aplicação.
+     *
+     * @return caminho lógico do arquivo, ou null se o arquivo não pertencer ao formato informado
+     */
+    private static String getLogicalPath(Path filePath, StorageFormat storageFormat)
+    {
+        String fileName = filePath.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf(".");
+
+        if (extensionIndex < 0 || fileName.endsWith(TEMPORARY_FILE_SUFFIX))
+        {
+            return null;
+        }
+
+        String fullSuffix = Persistence.getPathSuffix(storageFormat);
+        String nameWithoutExtension = fileName.substring(0, extensionIndex);
+
+        if (!nameWithoutExtension.endsWith(fullSuffix))
+        {
+            return null;
+        }
+
+        String baseName = nameWithoutExtension.substring(0, nameWithoutExtension.length() - fullSuffix.length());
+
+        for (StorageFormat otherFormat : StorageFormat.values())
+        {
+            if (otherFormat != storageFormat && !otherFormat.getFileSuffix().isEmpty() && baseName.endsWith(otherFormat.getFileSuffix()))
+            {
+                return null;
+            }
+        }
+
+        return filePath.resolveSibling(baseName + fileName.substring(extensionIndex)).toString();
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de UUIDs ordenados pelo tempo de criação, no formato da versão 7.
+ *
+ * <p>Os 48 bits mais significativos guardam o instante em milissegundos e os 12 bits seguintes
+ * um contador, reiniciado a cada milissegundo, que mantém os IDs crescentes mesmo quando vários
+ * são gerados no mesmo milissegundo. Se o contador se esgotar, o instante avança um milissegundo.
+ * Os 62 bits finais são aleatórios e vêm de {@link ThreadLocalRandom}, que não bloqueia entre threads.</p>
+ *
+ * <p>IDs gerados em sequência ficam próximos nos índices ordenados e nos arquivos de registros,
+ * e um intervalo de IDs corresponde a um período de criação.</p>
+ *
+ * @author Filipe Durães
+ */
+public class TimeOrderedIDGenerator implements IDGenerator
+{
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_BITS = 0x7000L;
+    private static final long VARIANT_BITS = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final AtomicLong lastTimestamp = new AtomicLong();
+
+    @Override
+    public UUID generate()
+    {
+        long currentTimestamp = System.currentTimeMillis() << COUNTER_BITS;
+        long timestamp = lastTimestamp.updateAndGet(last -> Math.max(currentTimestamp, last + 1));
+
+        long mostSignificantBits = ((timestamp >>> COUNTER_BITS) << 16) | VERSION_BITS | (timestamp & ((1L << COUNTER_BITS) - 1));
+        long leastSignificantBits = VARIANT_BITS | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * Obtém o instante de criação, em milissegundos desde a época, guardado em um ID gerado por esta classe.
+     *
+     * @param id ID no formato da versão 7
+     * @return instante de criação em milissegundos
+     */
+    public static long getTimestampMillis(UUID id)
+    {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Cria o menor ID possível para o instante informado, usado como limite de buscas por intervalo de IDs.
+     *
+     * @param timestampMillis instante em milissegundos desde a época
+     * @return menor ID do instante
+     */
+    public static UUID getFirstIDAt(long timestampMillis)
+    {
+        return new UUID((timestampMillis << 16) | VERSION_BITS, VARIANT_BITS);
+    }
+}
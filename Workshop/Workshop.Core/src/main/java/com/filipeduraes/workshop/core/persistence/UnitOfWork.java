@@ -0,0 +1,138 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Unidade de trabalho que agrupa as gravações em disco de uma operação de negócio.
+ *
+ * <p>Enquanto uma unidade de trabalho está ativa na thread atual, as gravações feitas pela
+ * {@link Persistence} e pelos journals dos repositórios são mantidas em memória, agrupadas por arquivo.
+ * Ao final da operação, cada arquivo alterado é gravado uma única vez, com o seu estado mais recente.</p>
+ *
+ * <p>Unidades de trabalho aninhadas se juntam à unidade mais externa. As alterações em memória
+ * não são desfeitas em caso de erro, então as gravações pendentes sempre são descarregadas ao final,
+ * mantendo o disco consistente com a memória.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class UnitOfWork
+{
+    private static final ThreadLocal<UnitOfWork> ActiveUnitOfWork = new ThreadLocal<>();
+
+    private final Map<String, Runnable> pendingWrites = new LinkedHashMap<>();
+
+    private UnitOfWork()
+    {
+    }
+
+    /**
+     * Executa uma operação dentro de uma unidade de trabalho.
+     *
+     * @param operation operação a ser executada
+     */
+    public static void run(Runnable operation)
+    {
+        call(() ->
+        {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executa uma operação dentro de uma unidade de trabalho e retorna o seu resultado.
+     *
+     * @param <T> tipo do resultado da operação
+     * @param operation operação a ser executada
+     * @return resultado da operação
+     */
+    public static <T> T call(Supplier<T> operation)
+    {
+        if (ActiveUnitOfWork.get() != null)
+        {
+            return operation.get();
+        }
+
+        UnitOfWork unitOfWork = new UnitOfWork();
+        ActiveUnitOfWork.set(unitOfWork);
+
+        try
+        {
+            return operation.get();
+        }
+        finally
+        {
+            ActiveUnitOfWork.remove();
+            unitOfWork.commit();
+        }
+    }
+
+    /**
+     * Verifica se existe uma unidade de trabalho ativa na thread atual.
+     *
+     * @return true se existir uma unidade de trabalho ativa
+     */
+    public static boolean isActive()
+    {
+        return ActiveUnitOfWork.get() != null;
+    }
+
+    /**
+     * Agenda uma gravação na unidade de trabalho ativa.
+     * Uma nova gravação com a mesma chave substitui a anterior e passa a ser executada por último.
+     *
+     * @param key chave que identifica o arquivo gravado
+     * @param write gravação a ser executada ao final da unidade de trabalho
+     * @return true se a gravação foi agendada, false se não houver unidade de trabalho ativa
+     */
+    static boolean stageWrite(String key, Runnable write)
+    {
+        UnitOfWork unitOfWork = ActiveUnitOfWork.get();
+
+        if (unitOfWork == null)
+        {
+            return false;
+        }
+
+        unitOfWork.pendingWrites.remove(key);
+        unitOfWork.pendingWrites.put(key, write);
+        return true;
+    }
+
+    /**
+     * Executa imediatamente a gravação pendente com a chave especificada, se existir.
+     * Usado antes de ler um arquivo, para que a leitura enxergue as gravações já agendadas.
+     *
+     * @param key chave que identifica o arquivo
+     */
+    static void flushWrite(String key)
+    {
+        UnitOfWork unitOfWork = ActiveUnitOfWork.get();
+
+        if (unitOfWork == null)
+        {
+            return;
+        }
+
+        Runnable pendingWrite = unitOfWork.pendingWrites.remove(key);
+
+        if (pendingWrite != null)
+        {
+            pendingWrite.run();
+        }
+    }
+
+    private void commit()
+    {
+        for (Runnable write : pendingWrites.values())
+        {
+            write.run();
+        }
+
+        pendingWrites.clear();
+    }
+}
@@ -2,8 +2,14 @@
 
 package com.filipeduraes.workshop.core.persistence;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 /**
  * Armazena todos os caminhos relativos que estão sendo usados no projeto.
@@ -14,7 +20,11 @@ import java.util.UUID;
 public final class WorkshopPaths
 {
     private static final String DATA_DIRECTORY_PATH = "./Data/";
+    private static final String BACKUP_DIRECTORY_PATH = "./Backups/";
+    private static final String KEY_DIRECTORY_PATH = "./Keys/";
     private static final String FILE_EXTENSION = ".workshop";
+    private static final Pattern YEAR_DIRECTORY_PATTERN = Pattern.compile("\\d{4}");
+    private static final Pattern MONTH_DIRECTORY_PATTERN = Pattern.compile("\\d{2}");
     /**
      * Caminho para o arquivo de funcionários registrados
      */
@@ -47,6 +57,10 @@ public final class WorkshopPaths
      * Caminho para o arquivo do catálogo de produtos da loja
      */
     public static final String STORE_ITEMS_CATALOG_PATH = DATA_DIRECTORY_PATH + "StoreItems" + FILE_EXTENSION;
+    /**
+     * Caminho para o diretório que associa cada venda ao mês em que foi registrada
+     */
+    public static final String SALE_DIRECTORY_PATH = DATA_DIRECTORY_PATH + "SaleDirectory" + FILE_EXTENSION;
 
     private static UUID loggedUserID;
 
@@ -54,6 +68,37 @@ public final class WorkshopPaths
     {
     }
 
+    /**
+     * Obtém o caminho da pasta onde ficam todos os arquivos de dados.
+     *
+     * @return caminho da pasta de dados
+     */
+    public static String getDataDirectoryPath()
+    {
+        return DATA_DIRECTORY_PATH;
+    }
+
+    /**
+     * Obtém o caminho da pasta onde ficam as cópias de segurança da pasta de dados.
+     *
+     * @return caminho da pasta de cópias de segurança
+     */
+    public static String getBackupDirectoryPath()
+    {
+        return BACKUP_DIRECTORY_PATH;
+    }
+
+    /**
+     * Obtém o caminho da pasta onde fica a chave da criptografia dos dados.
+     * A pasta fica fora das pastas de dados e de cópias de segurança, então a chave não é copiada junto com os dados.
+     *
+     * @return caminho da pasta da chave
+     */
+    public static String getKeyDirectoryPath()
+    {
+        return KEY_DIRECTORY_PATH;
+    }
+
     /**
      * Define o ID do usuário atualmente logado no sistema.
      *
@@ -135,6 +180,76 @@ public final class WorkshopPaths
         return String.format("%s/Expenses%s", monthDirectory, FILE_EXTENSION);
     }
 
+    /**
+     * Verifica se o arquivo fica em uma pasta de mês, como os arquivos de vendas, despesas, pontos e serviços finalizados.
+     *
+     * @param filePath caminho do arquivo
+     * @return true se o arquivo estiver dentro de uma pasta "ano/mês"
+     */
+    public static boolean isMonthPartitionPath(Path filePath)
+    {
+        Path monthDirectory = filePath.toAbsolutePath().normalize().getParent();
+        Path yearDirectory = monthDirectory != null ? monthDirectory.getParent() : null;
+
+        if (yearDirectory == null || yearDirectory.getFileName() == null)
+        {
+            return false;
+        }
+
+        return MONTH_DIRECTORY_PATTERN.matcher(monthDirectory.getFileName().toString()).matches()
+               && YEAR_DIRECTORY_PATTERN.matcher(yearDirectory.getFileName().toString()).matches();
+    }
+
+    /**
+     * Verifica se o arquivo fica na pasta do mês atual.
+     *
+     * @param filePath caminho do arquivo
+     * @return true se o arquivo estiver dentro da pasta "ano/mês" do mês atual
+     */
+    public static boolean isCurrentMonthPartitionPath(Path filePath)
+    {
+        Path monthDirectory = Path.of(getMonthDirectory(LocalDateTime.now())).toAbsolutePath().normalize();
+        return isMonthPartitionPath(filePath) && monthDirectory.equals(filePath.toAbsolutePath().normalize().getParent());
+    }
+
+    /**
+     * Lista os meses que possuem uma pasta "ano/mês" na pasta de dados, do mais recente para o mais antigo.
+     *
+     * @return início de cada mês com pasta de dados
+     */
+    public static List<LocalDateTime> listMonthPartitions()
+    {
+        List<LocalDateTime> months = new ArrayList<>();
+        File[] yearDirectories = new File(DATA_DIRECTORY_PATH).listFiles(file -> file.isDirectory() && YEAR_DIRECTORY_PATTERN.matcher(file.getName()).matches());
+
+        if (yearDirectories == null)
+        {
+            return months;
+        }
+
+        for (File yearDirectory : yearDirectories)
+        {
+            File[] monthDirectories = yearDirectory.listFiles(file -> file.isDirectory() && MONTH_DIRECTORY_PATTERN.matcher(file.getName()).matches());
+
+            if (monthDirectories == null)
+            {
+                continue;
+            }
+
+            for (File monthDirectory : monthDirectories)
+            {
+                int month = Integer.parseInt(monthDirectory.getName());
+
+                if (month >= 1 && month <= 12)
+                {
+                    months.add(LocalDateTime.of(Integer.parseInt(yearDirectory.getName()), month, 1, 0, 0));
+                }
+            }
+        }
+
+        months.sort(Comparator.reverseOrder());
+        return months;
+    }
 
     private static String getMonthDirectory(LocalDateTime time)
     {
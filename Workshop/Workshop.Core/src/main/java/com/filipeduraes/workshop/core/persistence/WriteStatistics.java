@@ -0,0 +1,99 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores das gravações feitas e evitadas pela persistência, usados para medir o efeito
+ * da comparação de conteúdo em {@link Persistence#saveFile(Object, String)} e do controle de
+ * alterações dos repositórios.
+ *
+ * @author Filipe Durães
+ */
+public final class WriteStatistics
+{
+    private static final AtomicLong FileWrites = new AtomicLong();
+    private static final AtomicLong SkippedFileWrites = new AtomicLong();
+    private static final AtomicLong SkippedRepositorySaves = new AtomicLong();
+    private static final AtomicLong CoalescedFileWrites = new AtomicLong();
+
+    private WriteStatistics()
+    {
+    } //Pure static class
+
+    /**
+     * Obtém a quantidade de arquivos gravados em disco.
+     *
+     * @return quantidade de gravações de arquivo
+     */
+    public static long getFileWrites()
+    {
+        return FileWrites.get();
+    }
+
+    /**
+     * Obtém a quantidade de gravações de arquivo evitadas porque o conteúdo era igual ao já gravado.
+     *
+     * @return quantidade de gravações de arquivo evitadas
+     */
+    public static long getSkippedFileWrites()
+    {
+        return SkippedFileWrites.get();
+    }
+
+    /**
+     * Obtém a quantidade de gravações completas de repositório evitadas porque não havia alterações.
+     *
+     * @return quantidade de gravações de repositório evitadas
+     */
+    public static long getSkippedRepositorySaves()
+    {
+        return SkippedRepositorySaves.get();
+    }
+
+    /**
+     * Obtém a quantidade de gravações de arquivo que se juntaram a uma gravação ainda pendente do mesmo arquivo
+     * na fila de escrita assíncrona.
+     *
+     * @return quantidade de gravações de arquivo agrupadas
+     */
+    public static long getCoalescedFileWrites()
+    {
+        return CoalescedFileWrites.get();
+    }
+
+    /**
+     * Zera todos os contadores.
+     */
+    public static void reset()
+    {
+        FileWrites.set(0);
+        SkippedFileWrites.set(0);
+        SkippedRepositorySaves.set(0);
+        CoalescedFileWrites.set(0);
+    }
+
+    static void recordFileWrite()
+    {
+        FileWrites.incrementAndGet();
+    }
+
+    static void recordSkippedFileWrite()
+    {
+        SkippedFileWrites.incrementAndGet();
+    }
+
+    static void recordCoalescedFileWrite()
+    {
+        CoalescedFileWrites.incrementAndGet();
+    }
+
+    /**
+     * Registra uma gravação completa de repositório evitada.
+     */
+    public static void recordSkippedRepositorySave()
+    {
+        SkippedRepositorySaves.incrementAndGet();
+    }
+}
@@ -0,0 +1,230 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constantes e rotinas de baixo nível do formato binário dos arquivos de persistência.
+ *
+ * <p>O arquivo começa com o cabeçalho "WKB" seguido da versão do formato e de um único valor raiz.
+ * Cada valor começa com uma etiqueta de um byte. Inteiros usam varint com codificação zigzag,
+ * UUIDs são gravados como dois longs e datas como segundos desde a época mais os nanossegundos.
+ * Quando a raiz é um objeto ou uma lista, cada membro é gravado como um registro prefixado pelo seu tamanho,
+ * terminando com um registro de tamanho zero.</p>
+ *
+ * <p>Nomes de propriedades são gravados por completo apenas na primeira ocorrência do arquivo
+ * e depois referenciados pelo índice. Nomes que são UUIDs, como as chaves dos repositórios, são gravados como dois longs.
+ * Textos curtos que se repetem, como nomes de itens do catálogo, são referenciados da mesma forma.</p>
+ *
+ * @author Filipe Durães
+ */
+final class BinaryFormat
+{
+    static final byte[] MAGIC = {'W', 'K', 'B'};
+    static final int VERSION = 1;
+
+    static final int END = 0;
+    static final int NULL = 1;
+    static final int FALSE = 2;
+    static final int TRUE = 3;
+    static final int INTEGER = 4;
+    static final int DECIMAL = 5;
+    static final int STRING = 6;
+    static final int UUID = 7;
+    static final int TIMESTAMP = 8;
+    static final int ARRAY = 9;
+    static final int OBJECT = 10;
+    static final int RECORD_ARRAY = 11;
+    static final int RECORD_OBJECT = 12;
+    static final int STRING_REFERENCE = 13;
+
+    static final int END_OF_OBJECT_NAME = 0;
+    static final int UUID_NAME = 1;
+    static final int FIRST_REGULAR_NAME = 2;
+
+    static final int MAX_SHARED_STRING_LENGTH = 64;
+    static final int MAX_SHARED_STRINGS = 1 << 16;
+
+    private BinaryFormat()
+    {
+    } //Pure static class
+
+    static void writeHeader(OutputStream outputStream) throws IOException
+    {
+        outputStream.write(MAGIC);
+        outputStream.write(VERSION);
+    }
+
+    /**
+     * Lê e valida o cabeçalho do arquivo.
+     *
+     * @param inputStream fluxo posicionado no início do arquivo
+     * @return false se o arquivo estiver vazio
+     * @throws IOException se o cabeçalho for inválido ou ocorrer erro durante a leitura
+     */
+    static boolean readHeader(InputStream inputStream) throws IOException
+    {
+        int first = inputStream.read();
+
+        if (first < 0)
+        {
+            return false;
+        }
+
+        byte[] header = new byte[MAGIC.length];
+        header[0] = (byte) first;
+        readFully(inputStream, header, 1, MAGIC.length - 1);
+
+        for (int i = 0; i < MAGIC.length; i++)
+        {
+            if (header[i] != MAGIC[i])
+            {
+                throw new IOException("O arquivo nao esta no formato binario.");
+            }
+        }
+
+        int version = readByte(inputStream);
+
+        if (version != VERSION)
+        {
+            throw new IOException("Versao do formato binario nao suportada: " + version);
+        }
+
+        return true;
+    }
+
+    static void writeVarLong(OutputStream outputStream, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            outputStream.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        outputStream.write((int) value);
+    }
+
+    static long readVarLong(InputStream inputStream) throws IOException
+    {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int current = readByte(inputStream);
+            value |= (long) (current & 0x7F) << shift;
+
+            if ((current & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+
+        throw new IOException("Varint malformado no arquivo binario.");
+    }
+
+    static int readVarInt(InputStream inputStream) throws IOException
+    {
+        long value = readVarLong(inputStream);
+
+        if (value < 0 || value > Integer.MAX_VALUE)
+        {
+            throw new IOException("Tamanho invalido no arquivo binario: " + value);
+        }
+
+        return (int) value;
+    }
+
+    static void writeZigZag(OutputStream outputStream, long value) throws IOException
+    {
+        writeVarLong(outputStream, (value << 1) ^ (value >> 63));
+    }
+
+    static long readZigZag(InputStream inputStream) throws IOException
+    {
+        long value = readVarLong(inputStream);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeLong(OutputStream outputStream, long value) throws IOException
+    {
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            outputStream.write((int) (value >>> shift));
+        }
+    }
+
+    static long readLong(InputStream inputStream) throws IOException
+    {
+        long value = 0;
+
+        for (int i = 0; i < Long.BYTES; i++)
+        {
+            value = (value << 8) | readByte(inputStream);
+        }
+
+        return value;
+    }
+
+    static void writeText(OutputStream outputStream, String text) throws IOException
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(outputStream, bytes.length);
+        outputStream.write(bytes);
+    }
+
+    static String readText(InputStream inputStream, int length) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        readFully(inputStream, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int readByte(InputStream inputStream) throws IOException
+    {
+        int value = inputStream.read();
+
+        if (value < 0)
+        {
+            throw new EOFException("Fim inesperado do arquivo binario.");
+        }
+
+        return value;
+    }
+
+    static void readFully(InputStream inputStream, byte[] buffer, int offset, int length) throws IOException
+    {
+        while (length > 0)
+        {
+            int readCount = inputStream.read(buffer, offset, length);
+
+            if (readCount < 0)
+            {
+                throw new EOFException("Fim inesperado do arquivo binario.");
+            }
+
+            offset += readCount;
+            length -= readCount;
+        }
+    }
+
+    static void skipFully(InputStream inputStream, long length) throws IOException
+    {
+        while (length > 0)
+        {
+            long skipped = inputStream.skip(length);
+
+            if (skipped <= 0)
+            {
+                readByte(inputStream);
+                skipped = 1;
+            }
+
+            length -= skipped;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Buffer de leitura sem sincronização usado pelo {@link BinaryJsonReader}.
+ * O formato binário é lido quase sempre byte a byte, e o custo de sincronização do
+ * {@link java.io.BufferedInputStream} em cada chamada dominaria o tempo de leitura.
+ *
+ * @author Filipe Durães
+ */
+final class BinaryInputBuffer extends InputStream
+{
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final InputStream inputStream;
+    private final byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+
+    BinaryInputBuffer(InputStream inputStream)
+    {
+        this.inputStream = inputStream;
+        buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Cria um buffer que lê diretamente do conteúdo já carregado na memória, sem copiá-lo.
+     */
+    BinaryInputBuffer(byte[] content)
+    {
+        inputStream = InputStream.nullInputStream();
+        buffer = content;
+        limit = content.length;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (position == limit && !fill())
+        {
+            return -1;
+        }
+
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) throws IOException
+    {
+        if (length == 0)
+        {
+            return 0;
+        }
+
+        if (position == limit)
+        {
+            if (length >= BUFFER_SIZE)
+            {
+                return inputStream.read(destination, offset, length);
+            }
+
+            if (!fill())
+            {
+                return -1;
+            }
+        }
+
+        int readCount = Math.min(length, limit - position);
+        System.arraycopy(buffer, position, destination, offset, readCount);
+        position += readCount;
+        return readCount;
+    }
+
+    @Override
+    public long skip(long length) throws IOException
+    {
+        if (position == limit && !fill())
+        {
+            return 0;
+        }
+
+        int skipped = (int) Math.min(length, limit - position);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        inputStream.close();
+    }
+
+    private boolean fill() throws IOException
+    {
+        int readCount = inputStream.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(readCount, 0);
+        return readCount > 0;
+    }
+}
@@ -0,0 +1,513 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import com.filipeduraes.workshop.core.persistence.serializers.IsoDateTimeFormat;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Leitor que entrega os dados do formato binário como os mesmos eventos de um {@link JsonReader}.
+ * Por estender o leitor do Gson, todos os adaptadores de tipos existentes funcionam sem alteração.
+ *
+ * <p>Mapas aninhados dentro das entidades não são suportados, pois o Gson lê as suas chaves através
+ * de um acesso interno ao leitor. O mapa raiz dos repositórios é lido por {@link BinaryStorageCodec}.</p>
+ *
+ * @author Filipe Durães
+ * @see BinaryFormat
+ */
+public class BinaryJsonReader extends JsonReader
+{
+    private static final int NO_TAG = -1;
+
+    private final InputStream inputStream;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> sharedStrings = new ArrayList<>();
+    private int[] containerTags = new int[16];
+    private boolean[] awaitingValues = new boolean[16];
+    private int containerCount = 0;
+    private boolean isRootConsumed = false;
+
+    private JsonToken peekedToken;
+    private int peekedTag = NO_TAG;
+    private String peekedName;
+
+    /**
+     * Cria um leitor binário sobre o fluxo especificado.
+     * O cabeçalho do arquivo deve ser lido antes, por {@link BinaryStorageCodec}.
+     *
+     * @param inputStream fluxo de origem
+     */
+    public BinaryJsonReader(InputStream inputStream)
+    {
+        super(Reader.nullReader());
+        this.inputStream = new BinaryInputBuffer(inputStream);
+    }
+
+    /**
+     * Cria um leitor binário sobre um valor já carregado na memória, sem cabeçalho de arquivo,
+     * como cada registro de um {@link com.filipeduraes.workshop.core.persistence.MonthArchive}.
+     *
+     * @param content conteúdo codificado do valor
+     */
+    public BinaryJsonReader(byte[] content)
+    {
+        super(Reader.nullReader());
+        this.inputStream = new BinaryInputBuffer(content);
+    }
+
+    @Override
+    public void beginArray() throws IOException
+    {
+        expect(JsonToken.BEGIN_ARRAY);
+        pushContainer(peekedTag);
+        clearPeeked();
+    }
+
+    @Override
+    public void endArray() throws IOException
+    {
+        expect(JsonToken.END_ARRAY);
+        popContainer();
+    }
+
+    @Override
+    public void beginObject() throws IOException
+    {
+        expect(JsonToken.BEGIN_OBJECT);
+        pushContainer(peekedTag);
+        clearPeeked();
+    }
+
+    @Override
+    public void endObject() throws IOException
+    {
+        expect(JsonToken.END_OBJECT);
+        popContainer();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException
+    {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException
+    {
+        if (peekedToken == null)
+        {
+            peekedToken = readNextToken();
+        }
+
+        return peekedToken;
+    }
+
+    @Override
+    public String nextName() throws IOException
+    {
+        expect(JsonToken.NAME);
+        String name = peekedName;
+        awaitingValues[containerCount - 1] = true;
+        clearPeeked();
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException
+    {
+        JsonToken token = peek();
+
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER)
+        {
+            throw unexpectedToken(JsonToken.STRING);
+        }
+
+        String value = switch (peekedTag)
+        {
+            case BinaryFormat.STRING -> readString();
+            case BinaryFormat.STRING_REFERENCE -> readStringReference();
+            case BinaryFormat.DECIMAL -> BinaryFormat.readText(inputStream, BinaryFormat.readVarInt(inputStream));
+            case BinaryFormat.UUID -> readUUID().toString();
+            case BinaryFormat.TIMESTAMP -> IsoDateTimeFormat.format(readTimestamp());
+            default -> Long.toString(BinaryFormat.readZigZag(inputStream));
+        };
+
+        consumeValue();
+        return value;
+    }
+
+    /**
+     * Lê uma data e hora gravada como valor de época, sem passar pelo texto ISO.
+     * Datas gravadas como texto também são aceitas.
+     *
+     * @return data e hora lida
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public LocalDateTime nextLocalDateTime() throws IOException
+    {
+        if (peek() == JsonToken.STRING && peekedTag == BinaryFormat.TIMESTAMP)
+        {
+            LocalDateTime timestamp = readTimestamp();
+            consumeValue();
+            return timestamp;
+        }
+
+        return IsoDateTimeFormat.parse(nextString());
+    }
+
+    /**
+     * Lê um UUID gravado como dois longs, sem passar pelo texto.
+     * UUIDs gravados como texto também são aceitos.
+     *
+     * @return UUID lido
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public UUID nextUUID() throws IOException
+    {
+        if (peek() == JsonToken.STRING && peekedTag == BinaryFormat.UUID)
+        {
+            UUID id = readUUID();
+            consumeValue();
+            return id;
+        }
+
+        return UUID.fromString(nextString());
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException
+    {
+        expect(JsonToken.BOOLEAN);
+        boolean value = peekedTag == BinaryFormat.TRUE;
+        consumeValue();
+        return value;
+    }
+
+    @Override
+    public void nextNull() throws IOException
+    {
+        expect(JsonToken.NULL);
+        consumeValue();
+    }
+
+    @Override
+    public double nextDouble() throws IOException
+    {
+        if (peek() == JsonToken.NUMBER && peekedTag == BinaryFormat.INTEGER)
+        {
+            double value = BinaryFormat.readZigZag(inputStream);
+            consumeValue();
+            return value;
+        }
+
+        try
+        {
+            return Double.parseDouble(nextString());
+        }
+        catch (NumberFormatException exception)
+        {
+            throw new NumberFormatException("Numero invalido no arquivo binario: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public long nextLong() throws IOException
+    {
+        if (peek() == JsonToken.NUMBER && peekedTag == BinaryFormat.INTEGER)
+        {
+            long value = BinaryFormat.readZigZag(inputStream);
+            consumeValue();
+            return value;
+        }
+
+        return new BigDecimal(nextString()).longValueExact();
+    }
+
+    @Override
+    public int nextInt() throws IOException
+    {
+        long value = nextLong();
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+        {
+            throw new NumberFormatException("Numero fora do intervalo de int: " + value);
+        }
+
+        return (int) value;
+    }
+
+    @Override
+    public void skipValue() throws IOException
+    {
+        if (peek() == JsonToken.NAME)
+        {
+            nextName();
+        }
+
+        int openContainers = 0;
+
+        do
+        {
+            switch (peek())
+            {
+                case BEGIN_ARRAY ->
+                {
+                    beginArray();
+                    openContainers++;
+                }
+                case BEGIN_OBJECT ->
+                {
+                    beginObject();
+                    openContainers++;
+                }
+                case END_ARRAY ->
+                {
+                    endArray();
+                    openContainers--;
+                }
+                case END_OBJECT ->
+                {
+                    endObject();
+                    openContainers--;
+                }
+                case NAME -> nextName();
+                case STRING, NUMBER -> skipScalar();
+                case BOOLEAN -> nextBoolean();
+                case NULL -> nextNull();
+                case END_DOCUMENT ->
+                {
+                    return;
+                }
+            }
+        }
+        while (openContainers > 0);
+    }
+
+    @Override
+    public String getPath()
+    {
+        return "$";
+    }
+
+    @Override
+    public String getPreviousPath()
+    {
+        return "$";
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        inputStream.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName();
+    }
+
+    private JsonToken readNextToken() throws IOException
+    {
+        if (containerCount == 0)
+        {
+            return isRootConsumed ? JsonToken.END_DOCUMENT : readValueToken();
+        }
+
+        int containerTag = containerTags[containerCount - 1];
+        boolean isRecordContainer = containerTag == BinaryFormat.RECORD_ARRAY || containerTag == BinaryFormat.RECORD_OBJECT;
+        boolean isObject = containerTag == BinaryFormat.OBJECT || containerTag == BinaryFormat.RECORD_OBJECT;
+        boolean isAwaitingValue = awaitingValues[containerCount - 1];
+
+        if (isRecordContainer && !(isObject && isAwaitingValue) && BinaryFormat.readVarLong(inputStream) == 0)
+        {
+            return isObject ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+        }
+
+        if (isObject && !isAwaitingValue)
+        {
+            return readNameToken();
+        }
+
+        return readValueToken();
+    }
+
+    private JsonToken readNameToken() throws IOException
+    {
+        long code = BinaryFormat.readVarLong(inputStream);
+
+        if (code == BinaryFormat.END_OF_OBJECT_NAME)
+        {
+            return JsonToken.END_OBJECT;
+        }
+
+        if (code == BinaryFormat.UUID_NAME)
+        {
+            peekedName = readUUID().toString();
+            return JsonToken.NAME;
+        }
+
+        long nameCode = code - BinaryFormat.FIRST_REGULAR_NAME;
+        long value = nameCode >>> 1;
+
+        if ((nameCode & 1) == 0)
+        {
+            if (value >= names.size())
+            {
+                throw new JsonSyntaxException("Referencia de nome invalida no arquivo binario: " + value);
+            }
+
+            peekedName = names.get((int) value);
+            return JsonToken.NAME;
+        }
+
+        peekedName = BinaryFormat.readText(inputStream, (int) value);
+        names.add(peekedName);
+        return JsonToken.NAME;
+    }
+
+    private JsonToken readValueToken() throws IOException
+    {
+        peekedTag = BinaryFormat.readByte(inputStream);
+
+        return switch (peekedTag)
+        {
+            case BinaryFormat.END -> containerCount > 0 && containerTags[containerCount - 1] == BinaryFormat.ARRAY ? JsonToken.END_ARRAY : unexpectedTag();
+            case BinaryFormat.NULL -> JsonToken.NULL;
+            case BinaryFormat.FALSE, BinaryFormat.TRUE -> JsonToken.BOOLEAN;
+            case BinaryFormat.INTEGER, BinaryFormat.DECIMAL -> JsonToken.NUMBER;
+            case BinaryFormat.STRING, BinaryFormat.STRING_REFERENCE, BinaryFormat.UUID, BinaryFormat.TIMESTAMP -> JsonToken.STRING;
+            case BinaryFormat.ARRAY, BinaryFormat.RECORD_ARRAY -> JsonToken.BEGIN_ARRAY;
+            case BinaryFormat.OBJECT, BinaryFormat.RECORD_OBJECT -> JsonToken.BEGIN_OBJECT;
+            default -> unexpectedTag();
+        };
+    }
+
+    private JsonToken unexpectedTag()
+    {
+        throw new JsonSyntaxException("Etiqueta invalida no arquivo binario: " + peekedTag);
+    }
+
+    private void skipScalar() throws IOException
+    {
+        switch (peekedTag)
+        {
+            case BinaryFormat.STRING -> readString();
+            case BinaryFormat.DECIMAL -> BinaryFormat.skipFully(inputStream, BinaryFormat.readVarInt(inputStream));
+            case BinaryFormat.UUID -> BinaryFormat.skipFully(inputStream, 2 * Long.BYTES);
+            case BinaryFormat.TIMESTAMP ->
+            {
+                BinaryFormat.readVarLong(inputStream);
+                BinaryFormat.readVarLong(inputStream);
+            }
+            default -> BinaryFormat.readVarLong(inputStream);
+        }
+
+        consumeValue();
+    }
+
+    private String readString() throws IOException
+    {
+        String value = BinaryFormat.readText(inputStream, BinaryFormat.readVarInt(inputStream));
+
+        if (value.length() <= BinaryFormat.MAX_SHARED_STRING_LENGTH && sharedStrings.size() < BinaryFormat.MAX_SHARED_STRINGS)
+        {
+            sharedStrings.add(value);
+        }
+
+        return value;
+    }
+
+    private String readStringReference() throws IOException
+    {
+        int index = BinaryFormat.readVarInt(inputStream);
+
+        if (index >= sharedStrings.size())
+        {
+            throw new JsonSyntaxException("Referencia de texto invalida no arquivo binario: " + index);
+        }
+
+        return sharedStrings.get(index);
+    }
+
+    private UUID readUUID() throws IOException
+    {
+        long mostSignificantBits = BinaryFormat.readLong(inputStream);
+        long leastSignificantBits = BinaryFormat.readLong(inputStream);
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    private LocalDateTime readTimestamp() throws IOException
+    {
+        long epochSecond = BinaryFormat.readZigZag(inputStream);
+        int nano = (int) BinaryFormat.readVarLong(inputStream);
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private void expect(JsonToken expectedToken) throws IOException
+    {
+        if (peek() != expectedToken)
+        {
+            throw unexpectedToken(expectedToken);
+        }
+    }
+
+    private IllegalStateException unexpectedToken(JsonToken expectedToken)
+    {
+        return new IllegalStateException("Esperado " + expectedToken + " mas encontrado " + peekedToken + " no arquivo binario.");
+    }
+
+    private void pushContainer(int tag)
+    {
+        if (containerCount == containerTags.length)
+        {
+            containerTags = Arrays.copyOf(containerTags, containerCount * 2);
+            awaitingValues = Arrays.copyOf(awaitingValues, containerCount * 2);
+        }
+
+        containerTags[containerCount] = tag;
+        awaitingValues[containerCount] = false;
+        containerCount++;
+    }
+
+    private void popContainer()
+    {
+        containerCount--;
+        consumeValue();
+    }
+
+    private void consumeValue()
+    {
+        clearPeeked();
+
+        if (containerCount == 0)
+        {
+            isRootConsumed = true;
+        }
+        else
+        {
+            awaitingValues[containerCount - 1] = false;
+        }
+    }
+
+    private void clearPeeked()
+    {
+        peekedToken = null;
+        peekedTag = NO_TAG;
+        peekedName = null;
+    }
+}
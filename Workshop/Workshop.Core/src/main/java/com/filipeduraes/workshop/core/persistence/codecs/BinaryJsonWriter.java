@@ -0,0 +1,392 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import com.filipeduraes.workshop.core.persistence.serializers.IsoDateTimeFormat;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Escritor que recebe os mesmos eventos de um {@link JsonWriter} e grava os dados no formato binário.
+ * Por estender o escritor do Gson, todos os adaptadores de tipos existentes funcionam sem alteração.
+ *
+ * <p>Os membros do objeto ou lista raiz são montados um de cada vez em um buffer reaproveitado
+ * e gravados como registros prefixados pelo tamanho, então a memória usada é proporcional a uma entidade.</p>
+ *
+ * @author Filipe Durães
+ * @see BinaryFormat
+ */
+public class BinaryJsonWriter extends JsonWriter
+{
+    private final OutputStream outputStream;
+    private final BinaryRecordBuffer recordBuffer = new BinaryRecordBuffer();
+    private final Map<String, Integer> nameIndexes = new HashMap<>();
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private OutputStream currentOutput;
+    private int depth = 0;
+    private String deferredName;
+
+    /**
+     * Cria um escritor binário sobre o fluxo especificado.
+     * O cabeçalho do arquivo deve ser gravado antes, por {@link BinaryStorageCodec}.
+     *
+     * @param outputStream fluxo de destino
+     */
+    public BinaryJsonWriter(OutputStream outputStream)
+    {
+        super(Writer.nullWriter());
+        this.outputStream = outputStream;
+        this.currentOutput = outputStream;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException
+    {
+        return beginContainer(BinaryFormat.RECORD_ARRAY, BinaryFormat.ARRAY);
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException
+    {
+        return endContainer();
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException
+    {
+        return beginContainer(BinaryFormat.RECORD_OBJECT, BinaryFormat.OBJECT);
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException
+    {
+        return endContainer();
+    }
+
+    @Override
+    public JsonWriter name(String name)
+    {
+        if (deferredName != null)
+        {
+            throw new IllegalStateException("Nome de propriedade sem valor: " + deferredName);
+        }
+
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException
+    {
+        if (value == null)
+        {
+            return nullValue();
+        }
+
+        beginValue();
+        writeStringValue(value);
+        return endValue();
+    }
+
+    /**
+     * Grava uma data e hora diretamente como valor de época, sem passar pelo texto ISO.
+     *
+     * @param value data e hora a ser gravada
+     * @return este escritor
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    public JsonWriter value(LocalDateTime value) throws IOException
+    {
+        if (value == null)
+        {
+            return nullValue();
+        }
+
+        beginValue();
+        writeTimestamp(value);
+        return endValue();
+    }
+
+    /**
+     * Grava um UUID diretamente como dois longs, sem passar pelo texto.
+     *
+     * @param value UUID a ser gravado
+     * @return este escritor
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    public JsonWriter value(UUID value) throws IOException
+    {
+        if (value == null)
+        {
+            return nullValue();
+        }
+
+        beginValue();
+        currentOutput.write(BinaryFormat.UUID);
+        writeUUID(value);
+        return endValue();
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException
+    {
+        beginValue();
+        currentOutput.write(value ? BinaryFormat.TRUE : BinaryFormat.FALSE);
+        return endValue();
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException
+    {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException
+    {
+        return writeDecimal(Float.toString(value));
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException
+    {
+        return writeDecimal(Double.toString(value));
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException
+    {
+        beginValue();
+        currentOutput.write(BinaryFormat.INTEGER);
+        BinaryFormat.writeZigZag(currentOutput, value);
+        return endValue();
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException
+    {
+        if (value == null)
+        {
+            return nullValue();
+        }
+
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+        {
+            return value(value.longValue());
+        }
+
+        if (value instanceof BigInteger bigInteger && bigInteger.bitLength() < Long.SIZE)
+        {
+            return value(bigInteger.longValue());
+        }
+
+        return writeDecimal(value.toString());
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException
+    {
+        if (deferredName != null && !getSerializeNulls())
+        {
+            deferredName = null;
+            return this;
+        }
+
+        beginValue();
+        currentOutput.write(BinaryFormat.NULL);
+        return endValue();
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value)
+    {
+        throw new UnsupportedOperationException("O formato binario nao aceita JSON bruto.");
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        outputStream.close();
+    }
+
+    private JsonWriter beginContainer(int rootTag, int nestedTag) throws IOException
+    {
+        if (depth == 0)
+        {
+            currentOutput.write(rootTag);
+        }
+        else
+        {
+            beginValue();
+            currentOutput.write(nestedTag);
+        }
+
+        depth++;
+        return this;
+    }
+
+    private JsonWriter endContainer() throws IOException
+    {
+        if (depth == 0)
+        {
+            throw new IllegalStateException("Nenhum objeto ou lista aberto.");
+        }
+
+        depth--;
+
+        if (depth == 0)
+        {
+            BinaryFormat.writeVarLong(outputStream, 0);
+            return this;
+        }
+
+        currentOutput.write(BinaryFormat.END);
+        return endValue();
+    }
+
+    private void beginValue() throws IOException
+    {
+        if (depth == 1 && currentOutput == outputStream)
+        {
+            recordBuffer.reset();
+            currentOutput = recordBuffer;
+        }
+
+        if (deferredName != null)
+        {
+            writeName(deferredName);
+            deferredName = null;
+        }
+    }
+
+    private JsonWriter endValue() throws IOException
+    {
+        if (depth == 1)
+        {
+            BinaryFormat.writeVarLong(outputStream, recordBuffer.size());
+            recordBuffer.writeTo(outputStream);
+            currentOutput = outputStream;
+        }
+
+        return this;
+    }
+
+    private void writeName(String name) throws IOException
+    {
+        if (isCanonicalUUID(name))
+        {
+            BinaryFormat.writeVarLong(currentOutput, BinaryFormat.UUID_NAME);
+            writeUUID(UUID.fromString(name));
+            return;
+        }
+
+        Integer index = nameIndexes.get(name);
+
+        if (index != null)
+        {
+            BinaryFormat.writeVarLong(currentOutput, BinaryFormat.FIRST_REGULAR_NAME + ((long) index << 1));
+            return;
+        }
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        nameIndexes.put(name, nameIndexes.size());
+        BinaryFormat.writeVarLong(currentOutput, BinaryFormat.FIRST_REGULAR_NAME + (((long) bytes.length << 1) | 1));
+        currentOutput.write(bytes);
+    }
+
+    private JsonWriter writeDecimal(String text) throws IOException
+    {
+        beginValue();
+        currentOutput.write(BinaryFormat.DECIMAL);
+        BinaryFormat.writeText(currentOutput, text);
+        return endValue();
+    }
+
+    private void writeStringValue(String value) throws IOException
+    {
+        if (isCanonicalUUID(value))
+        {
+            currentOutput.write(BinaryFormat.UUID);
+            writeUUID(UUID.fromString(value));
+            return;
+        }
+
+        LocalDateTime timestamp = IsoDateTimeFormat.parseCanonical(value);
+
+        if (timestamp != null)
+        {
+            writeTimestamp(timestamp);
+            return;
+        }
+
+        if (value.length() <= BinaryFormat.MAX_SHARED_STRING_LENGTH)
+        {
+            Integer index = stringIndexes.get(value);
+
+            if (index != null)
+            {
+                currentOutput.write(BinaryFormat.STRING_REFERENCE);
+                BinaryFormat.writeVarLong(currentOutput, index);
+                return;
+            }
+
+            if (stringIndexes.size() < BinaryFormat.MAX_SHARED_STRINGS)
+            {
+                stringIndexes.put(value, stringIndexes.size());
+            }
+        }
+
+        currentOutput.write(BinaryFormat.STRING);
+        BinaryFormat.writeText(currentOutput, value);
+    }
+
+    private void writeUUID(UUID id) throws IOException
+    {
+        BinaryFormat.writeLong(currentOutput, id.getMostSignificantBits());
+        BinaryFormat.writeLong(currentOutput, id.getLeastSignificantBits());
+    }
+
+    private void writeTimestamp(LocalDateTime timestamp) throws IOException
+    {
+        currentOutput.write(BinaryFormat.TIMESTAMP);
+        BinaryFormat.writeZigZag(currentOutput, timestamp.toEpochSecond(ZoneOffset.UTC));
+        BinaryFormat.writeVarLong(currentOutput, timestamp.getNano());
+    }
+
+    private static boolean isCanonicalUUID(String text)
+    {
+        if (text.length() != 36)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            char character = text.charAt(i);
+            boolean isSeparatorPosition = i == 8 || i == 13 || i == 18 || i == 23;
+
+            if (isSeparatorPosition ? character != '-' : Character.digit(character, 16) < 0 || Character.isUpperCase(character))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
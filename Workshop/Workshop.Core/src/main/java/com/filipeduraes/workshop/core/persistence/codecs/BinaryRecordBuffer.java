@@ -0,0 +1,57 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Buffer reaproveitável, sem sincronização, onde o {@link BinaryJsonWriter} monta cada registro
+ * antes de gravá-lo com o seu tamanho.
+ *
+ * @author Filipe Durães
+ */
+final class BinaryRecordBuffer extends OutputStream
+{
+    private byte[] buffer = new byte[1024];
+    private int size = 0;
+
+    @Override
+    public void write(int value)
+    {
+        ensureCapacity(size + 1);
+        buffer[size++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int length)
+    {
+        ensureCapacity(size + length);
+        System.arraycopy(source, offset, buffer, size, length);
+        size += length;
+    }
+
+    void reset()
+    {
+        size = 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException
+    {
+        outputStream.write(buffer, 0, size);
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+}
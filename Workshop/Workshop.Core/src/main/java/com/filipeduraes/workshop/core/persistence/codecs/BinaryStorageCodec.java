@@ -0,0 +1,114 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Codificação binária compacta dos arquivos de persistência.
+ * Os dados passam pelos mesmos adaptadores do Gson usados no JSON, mas são gravados
+ * com etiquetas, varints, UUIDs em dois longs e datas como valores de época.
+ *
+ * @author Filipe Durães
+ * @see BinaryFormat
+ */
+public class BinaryStorageCodec implements StorageCodec
+{
+    @Override
+    public void write(Gson gson, Object data, OutputStream outputStream) throws IOException
+    {
+        try (JsonWriter jsonWriter = openWriter(gson, outputStream))
+        {
+            Type dataType = data != null ? data.getClass() : Object.class;
+            gson.toJson(data, dataType, jsonWriter);
+        }
+    }
+
+    @Override
+    public <T> T read(Gson gson, InputStream inputStream, Type type) throws IOException
+    {
+        if (!BinaryFormat.readHeader(inputStream))
+        {
+            return null;
+        }
+
+        try (BinaryJsonReader jsonReader = new BinaryJsonReader(inputStream))
+        {
+            Class<?> rawType = TypeToken.get(type).getRawType();
+
+            if (Map.class.isAssignableFrom(rawType) && jsonReader.peek() == JsonToken.BEGIN_OBJECT)
+            {
+                return readMap(gson, jsonReader, type);
+            }
+
+            return gson.fromJson(jsonReader, type);
+        }
+    }
+
+    @Override
+    public JsonReader openReader(Gson gson, InputStream inputStream) throws IOException
+    {
+        if (!BinaryFormat.readHeader(inputStream))
+        {
+            throw new EOFException("O arquivo binario esta vazio.");
+        }
+
+        return new BinaryJsonReader(inputStream);
+    }
+
+    @Override
+    public JsonWriter openWriter(Gson gson, OutputStream outputStream) throws IOException
+    {
+        BinaryFormat.writeHeader(outputStream);
+        return new BinaryJsonWriter(outputStream);
+    }
+
+    /**
+     * Lê o mapa raiz de um repositório registro a registro.
+     * O adaptador de mapas do Gson lê as chaves por um acesso interno ao leitor JSON, então as chaves
+     * são convertidas aqui e apenas os valores passam pelos adaptadores registrados.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T readMap(Gson gson, JsonReader jsonReader, Type type) throws IOException
+    {
+        Map<Object, Object> map = (Map<Object, Object>) gson.fromJson("{}", type);
+        Type keyType = Object.class;
+        Type valueType = Object.class;
+
+        if (type instanceof ParameterizedType parameterizedType && parameterizedType.getActualTypeArguments().length == 2)
+        {
+            keyType = parameterizedType.getActualTypeArguments()[0];
+            valueType = parameterizedType.getActualTypeArguments()[1];
+        }
+
+        TypeAdapter<?> keyAdapter = gson.getAdapter(TypeToken.get(keyType));
+        TypeAdapter<?> valueAdapter = gson.getAdapter(TypeToken.get(valueType));
+        boolean hasTextKeys = keyType == String.class || keyType == Object.class;
+
+        jsonReader.beginObject();
+
+        while (jsonReader.hasNext())
+        {
+            String name = jsonReader.nextName();
+            Object key = hasTextKeys ? name : keyAdapter.fromJsonTree(new JsonPrimitive(name));
+            map.put(key, valueAdapter.read(jsonReader));
+        }
+
+        jsonReader.endObject();
+        return (T) map;
+    }
+}
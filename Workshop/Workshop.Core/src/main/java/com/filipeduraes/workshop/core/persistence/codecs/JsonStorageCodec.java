@@ -0,0 +1,54 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codificação padrão dos arquivos de persistência, em JSON UTF-8.
+ *
+ * @author Filipe Durães
+ */
+public class JsonStorageCodec implements StorageCodec
+{
+    @Override
+    public void write(Gson gson, Object data, OutputStream outputStream) throws IOException
+    {
+        try (JsonWriter jsonWriter = openWriter(gson, outputStream))
+        {
+            Type dataType = data != null ? data.getClass() : Object.class;
+            gson.toJson(data, dataType, jsonWriter);
+        }
+    }
+
+    @Override
+    public <T> T read(Gson gson, InputStream inputStream, Type type) throws IOException
+    {
+        try (JsonReader jsonReader = openReader(gson, inputStream))
+        {
+            return gson.fromJson(jsonReader, type);
+        }
+    }
+
+    @Override
+    public JsonReader openReader(Gson gson, InputStream inputStream)
+    {
+        return gson.newJsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public JsonWriter openWriter(Gson gson, OutputStream outputStream) throws IOException
+    {
+        return gson.newJsonWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.codecs;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Codificação usada para gravar e ler os dados dos arquivos de persistência.
+ * As implementações trabalham em fluxo sobre os adaptadores do Gson, então os mesmos tipos
+ * e adaptadores registrados funcionam em qualquer formato.
+ *
+ * @author Filipe Durães
+ */
+public interface StorageCodec
+{
+    /**
+     * Serializa os dados no fluxo especificado.
+     *
+     * @param gson instância do Gson com os adaptadores registrados
+     * @param data dados a serem gravados
+     * @param outputStream fluxo de destino
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    void write(Gson gson, Object data, OutputStream outputStream) throws IOException;
+
+    /**
+     * Deserializa os dados do fluxo especificado.
+     *
+     * @param <T> tipo dos dados a serem lidos
+     * @param gson instância do Gson com os adaptadores registrados
+     * @param inputStream fluxo de origem
+     * @param type tipo dos dados para deserialização
+     * @return dados lidos, ou null se o fluxo estiver vazio
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    <T> T read(Gson gson, InputStream inputStream, Type type) throws IOException;
+
+    /**
+     * Cria um leitor de eventos JSON sobre o fluxo, usado para converter arquivos sem conhecer o seu tipo.
+     *
+     * @param gson instância do Gson com as configurações de leitura
+     * @param inputStream fluxo de origem
+     * @return leitor posicionado no início dos dados
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    JsonReader openReader(Gson gson, InputStream inputStream) throws IOException;
+
+    /**
+     * Cria um escritor de eventos JSON sobre o fluxo, usado para converter arquivos sem conhecer o seu tipo.
+     *
+     * @param gson instância do Gson com as configurações de escrita
+     * @param outputStream fluxo de destino
+     * @return escritor posicionado no início dos dados
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    JsonWriter openWriter(Gson gson, OutputStream outputStream) throws IOException;
+}
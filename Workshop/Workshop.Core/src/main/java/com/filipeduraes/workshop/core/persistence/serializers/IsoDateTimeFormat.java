@@ -0,0 +1,190 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.serializers;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Conversão rápida entre LocalDateTime e o texto ISO_LOCAL_DATE_TIME usado nos arquivos.
+ * O texto é montado e lido caractere a caractere, sem passar pelo {@link DateTimeFormatter},
+ * e produz exatamente o mesmo resultado que ele. Formas incomuns, como anos com sinal, usam o formatador padrão.
+ *
+ * @author Filipe Durães
+ */
+public final class IsoDateTimeFormat
+{
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int MAX_FAST_YEAR = 9999;
+    private static final int SECONDS_LENGTH = 19;
+    private static final int MAX_LENGTH = 29;
+
+    private IsoDateTimeFormat()
+    {
+    } //Pure static class
+
+    /**
+     * Converte a data e hora para texto no formato ISO_LOCAL_DATE_TIME.
+     *
+     * @param time data e hora a ser convertida
+     * @return texto no formato ISO, por exemplo "2025-06-01T10:15:30.5"
+     */
+    public static String format(LocalDateTime time)
+    {
+        int year = time.getYear();
+
+        if (year < 0 || year > MAX_FAST_YEAR)
+        {
+            return FORMATTER.format(time);
+        }
+
+        char[] text = new char[MAX_LENGTH];
+        writeDigits(text, 0, year, 4);
+        text[4] = '-';
+        writeDigits(text, 5, time.getMonthValue(), 2);
+        text[7] = '-';
+        writeDigits(text, 8, time.getDayOfMonth(), 2);
+        text[10] = 'T';
+        writeDigits(text, 11, time.getHour(), 2);
+        text[13] = ':';
+        writeDigits(text, 14, time.getMinute(), 2);
+        text[16] = ':';
+        writeDigits(text, 17, time.getSecond(), 2);
+
+        int length = SECONDS_LENGTH;
+        int nano = time.getNano();
+
+        if (nano > 0)
+        {
+            text[length] = '.';
+            writeDigits(text, length + 1, nano, 9);
+            length = MAX_LENGTH;
+
+            while (text[length - 1] == '0')
+            {
+                length--;
+            }
+        }
+
+        return new String(text, 0, length);
+    }
+
+    /**
+     * Lê uma data e hora no formato ISO_LOCAL_DATE_TIME.
+     *
+     * @param text texto no formato ISO
+     * @return data e hora lida
+     * @throws java.time.format.DateTimeParseException se o texto não estiver no formato ISO
+     */
+    public static LocalDateTime parse(String text)
+    {
+        LocalDateTime time = tryParse(text, false);
+        return time != null ? time : LocalDateTime.parse(text, FORMATTER);
+    }
+
+    /**
+     * Lê uma data e hora apenas se o texto estiver exatamente como {@link #format(LocalDateTime)} o escreveria.
+     * Usado para reconhecer datas dentro de textos sem risco de alterar o texto original.
+     *
+     * @param text texto possivelmente no formato ISO
+     * @return data e hora lida, ou null se o texto não for uma data canônica
+     */
+    public static LocalDateTime parseCanonical(String text)
+    {
+        return tryParse(text, true);
+    }
+
+    private static LocalDateTime tryParse(String text, boolean requireCanonical)
+    {
+        int length = text.length();
+        boolean hasSeconds = length >= SECONDS_LENGTH;
+        boolean hasFraction = length > SECONDS_LENGTH + 1;
+
+        if ((length != 16 && length != SECONDS_LENGTH && !hasFraction) || length > MAX_LENGTH)
+        {
+            return null;
+        }
+
+        if (text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T' || text.charAt(13) != ':')
+        {
+            return null;
+        }
+
+        if ((hasSeconds && text.charAt(16) != ':') || (hasFraction && text.charAt(SECONDS_LENGTH) != '.'))
+        {
+            return null;
+        }
+
+        if (requireCanonical && (!hasSeconds || (hasFraction && text.charAt(length - 1) == '0')))
+        {
+            return null;
+        }
+
+        int year = readDigits(text, 0, 4);
+        int month = readDigits(text, 5, 2);
+        int day = readDigits(text, 8, 2);
+        int hour = readDigits(text, 11, 2);
+        int minute = readDigits(text, 14, 2);
+        int second = hasSeconds ? readDigits(text, 17, 2) : 0;
+        int nano = 0;
+
+        if (hasFraction)
+        {
+            int fractionLength = length - SECONDS_LENGTH - 1;
+            nano = readDigits(text, SECONDS_LENGTH + 1, fractionLength);
+
+            for (int i = fractionLength; i < 9 && nano >= 0; i++)
+            {
+                nano *= 10;
+            }
+        }
+
+        if ((year | month | day | hour | minute | second | nano) < 0)
+        {
+            return null;
+        }
+
+        try
+        {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        }
+        catch (DateTimeException exception)
+        {
+            return null;
+        }
+    }
+
+    private static void writeDigits(char[] text, int offset, int value, int digitCount)
+    {
+        for (int i = offset + digitCount - 1; i >= offset; i--)
+        {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Lê um número decimal de tamanho fixo.
+     *
+     * @return valor lido, ou -1 se algum caractere não for um dígito
+     */
+    private static int readDigits(String text, int offset, int digitCount)
+    {
+        int value = 0;
+
+        for (int i = offset; i < offset + digitCount; i++)
+        {
+            int digit = text.charAt(i) - '0';
+
+            if (digit < 0 || digit > 9)
+            {
+                return -1;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+}
@@ -2,24 +2,22 @@
 
 package com.filipeduraes.workshop.core.persistence.serializers;
 
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Adaptador para serialização e deserialização de objetos LocalDateTime em formato JSON.
- * Utiliza o formato ISO_LOCAL_DATE_TIME para conversão entre string e objeto.
+ * Utiliza o formato ISO_LOCAL_DATE_TIME para conversão entre string e objeto, através de {@link IsoDateTimeFormat}.
+ * No formato binário, a data é gravada diretamente como valor de época.
  *
  * @author Filipe Durães
  */
 public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime>
 {
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-
     /**
      * Serializa um objeto LocalDateTime para formato JSON.
      *
@@ -30,14 +28,7 @@ public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime>
     @Override
     public void write(JsonWriter jsonWriter, LocalDateTime time) throws IOException
     {
-        if (time != null)
-        {
-            jsonWriter.value(time.format(FORMATTER));
-        }
-        else
-        {
-            jsonWriter.nullValue();
-        }
+        SerializationFields.writeDateTime(jsonWriter, time);
     }
 
     /**
@@ -50,13 +41,6 @@ public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime>
     @Override
     public LocalDateTime read(JsonReader jsonReader) throws IOException
     {
-        if (jsonReader.peek() == com.google.gson.stream.JsonToken.NULL)
-        {
-            jsonReader.nextNull();
-            return null;
-        }
-
-        String dateTimeString = jsonReader.nextString();
-        return LocalDateTime.parse(dateTimeString, FORMATTER);
+        return SerializationFields.readDateTime(jsonReader);
     }
 }
\ No newline at end of file
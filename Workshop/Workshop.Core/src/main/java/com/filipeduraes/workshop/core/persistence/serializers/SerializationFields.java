@@ -0,0 +1,302 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.serializers;
+
+import com.filipeduraes.workshop.core.persistence.codecs.BinaryJsonReader;
+import com.filipeduraes.workshop.core.persistence.codecs.BinaryJsonWriter;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rotinas de leitura e escrita de campos usadas pelos adaptadores escritos à mão das entidades.
+ * Mantêm o mesmo texto que o Gson produziria por reflexão, e no formato binário gravam
+ * UUIDs e datas diretamente, sem passar pelo texto.
+ *
+ * @author Filipe Durães
+ */
+public final class SerializationFields
+{
+    private SerializationFields()
+    {
+    } //Pure static class
+
+    /**
+     * Consome o próximo valor se ele for nulo.
+     *
+     * @param jsonReader leitor posicionado antes de um valor
+     * @return true se o valor era nulo e foi consumido
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static boolean consumeNull(JsonReader jsonReader) throws IOException
+    {
+        if (jsonReader.peek() == JsonToken.NULL)
+        {
+            jsonReader.nextNull();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Lê um texto que pode ser nulo.
+     *
+     * @param jsonReader leitor posicionado antes do valor
+     * @return texto lido, ou null
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static String readString(JsonReader jsonReader) throws IOException
+    {
+        return consumeNull(jsonReader) ? null : jsonReader.nextString();
+    }
+
+    /**
+     * Lê um valor decimal que pode ser nulo.
+     *
+     * @param jsonReader leitor posicionado antes do valor
+     * @return valor lido, ou null
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static BigDecimal readBigDecimal(JsonReader jsonReader) throws IOException
+    {
+        return consumeNull(jsonReader) ? null : new BigDecimal(jsonReader.nextString());
+    }
+
+    /**
+     * Lê um valor de enumeração pelo nome. Nomes desconhecidos são lidos como null, como no Gson.
+     *
+     * @param <E> tipo da enumeração
+     * @param jsonReader leitor posicionado antes do valor
+     * @param enumType classe da enumeração
+     * @return valor lido, ou null
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static <E extends Enum<E>> E readEnum(JsonReader jsonReader, Class<E> enumType) throws IOException
+    {
+        String name = readString(jsonReader);
+
+        if (name == null)
+        {
+            return null;
+        }
+
+        for (E constant : enumType.getEnumConstants())
+        {
+            if (constant.name().equals(name))
+            {
+                return constant;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Grava um valor de enumeração pelo nome.
+     *
+     * @param jsonWriter escritor de destino
+     * @param value valor a ser gravado, ou null
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    public static void writeEnum(JsonWriter jsonWriter, Enum<?> value) throws IOException
+    {
+        jsonWriter.value(value != null ? value.name() : null);
+    }
+
+    /**
+     * Lê um UUID que pode ser nulo.
+     *
+     * @param jsonReader leitor posicionado antes do valor
+     * @return UUID lido, ou null
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static UUID readUUID(JsonReader jsonReader) throws IOException
+    {
+        if (consumeNull(jsonReader))
+        {
+            return null;
+        }
+
+        if (jsonReader instanceof BinaryJsonReader binaryReader)
+        {
+            return binaryReader.nextUUID();
+        }
+
+        return UUID.fromString(jsonReader.nextString());
+    }
+
+    /**
+     * Grava um UUID que pode ser nulo.
+     *
+     * @param jsonWriter escritor de destino
+     * @param id UUID a ser gravado
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    public static void writeUUID(JsonWriter jsonWriter, UUID id) throws IOException
+    {
+        if (id != null && jsonWriter instanceof BinaryJsonWriter binaryWriter)
+        {
+            binaryWriter.value(id);
+        }
+        else
+        {
+            jsonWriter.value(id != null ? id.toString() : null);
+        }
+    }
+
+    /**
+     * Lê uma data e hora que pode ser nula.
+     *
+     * @param jsonReader leitor posicionado antes do valor
+     * @return data e hora lida, ou null
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static LocalDateTime readDateTime(JsonReader jsonReader) throws IOException
+    {
+        if (consumeNull(jsonReader))
+        {
+            return null;
+        }
+
+        if (jsonReader instanceof BinaryJsonReader binaryReader)
+        {
+            return binaryReader.nextLocalDateTime();
+        }
+
+        return IsoDateTimeFormat.parse(jsonReader.nextString());
+    }
+
+    /**
+     * Grava uma data e hora que pode ser nula.
+     *
+     * @param jsonWriter escritor de destino
+     * @param time data e hora a ser gravada
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    public static void writeDateTime(JsonWriter jsonWriter, LocalDateTime time) throws IOException
+    {
+        if (time != null && jsonWriter instanceof BinaryJsonWriter binaryWriter)
+        {
+            binaryWriter.value(time);
+        }
+        else
+        {
+            jsonWriter.value(time != null ? IsoDateTimeFormat.format(time) : null);
+        }
+    }
+
+    /**
+     * Lê uma lista de UUIDs que pode ser nula.
+     *
+     * @param jsonReader leitor posicionado antes do valor
+     * @return lista lida, ou null
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static List<UUID> readUUIDList(JsonReader jsonReader) throws IOException
+    {
+        if (consumeNull(jsonReader))
+        {
+            return null;
+        }
+
+        List<UUID> ids = new ArrayList<>();
+        jsonReader.beginArray();
+
+        while (jsonReader.hasNext())
+        {
+            ids.add(readUUID(jsonReader));
+        }
+
+        jsonReader.endArray();
+        return ids;
+    }
+
+    /**
+     * Grava uma lista de UUIDs que pode ser nula.
+     *
+     * @param jsonWriter escritor de destino
+     * @param ids lista a ser gravada
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    public static void writeUUIDList(JsonWriter jsonWriter, List<UUID> ids) throws IOException
+    {
+        if (ids == null)
+        {
+            jsonWriter.nullValue();
+            return;
+        }
+
+        jsonWriter.beginArray();
+
+        for (UUID id : ids)
+        {
+            writeUUID(jsonWriter, id);
+        }
+
+        jsonWriter.endArray();
+    }
+
+    /**
+     * Lê uma lista de elementos usando o adaptador informado.
+     *
+     * @param <T> tipo dos elementos
+     * @param jsonReader leitor posicionado antes do valor
+     * @param elementAdapter adaptador dos elementos
+     * @return lista lida, ou null
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static <T> List<T> readList(JsonReader jsonReader, TypeAdapter<T> elementAdapter) throws IOException
+    {
+        if (consumeNull(jsonReader))
+        {
+            return null;
+        }
+
+        List<T> elements = new ArrayList<>();
+        jsonReader.beginArray();
+
+        while (jsonReader.hasNext())
+        {
+            elements.add(elementAdapter.read(jsonReader));
+        }
+
+        jsonReader.endArray();
+        return elements;
+    }
+
+    /**
+     * Grava uma lista de elementos usando o adaptador informado.
+     *
+     * @param <T> tipo dos elementos
+     * @param jsonWriter escritor de destino
+     * @param elements lista a ser gravada, ou null
+     * @param elementAdapter adaptador dos elementos
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    public static <T> void writeList(JsonWriter jsonWriter, List<T> elements, TypeAdapter<T> elementAdapter) throws IOException
+    {
+        if (elements == null)
+        {
+            jsonWriter.nullValue();
+            return;
+        }
+
+        jsonWriter.beginArray();
+
+        for (T element : elements)
+        {
+            elementAdapter.write(jsonWriter, element);
+        }
+
+        jsonWriter.endArray();
+    }
+}
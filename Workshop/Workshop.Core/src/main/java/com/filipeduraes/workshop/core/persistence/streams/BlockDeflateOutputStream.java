@@ -0,0 +1,174 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Fluxo de escrita que comprime os dados em blocos independentes usando Deflate.
+ * Cada bloco é comprimido do zero, então pode ser descomprimido sem ler os blocos anteriores.
+ *
+ * <p>O arquivo começa com {@link #MAGIC}, a versão e o tamanho dos blocos. Cada bloco é gravado como
+ * o tamanho original, o tamanho gravado, o método (guardado ou Deflate) e os bytes, e um bloco
+ * de tamanho zero marca o fim. Blocos que não diminuem com a compressão são guardados sem compressão.</p>
+ *
+ * @author Filipe Durães
+ * @see BlockInflateInputStream
+ */
+public class BlockDeflateOutputStream extends FilterOutputStream
+{
+    /**
+     * Cabeçalho que identifica um arquivo comprimido em blocos. O primeiro byte não aparece
+     * no início de arquivos JSON, binários ou ofuscados, o que permite detectar o formato na leitura.
+     */
+    public static final byte[] MAGIC = {(byte) 0x89, 'W', 'K', 'Z'};
+    /**
+     * Tamanho padrão dos blocos antes da compressão.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    static final int VERSION = 1;
+    static final int STORED_METHOD = 0;
+    static final int DEFLATE_METHOD = 1;
+
+    private final DataOutputStream dataStream;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final byte[] block;
+    private final byte[] compressedBlock;
+    private int blockLength = 0;
+    private boolean isClosed = false;
+
+    /**
+     * Cria um fluxo comprimido com o tamanho de bloco padrão e grava o cabeçalho.
+     *
+     * @param outputStream fluxo que receberá os dados comprimidos
+     * @throws IOException se ocorrer erro ao gravar o cabeçalho
+     */
+    public BlockDeflateOutputStream(OutputStream outputStream) throws IOException
+    {
+        this(outputStream, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Cria um fluxo comprimido e grava o cabeçalho.
+     *
+     * @param outputStream fluxo que receberá os dados comprimidos
+     * @param blockSize tamanho dos blocos antes da compressão
+     * @throws IOException se ocorrer erro ao gravar o cabeçalho
+     */
+    public BlockDeflateOutputStream(OutputStream outputStream, int blockSize) throws IOException
+    {
+        super(outputStream);
+
+        if (blockSize <= 0)
+        {
+            throw new IllegalArgumentException("O tamanho do bloco deve ser maior que zero.");
+        }
+
+        dataStream = new DataOutputStream(outputStream);
+        block = new byte[blockSize];
+        compressedBlock = new byte[blockSize];
+
+        dataStream.write(MAGIC);
+        dataStream.writeByte(VERSION);
+        dataStream.writeInt(blockSize);
+    }
+
+    @Override
+    public void write(int value) throws IOException
+    {
+        if (blockLength == block.length)
+        {
+            writeBlock();
+        }
+
+        block[blockLength++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        while (length > 0)
+        {
+            if (blockLength == block.length)
+            {
+                writeBlock();
+            }
+
+            int copyLength = Math.min(length, block.length - blockLength);
+            System.arraycopy(buffer, offset, block, blockLength, copyLength);
+            blockLength += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+        }
+    }
+
+    /**
+     * Repassa o flush ao fluxo de destino sem fechar o bloco atual, para não prejudicar a compressão.
+     *
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        dataStream.flush();
+    }
+
+    /**
+     * Grava o último bloco, a marca de fim e fecha o fluxo de destino.
+     *
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (isClosed)
+        {
+            return;
+        }
+
+        isClosed = true;
+
+        try
+        {
+            if (blockLength > 0)
+            {
+                writeBlock();
+            }
+
+            dataStream.writeInt(0);
+            dataStream.flush();
+        }
+        finally
+        {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException
+    {
+        deflater.reset();
+        deflater.setInput(block, 0, blockLength);
+        deflater.finish();
+
+        int compressedLength = 0;
+
+        while (!deflater.finished() && compressedLength < blockLength)
+        {
+            compressedLength += deflater.deflate(compressedBlock, compressedLength, compressedBlock.length - compressedLength);
+        }
+
+        boolean isCompressed = deflater.finished() && compressedLength < blockLength;
+
+        dataStream.writeInt(blockLength);
+        dataStream.writeInt(isCompressed ? compressedLength : blockLength);
+        dataStream.writeByte(isCompressed ? DEFLATE_METHOD : STORED_METHOD);
+        dataStream.write(isCompressed ? compressedBlock : block, 0, isCompressed ? compressedLength : blockLength);
+        blockLength = 0;
+    }
+}
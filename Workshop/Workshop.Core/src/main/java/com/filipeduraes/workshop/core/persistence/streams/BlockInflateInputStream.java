@@ -0,0 +1,240 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Fluxo de leitura que descomprime os blocos gravados por {@link BlockDeflateOutputStream}.
+ * Os blocos são descomprimidos um de cada vez, então a memória usada é proporcional ao tamanho do bloco.
+ *
+ * @author Filipe Durães
+ */
+public class BlockInflateInputStream extends FilterInputStream
+{
+    private static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private final DataInputStream dataStream;
+    private final Inflater inflater = new Inflater(true);
+    private final byte[] block;
+    private final byte[] compressedBlock;
+    private int blockLength = 0;
+    private int blockPosition = 0;
+    private boolean hasReachedEnd = false;
+
+    /**
+     * Cria um fluxo de leitura e valida o cabeçalho do arquivo comprimido.
+     *
+     * @param inputStream fluxo posicionado no início do arquivo comprimido
+     * @throws IOException se o cabeçalho for inválido ou ocorrer erro durante a leitura
+     */
+    public BlockInflateInputStream(InputStream inputStream) throws IOException
+    {
+        super(inputStream);
+        dataStream = new DataInputStream(inputStream);
+
+        if (!hasHeader(dataStream, false))
+        {
+            throw new IOException("O arquivo nao esta comprimido em blocos.");
+        }
+
+        int version = dataStream.readUnsignedByte();
+        int blockSize = dataStream.readInt();
+
+        if (version != BlockDeflateOutputStream.VERSION || blockSize <= 0 || blockSize > MAX_BLOCK_SIZE)
+        {
+            throw new IOException("Cabecalho de compressao nao suportado.");
+        }
+
+        block = new byte[blockSize];
+        compressedBlock = new byte[blockSize];
+    }
+
+    /**
+     * Verifica, sem consumir os bytes, se o fluxo começa com o cabeçalho de um arquivo comprimido em blocos.
+     *
+     * @param inputStream fluxo com suporte a marcação, posicionado no início do arquivo
+     * @return true se o arquivo estiver comprimido em blocos
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static boolean hasHeader(InputStream inputStream) throws IOException
+    {
+        return hasHeader(inputStream, true);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (!ensureBlockData())
+        {
+            return -1;
+        }
+
+        return block[blockPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        if (length == 0)
+        {
+            return 0;
+        }
+
+        if (!ensureBlockData())
+        {
+            return -1;
+        }
+
+        int readLength = Math.min(length, blockLength - blockPosition);
+        System.arraycopy(block, blockPosition, buffer, offset, readLength);
+        blockPosition += readLength;
+        return readLength;
+    }
+
+    @Override
+    public long skip(long length) throws IOException
+    {
+        long skipped = 0;
+
+        while (skipped < length && ensureBlockData())
+        {
+            int skipLength = (int) Math.min(length - skipped, blockLength - blockPosition);
+            blockPosition += skipLength;
+            skipped += skipLength;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return blockLength - blockPosition;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        inflater.end();
+        super.close();
+    }
+
+    private static boolean hasHeader(InputStream inputStream, boolean keepPosition) throws IOException
+    {
+        byte[] magic = BlockDeflateOutputStream.MAGIC;
+
+        if (keepPosition)
+        {
+            inputStream.mark(magic.length);
+        }
+
+        boolean matches = true;
+
+        for (int i = 0; i < magic.length && matches; i++)
+        {
+            matches = inputStream.read() == (magic[i] & 0xFF);
+        }
+
+        if (keepPosition)
+        {
+            inputStream.reset();
+        }
+
+        return matches;
+    }
+
+    private boolean ensureBlockData() throws IOException
+    {
+        while (blockPosition == blockLength)
+        {
+            if (hasReachedEnd || !readBlock())
+            {
+                hasReachedEnd = true;
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean readBlock() throws IOException
+    {
+        int originalLength = dataStream.readInt();
+
+        if (originalLength == 0)
+        {
+            return false;
+        }
+
+        int storedLength = dataStream.readInt();
+        int method = dataStream.readUnsignedByte();
+
+        if (originalLength < 0 || originalLength > block.length || storedLength < 0 || storedLength > compressedBlock.length)
+        {
+            throw new IOException("Bloco comprimido corrompido.");
+        }
+
+        if (method == BlockDeflateOutputStream.STORED_METHOD)
+        {
+            dataStream.readFully(block, 0, storedLength);
+        }
+        else if (method == BlockDeflateOutputStream.DEFLATE_METHOD)
+        {
+            dataStream.readFully(compressedBlock, 0, storedLength);
+            inflateBlock(storedLength, originalLength);
+        }
+        else
+        {
+            throw new IOException("Metodo de compressao desconhecido: " + method);
+        }
+
+        blockLength = originalLength;
+        blockPosition = 0;
+        return true;
+    }
+
+    private void inflateBlock(int storedLength, int originalLength) throws IOException
+    {
+        inflater.reset();
+        inflater.setInput(compressedBlock, 0, storedLength);
+
+        try
+        {
+            int inflatedLength = 0;
+
+            while (inflatedLength < originalLength && !inflater.finished())
+            {
+                int count = inflater.inflate(block, inflatedLength, originalLength - inflatedLength);
+
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new EOFException("Bloco comprimido incompleto.");
+                }
+
+                inflatedLength += count;
+            }
+
+            if (inflatedLength != originalLength)
+            {
+                throw new IOException("Bloco comprimido corrompido.");
+            }
+        }
+        catch (DataFormatException exception)
+        {
+            throw new IOException("Bloco comprimido corrompido.", exception);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Fluxo de leitura dos arquivos gravados por {@link ChecksumOutputStream}.
+ * O CRC32C é calculado durante a leitura e conferido com o cabeçalho ao chegar no fim do arquivo ou ao fechar
+ * o fluxo, então um arquivo truncado ou alterado gera um {@link DataCorruptionException} em vez de ser lido como se
+ * estivesse completo.
+ *
+ * @author Filipe Durães
+ */
+public class ChecksumInputStream extends FilterInputStream
+{
+    private static final int DRAIN_BUFFER_SIZE = 8 * 1024;
+
+    private final CRC32C checksum = new CRC32C();
+    private final long expectedLength;
+    private final int expectedChecksum;
+    private long length = 0;
+    private boolean isVerified = false;
+
+    /**
+     * Cria um fluxo de leitura e lê o cabeçalho do arquivo.
+     *
+     * @param inputStream fluxo posicionado no início do arquivo
+     * @throws IOException se o cabeçalho for inválido ou ocorrer erro durante a leitura
+     */
+    public ChecksumInputStream(InputStream inputStream) throws IOException
+    {
+        super(inputStream);
+
+        DataInputStream dataStream = new DataInputStream(inputStream);
+        byte[] magic = new byte[ChecksumOutputStream.MAGIC.length];
+        dataStream.readFully(magic);
+
+        if (!Arrays.equals(magic, ChecksumOutputStream.MAGIC) || dataStream.readUnsignedByte() != ChecksumOutputStream.VERSION)
+        {
+            throw new IOException("Cabecalho de checksum nao suportado.");
+        }
+
+        expectedLength = dataStream.readLong();
+        expectedChecksum = dataStream.readInt();
+    }
+
+    /**
+     * Verifica, sem alterar a posição do canal, se o arquivo começa com o cabeçalho de checksum.
+     *
+     * @param fileChannel canal do arquivo
+     * @return true se o arquivo tiver o cabeçalho de checksum
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public static boolean hasHeader(FileChannel fileChannel) throws IOException
+    {
+        ByteBuffer magic = ByteBuffer.allocate(ChecksumOutputStream.MAGIC.length);
+
+        while (magic.hasRemaining() && fileChannel.read(magic, magic.position()) > 0)
+        {
+            // Lê até completar o identificador ou chegar no fim do arquivo
+        }
+
+        return !magic.hasRemaining() && Arrays.equals(magic.array(), ChecksumOutputStream.MAGIC);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int value = in.read();
+
+        if (value < 0)
+        {
+            verify();
+            return value;
+        }
+
+        checksum.update(value);
+        length++;
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        int readLength = in.read(buffer, offset, length);
+
+        if (readLength < 0)
+        {
+            verify();
+            return readLength;
+        }
+
+        checksum.update(buffer, offset, readLength);
+        this.length += readLength;
+        return readLength;
+    }
+
+    @Override
+    public long skip(long length) throws IOException
+    {
+        byte[] buffer = new byte[(int) Math.min(DRAIN_BUFFER_SIZE, Math.max(length, 1))];
+        long skipped = 0;
+
+        while (skipped < length)
+        {
+            int readLength = read(buffer, 0, (int) Math.min(buffer.length, length - skipped));
+
+            if (readLength < 0)
+            {
+                break;
+            }
+
+            skipped += readLength;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Lê o restante do arquivo, confere o checksum e fecha o fluxo.
+     *
+     * @throws DataCorruptionException se o arquivo estiver corrompido
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            if (!isVerified)
+            {
+                byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+
+                while (read(buffer, 0, buffer.length) >= 0)
+                {
+                    // Descarta o restante do arquivo para conferir o checksum completo
+                }
+            }
+        }
+        finally
+        {
+            super.close();
+        }
+    }
+
+    private void verify() throws IOException
+    {
+        if (isVerified)
+        {
+            return;
+        }
+
+        isVerified = true;
+
+        if (length != expectedLength || (int) checksum.getValue() != expectedChecksum)
+        {
+            throw new DataCorruptionException("Arquivo corrompido: o checksum nao confere com o cabecalho.");
+        }
+    }
+}
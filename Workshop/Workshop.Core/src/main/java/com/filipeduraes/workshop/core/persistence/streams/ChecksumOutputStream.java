@@ -0,0 +1,123 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * Fluxo de escrita que grava um arquivo precedido por um cabeçalho com a versão, o tamanho e o CRC32C do conteúdo.
+ * O cabeçalho é reservado no início e preenchido ao fechar o fluxo, então o conteúdo é gravado em fluxo normalmente.
+ *
+ * <p>O cabeçalho permite verificar a integridade do arquivo sem interpretar o seu conteúdo, em qualquer formato
+ * ou proteção. Os bytes verificados são os gravados em disco, depois da compressão e da criptografia.</p>
+ *
+ * @author Filipe Durães
+ * @see ChecksumInputStream
+ */
+public class ChecksumOutputStream extends FilterOutputStream
+{
+    /**
+     * Cabeçalho que identifica um arquivo com checksum. O primeiro byte não aparece no início
+     * de arquivos JSON, binários, comprimidos ou criptografados.
+     */
+    public static final byte[] MAGIC = {(byte) 0x8B, 'W', 'K', 'C'};
+    /**
+     * Versão atual do cabeçalho.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Tamanho do cabeçalho: identificador, versão, tamanho do conteúdo e CRC32C.
+     */
+    public static final int HEADER_LENGTH = 4 + 1 + Long.BYTES + Integer.BYTES;
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel fileChannel;
+    private final CRC32C checksum = new CRC32C();
+    private long length = 0;
+    private boolean isClosed = false;
+
+    /**
+     * Cria o fluxo e reserva o cabeçalho no início do arquivo.
+     *
+     * @param fileChannel canal do arquivo, vazio e aberto para escrita
+     * @throws IOException se ocorrer erro ao reservar o cabeçalho
+     */
+    public ChecksumOutputStream(FileChannel fileChannel) throws IOException
+    {
+        super(new BufferedOutputStream(Channels.newOutputStream(fileChannel), STREAM_BUFFER_SIZE));
+        this.fileChannel = fileChannel;
+        out.write(createHeader(0, 0));
+    }
+
+    /**
+     * Cria o cabeçalho de um arquivo com checksum.
+     *
+     * @param length tamanho do conteúdo, sem o cabeçalho
+     * @param checksum CRC32C do conteúdo
+     * @return bytes do cabeçalho
+     */
+    public static byte[] createHeader(long length, int checksum)
+    {
+        return ByteBuffer.allocate(HEADER_LENGTH)
+                         .put(MAGIC)
+                         .put((byte) VERSION)
+                         .putLong(length)
+                         .putInt(checksum)
+                         .array();
+    }
+
+    @Override
+    public void write(int value) throws IOException
+    {
+        checksum.update(value);
+        length++;
+        out.write(value);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        checksum.update(buffer, offset, length);
+        this.length += length;
+        out.write(buffer, offset, length);
+    }
+
+    /**
+     * Grava o conteúdo pendente, preenche o cabeçalho e fecha o arquivo.
+     *
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (isClosed)
+        {
+            return;
+        }
+
+        isClosed = true;
+
+        try
+        {
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.wrap(createHeader(length, (int) checksum.getValue()));
+
+            while (header.hasRemaining())
+            {
+                fileChannel.write(header, header.position());
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * Erro de leitura de um arquivo cujo conteúdo não confere com o checksum gravado, como um arquivo truncado ou alterado.
+ * Diferente de outros erros de leitura, indica que os dados em disco estão corrompidos e não devem ser sobrescritos.
+ *
+ * @author Filipe Durães
+ */
+public class DataCorruptionException extends IOException
+{
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cria o erro com a mensagem informada.
+     *
+     * @param message descrição da corrupção encontrada
+     */
+    public DataCorruptionException(String message)
+    {
+        super(message);
+    }
+}
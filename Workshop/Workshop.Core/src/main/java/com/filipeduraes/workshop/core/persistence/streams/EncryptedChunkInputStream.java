@@ -0,0 +1,212 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Fluxo de leitura que descriptografa e autentica os blocos gravados por {@link EncryptedChunkOutputStream}.
+ * Os dados de um bloco só são entregues depois da sua autenticação, e o fim do arquivo antes do bloco final
+ * é tratado como erro, então arquivos alterados ou truncados nunca são lidos parcialmente sem aviso.
+ *
+ * <p>Um arquivo vazio é lido como um fluxo vazio.</p>
+ *
+ * @author Filipe Durães
+ */
+public class EncryptedChunkInputStream extends FilterInputStream
+{
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final DataInputStream dataStream;
+    private final SecretKey key;
+    private Cipher cipher;
+    private byte[] header;
+    private byte[] chunk;
+    private byte[] encryptedChunk;
+    private int chunkLength = 0;
+    private int chunkPosition = 0;
+    private int chunkIndex = 0;
+    private boolean hasReadHeader = false;
+    private boolean hasReachedEnd = false;
+
+    /**
+     * Cria um fluxo de leitura sobre um arquivo criptografado em blocos.
+     *
+     * @param inputStream fluxo posicionado no início do arquivo criptografado
+     * @param key chave AES usada na gravação
+     */
+    public EncryptedChunkInputStream(InputStream inputStream, SecretKey key)
+    {
+        super(inputStream);
+        dataStream = new DataInputStream(inputStream);
+        this.key = key;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (!ensureChunkData())
+        {
+            return -1;
+        }
+
+        return chunk[chunkPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        if (length == 0)
+        {
+            return 0;
+        }
+
+        if (!ensureChunkData())
+        {
+            return -1;
+        }
+
+        int readLength = Math.min(length, chunkLength - chunkPosition);
+        System.arraycopy(chunk, chunkPosition, buffer, offset, readLength);
+        chunkPosition += readLength;
+        return readLength;
+    }
+
+    @Override
+    public long skip(long length) throws IOException
+    {
+        long skipped = 0;
+
+        while (skipped < length && ensureChunkData())
+        {
+            int skipLength = (int) Math.min(length - skipped, chunkLength - chunkPosition);
+            chunkPosition += skipLength;
+            skipped += skipLength;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return chunkLength - chunkPosition;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    private boolean ensureChunkData() throws IOException
+    {
+        if (!hasReadHeader)
+        {
+            hasReadHeader = true;
+            hasReachedEnd = !readHeader();
+        }
+
+        while (chunkPosition == chunkLength)
+        {
+            if (hasReachedEnd)
+            {
+                return false;
+            }
+
+            readChunk();
+        }
+
+        return true;
+    }
+
+    private boolean readHeader() throws IOException
+    {
+        int first = dataStream.read();
+
+        if (first < 0)
+        {
+            return false;
+        }
+
+        header = new byte[EncryptedChunkOutputStream.HEADER_LENGTH];
+        header[0] = (byte) first;
+        dataStream.readFully(header, 1, header.length - 1);
+
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        byte[] magic = new byte[EncryptedChunkOutputStream.MAGIC.length];
+        headerBuffer.get(magic);
+        int version = headerBuffer.get() & 0xFF;
+        int chunkSize = headerBuffer.getInt();
+
+        if (!Arrays.equals(magic, EncryptedChunkOutputStream.MAGIC))
+        {
+            throw new IOException("O arquivo nao esta criptografado em blocos.");
+        }
+
+        if (version != EncryptedChunkOutputStream.VERSION || chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE)
+        {
+            throw new IOException("Cabecalho de criptografia nao suportado.");
+        }
+
+        cipher = EncryptedChunkOutputStream.createCipher();
+        chunk = new byte[chunkSize];
+        encryptedChunk = new byte[chunkSize + EncryptedChunkOutputStream.TAG_LENGTH];
+        return true;
+    }
+
+    private void readChunk() throws IOException
+    {
+        boolean isFinal;
+        int originalLength;
+
+        try
+        {
+            isFinal = dataStream.readBoolean();
+            originalLength = dataStream.readInt();
+        }
+        catch (EOFException exception)
+        {
+            throw new EOFException("Arquivo criptografado truncado.");
+        }
+
+        if (originalLength < 0 || originalLength > chunk.length)
+        {
+            throw new IOException("Bloco criptografado corrompido.");
+        }
+
+        int encryptedLength = originalLength + EncryptedChunkOutputStream.TAG_LENGTH;
+        dataStream.readFully(encryptedChunk, 0, encryptedLength);
+
+        try
+        {
+            byte[] nonce = EncryptedChunkOutputStream.createNonce(header, chunkIndex);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(EncryptedChunkOutputStream.TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(EncryptedChunkOutputStream.createAssociatedData(header, chunkIndex, isFinal));
+            chunkLength = cipher.doFinal(encryptedChunk, 0, encryptedLength, chunk, 0);
+        }
+        catch (AEADBadTagException exception)
+        {
+            throw new IOException("Bloco criptografado alterado ou chave incorreta.", exception);
+        }
+        catch (GeneralSecurityException exception)
+        {
+            throw new IOException("Falha ao descriptografar o bloco.", exception);
+        }
+
+        chunkPosition = 0;
+        chunkIndex++;
+        hasReachedEnd = isFinal;
+    }
+}
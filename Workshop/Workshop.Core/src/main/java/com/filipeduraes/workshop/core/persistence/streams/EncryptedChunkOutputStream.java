@@ -0,0 +1,220 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Fluxo de escrita que criptografa os dados com AES-GCM em blocos autenticados de forma independente.
+ * Cada bloco é cifrado assim que fica completo, então a memória usada é proporcional ao tamanho do bloco.
+ *
+ * <p>O arquivo começa com {@link #MAGIC}, a versão, o tamanho dos blocos e um prefixo aleatório de nonce.
+ * Cada bloco é gravado como uma marca de último bloco, o tamanho original e o texto cifrado com a etiqueta.
+ * O nonce de cada bloco é o prefixo do arquivo seguido do índice do bloco, e o cabeçalho, o índice e a marca
+ * são autenticados junto com o bloco, então blocos trocados de posição, removidos ou truncados são detectados.</p>
+ *
+ * @author Filipe Durães
+ * @see EncryptedChunkInputStream
+ */
+public class EncryptedChunkOutputStream extends FilterOutputStream
+{
+    /**
+     * Cabeçalho que identifica um arquivo criptografado em blocos.
+     */
+    public static final byte[] MAGIC = {(byte) 0x8A, 'W', 'K', 'E'};
+    /**
+     * Tamanho padrão dos blocos antes da criptografia.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    static final int VERSION = 1;
+    static final int NONCE_PREFIX_LENGTH = 8;
+    static final int NONCE_LENGTH = 12;
+    static final int TAG_LENGTH = 16;
+    static final int HEADER_LENGTH = 4 + 1 + Integer.BYTES + NONCE_PREFIX_LENGTH;
+
+    private static final SecureRandom Random = new SecureRandom();
+
+    private final DataOutputStream dataStream;
+    private final Cipher cipher;
+    private final SecretKey key;
+    private final byte[] header;
+    private final byte[] chunk;
+    private final byte[] encryptedChunk;
+    private int chunkLength = 0;
+    private int chunkIndex = 0;
+    private boolean isClosed = false;
+
+    /**
+     * Cria um fluxo criptografado com o tamanho de bloco padrão e grava o cabeçalho.
+     *
+     * @param outputStream fluxo que receberá os dados criptografados
+     * @param key chave AES
+     * @throws IOException se ocorrer erro ao gravar o cabeçalho ou o AES-GCM não estiver disponível
+     */
+    public EncryptedChunkOutputStream(OutputStream outputStream, SecretKey key) throws IOException
+    {
+        this(outputStream, key, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Cria um fluxo criptografado e grava o cabeçalho.
+     *
+     * @param outputStream fluxo que receberá os dados criptografados
+     * @param key chave AES
+     * @param chunkSize tamanho dos blocos antes da criptografia
+     * @throws IOException se ocorrer erro ao gravar o cabeçalho ou o AES-GCM não estiver disponível
+     */
+    public EncryptedChunkOutputStream(OutputStream outputStream, SecretKey key, int chunkSize) throws IOException
+    {
+        super(outputStream);
+
+        if (chunkSize <= 0)
+        {
+            throw new IllegalArgumentException("O tamanho do bloco deve ser maior que zero.");
+        }
+
+        this.key = key;
+        cipher = createCipher();
+        dataStream = new DataOutputStream(outputStream);
+        chunk = new byte[chunkSize];
+        encryptedChunk = new byte[chunkSize + TAG_LENGTH];
+
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        Random.nextBytes(noncePrefix);
+
+        header = ByteBuffer.allocate(HEADER_LENGTH)
+                           .put(MAGIC)
+                           .put((byte) VERSION)
+                           .putInt(chunkSize)
+                           .put(noncePrefix)
+                           .array();
+
+        dataStream.write(header);
+    }
+
+    @Override
+    public void write(int value) throws IOException
+    {
+        if (chunkLength == chunk.length)
+        {
+            writeChunk(false);
+        }
+
+        chunk[chunkLength++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        while (length > 0)
+        {
+            if (chunkLength == chunk.length)
+            {
+                writeChunk(false);
+            }
+
+            int copyLength = Math.min(length, chunk.length - chunkLength);
+            System.arraycopy(buffer, offset, chunk, chunkLength, copyLength);
+            chunkLength += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+        }
+    }
+
+    /**
+     * Repassa o flush ao fluxo de destino sem fechar o bloco atual.
+     *
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        dataStream.flush();
+    }
+
+    /**
+     * Grava o último bloco, marcado como final, e fecha o fluxo de destino.
+     *
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (isClosed)
+        {
+            return;
+        }
+
+        isClosed = true;
+
+        try
+        {
+            writeChunk(true);
+            dataStream.flush();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private void writeChunk(boolean isFinal) throws IOException
+    {
+        try
+        {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, createNonce(header, chunkIndex)));
+            cipher.updateAAD(createAssociatedData(header, chunkIndex, isFinal));
+            int encryptedLength = cipher.doFinal(chunk, 0, chunkLength, encryptedChunk, 0);
+
+            dataStream.writeBoolean(isFinal);
+            dataStream.writeInt(chunkLength);
+            dataStream.write(encryptedChunk, 0, encryptedLength);
+        }
+        catch (GeneralSecurityException exception)
+        {
+            throw new IOException("Falha ao criptografar o bloco.", exception);
+        }
+
+        chunkLength = 0;
+        chunkIndex++;
+    }
+
+    static Cipher createCipher() throws IOException
+    {
+        try
+        {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        }
+        catch (GeneralSecurityException exception)
+        {
+            throw new IOException("AES-GCM nao esta disponivel.", exception);
+        }
+    }
+
+    static byte[] createNonce(byte[] header, int chunkIndex)
+    {
+        return ByteBuffer.allocate(NONCE_LENGTH)
+                         .put(header, HEADER_LENGTH - NONCE_PREFIX_LENGTH, NONCE_PREFIX_LENGTH)
+                         .putInt(chunkIndex)
+                         .array();
+    }
+
+    static byte[] createAssociatedData(byte[] header, int chunkIndex, boolean isFinal)
+    {
+        return ByteBuffer.allocate(HEADER_LENGTH + Integer.BYTES + 1)
+                         .put(header)
+                         .putInt(chunkIndex)
+                         .put((byte) (isFinal ? 1 : 0))
+                         .array();
+    }
+}
@@ -0,0 +1,158 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fluxo de leitura que calcula o hash SHA-256 e conta os bytes enquanto os dados são lidos.
+ *
+ * <p>Quando o leitor pode parar antes do fim, {@link #drain()} consome os bytes ainda não lidos,
+ * para que o hash corresponda ao conteúdo completo. O fluxo também é consumido ao ser fechado,
+ * porque alguns leitores fecham o fluxo que recebem.</p>
+ *
+ * @author Filipe Durães
+ * @see HashingOutputStream
+ */
+public class HashingInputStream extends FilterInputStream
+{
+    private final MessageDigest digest = createDigest();
+    private long byteCount = 0;
+    private boolean isDrained = false;
+
+    /**
+     * Cria um fluxo de leitura que calcula o hash dos dados lidos.
+     *
+     * @param inputStream fluxo de origem dos dados
+     */
+    public HashingInputStream(InputStream inputStream)
+    {
+        super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int value = in.read();
+
+        if (value >= 0)
+        {
+            digest.update((byte) value);
+            byteCount++;
+        }
+
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        int readLength = in.read(buffer, offset, length);
+
+        if (readLength > 0)
+        {
+            digest.update(buffer, offset, readLength);
+            byteCount += readLength;
+        }
+
+        return readLength;
+    }
+
+    @Override
+    public long skip(long length) throws IOException
+    {
+        byte[] buffer = new byte[(int) Math.min(length, 8 * 1024)];
+        long skipped = 0;
+
+        while (skipped < length)
+        {
+            int readLength = read(buffer, 0, (int) Math.min(buffer.length, length - skipped));
+
+            if (readLength < 0)
+            {
+                break;
+            }
+
+            skipped += readLength;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Consome os bytes restantes, para que o hash e a contagem correspondam ao conteúdo completo.
+     *
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    public void drain() throws IOException
+    {
+        if (isDrained)
+        {
+            return;
+        }
+
+        isDrained = true;
+        transferTo(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Consome os bytes restantes e fecha o fluxo de origem.
+     *
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            drain();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Obtém o hash dos bytes lidos. Deve ser chamado apenas uma vez, depois de {@link #drain()}.
+     *
+     * @return hash SHA-256 dos bytes lidos
+     */
+    public byte[] getHash()
+    {
+        return digest.digest();
+    }
+
+    /**
+     * Obtém a quantidade de bytes lidos.
+     *
+     * @return quantidade de bytes lidos
+     */
+    public long getByteCount()
+    {
+        return byteCount;
+    }
+
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IllegalStateException("SHA-256 nao esta disponivel.", exception);
+        }
+    }
+}
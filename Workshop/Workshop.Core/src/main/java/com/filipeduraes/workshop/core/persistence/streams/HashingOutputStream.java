@@ -0,0 +1,79 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fluxo de escrita que calcula o hash SHA-256 e conta os bytes enquanto os dados são gravados.
+ *
+ * @author Filipe Durães
+ * @see HashingInputStream
+ */
+public class HashingOutputStream extends FilterOutputStream
+{
+    private final MessageDigest digest = createDigest();
+    private long byteCount = 0;
+
+    /**
+     * Cria um fluxo de escrita que calcula o hash dos dados gravados.
+     *
+     * @param outputStream fluxo que receberá os dados
+     */
+    public HashingOutputStream(OutputStream outputStream)
+    {
+        super(outputStream);
+    }
+
+    @Override
+    public void write(int value) throws IOException
+    {
+        out.write(value);
+        digest.update((byte) value);
+        byteCount++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        out.write(buffer, offset, length);
+        digest.update(buffer, offset, length);
+        byteCount += length;
+    }
+
+    /**
+     * Obtém o hash dos bytes gravados até o momento. Deve ser chamado apenas uma vez.
+     *
+     * @return hash SHA-256 dos bytes gravados
+     */
+    public byte[] getHash()
+    {
+        return digest.digest();
+    }
+
+    /**
+     * Obtém a quantidade de bytes gravados até o momento.
+     *
+     * @return quantidade de bytes gravados
+     */
+    public long getByteCount()
+    {
+        return byteCount;
+    }
+
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IllegalStateException("SHA-256 nao esta disponivel.", exception);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fluxo de leitura que desfaz a ofuscação XOR byte a byte enquanto os dados são lidos.
+ * Permite ler arquivos ofuscados sem carregar o conteúdo completo na memória.
+ *
+ * @author Filipe Durães
+ */
+public class XorInputStream extends FilterInputStream
+{
+    private final byte key;
+
+    /**
+     * Cria um fluxo de leitura que aplica XOR com a chave especificada.
+     *
+     * @param inputStream fluxo com os dados ofuscados
+     * @param key chave usada na ofuscação
+     */
+    public XorInputStream(InputStream inputStream, byte key)
+    {
+        super(inputStream);
+        this.key = key;
+    }
+
+    /**
+     * Lê um byte e desfaz a ofuscação.
+     *
+     * @return byte lido, ou -1 no fim do fluxo
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    @Override
+    public int read() throws IOException
+    {
+        int value = super.read();
+        return value < 0 ? value : (value ^ key) & 0xFF;
+    }
+
+    /**
+     * Lê um bloco de bytes e desfaz a ofuscação diretamente no buffer informado.
+     *
+     * @param buffer buffer de destino
+     * @param offset posição inicial no buffer
+     * @param length quantidade máxima de bytes a serem lidos
+     * @return quantidade de bytes lidos, ou -1 no fim do fluxo
+     * @throws IOException se ocorrer erro durante a leitura
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        int readCount = super.read(buffer, offset, length);
+
+        for (int i = 0; i < readCount; i++)
+        {
+            buffer[offset + i] ^= key;
+        }
+
+        return readCount;
+    }
+}
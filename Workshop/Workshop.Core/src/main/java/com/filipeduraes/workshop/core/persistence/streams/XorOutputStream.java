@@ -0,0 +1,71 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.core.persistence.streams;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Fluxo de escrita que aplica a ofuscação XOR byte a byte enquanto os dados são gravados.
+ * Permite gravar arquivos ofuscados sem montar o conteúdo completo na memória.
+ *
+ * @author Filipe Durães
+ */
+public class XorOutputStream extends FilterOutputStream
+{
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final byte key;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    /**
+     * Cria um fluxo de escrita que aplica XOR com a chave especificada.
+     *
+     * @param outputStream fluxo que receberá os dados ofuscados
+     * @param key chave usada na ofuscação
+     */
+    public XorOutputStream(OutputStream outputStream, byte key)
+    {
+        super(outputStream);
+        this.key = key;
+    }
+
+    /**
+     * Ofusca e grava um byte.
+     *
+     * @param value byte a ser gravado
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    @Override
+    public void write(int value) throws IOException
+    {
+        out.write(value ^ key);
+    }
+
+    /**
+     * Ofusca e grava um bloco de bytes, sem alterar o buffer informado.
+     *
+     * @param buffer buffer de origem
+     * @param offset posição inicial no buffer
+     * @param length quantidade de bytes a serem gravados
+     * @throws IOException se ocorrer erro durante a escrita
+     */
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        while (length > 0)
+        {
+            int chunkLength = Math.min(length, CHUNK_SIZE);
+
+            for (int i = 0; i < chunkLength; i++)
+            {
+                chunk[i] = (byte) (buffer[offset + i] ^ key);
+            }
+
+            out.write(chunk, 0, chunkLength);
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+}
@@ -3,6 +3,12 @@
 package com.filipeduraes.workshop.core.vehicle;
 
 import com.filipeduraes.workshop.core.WorkshopEntity;
+import com.filipeduraes.workshop.core.persistence.serializers.SerializationFields;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.UUID;
 
 /**
@@ -134,4 +140,64 @@ public class Vehicle extends WorkshopEntity
     {
         return String.format("%s %s (%s)", model, color, year);
     }
+
+    /**
+     * Adaptador de serialização escrito à mão para veículos, que lê e grava os campos diretamente, sem reflexão.
+     *
+     * @author Filipe Durães
+     */
+    public static class Adapter extends TypeAdapter<Vehicle>
+    {
+        @Override
+        public void write(JsonWriter jsonWriter, Vehicle vehicle) throws IOException
+        {
+            if (vehicle == null)
+            {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name("ownerID");
+            SerializationFields.writeUUID(jsonWriter, vehicle.ownerID);
+            jsonWriter.name("model").value(vehicle.model);
+            jsonWriter.name("color").value(vehicle.color);
+            jsonWriter.name("vinNumber").value(vehicle.vinNumber);
+            jsonWriter.name("licensePlate").value(vehicle.licensePlate);
+            jsonWriter.name("year").value(vehicle.year);
+            jsonWriter.name("id");
+            SerializationFields.writeUUID(jsonWriter, vehicle.getID());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public Vehicle read(JsonReader jsonReader) throws IOException
+        {
+            if (SerializationFields.consumeNull(jsonReader))
+            {
+                return null;
+            }
+
+            Vehicle vehicle = new Vehicle();
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext())
+            {
+                switch (jsonReader.nextName())
+                {
+                    case "ownerID" -> vehicle.ownerID = SerializationFields.readUUID(jsonReader);
+                    case "model" -> vehicle.model = SerializationFields.readString(jsonReader);
+                    case "color" -> vehicle.color = SerializationFields.readString(jsonReader);
+                    case "vinNumber" -> vehicle.vinNumber = SerializationFields.readString(jsonReader);
+                    case "licensePlate" -> vehicle.licensePlate = SerializationFields.readString(jsonReader);
+                    case "year" -> vehicle.year = jsonReader.nextInt();
+                    case "id" -> vehicle.assignID(SerializationFields.readUUID(jsonReader));
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+            return vehicle;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+// Copyright Filipe Durães. All rights reserved.
+
+package com.filipeduraes.workshop.utils;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Função de hash perfeita mínima sobre um conjunto fixo de UUIDs.
+ * Cada UUID do conjunto é mapeado para uma posição única entre 0 e n - 1, sem colisões,
+ * permitindo guardar os dados associados em arrays simples indexados por essa posição.
+ *
+ * <p>Usa o algoritmo "hash and displace" (CHD): as chaves são distribuídas em pequenos grupos
+ * e, para cada grupo, é procurado um deslocamento que posicione todas as suas chaves em posições livres.
+ * A consulta não aloca memória e custa dois cálculos de hash. UUIDs fora do conjunto também recebem
+ * uma posição, então quem consulta deve conferir a chave guardada na posição retornada.</p>
+ *
+ * @author Filipe Durães
+ */
+public final class UUIDPerfectHash
+{
+    private static final int AVERAGE_BUCKET_SIZE = 4;
+    private static final int MAX_SEED_ATTEMPTS = 64;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final int[] displacements;
+    private final int slotCount;
+
+    private UUIDPerfectHash(long seed, int[] displacements, int slotCount)
+    {
+        this.seed = seed;
+        this.displacements = displacements;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Constrói a função de hash para o conjunto de UUIDs informado.
+     * As chaves são informadas como as duas metades de 64 bits de cada UUID e não podem se repetir.
+     *
+     * @param mostSignificantBits metades mais significativas dos UUIDs
+     * @param leastSignificantBits metades menos significativas dos UUIDs
+     * @return função de hash perfeita mínima para o conjunto
+     * @throws IllegalArgumentException se as chaves se repetirem ou os arrays tiverem tamanhos diferentes
+     */
+    public static UUIDPerfectHash build(long[] mostSignificantBits, long[] leastSignificantBits)
+    {
+        if (mostSignificantBits.length != leastSignificantBits.length)
+        {
+            throw new IllegalArgumentException("As duas metades dos UUIDs devem ter o mesmo tamanho.");
+        }
+
+        int keyCount = mostSignificantBits.length;
+
+        if (keyCount == 0)
+        {
+            return new UUIDPerfectHash(0, new int[0], 0);
+        }
+
+        int bucketCount = (keyCount + AVERAGE_BUCKET_SIZE - 1) / AVERAGE_BUCKET_SIZE;
+        int maxDisplacementAttempts = Math.max(1 << 16, keyCount * 32);
+
+        for (int attempt = 0; attempt < MAX_SEED_ATTEMPTS; attempt++)
+        {
+            long seed = mix(attempt * GOLDEN_RATIO + keyCount);
+            int[] displacements = tryBuild(mostSignificantBits, leastSignificantBits, seed, bucketCount, maxDisplacementAttempts);
+
+            if (displacements != null)
+            {
+                return new UUIDPerfectHash(seed, displacements, keyCount);
+            }
+        }
+
+        throw new IllegalArgumentException("Nao foi possivel construir o hash perfeito, verifique se existem UUIDs repetidos.");
+    }
+
+    /**
+     * Obtém a posição associada ao UUID informado.
+     *
+     * @param id UUID consultado
+     * @return posição entre 0 e {@link #getSlotCount()} - 1, ou -1 se o conjunto estiver vazio
+     */
+    public int slotOf(UUID id)
+    {
+        return slotOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Obtém a posição associada ao UUID informado através de suas duas metades.
+     *
+     * @param mostSignificantBits metade mais significativa do UUID
+     * @param leastSignificantBits metade menos significativa do UUID
+     * @return posição entre 0 e {@link #getSlotCount()} - 1, ou -1 se o conjunto estiver vazio
+     */
+    public int slotOf(long mostSignificantBits, long leastSignificantBits)
+    {
+        if (slotCount == 0)
+        {
+            return -1;
+        }
+
+        long hash = hashKey(mostSignificantBits, leastSignificantBits, seed);
+        int bucket = reduce(hash, displacements.length);
+        return reduce(displace(hash, displacements[bucket]), slotCount);
+    }
+
+    /**
+     * Obtém a quantidade de posições da função, igual à quantidade de chaves usadas na construção.
+     *
+     * @return quantidade de posições
+     */
+    public int getSlotCount()
+    {
+        return slotCount;
+    }
+
+    private static int[] tryBuild(long[] mostSignificantBits, long[] leastSignificantBits, long seed, int bucketCount, int maxDisplacementAttempts)
+    {
+        int keyCount = mostSignificantBits.length;
+        long[] hashes = new long[keyCount];
+        int[] bucketSizes = new int[bucketCount];
+        int[] keyBuckets = new int[keyCount];
+
+        for (int key = 0; key < keyCount; key++)
+        {
+            hashes[key] = hashKey(mostSignificantBits[key], leastSignificantBits[key], seed);
+            keyBuckets[key] = reduce(hashes[key], bucketCount);
+            bucketSizes[keyBuckets[key]]++;
+        }
+
+        int[] bucketStarts = new int[bucketCount + 1];
+
+        for (int bucket = 0; bucket < bucketCount; bucket++)
+        {
+            bucketStarts[bucket + 1] = bucketStarts[bucket] + bucketSizes[bucket];
+        }
+
+        int[] bucketKeys = new int[keyCount];
+        int[] fillPositions = Arrays.copyOf(bucketStarts, bucketCount);
+
+        for (int key = 0; key < keyCount; key++)
+        {
+            bucketKeys[fillPositions[keyBuckets[key]]++] = key;
+        }
+
+        Integer[] bucketOrder = new Integer[bucketCount];
+
+        for (int bucket = 0; bucket < bucketCount; bucket++)
+        {
+            bucketOrder[bucket] = bucket;
+        }
+
+        Arrays.sort(bucketOrder, (first, second) -> Integer.compare(bucketSizes[second], bucketSizes[first]));
+
+        boolean[] occupiedSlots = new boolean[keyCount];
+        int[] displacements = new int[bucketCount];
+        int[] candidateSlots = new int[keyCount];
+
+        for (int bucket : bucketOrder)
+        {
+            int start = bucketStarts[bucket];
+            int size = bucketSizes[bucket];
+
+            if (size == 0)
+            {
+                continue;
+            }
+
+            boolean placed = false;
+
+            for (int displacement = 0; displacement < maxDisplacementAttempts && !placed; displacement++)
+            {
+                placed = tryPlaceBucket(bucketKeys, start, size, hashes, displacement, occupiedSlots, candidateSlots);
+
+                if (placed)
+                {
+                    displacements[bucket] = displacement;
+                }
+            }
+
+            if (!placed)
+            {
+                return null;
+            }
+        }
+
+        return displacements;
+    }
+
+    private static boolean tryPlaceBucket(int[] bucketKeys, int start, int size, long[] hashes, int displacement, boolean[] occupiedSlots, int[] candidateSlots)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            int slot = reduce(displace(hashes[bucketKeys[start + i]], displacement), occupiedSlots.length);
+
+            if (occupiedSlots[slot])
+            {
+                releaseSlots(candidateSlots, i, occupiedSlots);
+                return false;
+            }
+
+            occupiedSlots[slot] = true;
+            candidateSlots[i] = slot;
+        }
+
+        return true;
+    }
+
+    private static void releaseSlots(int[] candidateSlots, int count, boolean[] occupiedSlots)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            occupiedSlots[candidateSlots[i]] = false;
+        }
+    }
+
+    private static long hashKey(long mostSignificantBits, long leastSignificantBits, long seed)
+    {
+        return mix(mostSignificantBits ^ mix(leastSignificantBits + seed));
+    }
+
+    private static long displace(long hash, int displacement)
+    {
+        return mix(hash + displacement * GOLDEN_RATIO);
+    }
+
+    private static int reduce(long hash, int range)
+    {
+        return (int) Long.remainderUnsigned(hash, range);
+    }
+
+    private static long mix(long value)
+    {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}